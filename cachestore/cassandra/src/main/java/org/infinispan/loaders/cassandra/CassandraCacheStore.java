@@ -133,6 +133,42 @@ public class CassandraCacheStore extends AbstractCacheStore {
 		}
 	}
 
+	/**
+	 * Fetches the keys with multiget_slice calls of up to SLICE_SIZE keys each.
+	 */
+	@Override
+	public Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+		Map<String, Object> keysByHash = new HashMap<String, Object>();
+		for (Object key : keys)
+			keysByHash.put(hashKey(key), key);
+		List<String> hashKeys = new ArrayList<String>(keysByHash.keySet());
+		Cassandra.Client cassandraClient = null;
+		try {
+			cassandraClient = dataSource.getConnection();
+			Set<InternalCacheEntry> s = new HashSet<InternalCacheEntry>();
+			SlicePredicate slicePredicate = new SlicePredicate();
+			slicePredicate.setSlice_range(new SliceRange(entryColumnPath.getColumn(), emptyByteArray, false, 1));
+			for (int from = 0; from < hashKeys.size(); from += SLICE_SIZE) {
+				List<String> slice = hashKeys.subList(from, Math.min(from + SLICE_SIZE, hashKeys.size()));
+				Map<String, List<ColumnOrSuperColumn>> rows = cassandraClient.multiget_slice(config.keySpace, slice, entryColumnParent, slicePredicate, readConsistencyLevel);
+				for (Map.Entry<String, List<ColumnOrSuperColumn>> row : rows.entrySet()) {
+					List<ColumnOrSuperColumn> columns = row.getValue();
+					if (columns == null || columns.isEmpty())
+						continue;
+					InternalCacheEntry ice = unmarshall(columns.get(0).getColumn().getValue(), keysByHash.get(row.getKey()));
+					// expired entries are left for the purge to remove
+					if (ice != null && !ice.isExpired())
+						s.add(ice);
+				}
+			}
+			return s;
+		} catch (Exception e) {
+			throw new CacheLoaderException(e);
+		} finally {
+			dataSource.releaseConnection(cassandraClient);
+		}
+	}
+
 	@Override
 	public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
 		return load(Integer.MAX_VALUE);
@@ -441,7 +477,7 @@ public class CassandraCacheStore extends AbstractCacheStore {
 	}
 
 	@Override
-	protected void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+	public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
 		Cassandra.Client cassandraClient = null;
 
 		try {
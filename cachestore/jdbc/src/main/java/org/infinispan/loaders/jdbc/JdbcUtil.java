@@ -22,7 +22,9 @@
 package org.infinispan.loaders.jdbc;
 
 import org.infinispan.io.ByteBuffer;
+import org.infinispan.io.ExposedByteArrayOutputStream;
 import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.marshall.MarshallUtil;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -83,6 +85,20 @@ public class JdbcUtil {
       }
    }
 
+   /**
+    * Marshalls the object into the given stream, usually borrowed from a {@link org.infinispan.io.BufferPool}.  The
+    * returned buffer is only valid until the stream is released.
+    */
+   public static ByteBuffer marshall(StreamingMarshaller marshaller, Object bucket, ExposedByteArrayOutputStream out) throws CacheLoaderException, InterruptedException {
+      try {
+         return MarshallUtil.marshallInto(marshaller, bucket, out);
+      } catch (IOException e) {
+         String message = "I/O failure while marshalling " + bucket;
+         log.error(message, e);
+         throw new CacheLoaderException(message, e);
+      }
+   }
+
    public static Object unmarshall(StreamingMarshaller marshaller, InputStream inputStream) throws CacheLoaderException {
       try {
          return marshaller.objectFromInputStream(inputStream);
@@ -82,6 +82,7 @@ public class TableManipulation implements Cloneable {
    public DatabaseType databaseType;
    private String loadAllKeysBinarySql;
    private String loadAllKeysStringSql;
+   private String upsertRowSql;
 
    public TableManipulation(String idColumnName, String idColumnType, String tableNamePrefix, String dataColumnName,
                             String dataColumnType, String timestampColumnName, String timestampColumnType) {
@@ -297,6 +298,20 @@ public class TableManipulation implements Cloneable {
       return selectRowSql;
    }
 
+   /**
+    * Same as {@link #getSelectRowSql()}, but for <tt>numberOfRows</tt> ids at once.
+    */
+   public String getSelectMultipleRowsSql(int numberOfRows) {
+      StringBuilder sql = new StringBuilder(getSelectRowSql().length() + 2 * numberOfRows);
+      sql.append("SELECT ").append(idColumnName).append(", ").append(dataColumnName).append(" FROM ").append(getTableName())
+            .append(" WHERE ").append(idColumnName).append(" IN (");
+      for (int i = 0; i < numberOfRows; i++) {
+         if (i > 0) sql.append(',');
+         sql.append('?');
+      }
+      return sql.append(')').toString();
+   }
+
    public String getDeleteRowSql() {
       if (deleteRowSql == null) {
          deleteRowSql = "DELETE FROM " + getTableName() + " WHERE " + idColumnName + " = ?";
@@ -465,6 +480,48 @@ public class TableManipulation implements Cloneable {
       return loadSomeRowsSql;
    }
 
+   /**
+    * Whether the database dialect allows inserting or updating a row within a single statement, see {@link
+    * #getUpsertRowSql()}.
+    */
+   public boolean isUpsertSupported() {
+      switch (getDatabaseType()) {
+         case MYSQL:
+         case H2:
+         case SQLITE:
+            return true;
+         default:
+            return false;
+      }
+   }
+
+   /**
+    * Statement that inserts a row or, if a row with the same id already exists, updates it.  Its parameters are the
+    * same as those of {@link #getInsertRowSql()}.  Only available if {@link #isUpsertSupported()}.
+    */
+   public String getUpsertRowSql() {
+      if (upsertRowSql == null) {
+         switch (getDatabaseType()) {
+            case MYSQL:
+               upsertRowSql = String.format("INSERT INTO %s (%s, %s, %s) VALUES(?,?,?) ON DUPLICATE KEY UPDATE %s = VALUES(%s), %s = VALUES(%s)",
+                                            getTableName(), dataColumnName, timestampColumnName, idColumnName,
+                                            dataColumnName, dataColumnName, timestampColumnName, timestampColumnName);
+               break;
+            case H2:
+               upsertRowSql = String.format("MERGE INTO %s (%s, %s, %s) KEY(%s) VALUES(?,?,?)",
+                                            getTableName(), dataColumnName, timestampColumnName, idColumnName, idColumnName);
+               break;
+            case SQLITE:
+               upsertRowSql = String.format("INSERT OR REPLACE INTO %s (%s, %s, %s) VALUES(?,?,?)",
+                                            getTableName(), dataColumnName, timestampColumnName, idColumnName);
+               break;
+            default:
+               throw new IllegalStateException("No single statement insert-or-update available for " + getDatabaseType());
+         }
+      }
+      return upsertRowSql;
+   }
+
    public String getLoadAllKeysBinarySql() {
       if (loadAllKeysBinarySql == null) {
          loadAllKeysBinarySql = String.format("SELECT %s FROM %s", dataColumnName, getTableName());
@@ -24,6 +24,7 @@ package org.infinispan.loaders.jdbc.binary;
 import org.infinispan.Cache;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.io.ByteBuffer;
+import org.infinispan.io.ExposedByteArrayOutputStream;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
@@ -153,6 +154,7 @@ public class JdbcBinaryCacheStore extends BucketBasedCacheStore {
    protected void insertBucket(Bucket bucket) throws CacheLoaderException {
       Connection conn = null;
       PreparedStatement ps = null;
+      ExposedByteArrayOutputStream out = getBufferPool().borrow(0);
       try {
          String sql = tableManipulation.getInsertRowSql();
          if (log.isTraceEnabled()) {
@@ -160,7 +162,7 @@ public class JdbcBinaryCacheStore extends BucketBasedCacheStore {
          }
          conn = connectionFactory.getConnection();
          ps = conn.prepareStatement(sql);
-         ByteBuffer byteBuffer = JdbcUtil.marshall(getMarshaller(), bucket);
+         ByteBuffer byteBuffer = JdbcUtil.marshall(getMarshaller(), bucket, out);
          ps.setBinaryStream(1, byteBuffer.getStream(), byteBuffer.getLength());
          ps.setLong(2, bucket.timestampOfFirstEntryToExpire());
          ps.setString(3, bucket.getBucketName());
@@ -176,12 +178,14 @@ public class JdbcBinaryCacheStore extends BucketBasedCacheStore {
       } finally {
          JdbcUtil.safeClose(ps);
          connectionFactory.releaseConnection(conn);
+         getBufferPool().release(out);
       }
    }
 
    protected void updateBucket(Bucket bucket) throws CacheLoaderException {
       Connection conn = null;
       PreparedStatement ps = null;
+      ExposedByteArrayOutputStream out = getBufferPool().borrow(0);
       try {
          String sql = tableManipulation.getUpdateRowSql();
          if (log.isTraceEnabled()) {
@@ -189,7 +193,7 @@ public class JdbcBinaryCacheStore extends BucketBasedCacheStore {
          }
          conn = connectionFactory.getConnection();
          ps = conn.prepareStatement(sql);
-         ByteBuffer buffer = JdbcUtil.marshall(getMarshaller(), bucket);
+         ByteBuffer buffer = JdbcUtil.marshall(getMarshaller(), bucket, out);
          ps.setBinaryStream(1, buffer.getStream(), buffer.getLength());
          ps.setLong(2, bucket.timestampOfFirstEntryToExpire());
          ps.setString(3, bucket.getBucketName());
@@ -205,6 +209,7 @@ public class JdbcBinaryCacheStore extends BucketBasedCacheStore {
       } finally {
          JdbcUtil.safeClose(ps);
          connectionFactory.releaseConnection(conn);
+         getBufferPool().release(out);
       }
    }
 
@@ -32,12 +32,18 @@ import org.infinispan.loaders.jdbc.binary.JdbcBinaryCacheStore;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactory;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactoryConfig;
 import org.infinispan.loaders.jdbc.stringbased.JdbcStringBasedCacheStore;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -124,6 +130,19 @@ public class JdbcMixedCacheStore extends AbstractCacheStore {
       return fromBuckets;
    }
 
+   @Override
+   public Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      Set<Object> binaryKeys = new HashSet<Object>();
+      Set<Object> stringKeys = new HashSet<Object>();
+      for (Object key : keys) {
+         (getCacheStore(key) == stringBasedCacheStore ? stringKeys : binaryKeys).add(key);
+      }
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      if (!binaryKeys.isEmpty()) result.addAll(binaryCacheStore.loadAll(binaryKeys));
+      if (!stringKeys.isEmpty()) result.addAll(stringBasedCacheStore.loadAll(stringKeys));
+      return result;
+   }
+
    @Override
    public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
       if (numEntries < 0) return loadAll();
@@ -149,6 +168,35 @@ public class JdbcMixedCacheStore extends AbstractCacheStore {
       getCacheStore(ed.getKey()).store(ed);
    }
 
+   /**
+    * Splits the modifications between the two stores, so that each of them applies its share as one batch.
+    */
+   @Override
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+      List<Modification> binaryMods = new ArrayList<Modification>();
+      List<Modification> stringMods = new ArrayList<Modification>();
+      for (Modification m : mods) {
+         switch (m.getType()) {
+            case STORE:
+               Object storedKey = ((Store) m).getStoredEntry().getKey();
+               (getCacheStore(storedKey) == stringBasedCacheStore ? stringMods : binaryMods).add(m);
+               break;
+            case REMOVE:
+               Object removedKey = ((Remove) m).getKey();
+               (getCacheStore(removedKey) == stringBasedCacheStore ? stringMods : binaryMods).add(m);
+               break;
+            case CLEAR:
+               binaryMods.add(m);
+               stringMods.add(m);
+               break;
+            default:
+               throw new IllegalArgumentException("Unknown modification type " + m.getType());
+         }
+      }
+      if (!binaryMods.isEmpty()) binaryCacheStore.applyModifications(binaryMods);
+      if (!stringMods.isEmpty()) stringBasedCacheStore.applyModifications(stringMods);
+   }
+
    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
       binaryCacheStore.fromStream(inputStream);
       stringBasedCacheStore.fromStream(inputStream);
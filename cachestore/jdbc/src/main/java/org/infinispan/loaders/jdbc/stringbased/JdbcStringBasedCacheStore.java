@@ -25,6 +25,7 @@ import org.infinispan.Cache;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.entries.InternalCacheValue;
 import org.infinispan.io.ByteBuffer;
+import org.infinispan.io.ExposedByteArrayOutputStream;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
@@ -33,6 +34,9 @@ import org.infinispan.loaders.jdbc.DataManipulationHelper;
 import org.infinispan.loaders.jdbc.JdbcUtil;
 import org.infinispan.loaders.jdbc.TableManipulation;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactory;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -45,6 +49,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -196,8 +207,9 @@ public class JdbcStringBasedCacheStore extends LockSupportCacheStore {
       Connection connection = null;
       PreparedStatement ps = null;
       ByteBuffer byteBuffer = null;
+      ExposedByteArrayOutputStream out = getBufferPool().borrow(0);
       try {
-         byteBuffer = JdbcUtil.marshall(getMarshaller(), ed.toInternalCacheValue());
+         byteBuffer = JdbcUtil.marshall(getMarshaller(), ed.toInternalCacheValue(), out);
          connection = connectionFactory.getConnection();
          ps = connection.prepareStatement(sql);
          ps.setBinaryStream(1, byteBuffer.getStream(), byteBuffer.getLength());
@@ -212,6 +224,7 @@ public class JdbcStringBasedCacheStore extends LockSupportCacheStore {
       } finally {
          JdbcUtil.safeClose(ps);
          connectionFactory.releaseConnection(connection);
+         getBufferPool().release(out);
       }
    }
 
@@ -236,6 +249,146 @@ public class JdbcStringBasedCacheStore extends LockSupportCacheStore {
       }
    }
 
+   /**
+    * Writes all the modifications with JDBC batches, over a single connection and within a single database
+    * transaction. Only the last modification of each key is written, and as for {@link #store(InternalCacheEntry)}
+    * expired entries are removed rather than stored.
+    */
+   @Override
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+      Map<String, InternalCacheEntry> toStore = new LinkedHashMap<String, InternalCacheEntry>();
+      Set<String> toRemove = new HashSet<String>();
+      boolean clear = false;
+      for (Modification m : mods) {
+         switch (m.getType()) {
+            case STORE:
+               InternalCacheEntry se = ((Store) m).getStoredEntry();
+               String storedKey = getLockFromKey(se.getKey());
+               if (se.isExpired()) {
+                  toStore.remove(storedKey);
+                  toRemove.add(storedKey);
+               } else {
+                  toRemove.remove(storedKey);
+                  toStore.put(storedKey, se);
+               }
+               break;
+            case CLEAR:
+               clear = true;
+               toStore.clear();
+               toRemove.clear();
+               break;
+            case REMOVE:
+               String removedKey = getLockFromKey(((Remove) m).getKey());
+               toStore.remove(removedKey);
+               toRemove.add(removedKey);
+               break;
+            default:
+               throw new IllegalArgumentException("Unknown modification type " + m.getType());
+         }
+      }
+      if (!clear && toStore.isEmpty() && toRemove.isEmpty()) return;
+
+      acquireGlobalLock(true);
+      try {
+         applyModificationsLockSafe(clear, toStore, toRemove);
+      } finally {
+         releaseGlobalLock(true);
+      }
+   }
+
+   private void applyModificationsLockSafe(boolean clear, Map<String, InternalCacheEntry> toStore, Set<String> toRemove) throws CacheLoaderException {
+      boolean upsert = tableManipulation.isUpsertSupported();
+      if (!clear && !upsert) {
+         // rows are replaced by deleting and re-inserting them
+         toRemove.addAll(toStore.keySet());
+      }
+      Connection connection = null;
+      boolean manageTransaction = false;
+      boolean committed = false;
+      try {
+         connection = connectionFactory.getConnection();
+         // a connection that is already part of a transaction is committed by its owner
+         manageTransaction = connection.getAutoCommit();
+         if (manageTransaction) connection.setAutoCommit(false);
+         if (clear) {
+            executeBatch(connection, tableManipulation.getDeleteAllRowsSql(), null);
+         }
+         if (!toRemove.isEmpty()) {
+            executeBatch(connection, tableManipulation.getDeleteRowSql(), toRemove);
+         }
+         if (!toStore.isEmpty()) {
+            storeBatch(connection, upsert ? tableManipulation.getUpsertRowSql() : tableManipulation.getInsertRowSql(), toStore);
+         }
+         if (manageTransaction) connection.commit();
+         committed = true;
+         if (log.isTraceEnabled())
+            log.trace("Applied modifications: clear=" + clear + ", stored " + toStore.size() + " and removed " + toRemove.size() + " rows");
+      } catch (SQLException ex) {
+         logAndThrow(ex, "Error while applying modifications to database");
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) log.trace("Interrupted while marshalling to store");
+         Thread.currentThread().interrupt();
+      } finally {
+         if (manageTransaction) {
+            try {
+               if (!committed) connection.rollback();
+               connection.setAutoCommit(true);
+            } catch (SQLException e) {
+               log.warn("Failed to roll back or reset the database connection", e);
+            }
+         }
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
+   /**
+    * Runs the sql once for each of the keys, or once if keys is null, in batches of at most {@link
+    * TableManipulation#getBatchSize()} statements.
+    */
+   private void executeBatch(Connection connection, String sql, Collection<String> keys) throws SQLException {
+      if (log.isTraceEnabled()) log.trace("Running sql '" + sql + "' on " + (keys == null ? "all rows" : keys));
+      PreparedStatement ps = null;
+      try {
+         ps = connection.prepareStatement(sql);
+         if (keys == null) {
+            ps.executeUpdate();
+            return;
+         }
+         int batchSize = tableManipulation.getBatchSize();
+         int count = 0;
+         for (String key : keys) {
+            ps.setString(1, key);
+            ps.addBatch();
+            if (++count % batchSize == 0) ps.executeBatch();
+         }
+         if (count % batchSize != 0) ps.executeBatch();
+      } finally {
+         JdbcUtil.safeClose(ps);
+      }
+   }
+
+   private void storeBatch(Connection connection, String sql, Map<String, InternalCacheEntry> entries) throws SQLException, CacheLoaderException, InterruptedException {
+      if (log.isTraceEnabled()) log.trace("Running sql '" + sql + "' on " + entries.size() + " entries");
+      PreparedStatement ps = null;
+      try {
+         ps = connection.prepareStatement(sql);
+         int batchSize = tableManipulation.getBatchSize();
+         int count = 0;
+         for (Map.Entry<String, InternalCacheEntry> e : entries.entrySet()) {
+            // not using pooled buffers, as the batch holds on to every value until it is executed
+            ByteBuffer byteBuffer = JdbcUtil.marshall(getMarshaller(), e.getValue().toInternalCacheValue());
+            ps.setBinaryStream(1, byteBuffer.getStream(), byteBuffer.getLength());
+            ps.setLong(2, e.getValue().getExpiryTime());
+            ps.setString(3, e.getKey());
+            ps.addBatch();
+            if (++count % batchSize == 0) ps.executeBatch();
+         }
+         if (count % batchSize != 0) ps.executeBatch();
+      } finally {
+         JdbcUtil.safeClose(ps);
+      }
+   }
+
    @Override
    public void fromStreamLockSafe(ObjectInput objectInput) throws CacheLoaderException {
       dmHelper.fromStreamSupport(objectInput);
@@ -261,6 +414,49 @@ public class JdbcStringBasedCacheStore extends LockSupportCacheStore {
       return dmHelper.loadSome(maxEntries);
    }
 
+   /**
+    * Loads the keys with <tt>IN</tt> queries of at most {@link TableManipulation#getBatchSize()} keys each.
+    */
+   @Override
+   protected Set<InternalCacheEntry> loadAllLockSafe(Set<Object> keys) throws CacheLoaderException {
+      // the mapper might not be able to map strings back to keys, so remember which key each string stands for
+      Map<String, Object> keysByString = new HashMap<String, Object>();
+      for (Object key : keys) keysByString.put(getLockFromKey(key), key);
+      List<String> keyStrings = new ArrayList<String>(keysByString.keySet());
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      int batchSize = tableManipulation.getBatchSize();
+      Connection conn = null;
+      PreparedStatement ps = null;
+      ResultSet rs = null;
+      try {
+         conn = connectionFactory.getConnection();
+         for (int from = 0; from < keyStrings.size(); from += batchSize) {
+            List<String> batch = keyStrings.subList(from, Math.min(from + batchSize, keyStrings.size()));
+            ps = conn.prepareStatement(tableManipulation.getSelectMultipleRowsSql(batch.size()));
+            for (int i = 0; i < batch.size(); i++) ps.setString(i + 1, batch.get(i));
+            rs = ps.executeQuery();
+            while (rs.next()) {
+               Object key = keysByString.get(rs.getString(1));
+               InputStream inputStream = rs.getBinaryStream(2);
+               InternalCacheValue icv = (InternalCacheValue) JdbcUtil.unmarshall(getMarshaller(), inputStream);
+               InternalCacheEntry ice = icv.toInternalCacheEntry(key);
+               if (!ice.isExpired()) result.add(ice);
+            }
+            JdbcUtil.safeClose(rs);
+            rs = null;
+            JdbcUtil.safeClose(ps);
+            ps = null;
+         }
+      } catch (SQLException e) {
+         logAndThrow(e, "SQL error while fetching " + keys.size() + " stored entries");
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+      return result;
+   }
+
    @Override
    protected Set<Object> loadAllKeysLockSafe(Set<Object> keysToExclude) throws CacheLoaderException {
       return dmHelper.loadAllKeysSupport(keysToExclude);
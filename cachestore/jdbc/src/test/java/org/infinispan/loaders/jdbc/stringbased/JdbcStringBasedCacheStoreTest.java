@@ -22,15 +22,23 @@
 package org.infinispan.loaders.jdbc.stringbased;
 
 import static org.easymock.classextension.EasyMock.*;
+import org.infinispan.container.entries.InternalEntryFactory;
 import org.infinispan.loaders.BaseCacheStoreTest;
 import org.infinispan.loaders.CacheStore;
 import org.infinispan.loaders.jdbc.TableManipulation;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactory;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactoryConfig;
+import org.infinispan.loaders.modifications.Clear;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.test.fwk.UnitTestDatabaseManager;
 import org.infinispan.CacheDelegate;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Tester class  for {@link org.infinispan.loaders.jdbc.stringbased.JdbcStringBasedCacheStore}.
  *
@@ -42,6 +50,7 @@ public class JdbcStringBasedCacheStoreTest extends BaseCacheStoreTest {
    protected CacheStore createCacheStore() throws Exception {
       ConnectionFactoryConfig connectionFactoryConfig = UnitTestDatabaseManager.getUniqueConnectionFactoryConfig();
       TableManipulation tm = UnitTestDatabaseManager.buildDefaultTableManipulation();
+      tm.setBatchSize(4);
       JdbcStringBasedCacheStoreConfig config = new JdbcStringBasedCacheStoreConfig(connectionFactoryConfig, tm);
       JdbcStringBasedCacheStore stringBasedCacheStore = new JdbcStringBasedCacheStore();
       CacheDelegate cache = new CacheDelegate("aName");
@@ -50,6 +59,33 @@ public class JdbcStringBasedCacheStoreTest extends BaseCacheStoreTest {
       return stringBasedCacheStore;
    }
 
+   public void testModificationsSpanningSeveralBatches() throws Exception {
+      cs.store(InternalEntryFactory.create("old", "value"));
+      List<Modification> mods = new ArrayList<Modification>();
+      mods.add(new Clear());
+      for (int i = 0; i < 10; i++) mods.add(new Store(InternalEntryFactory.create("k" + i, "v" + i)));
+      mods.add(new Store(InternalEntryFactory.create("k1", "v1-updated")));
+      mods.add(new Remove("k2"));
+      mods.add(new Store(InternalEntryFactory.create("k3", "v3", System.currentTimeMillis() - 1000, 1, -1, -1)));
+      mods.add(new Remove("k4"));
+      mods.add(new Store(InternalEntryFactory.create("k4", "v4-restored")));
+      cs.prepare(mods, gtf.newGlobalTransaction(null, true), true);
+
+      assert !cs.containsKey("old");
+      assert cs.load("k1").getValue().equals("v1-updated");
+      assert !cs.containsKey("k2");
+      assert !cs.containsKey("k3");
+      assert cs.load("k4").getValue().equals("v4-restored");
+      for (int i = 5; i < 10; i++) assert cs.load("k" + i).getValue().equals("v" + i);
+      assert cs.loadAll().size() == 7;
+
+      // overwrites rows that exist in the table already
+      mods.clear();
+      for (int i = 0; i < 10; i++) mods.add(new Store(InternalEntryFactory.create("k" + i, "w" + i)));
+      cs.prepare(mods, gtf.newGlobalTransaction(null, true), true);
+      for (int i = 0; i < 10; i++) assert cs.load("k" + i).getValue().equals("w" + i);
+   }
+
    public void testNotCreateConnectionFactory() throws Exception {
       JdbcStringBasedCacheStore stringBasedCacheStore = new JdbcStringBasedCacheStore();
       JdbcStringBasedCacheStoreConfig config = new JdbcStringBasedCacheStoreConfig(false);
@@ -438,7 +438,7 @@ public class JdbmCacheStore extends AbstractCacheStore {
    }
 
    @Override
-   protected void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
       for (Modification m : mods) {
          switch (m.getType()) {
             case STORE:
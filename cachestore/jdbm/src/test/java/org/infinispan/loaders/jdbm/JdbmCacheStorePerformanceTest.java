@@ -0,0 +1,26 @@
+package org.infinispan.loaders.jdbm;
+
+import org.infinispan.loaders.CacheStoreConfig;
+import org.infinispan.profiling.CacheStorePerformanceTest;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Adds {@link JdbmCacheStore} to the stores compared by {@link CacheStorePerformanceTest}.
+ *
+ * @since 5.0
+ */
+@Test(groups = "profiling", enabled = false, testName = "loaders.jdbm.JdbmCacheStorePerformanceTest")
+public class JdbmCacheStorePerformanceTest extends CacheStorePerformanceTest {
+
+   @Override
+   protected Map<String, CacheStoreConfig> createConfigs(String location) {
+      Map<String, CacheStoreConfig> configs = super.createConfigs(location);
+      JdbmCacheStoreConfig jdbmConfig = new JdbmCacheStoreConfig();
+      jdbmConfig.setLocation(location + File.separator + "jdbm");
+      configs.put("JdbmCacheStore", jdbmConfig);
+      return configs;
+   }
+}
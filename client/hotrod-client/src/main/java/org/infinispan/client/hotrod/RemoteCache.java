@@ -25,10 +25,10 @@ import java.util.concurrent.TimeUnit;
  * is returned instead. E.g. {@link java.util.Map#put(Object, Object)} returns the previous value associated to the
  * supplied key. In case of RemoteCache, this returns null.
  * <p/>
- * <b>Synthetic operations</b>: aggregate operations are being implemented based on other Hot Rod operations. E.g. all
- * the {@link java.util.Map#putAll(java.util.Map)} is implemented through multiple individual puts. This means that the
- * these operations are not atomic and that they are costly, e.g. as the number of network round-trips is not one, but
- * the size of the added map. All these synthetic operations are documented as such.
+ * <b>Synthetic operations</b>: aggregate operations are being implemented based on other Hot Rod operations. E.g.
+ * {@link java.util.Map#putAll(java.util.Map)} is implemented by sending one bulk put to each of the servers owning the
+ * added keys. This means that these operations are not atomic and that they might need more than one network
+ * round-trip. All these synthetic operations are documented as such.
  * <p/>
  * <b>changing default behavior through {@link org.infinispan.client.hotrod.Flag}s</b>: it is possible to change the
  * default cache behaviour by using flags on an per invocation basis. E.g.
@@ -289,9 +289,9 @@ public interface RemoteCache<K, V> extends Cache<K, V> {
    void putForExternalRead(K key, V value);
 
    /**
-    * Synthetic operation. The client iterates over the set of keys and calls put for each one of them. This results in
-    * operation not being atomic (if a failure happens after few puts it is not rolled back) and costly (for each key in
-    * the parameter map a remote call is performed).
+    * Synthetic operation. The client splits the entries by the server owning their keys and sends a single bulk put to
+    * each of these servers. This results in operation not being atomic (if a failure happens on one of the servers the
+    * entries already stored on the other servers are not rolled back).
     */
    @Override
    void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit unit);
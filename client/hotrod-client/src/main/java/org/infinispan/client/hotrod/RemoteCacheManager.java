@@ -2,6 +2,7 @@ package org.infinispan.client.hotrod;
 
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.NearCache;
 import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
 import org.infinispan.client.hotrod.impl.RemoteCacheImpl;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
@@ -55,7 +56,10 @@ import static org.infinispan.util.Util.getInstance;
  * <li><tt>infinispan.client.hotrod.ping_on_startup</tt>, default = true.  If true, a ping request is sent to a back end server in order to fetch cluster's topology.</li>
  * <li><tt>infinispan.client.hotrod.transport_factory</tt>, default = org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory - controls which transport to use.  Currently only the TcpTransport is supported.</li>
  * <li><tt>infinispan.client.hotrod.marshaller</tt>, default = org.infinispan.marshall.jboss.GenericJBossMarshaller.  Allows you to specify a custom {@link org.infinispan.marshall.Marshaller} implementation to serialize and deserialize user objects. For portable serialization payloads, you should configure the marshaller to be {@link org.infinispan.client.hotrod.marshall.ApacheAvroMarshaller}</li>
- * <li><tt>infinispan.client.hotrod.async_executor_factory</tt>, default = org.infinispan.client.hotrod.impl.async.DefaultAsyncExecutorFactory.  Allows you to specify a custom asynchroous executor for async calls.</li>
+ * <li><tt>infinispan.client.hotrod.async_executor_factory</tt>, default = org.infinispan.client.hotrod.impl.async.DefaultAsyncExecutorFactory.  Allows you to specify a custom asynchroous executor used for notifying the listeners of the futures returned by async calls.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.max_entries</tt>, default = 0.  If positive, every remote cache keeps up to this many of the values it read most recently, so that reading them again does not require a call to the server. Servers push the keys modified or removed in the cache to keep the near cache coherent, the near cache is only used while every server acknowledged its registration.</li>
+ * <li><tt>infinispan.client.hotrod.async_connections_per_server</tt>, default = 2.  The number of non-blocking connections opened to each server for pipelining async calls. These connections are not pooled, and many async calls are in flight on each of them at the same time.</li>
+ * <li><tt>infinispan.client.hotrod.async_request_timeout</tt>, default = 60000.  The number of milliseconds an async call waits for its response. Calls still waiting after that fail with a {@link org.infinispan.client.hotrod.exceptions.TransportException}, and the connection they were sent on is closed. Zero or a negative value disables the timeout.</li>
  * <li><tt>infinispan.client.hotrod.default_executor_factory.pool_size</tt>, default = 10.  If the default executor is used, this configures the number of threads to initialize the executor with.</li>
  * <li><tt>infinispan.client.hotrod.default_executor_factory.queue_size</tt>, default = 100000.  If the default executor is used, this configures the queue size to initialize the executor with.</li>
  * <li><tt>infinispan.client.hotrod.hash_function_impl.1</tt>, default = org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashV1.  This specifies the version of the hash function and consistent hash algorithm in use, and is closely tied with the HotRod server version used.</li>
@@ -336,7 +340,9 @@ public class RemoteCacheManager implements CacheContainer {
 
    private <K, V> void startRemoteCache(RemoteCacheImpl<K, V> result) {
       OperationsFactory operationsFactory = new OperationsFactory(transportFactory, result.getName(), topologyId, forceReturnValueDefault);
-      result.init(marshaller, asyncExecutorService, operationsFactory, config.getKeySizeEstimate(), config.getValueSizeEstimate());
+      int nearCacheMaxEntries = config.getNearCacheMaxEntries();
+      NearCache nearCache = nearCacheMaxEntries > 0 ? new NearCache(nearCacheMaxEntries, transportFactory, operationsFactory, topologyId) : null;
+      result.init(marshaller, asyncExecutorService, operationsFactory, config.getKeySizeEstimate(), config.getValueSizeEstimate(), nearCache);
    }
 
    private void setMarshaller(Marshaller marshaller) {
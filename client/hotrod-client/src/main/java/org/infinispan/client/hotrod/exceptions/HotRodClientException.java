@@ -31,6 +31,12 @@ public class HotRodClientException extends RuntimeException {
       this.errorStatusCode = errorStatusCode;
    }
 
+   /**
+    * @return the status of the error response sent by the server, or 0 if the exception was raised by the client
+    */
+   public int getErrorStatusCode() {
+      return errorStatusCode;
+   }
 
    @Override
    public String toString() {
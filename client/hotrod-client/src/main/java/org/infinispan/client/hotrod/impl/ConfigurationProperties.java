@@ -32,12 +32,17 @@ public class ConfigurationProperties {
    public static final String FORCE_RETURN_VALUES = "infinispan.client.hotrod.force_return_values";
    public static final String HASH_FUNCTION_PREFIX = "infinispan.client.hotrod.hash_function_impl";
    public static final String DEFAULT_EXECUTOR_FACTORY_QUEUE_SIZE ="infinispan.client.hotrod.default_executor_factory.queue_size";
+   public static final String ASYNC_CONNECTIONS_PER_SERVER = "infinispan.client.hotrod.async_connections_per_server";
+   public static final String NEAR_CACHE_MAX_ENTRIES = "infinispan.client.hotrod.near_cache.max_entries";
+   public static final String ASYNC_REQUEST_TIMEOUT = "infinispan.client.hotrod.async_request_timeout";
    
    // defaults
 
    private static final int DEFAULT_KEY_SIZE = 64;
    private static final int DEFAULT_VALUE_SIZE = 512;
    private static final int DEFAULT_HOTROD_PORT = 11222;
+   private static final int DEFAULT_ASYNC_CONNECTIONS_PER_SERVER = 2;
+   private static final long DEFAULT_ASYNC_REQUEST_TIMEOUT = 60000;
 
    private final TypedProperties props;
 
@@ -111,6 +116,18 @@ public class ConfigurationProperties {
       return props.getBooleanProperty(FORCE_RETURN_VALUES, false);
    }
 
+   public int getAsyncConnectionsPerServer() {
+      return props.getIntProperty(ASYNC_CONNECTIONS_PER_SERVER, DEFAULT_ASYNC_CONNECTIONS_PER_SERVER);
+   }
+
+   public long getAsyncRequestTimeout() {
+      return props.getLongProperty(ASYNC_REQUEST_TIMEOUT, DEFAULT_ASYNC_REQUEST_TIMEOUT);
+   }
+
+   public int getNearCacheMaxEntries() {
+      return props.getIntProperty(NEAR_CACHE_MAX_ENTRIES, 0);
+   }
+
    public Properties getProperties() {
       return props;
    }
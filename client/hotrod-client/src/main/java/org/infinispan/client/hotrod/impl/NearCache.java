@@ -0,0 +1,212 @@
+package org.infinispan.client.hotrod.impl;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
+import org.infinispan.client.hotrod.impl.operations.AddNearCacheListenerOperation;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.util.ByteArrayKey;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, LRU ordered copy of the values recently read by a {@link RemoteCacheImpl}, keyed by marshalled key, so that
+ * reads of hot keys do not need a round trip to the servers.
+ * <p/>
+ * Coherence is kept by the servers: the near cache registers a listener with every server of the topology, and each
+ * server then pushes the keys modified or removed in the cache. Values are only cached while every registration has
+ * been acknowledged. If a listener connection is closed, the whole near cache is cleared and the registration is done
+ * again on the next read.
+ * <p/>
+ * A value read from the server may have been invalidated before the response is received. To avoid caching such
+ * stale values, reads take a stamp from {@link #startRead(byte[])}, and the value is only cached if no key sharing the
+ * stamp was invalidated in the meantime.
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class NearCache {
+
+   private static final Log log = LogFactory.getLog(NearCache.class);
+
+   public static final long NO_STAMP = -1;
+
+   private static final int STAMP_STRIPES = 64;
+   private static final int NO_TOPOLOGY = Integer.MIN_VALUE;
+
+   private final BoundedConcurrentHashMap<ByteArrayKey, byte[]> entries;
+   private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+   private final ConcurrentMap<InetSocketAddress, Subscription> subscriptions = new ConcurrentHashMap<InetSocketAddress, Subscription>();
+   private final TransportFactory transportFactory;
+   private final OperationsFactory operationsFactory;
+   private final AtomicInteger topologyId;
+   private volatile int subscribedTopologyId = NO_TOPOLOGY;
+   private volatile boolean active;
+   private volatile boolean disabled;
+
+   public NearCache(int maxEntries, TransportFactory transportFactory, OperationsFactory operationsFactory, AtomicInteger topologyId) {
+      this.entries = new BoundedConcurrentHashMap<ByteArrayKey, byte[]>(maxEntries, 16,
+            BoundedConcurrentHashMap.Eviction.LRU, new BoundedConcurrentHashMap.EvictionListener<ByteArrayKey, byte[]>() {
+               @Override
+               public void onEntryEviction(Map<ByteArrayKey, byte[]> evicted) {
+                  // nothing to do, evicted values are simply read from the servers again
+               }
+            }, -1, null, true);
+      this.transportFactory = transportFactory;
+      this.operationsFactory = operationsFactory;
+      this.topologyId = topologyId;
+   }
+
+   /**
+    * @return the cached value, or null if the key is not cached or the near cache is not active
+    */
+   public byte[] get(byte[] key) {
+      if (!isActive()) return null;
+      return entries.get(new ByteArrayKey(key));
+   }
+
+   /**
+    * Must be called before reading the value of the key from the server.
+    *
+    * @return the stamp to pass to {@link #put(byte[], byte[], long)}, or {@link #NO_STAMP} if the value must not be
+    *         cached
+    */
+   public long startRead(byte[] key) {
+      if (!isActive()) return NO_STAMP;
+      return stamps.get(stripe(key));
+   }
+
+   /**
+    * Caches the value read from the server, unless the key might have been invalidated since the read started.
+    */
+   public void put(byte[] key, byte[] value, long stamp) {
+      if (stamp == NO_STAMP || value == null) return;
+      int stripe = stripe(key);
+      if (stamps.get(stripe) != stamp) return;
+      ByteArrayKey cacheKey = new ByteArrayKey(key);
+      entries.put(cacheKey, value);
+      // an invalidation may have happened between the check and the put
+      if (stamps.get(stripe) != stamp) entries.remove(cacheKey);
+   }
+
+   public void invalidate(byte[] key) {
+      // the stamp has to change before the entry is removed, see put()
+      stamps.incrementAndGet(stripe(key));
+      entries.remove(new ByteArrayKey(key));
+   }
+
+   public void clear() {
+      for (int i = 0; i < STAMP_STRIPES; i++) {
+         stamps.incrementAndGet(i);
+      }
+      entries.clear();
+   }
+
+   public int size() {
+      return entries.size();
+   }
+
+   /**
+    * Called when the connection of a listener has been closed, invalidations sent by that server might have been lost.
+    */
+   public void listenerClosed(AddNearCacheListenerOperation operation, HotRodClientException cause) {
+      if (log.isTraceEnabled()) log.trace("Near cache listener on " + operation.getServer() + " closed: " + cause);
+      Subscription subscription = subscriptions.get(operation.getServer());
+      if (subscription != null && subscription.operation == operation) unsubscribe(subscription);
+   }
+
+   private boolean isActive() {
+      if (disabled) return false;
+      if (subscribedTopologyId != topologyId.get()) subscribe();
+      return active;
+   }
+
+   /**
+    * Registers a listener with the servers of the current topology that do not have one yet.
+    */
+   private synchronized void subscribe() {
+      int topology = topologyId.get();
+      if (disabled || subscribedTopologyId == topology) return;
+      Collection<InetSocketAddress> servers = transportFactory.getServers();
+      // listeners on servers that left are closed together with their connections
+      subscriptions.keySet().retainAll(servers);
+      subscribedTopologyId = topology;
+      for (InetSocketAddress server : servers) {
+         if (!subscriptions.containsKey(server)) {
+            if (log.isTraceEnabled()) log.trace("Adding near cache listener on " + server);
+            Subscription subscription = new Subscription(operationsFactory.newAddNearCacheListenerOperation(this, server));
+            subscriptions.put(server, subscription);
+            active = false;
+            subscription.future.attachListener(subscription);
+            transportFactory.executeAsync(subscription.operation, subscription.future, server);
+         }
+      }
+   }
+
+   private synchronized void unsubscribe(Subscription subscription) {
+      if (!subscriptions.remove(subscription.operation.getServer(), subscription)) return;
+      active = false;
+      // force a new registration on the next read
+      subscribedTopologyId = NO_TOPOLOGY;
+      clear();
+   }
+
+   private synchronized void updateActive() {
+      for (Subscription subscription : subscriptions.values()) {
+         if (!subscription.future.isDone()) return;
+      }
+      active = !subscriptions.isEmpty();
+   }
+
+   private synchronized void disable() {
+      disabled = true;
+      active = false;
+      clear();
+   }
+
+   private static int stripe(byte[] key) {
+      int h = 0;
+      for (byte b : key) h = 31 * h + b;
+      return (h ^ (h >>> 16)) & (STAMP_STRIPES - 1);
+   }
+
+   private class Subscription implements FutureListener<Object> {
+      final AddNearCacheListenerOperation operation;
+      final ResponseFuture<Object> future = new ResponseFuture<Object>();
+
+      Subscription(AddNearCacheListenerOperation operation) {
+         this.operation = operation;
+      }
+
+      @Override
+      public void futureDone(Future<Object> f) {
+         try {
+            future.get();
+            updateActive();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         } catch (ExecutionException e) {
+            if (e.getCause() instanceof TransportException) {
+               unsubscribe(this);
+            } else {
+               log.warn("Could not add near cache listener on " + operation.getServer() + ", disabling the near cache", e.getCause());
+               disable();
+            }
+         }
+      }
+   }
+}
@@ -6,20 +6,29 @@ import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.ServerStatistics;
 import org.infinispan.client.hotrod.Version;
 import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.exceptions.RemoteCacheManagerNotStartedException;
 import org.infinispan.client.hotrod.exceptions.TransportException;
-import org.infinispan.client.hotrod.impl.async.NotifyingFutureImpl;
+import org.infinispan.client.hotrod.impl.async.AggregateResponseFuture;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
 import org.infinispan.client.hotrod.impl.operations.*;
+import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
 import org.infinispan.marshall.Marshaller;
+import org.infinispan.util.concurrent.FutureListener;
 import org.infinispan.util.concurrent.NotifyingFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -39,6 +48,9 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
    private OperationsFactory operationsFactory;
    private int estimateKeySize;
    private int estimateValueSize;
+   private NearCache nearCache;
+   // set once a server answered that it does not know the bulk operations, which are then replaced by single key ones
+   private volatile boolean bulkOperationsUnsupported;
 
 
    public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
@@ -49,12 +61,13 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
       this.remoteCacheManager = rcm;
    }
 
-   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize) {
+   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize, NearCache nearCache) {
       this.marshaller = marshaller;
       this.executorService = executorService;
       this.operationsFactory = operationsFactory;
       this.estimateKeySize = estimateKeySize;
       this.estimateValueSize = estimateValueSize;
+      this.nearCache = nearCache;
    }
 
    public RemoteCacheManager getRemoteCacheManager() {
@@ -64,49 +77,37 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
    @Override
    public boolean removeWithVersion(K key, long version) {
       assertRemoteCacheManagerIsStarted();
-      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(obj2bytes(key, true), version);
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(keyBytes, version);
       VersionedOperationResponse response = (VersionedOperationResponse) op.execute();
+      invalidateNearCache(keyBytes);
       return response.getCode().isUpdated();
    }
 
    @Override
    public NotifyingFuture<Boolean> removeWithVersionAsync(final K key, final long version) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
-      Future future = executorService.submit(new Callable() {
-         @Override
-         public Object call() throws Exception {
-            boolean removed = removeWithVersion(key, version);
-            result.notifyFutureCompletion();
-            return removed;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(keyBytes, version);
+      return op.executeAsync(new UpdatedFuture(keyBytes));
    }
 
    @Override
    public boolean replaceWithVersion(K key, V newValue, long version, int lifespanSeconds, int maxIdleTimeSeconds) {
       assertRemoteCacheManagerIsStarted();
-      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(obj2bytes(key, true), obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(keyBytes, obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
       VersionedOperationResponse response = (VersionedOperationResponse) op.execute();
+      invalidateNearCache(keyBytes);
       return response.getCode().isUpdated();
    }
 
    @Override
    public NotifyingFuture<Boolean> replaceWithVersionAsync(final K key, final V newValue, final long version, final int lifespanSeconds, final int maxIdleSeconds) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
-      Future future = executorService.submit(new Callable() {
-         @Override
-         public Object call() throws Exception {
-            boolean removed = replaceWithVersion(key, newValue, version, lifespanSeconds, maxIdleSeconds);
-            result.notifyFutureCompletion();
-            return removed;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(keyBytes, obj2bytes(newValue, false), lifespanSeconds, maxIdleSeconds, version);
+      return op.executeAsync(new UpdatedFuture(keyBytes));
    }
 
    @Override
@@ -120,26 +121,55 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
    @Override
    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
-      for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-         put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
-      }
+      if (map.isEmpty()) return;
+      // the requests to the different servers are all in flight at the same time
+      await(putAllAsync(map, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit));
    }
 
    @Override
    public NotifyingFuture<Void> putAllAsync(final Map<? extends K, ? extends V> data, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<Void> result = new NotifyingFutureImpl<Void>();
-      Future future = executorService.submit(new Callable() {
+      Map<byte[], byte[]> entries = new HashMap<byte[], byte[]>(data.size() * 2);
+      for (Entry<? extends K, ? extends V> entry : data.entrySet()) {
+         entries.put(obj2bytes(entry.getKey(), true), obj2bytes(entry.getValue(), false));
+      }
+      final Set<byte[]> keys = entries.keySet();
+      List<PutAllOperation> ops = operationsFactory.newPutAllOperations(entries, toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+      AggregateResponseFuture<Void> result = new AggregateResponseFuture<Void>(ops.size(), executorService) {
          @Override
-         public Object call() throws Exception {
-            putAll(data, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-            result.notifyFutureCompletion();
+         protected Void convert(Object response) {
+            invalidateNearCache(keys);
             return null;
          }
-      });
-      result.setExecuting(future);
+      };
+      if (ops.isEmpty()) result.complete(null);
+      for (final PutAllOperation op : ops) {
+         ResponseFuture<Object> part = result.newPart();
+         if (bulkOperationsUnsupported) {
+            putEach(op, part);
+         } else {
+            op.executeAsync(new ResponseFuture<Object>()).attachListener(new BulkOperationListener(part) {
+               @Override
+               protected void executeSingleKeyOperations(ResponseFuture<Object> part) {
+                  putEach(op, part);
+               }
+            });
+         }
+      }
       return result;
+   }
 
+   /**
+    * Sends the entries of a put all operation as separate puts, completing the given future once all of them are
+    * done.
+    */
+   private void putEach(PutAllOperation op, ResponseFuture<Object> future) {
+      AggregateResponseFuture<Object> puts = new AggregateResponseFuture<Object>(op.getEntries().size(), null);
+      puts.attachListener(new ForwardingListener(future));
+      for (Entry<byte[], byte[]> entry : op.getEntries().entrySet()) {
+         operationsFactory.newPutKeyValueOperation(entry.getKey(), entry.getValue(), op.getLifespan(), op.getMaxIdle())
+               .executeAsync(puts.newPart());
+      }
    }
 
    @Override
@@ -162,8 +192,10 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
       if (log.isTraceEnabled()) {
          log.trace("About to add (K,V): (" + key + ", " + value + ") lifespanSecs:" + lifespanSecs + ", maxIdleSecs:" + maxIdleSecs);
       }
-      PutOperation op = operationsFactory.newPutKeyValueOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      PutOperation op = operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] result = (byte[]) op.execute();
+      invalidateNearCache(keyBytes);
       return (V) bytes2obj(result);
    }
 
@@ -173,8 +205,10 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
       assertRemoteCacheManagerIsStarted();
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
-      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] bytes = (byte[]) op.execute();
+      invalidateNearCache(keyBytes);
       return (V) bytes2obj(bytes);
    }
 
@@ -183,89 +217,56 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
       assertRemoteCacheManagerIsStarted();
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
-      ReplaceOperation op = operationsFactory.newReplaceOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceOperation op = operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] bytes = (byte[]) op.execute();
+      invalidateNearCache(keyBytes);
       return (V) bytes2obj(bytes);
    }
 
    @Override
    public NotifyingFuture<V> putAsync(final K key, final V value, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future future = executorService.submit(new Callable() {
-         @Override
-         public Object call() throws Exception {
-            V prevValue = put(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-            result.notifyFutureCompletion();
-            return prevValue;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      byte[] keyBytes = obj2bytes(key, true);
+      PutOperation op = operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+      return op.executeAsync(new ValueFuture(keyBytes));
    }
 
    @Override
    public NotifyingFuture<Void> clearAsync() {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<Void> result = new NotifyingFutureImpl<Void>();
-      Future future = executorService.submit(new Callable() {
+      ClearOperation op = operationsFactory.newClearOperation();
+      return op.executeAsync(new ResponseFuture<Void>(executorService) {
          @Override
-         public Object call() throws Exception {
-            clear();
-            result.notifyFutureCompletion();
+         protected Void convert(Object response) {
+            if (nearCache != null) nearCache.clear();
             return null;
          }
       });
-      result.setExecuting(future);
-      return result;
    }
 
    @Override
    public NotifyingFuture<V> putIfAbsentAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future future = executorService.submit(new Callable() {
-         @Override
-         public Object call() throws Exception {
-            V prevValue = putIfAbsent(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-            result.notifyFutureCompletion();
-            return prevValue;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      byte[] keyBytes = obj2bytes(key, true);
+      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+      return op.executeAsync(new ValueFuture(keyBytes));
    }
 
    @Override
    public NotifyingFuture<V> removeAsync(final Object key) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future future = executorService.submit(new Callable() {
-         @Override
-         public Object call() throws Exception {
-            V toReturn = remove(key);
-            result.notifyFutureCompletion();
-            return toReturn;
-         }
-      });
-      result.setExecuting(future);
-      return result;      
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveOperation op = operationsFactory.newRemoveOperation(keyBytes);
+      return op.executeAsync(new ValueFuture(keyBytes));
    }
 
    @Override
    public NotifyingFuture<V> replaceAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future future = executorService.submit(new Callable() {
-         @Override
-         public Object call() throws Exception {
-            V v = replace(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-            result.notifyFutureCompletion();
-            return v;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceOperation op = operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+      return op.executeAsync(new ValueFuture(keyBytes));
    }
 
    @Override
@@ -280,7 +281,17 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
       assertRemoteCacheManagerIsStarted();
       byte[] keyBytes = obj2bytes(key, true);
       GetOperation gco = operationsFactory.newGetKeyOperation(keyBytes);
-      byte[] bytes = (byte[]) gco.execute();
+      byte[] bytes;
+      if (nearCache == null) {
+         bytes = (byte[]) gco.execute();
+      } else {
+         bytes = nearCache.get(keyBytes);
+         if (bytes == null) {
+            long stamp = nearCache.startRead(keyBytes);
+            bytes = (byte[]) gco.execute();
+            nearCache.put(keyBytes, bytes, stamp);
+         }
+      }
       V result = (V) bytes2obj(bytes);
       if (log.isTraceEnabled()) {
          log.trace("For key(" + key + ") returning " + result);
@@ -307,11 +318,87 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
       return Collections.unmodifiableMap(toReturn);
    }
 
+   @Override
+   public Map<K, V> getAll(Set<? extends K> keys) {
+      assertRemoteCacheManagerIsStarted();
+      if (keys.isEmpty()) return Collections.emptyMap();
+      // the requests to the different servers are all in flight at the same time
+      return await(getAllAsync(keys));
+   }
+
+   @Override
+   public NotifyingFuture<Map<K, V>> getAllAsync(final Set<? extends K> keys) {
+      assertRemoteCacheManagerIsStarted();
+      List<byte[]> keyBytes = new ArrayList<byte[]>(keys.size());
+      for (K key : keys) {
+         keyBytes.add(obj2bytes(key, true));
+      }
+      List<GetAllOperation> ops = operationsFactory.newGetAllOperations(keyBytes);
+      AggregateResponseFuture<Map<K, V>> result = new AggregateResponseFuture<Map<K, V>>(ops.size(), executorService) {
+         @Override
+         protected Map<K, V> convert(Object response) {
+            Map<K, V> toReturn = new HashMap<K, V>();
+            for (Object serverResult : (List<?>) response) {
+               for (Map.Entry<byte[], byte[]> entry : ((Map<byte[], byte[]>) serverResult).entrySet()) {
+                  toReturn.put((K) bytes2obj(entry.getKey()), (V) bytes2obj(entry.getValue()));
+               }
+            }
+            return Collections.unmodifiableMap(toReturn);
+         }
+      };
+      if (ops.isEmpty()) result.complete(Collections.emptyList());
+      for (final GetAllOperation op : ops) {
+         ResponseFuture<Object> part = result.newPart();
+         if (bulkOperationsUnsupported) {
+            getEach(op, part);
+         } else {
+            op.executeAsync(new ResponseFuture<Object>()).attachListener(new BulkOperationListener(part) {
+               @Override
+               protected void executeSingleKeyOperations(ResponseFuture<Object> part) {
+                  getEach(op, part);
+               }
+            });
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Reads the keys of a get all operation with separate gets, completing the given future with the map of the values
+    * found once all of them are done.
+    */
+   private void getEach(GetAllOperation op, ResponseFuture<Object> future) {
+      AggregateResponseFuture<Object> gets = new AggregateResponseFuture<Object>(op.getKeys().size(), null) {
+         @Override
+         protected Object convert(Object response) {
+            Map<byte[], byte[]> values = new HashMap<byte[], byte[]>();
+            for (Object value : (List<?>) response) {
+               Entry<byte[], byte[]> entry = (Entry<byte[], byte[]>) value;
+               if (entry.getValue() != null) values.put(entry.getKey(), entry.getValue());
+            }
+            return values;
+         }
+      };
+      gets.attachListener(new ForwardingListener(future));
+      for (final byte[] key : op.getKeys()) {
+         ResponseFuture<Object> get = new ResponseFuture<Object>() {
+            @Override
+            protected Object convert(Object response) {
+               return new AbstractMap.SimpleImmutableEntry<byte[], byte[]>(key, (byte[]) response);
+            }
+         };
+         get.attachListener(gets);
+         operationsFactory.newGetKeyOperation(key).executeAsync(get);
+      }
+   }
+
    @Override
    public V remove(Object key) {
       assertRemoteCacheManagerIsStarted();
-      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(obj2bytes(key, true));
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(keyBytes);
       byte[] existingValue = (byte[]) removeOperation.execute();
+      invalidateNearCache(keyBytes);
       return (V) bytes2obj(existingValue);
    }
 
@@ -320,6 +407,7 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
       assertRemoteCacheManagerIsStarted();
       ClearOperation op = operationsFactory.newClearOperation() ;
       op.execute();
+      if (nearCache != null) nearCache.clear();
    }
 
    @Override
@@ -353,6 +441,20 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
    }
 
 
+   /**
+    * Writes done through this cache are visible to its next reads right away, without waiting for the invalidation
+    * pushed by the server.
+    */
+   private void invalidateNearCache(byte[] key) {
+      if (nearCache != null) nearCache.invalidate(key);
+   }
+
+   private void invalidateNearCache(Collection<byte[]> keys) {
+      if (nearCache != null) {
+         for (byte[] key : keys) nearCache.invalidate(key);
+      }
+   }
+
    private byte[] obj2bytes(Object o, boolean isKey) {
       try {
          return marshaller.objectToByteBuffer(o, isKey ? estimateKeySize : estimateValueSize);
@@ -380,6 +482,116 @@ public class RemoteCacheImpl<K, V> extends RemoteCacheSupport<K, V> {
       return new VersionedValueImpl<V>(value.getVersion(), valueObj);
    }
 
+   /**
+    * Unmarshalls the value returned by the server for a write of the given key.
+    */
+   private class ValueFuture extends ResponseFuture<V> {
+      private final byte[] key;
+
+      ValueFuture(byte[] key) {
+         super(executorService);
+         this.key = key;
+      }
+
+      @Override
+      protected V convert(Object response) {
+         invalidateNearCache(key);
+         return (V) bytes2obj((byte[]) response);
+      }
+   }
+
+   /**
+    * Tells whether a versioned operation updated the entry.
+    */
+   private class UpdatedFuture extends ResponseFuture<Boolean> {
+      private final byte[] key;
+
+      UpdatedFuture(byte[] key) {
+         super(executorService);
+         this.key = key;
+      }
+
+      @Override
+      protected Boolean convert(Object response) {
+         invalidateNearCache(key);
+         return ((VersionedOperationResponse) response).getCode().isUpdated();
+      }
+   }
+
+   /**
+    * Passes the outcome of the future it listens to on to another future.
+    */
+   private static class ForwardingListener implements FutureListener<Object> {
+      private final ResponseFuture<Object> target;
+
+      ForwardingListener(ResponseFuture<Object> target) {
+         this.target = target;
+      }
+
+      @Override
+      public void futureDone(Future<Object> future) {
+         try {
+            target.complete(future.get());
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            target.completeExceptionally(e);
+         } catch (ExecutionException e) {
+            target.completeExceptionally(e.getCause());
+         }
+      }
+   }
+
+   /**
+    * Completes the part of a bulk operation sent to one server. Servers which do not know the bulk operations answer
+    * with an unknown command error, in which case the part is executed again as single key operations.
+    */
+   private abstract class BulkOperationListener implements FutureListener<Object> {
+      private final ResponseFuture<Object> part;
+
+      BulkOperationListener(ResponseFuture<Object> part) {
+         this.part = part;
+      }
+
+      @Override
+      public void futureDone(Future<Object> future) {
+         try {
+            part.complete(future.get());
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            part.completeExceptionally(e);
+         } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof HotRodClientException
+                  && ((HotRodClientException) cause).getErrorStatusCode() == HotRodConstants.UNKNOWN_COMMAND_STATUS) {
+               if (!bulkOperationsUnsupported) {
+                  log.info("Server does not support bulk operations, falling back to single key operations");
+                  bulkOperationsUnsupported = true;
+               }
+               executeSingleKeyOperations(part);
+            } else {
+               part.completeExceptionally(cause);
+            }
+         }
+      }
+
+      protected abstract void executeSingleKeyOperations(ResponseFuture<Object> part);
+   }
+
+   /**
+    * Waits for the response of an asynchronous operation, rethrowing its failure.
+    */
+   private <T> T await(Future<T> future) {
+      try {
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new HotRodClientException(e);
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof HotRodClientException) throw (HotRodClientException) e.getCause();
+         throw new HotRodClientException(e.getCause());
+      }
+   }
+
    private int toSeconds(long duration, TimeUnit timeUnit) {
       return (int) timeUnit.toSeconds(duration);
    }
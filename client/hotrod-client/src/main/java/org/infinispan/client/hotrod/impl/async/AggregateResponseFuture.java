@@ -0,0 +1,58 @@
+package org.infinispan.client.hotrod.impl.async;
+
+import org.infinispan.util.concurrent.FutureListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Future completed once all the pipelined requests of an operation spanning several servers have been answered. The
+ * response passed to {@link #convert(Object)} is the list of the individual responses, in no particular order. The
+ * first failure of any request fails this future as well.
+ *
+ * @since 5.0
+ */
+public class AggregateResponseFuture<T> extends ResponseFuture<T> implements FutureListener<Object> {
+
+   private final AtomicInteger pending;
+   private final List<Object> responses;
+
+   public AggregateResponseFuture(int parts, Executor listenerExecutor) {
+      super(listenerExecutor);
+      this.pending = new AtomicInteger(parts);
+      this.responses = new ArrayList<Object>(parts);
+   }
+
+   /**
+    * @return a future to be passed to one of the requests making up this operation
+    */
+   public ResponseFuture<Object> newPart() {
+      ResponseFuture<Object> part = new ResponseFuture<Object>();
+      part.attachListener(this);
+      return part;
+   }
+
+   @Override
+   public void futureDone(Future<Object> part) {
+      Object response;
+      try {
+         response = part.get();
+      } catch (ExecutionException e) {
+         completeExceptionally(e.getCause());
+         return;
+      } catch (Exception e) {
+         completeExceptionally(e);
+         return;
+      }
+      synchronized (responses) {
+         responses.add(response);
+      }
+      if (pending.decrementAndGet() == 0) {
+         complete(responses);
+      }
+   }
+}
@@ -0,0 +1,148 @@
+package org.infinispan.client.hotrod.impl.async;
+
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFuture;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Future completed by the transport once the response of a pipelined request has been read, so that no thread is
+ * blocked while the request is in flight. {@link #convert(Object)} transforms the raw operation result into the value
+ * returned to the user.
+ * <p/>
+ * Listeners are notified through the executor passed to the constructor. Without an executor they run on the thread
+ * completing the future, which is usually the transport's I/O thread, so they must not block.
+ *
+ * @since 5.0
+ */
+public class ResponseFuture<T> implements NotifyingFuture<T> {
+
+   private final Executor listenerExecutor;
+   private final CountDownLatch latch = new CountDownLatch(1);
+   private final CopyOnWriteArraySet<FutureListener<T>> listeners = new CopyOnWriteArraySet<FutureListener<T>>();
+   private volatile T result;
+   private volatile Throwable failure;
+   private volatile boolean cancelled;
+
+   public ResponseFuture() {
+      this(null);
+   }
+
+   public ResponseFuture(Executor listenerExecutor) {
+      this.listenerExecutor = listenerExecutor;
+   }
+
+   /**
+    * Completes the future with the given operation result.
+    *
+    * @return true if the future was completed by this call
+    */
+   public boolean complete(Object response) {
+      T value;
+      try {
+         value = convert(response);
+      } catch (Throwable t) {
+         return completeExceptionally(t);
+      }
+      synchronized (this) {
+         if (isDone()) return false;
+         result = value;
+         latch.countDown();
+      }
+      notifyListeners();
+      return true;
+   }
+
+   /**
+    * Completes the future with the given failure, which is thrown wrapped in an {@link ExecutionException} by {@link
+    * #get()}.
+    *
+    * @return true if the future was completed by this call
+    */
+   public boolean completeExceptionally(Throwable t) {
+      synchronized (this) {
+         if (isDone()) return false;
+         failure = t;
+         latch.countDown();
+      }
+      notifyListeners();
+      return true;
+   }
+
+   @SuppressWarnings("unchecked")
+   protected T convert(Object response) {
+      return (T) response;
+   }
+
+   @Override
+   public NotifyingFuture<T> attachListener(FutureListener<T> listener) {
+      listeners.add(listener);
+      // the future may have completed before the listener was added
+      if (isDone() && listeners.remove(listener)) notifyListener(listener);
+      return this;
+   }
+
+   private void notifyListeners() {
+      for (FutureListener<T> listener : listeners) {
+         if (listeners.remove(listener)) notifyListener(listener);
+      }
+   }
+
+   private void notifyListener(final FutureListener<T> listener) {
+      if (listenerExecutor == null) {
+         listener.futureDone(this);
+      } else {
+         listenerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+               listener.futureDone(ResponseFuture.this);
+            }
+         });
+      }
+   }
+
+   @Override
+   public boolean cancel(boolean mayInterruptIfRunning) {
+      synchronized (this) {
+         if (isDone()) return false;
+         cancelled = true;
+         latch.countDown();
+      }
+      notifyListeners();
+      return true;
+   }
+
+   @Override
+   public boolean isCancelled() {
+      return cancelled;
+   }
+
+   @Override
+   public boolean isDone() {
+      return latch.getCount() == 0;
+   }
+
+   @Override
+   public T get() throws InterruptedException, ExecutionException {
+      latch.await();
+      return getResult();
+   }
+
+   @Override
+   public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      if (!latch.await(timeout, unit)) throw new TimeoutException();
+      return getResult();
+   }
+
+   private T getResult() throws ExecutionException {
+      if (cancelled) throw new CancellationException();
+      if (failure != null) throw new ExecutionException(failure);
+      return result;
+   }
+}
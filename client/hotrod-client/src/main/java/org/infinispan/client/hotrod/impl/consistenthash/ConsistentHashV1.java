@@ -4,7 +4,9 @@ import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.net.InetSocketAddress;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -19,19 +21,29 @@ import static org.infinispan.util.hash.MurmurHash2.hash;
 public class ConsistentHashV1 implements ConsistentHash {
 
    private static final Log log = LogFactory.getLog(ConsistentHashV1.class);
-   
-   private final SortedMap<Integer, InetSocketAddress> positions = new TreeMap<Integer, InetSocketAddress>();
+
+   private volatile Wheel wheel;
 
    private volatile int hashSpace;
 
    @Override
    public void init(LinkedHashMap<InetSocketAddress,Integer> servers2HashCode, int numKeyOwners, int hashSpace) {
+      SortedMap<Integer, InetSocketAddress> positions = new TreeMap<Integer, InetSocketAddress>();
       for (InetSocketAddress addr :servers2HashCode.keySet()) {
          positions.put(servers2HashCode.get(addr), addr);
       }
       if (log.isTraceEnabled())
          log.trace("Positions are: " + positions);
+      int[] newPositions = new int[positions.size()];
+      InetSocketAddress[] newServers = new InetSocketAddress[positions.size()];
+      int i = 0;
+      for (Map.Entry<Integer, InetSocketAddress> position : positions.entrySet()) {
+         newPositions[i] = position.getKey();
+         newServers[i] = position.getValue();
+         i++;
+      }
       this.hashSpace = hashSpace;
+      this.wheel = new Wheel(newPositions, newServers);
    }
 
    @Override
@@ -40,20 +52,37 @@ public class ConsistentHashV1 implements ConsistentHash {
       if (keyHashCode == Integer.MIN_VALUE) keyHashCode += 1;
       int hash = Math.abs(keyHashCode);
 
-      SortedMap<Integer, InetSocketAddress> candidates = positions.tailMap(hash % hashSpace);
-      if (log.isTraceEnabled()) {
-         log.trace("Found possible candidates: " + candidates);
-      }
-      if (candidates.isEmpty()) {
-         InetSocketAddress socketAddress = positions.get(positions.firstKey());
+      Wheel wheel = this.wheel;
+      int[] positions = wheel.positions;
+      InetSocketAddress[] servers = wheel.servers;
+      int index = Arrays.binarySearch(positions, hash % hashSpace);
+      if (index < 0) index = -index - 1;
+      if (index == positions.length) {
+         InetSocketAddress socketAddress = servers[0];
          if (log.isTraceEnabled()) {
             log.trace("Over the wheel, returning first member: " + socketAddress);
          }
          return socketAddress;
       } else {
-         InetSocketAddress socketAddress = candidates.get(candidates.firstKey());
-         log.trace("Found candidate: " + socketAddress);
+         InetSocketAddress socketAddress = servers[index];
+         if (log.isTraceEnabled()) {
+            log.trace("Found candidate: " + socketAddress);
+         }
          return socketAddress;
       }
    }
+
+   /**
+    * Sorted positions on the wheel and the servers at these positions, so that keys are routed by a binary search
+    * without allocating.
+    */
+   private static class Wheel {
+      final int[] positions;
+      final InetSocketAddress[] servers;
+
+      Wheel(int[] positions, InetSocketAddress[] servers) {
+         this.positions = positions;
+         this.servers = servers;
+      }
+   }
 }
@@ -38,14 +38,16 @@ public abstract class AbstractKeyOperation extends RetryOnFailureOperation {
       }
    }
 
-   protected short sendKeyOperation(byte[] key, Transport transport, byte opCode, byte opRespCode) {
-      // 1) write [header][key length][key]
+   @Override
+   public byte[] getRoutingKey() {
+      return key;
+   }
+
+   protected long writeKeyRequest(Transport transport, byte opCode) {
+      // [header][key length][key]
       long messageId = writeHeader(transport, opCode);
       transport.writeArray(key);
-      transport.flush();
-
-      // 2) now read the header
-      return readHeaderAndValidate(transport, messageId, opRespCode);
+      return messageId;
    }
 
    protected byte[] returnPossiblePrevValue(Transport transport) {
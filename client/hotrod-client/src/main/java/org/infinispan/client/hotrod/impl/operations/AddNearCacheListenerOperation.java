@@ -0,0 +1,67 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import net.jcip.annotations.Immutable;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.NearCache;
+import org.infinispan.client.hotrod.impl.transport.StreamingOperation;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registers a near cache with a server. The server answers right away, and then sends a further response listing the
+ * invalidated keys every time entries of the cache are modified or removed, for as long as the connection is open.
+ * The response stream is only ever read by the pipelined transport, so the operation has no synchronous
+ * <tt>execute()</tt> and is run through {@link
+ * org.infinispan.client.hotrod.impl.transport.TransportFactory#executeAsync(org.infinispan.client.hotrod.impl.transport.PipelinedOperation,
+ * org.infinispan.client.hotrod.impl.async.ResponseFuture, java.net.InetSocketAddress)}.
+ *
+ * @since 5.0
+ */
+@Immutable
+public class AddNearCacheListenerOperation extends HotRodOperation implements StreamingOperation {
+
+   private final NearCache nearCache;
+   private final InetSocketAddress server;
+
+   public AddNearCacheListenerOperation(byte[] cacheName, AtomicInteger topologyId, NearCache nearCache, InetSocketAddress server) {
+      super(null, cacheName, topologyId);
+      this.nearCache = nearCache;
+      this.server = server;
+   }
+
+   @Override
+   public byte[] getRoutingKey() {
+      return null;
+   }
+
+   @Override
+   public long writeRequest(Transport transport) {
+      return writeHeader(transport, ADD_NEAR_CACHE_LISTENER_REQUEST);
+   }
+
+   @Override
+   public Object readResponse(Transport transport, long messageId) {
+      readHeaderAndValidate(transport, messageId, ADD_NEAR_CACHE_LISTENER_RESPONSE);
+      int count = transport.readVInt();
+      byte[][] keys = new byte[count][];
+      for (int i = 0; i < count; i++) {
+         keys[i] = transport.readArray();
+      }
+      // incomplete responses are read again, so only invalidate once the whole response is available
+      for (byte[] key : keys) {
+         nearCache.invalidate(key);
+      }
+      return null;
+   }
+
+   @Override
+   public void streamClosed(HotRodClientException cause) {
+      nearCache.listenerClosed(this, cause);
+   }
+
+   public InetSocketAddress getServer() {
+      return server;
+   }
+}
@@ -0,0 +1,69 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import net.jcip.annotations.Immutable;
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads several keys with a single request. The keys are expected to be owned by the same server, so the request is
+ * routed based on the first key. Only the keys found on the server are present in the returned map.
+ *
+ * @since 5.0
+ */
+@Immutable
+public class GetAllOperation extends RetryOnFailureOperation {
+
+   private final Collection<byte[]> keys;
+
+   public GetAllOperation(TransportFactory transportFactory, byte[] cacheName, AtomicInteger topologyId, Flag[] flags,
+                          Collection<byte[]> keys) {
+      super(transportFactory, cacheName, topologyId, flags);
+      this.keys = keys;
+   }
+
+   public Collection<byte[]> getKeys() {
+      return keys;
+   }
+
+   @Override
+   public byte[] getRoutingKey() {
+      return keys.iterator().next();
+   }
+
+   @Override
+   protected Transport getTransport(int retryCount) {
+      if (retryCount == 0) {
+         return transportFactory.getTransport(getRoutingKey());
+      } else {
+         return transportFactory.getTransport();
+      }
+   }
+
+   //[header][key count]([key length][key])*
+   @Override
+   public long writeRequest(Transport transport) {
+      long messageId = writeHeader(transport, GET_ALL_REQUEST);
+      transport.writeVInt(keys.size());
+      for (byte[] key : keys) {
+         transport.writeArray(key);
+      }
+      return messageId;
+   }
+
+   @Override
+   public Object readResponse(Transport transport, long messageId) {
+      readHeaderAndValidate(transport, messageId, GET_ALL_RESPONSE);
+      int size = transport.readVInt();
+      Map<byte[], byte[]> result = new HashMap<byte[], byte[]>(size * 2);
+      for (int i = 0; i < size; i++) {
+         result.put(transport.readArray(), transport.readArray());
+      }
+      return result;
+   }
+}
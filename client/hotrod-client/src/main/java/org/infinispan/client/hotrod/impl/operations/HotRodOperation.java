@@ -46,8 +46,6 @@ public abstract class HotRodOperation implements HotRodConstants {
       this.topologyId = topologyId;
    }
 
-   public abstract Object execute();
-
    protected final long writeHeader(Transport transport, short operationCode) {
       transport.writeByte(HotRodConstants.REQUEST_MAGIC);
       long messageId = MSG_ID.incrementAndGet();
@@ -148,7 +146,6 @@ public abstract class HotRodOperation implements HotRodConstants {
 
    private void readNewTopologyAndHash(Transport transport, AtomicInteger topologyId) {
       int newTopologyId = transport.readVInt();
-      topologyId.set(newTopologyId);
       int numKeyOwners = transport.readUnsignedShort();
       short hashFunctionVersion = transport.readByte();
       int hashSpace = transport.readVInt();
@@ -183,5 +180,7 @@ public abstract class HotRodOperation implements HotRodConstants {
       } else {
          transport.getTransportFactory().updateHashFunction(servers2HashCode, numKeyOwners, hashFunctionVersion, hashSpace);
       }
+      // only publish the new topology id once the servers are updated, it tells near caches to check the server list
+      topologyId.set(newTopologyId);
    }
 }
@@ -2,10 +2,18 @@ package org.infinispan.client.hotrod.impl.operations;
 
 import net.jcip.annotations.Immutable;
 import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.NearCache;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
 import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 import org.infinispan.manager.CacheContainer;
 
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -84,6 +92,62 @@ public class OperationsFactory implements HotRodConstants {
       return new BulkGetOperation(transportFactory, cacheNameBytes, topologyId, flags(), size);
    }
 
+   /**
+    * Flags set through {@link #setFlags(org.infinispan.client.hotrod.Flag[])} are not consumed by this operation, it
+    * is created by the near cache on behalf of the operation they were set for.
+    */
+   public AddNearCacheListenerOperation newAddNearCacheListenerOperation(NearCache nearCache, InetSocketAddress server) {
+      return new AddNearCacheListenerOperation(cacheNameBytes, topologyId, nearCache, server);
+   }
+
+   /**
+    * Splits the entries by the server owning their keys, according to the current consistent hash, and returns one
+    * operation per server.  If no consistent hash is available, a single operation containing all entries is returned.
+    */
+   public List<PutAllOperation> newPutAllOperations(Map<byte[], byte[]> entries, int lifespanSecs, int maxIdleSecs) {
+      Flag[] flags = flags();
+      ConsistentHash consistentHash = transportFactory.getConsistentHash();
+      Map<InetSocketAddress, Map<byte[], byte[]>> entriesPerServer = new HashMap<InetSocketAddress, Map<byte[], byte[]>>();
+      for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+         InetSocketAddress server = consistentHash == null ? null : consistentHash.getServer(entry.getKey());
+         Map<byte[], byte[]> serverEntries = entriesPerServer.get(server);
+         if (serverEntries == null) {
+            serverEntries = new HashMap<byte[], byte[]>();
+            entriesPerServer.put(server, serverEntries);
+         }
+         serverEntries.put(entry.getKey(), entry.getValue());
+      }
+      List<PutAllOperation> operations = new ArrayList<PutAllOperation>(entriesPerServer.size());
+      for (Map<byte[], byte[]> serverEntries : entriesPerServer.values()) {
+         operations.add(new PutAllOperation(transportFactory, cacheNameBytes, topologyId, flags, serverEntries, lifespanSecs, maxIdleSecs));
+      }
+      return operations;
+   }
+
+   /**
+    * Splits the keys by the server owning them, according to the current consistent hash, and returns one operation
+    * per server.  If no consistent hash is available, a single operation containing all keys is returned.
+    */
+   public List<GetAllOperation> newGetAllOperations(Collection<byte[]> keys) {
+      Flag[] flags = flags();
+      ConsistentHash consistentHash = transportFactory.getConsistentHash();
+      Map<InetSocketAddress, List<byte[]>> keysPerServer = new HashMap<InetSocketAddress, List<byte[]>>();
+      for (byte[] key : keys) {
+         InetSocketAddress server = consistentHash == null ? null : consistentHash.getServer(key);
+         List<byte[]> serverKeys = keysPerServer.get(server);
+         if (serverKeys == null) {
+            serverKeys = new ArrayList<byte[]>();
+            keysPerServer.put(server, serverKeys);
+         }
+         serverKeys.add(key);
+      }
+      List<GetAllOperation> operations = new ArrayList<GetAllOperation>(keysPerServer.size());
+      for (List<byte[]> serverKeys : keysPerServer.values()) {
+         operations.add(new GetAllOperation(transportFactory, cacheNameBytes, topologyId, flags, serverKeys));
+      }
+      return operations;
+   }
+
    private Flag[] flags() {
       Flag[] flags = this.flagsMap.get();
       this.flagsMap.remove();
@@ -27,7 +27,6 @@ public class PingOperation extends HotRodOperation {
       this.transport = transport;
    }
 
-   @Override
    public Object execute() {
       boolean success;
       try {
@@ -0,0 +1,79 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import net.jcip.annotations.Immutable;
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores several entries with a single request. The entries are expected to be owned by the same server, so the
+ * request is routed based on the first key.
+ *
+ * @since 5.0
+ */
+@Immutable
+public class PutAllOperation extends RetryOnFailureOperation {
+
+   private final Map<byte[], byte[]> entries;
+
+   private final int lifespan;
+
+   private final int maxIdle;
+
+   public PutAllOperation(TransportFactory transportFactory, byte[] cacheName, AtomicInteger topologyId, Flag[] flags,
+                          Map<byte[], byte[]> entries, int lifespan, int maxIdle) {
+      super(transportFactory, cacheName, topologyId, flags);
+      this.entries = entries;
+      this.lifespan = lifespan;
+      this.maxIdle = maxIdle;
+   }
+
+   public Map<byte[], byte[]> getEntries() {
+      return entries;
+   }
+
+   public int getLifespan() {
+      return lifespan;
+   }
+
+   public int getMaxIdle() {
+      return maxIdle;
+   }
+
+   @Override
+   public byte[] getRoutingKey() {
+      return entries.keySet().iterator().next();
+   }
+
+   @Override
+   protected Transport getTransport(int retryCount) {
+      if (retryCount == 0) {
+         return transportFactory.getTransport(getRoutingKey());
+      } else {
+         return transportFactory.getTransport();
+      }
+   }
+
+   //[header][lifespan][max idle][entry count]([key length][key][value length][value])*
+   @Override
+   public long writeRequest(Transport transport) {
+      long messageId = writeHeader(transport, PUT_ALL_REQUEST);
+      transport.writeVInt(lifespan);
+      transport.writeVInt(maxIdle);
+      transport.writeVInt(entries.size());
+      for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+         transport.writeArray(entry.getKey());
+         transport.writeArray(entry.getValue());
+      }
+      return messageId;
+   }
+
+   @Override
+   public Object readResponse(Transport transport, long messageId) {
+      readHeaderAndValidate(transport, messageId, PUT_ALL_RESPONSE);
+      return null;
+   }
+}
@@ -23,8 +23,13 @@ public class PutOperation extends AbstractKeyValueOperation {
    }
 
    @Override
-   protected Object executeOperation(Transport transport) {
-      short status = sendPutOperation(transport, PUT_REQUEST, PUT_RESPONSE);
+   public long writeRequest(Transport transport) {
+      return writePutRequest(transport, PUT_REQUEST);
+   }
+
+   @Override
+   public Object readResponse(Transport transport, long messageId) {
+      short status = readHeaderAndValidate(transport, messageId, PUT_RESPONSE);
       if (status != NO_ERROR_STATUS) {
          throw new InvalidResponseException("Unexpected response status: " + Integer.toHexString(status));
       }
@@ -25,7 +25,7 @@ public class ReplaceIfUnmodifiedOperation extends AbstractKeyValueOperation {
    }
 
    @Override
-   protected Object executeOperation(Transport transport) {
+   public long writeRequest(Transport transport) {
       // 1) write header
       long messageId = writeHeader(transport, REPLACE_IF_UNMODIFIED_REQUEST);
 
@@ -35,6 +35,11 @@ public class ReplaceIfUnmodifiedOperation extends AbstractKeyValueOperation {
       transport.writeVInt(maxIdle);
       transport.writeLong(version);
       transport.writeArray(value);
+      return messageId;
+   }
+
+   @Override
+   public Object readResponse(Transport transport, long messageId) {
       return returnVersionedOperationResponse(transport, messageId, REPLACE_IF_UNMODIFIED_RESPONSE);
    }
 }
@@ -3,6 +3,8 @@ package org.infinispan.client.hotrod.impl.operations;
 import net.jcip.annotations.Immutable;
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
+import org.infinispan.client.hotrod.impl.transport.PipelinedOperation;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 import org.infinispan.util.logging.Log;
@@ -18,7 +20,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @since 4.1
  */
 @Immutable
-public abstract class RetryOnFailureOperation extends HotRodOperation {
+public abstract class RetryOnFailureOperation extends HotRodOperation implements PipelinedOperation {
 
    private static final Log log = LogFactory.getLog(RetryOnFailureOperation.class);
 
@@ -29,7 +31,6 @@ public abstract class RetryOnFailureOperation extends HotRodOperation {
       this.transportFactory = transportFactory;
    }
 
-   @Override
    public Object execute() {
       int retryCount = 0;
       Transport transport = getTransport(retryCount);
@@ -70,5 +71,23 @@ public abstract class RetryOnFailureOperation extends HotRodOperation {
 
    protected abstract Transport getTransport(int retryCount);
 
-   protected abstract Object executeOperation(Transport transport);
+   protected Object executeOperation(Transport transport) {
+      long messageId = writeRequest(transport);
+      transport.flush();
+      return readResponse(transport, messageId);
+   }
+
+   /**
+    * Sends the request without waiting for the response. The response is read by the transport, which then completes
+    * the given future.
+    */
+   public <T> ResponseFuture<T> executeAsync(ResponseFuture<T> future) {
+      transportFactory.executeAsync(this, future);
+      return future;
+   }
+
+   @Override
+   public byte[] getRoutingKey() {
+      return null;
+   }
 }
@@ -28,10 +28,13 @@ public class StatsOperation extends RetryOnFailureOperation {
    }
 
    @Override
-   protected Object executeOperation(Transport transport) {
+   public long writeRequest(Transport transport) {
+      return writeHeader(transport, STATS_REQUEST);
+   }
+
+   @Override
+   public Object readResponse(Transport transport, long messageId) {
       Map<String, String> result;
-      // 1) write header
-      long messageId = writeHeader(transport, STATS_REQUEST);
       readHeaderAndValidate(transport, messageId, STATS_RESPONSE);
       int nrOfStats = transport.readVInt();
 
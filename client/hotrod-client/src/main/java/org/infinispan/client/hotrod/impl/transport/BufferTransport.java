@@ -0,0 +1,142 @@
+package org.infinispan.client.hotrod.impl.transport;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.io.ExposedByteArrayOutputStream;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static org.infinispan.io.UnsignedNumeric.*;
+
+/**
+ * In-memory transport used by the pipelined transport: requests are encoded into a growable byte array and responses
+ * are decoded from a {@link ByteBuffer} holding the bytes received so far.
+ * <p/>
+ * When a response is not complete yet, reads fail with a {@link BufferUnderflowException} and {@link
+ * #getRequiredLimit()} tells how many bytes, counted from the beginning of the read buffer, are needed before decoding
+ * can make more progress. The caller is expected to reset the buffer and decode the response again once more bytes
+ * arrived.
+ *
+ * @since 5.0
+ */
+public class BufferTransport extends AbstractTransport {
+
+   private final ExposedByteArrayOutputStream out;
+   private ByteBuffer in;
+   private int requiredLimit;
+
+   /**
+    * Creates a transport for encoding a request.
+    */
+   public BufferTransport(TransportFactory transportFactory, int estimatedSize) {
+      super(transportFactory);
+      this.out = new ExposedByteArrayOutputStream(estimatedSize);
+   }
+
+   /**
+    * Creates a transport for decoding responses from the given buffer.
+    */
+   public BufferTransport(TransportFactory transportFactory, ByteBuffer in) {
+      super(transportFactory);
+      this.out = null;
+      this.in = in;
+   }
+
+   public void setReadBuffer(ByteBuffer in) {
+      this.in = in;
+   }
+
+   /**
+    * @return the encoded request, wrapped without copying
+    */
+   public ByteBuffer getWrittenBytes() {
+      return ByteBuffer.wrap(out.getRawBuffer(), 0, out.size());
+   }
+
+   /**
+    * @return the minimum limit the read buffer must reach before the last failed read can succeed
+    */
+   public int getRequiredLimit() {
+      return requiredLimit;
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend) {
+      out.write(toAppend, 0, toAppend.length);
+   }
+
+   @Override
+   public void writeByte(short toWrite) {
+      out.write(toWrite);
+   }
+
+   @Override
+   public void writeVInt(int vint) {
+      try {
+         writeUnsignedInt(out, vint);
+      } catch (IOException e) {
+         throw new TransportException(e);
+      }
+   }
+
+   @Override
+   public void writeVLong(long l) {
+      try {
+         writeUnsignedLong(out, l);
+      } catch (IOException e) {
+         throw new TransportException(e);
+      }
+   }
+
+   @Override
+   public void flush() {
+      // no-op, the caller decides when the encoded bytes are sent
+   }
+
+   @Override
+   public long readVLong() {
+      try {
+         return readUnsignedLong(in);
+      } catch (BufferUnderflowException e) {
+         throw underflow(in.limit() + 1);
+      } catch (IOException e) {
+         throw new TransportException(e);
+      }
+   }
+
+   @Override
+   public int readVInt() {
+      try {
+         return readUnsignedInt(in);
+      } catch (BufferUnderflowException e) {
+         throw underflow(in.limit() + 1);
+      } catch (IOException e) {
+         throw new TransportException(e);
+      }
+   }
+
+   @Override
+   public short readByte() {
+      if (!in.hasRemaining()) throw underflow(in.limit() + 1);
+      return (short) (in.get() & 0xFF);
+   }
+
+   @Override
+   public byte[] readByteArray(int size) {
+      if (in.remaining() < size) throw underflow(in.position() + size);
+      byte[] result = new byte[size];
+      in.get(result);
+      return result;
+   }
+
+   @Override
+   public void release() {
+      // nothing to release
+   }
+
+   private BufferUnderflowException underflow(int requiredLimit) {
+      this.requiredLimit = requiredLimit;
+      return new BufferUnderflowException();
+   }
+}
@@ -0,0 +1,30 @@
+package org.infinispan.client.hotrod.impl.transport;
+
+/**
+ * An operation whose request and response can be handled separately, so that several of them can be in flight on the
+ * same connection at the same time. Responses are matched to operations by the message id written in the request
+ * header.
+ *
+ * @since 5.0
+ */
+public interface PipelinedOperation {
+
+   /**
+    * @return the key used for choosing the server the request is sent to, or null if any server can handle it
+    */
+   byte[] getRoutingKey();
+
+   /**
+    * Writes the complete request.
+    *
+    * @return the message id of the request
+    */
+   long writeRequest(Transport transport);
+
+   /**
+    * Reads the response of the request with the given message id, starting with the response header.
+    *
+    * @return the result of the operation
+    */
+   Object readResponse(Transport transport, long messageId);
+}
@@ -0,0 +1,18 @@
+package org.infinispan.client.hotrod.impl.transport;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+
+/**
+ * A pipelined operation receiving any number of responses for the same request. The future of the request is
+ * completed with the first response, and the following ones are read with {@link #readResponse(Transport, long)} as
+ * they arrive, until the connection is closed. Streaming operations are not retried on other servers.
+ *
+ * @since 5.0
+ */
+public interface StreamingOperation extends PipelinedOperation {
+
+   /**
+    * Called once the connection the responses were read from has been closed, no more responses will be received.
+    */
+   void streamClosed(HotRodClientException cause);
+}
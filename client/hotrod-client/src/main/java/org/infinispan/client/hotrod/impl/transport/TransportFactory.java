@@ -1,6 +1,8 @@
 package org.infinispan.client.hotrod.impl.transport;
 
 import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
 
 import java.net.InetSocketAddress;
 import java.util.Collection;
@@ -29,6 +31,27 @@ public interface TransportFactory {
 
    Transport getTransport(byte[] key);
 
+   /**
+    * @return the consistent hash used for routing keys to their owners, or null if the servers did not send one
+    */
+   ConsistentHash getConsistentHash();
+
+   /**
+    * Sends the request of the given operation without waiting for its response. Requests are pipelined over a small
+    * number of connections per server, and the future is completed once the matching response has been read.
+    */
+   void executeAsync(PipelinedOperation operation, ResponseFuture<?> future);
+
+   /**
+    * Same as {@link #executeAsync(PipelinedOperation, ResponseFuture)}, but the request is sent to the given server.
+    */
+   void executeAsync(PipelinedOperation operation, ResponseFuture<?> future, InetSocketAddress server);
+
+   /**
+    * @return a copy of the current list of servers
+    */
+   Collection<InetSocketAddress> getServers();
+
    boolean isTcpNoDelay();
 
    int getTransportCount();
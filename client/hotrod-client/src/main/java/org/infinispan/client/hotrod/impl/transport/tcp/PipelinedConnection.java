@@ -0,0 +1,272 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.InvalidResponseException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.BufferTransport;
+import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
+import org.infinispan.client.hotrod.impl.transport.StreamingOperation;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking connection to a Hot Rod server carrying many requests at the same time. Requests are written in the
+ * order they were sent and responses are matched to them through the message id of the response header, so the
+ * server is free to answer them in any order.
+ * <p/>
+ * Requests of {@link StreamingOperation}s stay registered after their first response, so that the server can keep
+ * sending responses for them until the connection is closed.
+ * <p/>
+ * Requests can be sent and the connection can be closed from any thread, all the other methods are only called by the
+ * I/O thread of the owning {@link PipelinedConnectionManager}.
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+class PipelinedConnection {
+
+   private static final Log log = LogFactory.getLog(PipelinedConnection.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final int INITIAL_READ_BUFFER_SIZE = 8 * 1024;
+
+   private final PipelinedConnectionManager manager;
+   private final InetSocketAddress serverAddress;
+   private final SocketChannel channel;
+   private final ConcurrentMap<Long, PipelinedRequest> inFlight = new ConcurrentHashMap<Long, PipelinedRequest>();
+   private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+   private final AtomicBoolean writeScheduled = new AtomicBoolean();
+   private final AtomicBoolean closed = new AtomicBoolean();
+
+   private volatile SelectionKey key;
+
+   // only accessed by the I/O thread
+   private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+   private final BufferTransport decoder;
+   private int requiredBytes;
+
+   PipelinedConnection(PipelinedConnectionManager manager, InetSocketAddress serverAddress) {
+      this.manager = manager;
+      this.serverAddress = serverAddress;
+      this.decoder = new BufferTransport(manager.getTransportFactory(), readBuffer);
+      SocketChannel channel = null;
+      try {
+         channel = SocketChannel.open();
+         channel.configureBlocking(false);
+         channel.socket().setTcpNoDelay(manager.getTransportFactory().isTcpNoDelay());
+         channel.connect(serverAddress);
+      } catch (IOException e) {
+         throw connectFailure(channel, e);
+      } catch (UnresolvedAddressException e) {
+         throw connectFailure(channel, e);
+      }
+      this.channel = channel;
+   }
+
+   private TransportException connectFailure(SocketChannel channel, Exception cause) {
+      if (channel != null) {
+         try {
+            channel.close();
+         } catch (IOException e) {
+            log.warn("Issues closing connection to " + serverAddress, e);
+         }
+      }
+      String message = "Could not connect to server: " + serverAddress;
+      log.error(message, cause);
+      return new TransportException(message, cause);
+   }
+
+   /**
+    * Queues the encoded request for writing. If the connection is closed, the request is handed back to the manager
+    * to be retried on another connection.
+    */
+   void send(PipelinedRequest request) {
+      inFlight.put(request.getMessageId(), request);
+      writeQueue.add(request.getBytes());
+      if (closed.get()) {
+         // close() might have missed this request, whoever removes it is in charge of it
+         if (inFlight.remove(request.getMessageId()) != null)
+            manager.retry(request, new TransportException("Connection to " + serverAddress + " was closed"));
+         return;
+      }
+      if (writeScheduled.compareAndSet(false, true)) {
+         manager.scheduleWrite(this);
+      }
+   }
+
+   void register(Selector selector) throws IOException {
+      key = channel.register(selector, channel.isConnectionPending() ? SelectionKey.OP_CONNECT : SelectionKey.OP_READ, this);
+      if (!channel.isConnectionPending()) write();
+   }
+
+   void finishConnect() throws IOException {
+      if (channel.finishConnect()) {
+         if (trace) log.trace("Connected to " + serverAddress);
+         key.interestOps(SelectionKey.OP_READ);
+         write();
+      }
+   }
+
+   /**
+    * Writes as many queued requests as the socket accepts without blocking.
+    */
+   void write() throws IOException {
+      writeScheduled.set(false);
+      if (key == null || !channel.isConnected()) return;
+      ByteBuffer buffer;
+      while ((buffer = writeQueue.peek()) != null) {
+         channel.write(buffer);
+         if (buffer.hasRemaining()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            return;
+         }
+         writeQueue.poll();
+      }
+      key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+   }
+
+   /**
+    * Reads the available bytes and completes the requests whose response is complete.
+    */
+   void read() throws IOException {
+      int read = channel.read(readBuffer);
+      if (read < 0) {
+         close(new TransportException("End of stream reached for " + serverAddress));
+         return;
+      }
+      readBuffer.flip();
+      try {
+         while (readBuffer.hasRemaining() && readBuffer.remaining() >= requiredBytes) {
+            if (!readResponse()) break;
+         }
+      } finally {
+         readBuffer.compact();
+      }
+      if (!readBuffer.hasRemaining() || requiredBytes > readBuffer.capacity()) {
+         ByteBuffer larger = ByteBuffer.allocate(Math.max(readBuffer.capacity() * 2, requiredBytes));
+         readBuffer.flip();
+         larger.put(readBuffer);
+         readBuffer = larger;
+         decoder.setReadBuffer(readBuffer);
+      }
+   }
+
+   /**
+    * @return false if the response at the beginning of the buffer is not complete yet
+    */
+   private boolean readResponse() {
+      int start = readBuffer.position();
+      PipelinedRequest request = null;
+      try {
+         decoder.readByte(); // magic, validated when reading the header again below
+         long messageId = decoder.readVLong();
+         request = inFlight.get(messageId);
+         if (request == null) {
+            throw new InvalidResponseException("Received response for unknown message id " + messageId + " from " + serverAddress);
+         }
+         readBuffer.position(start);
+         Object response = request.getOperation().readResponse(decoder, messageId);
+         requiredBytes = 0;
+         if (request.getOperation() instanceof StreamingOperation) {
+            // more responses will follow, only the first one completes the future
+            request.getFuture().complete(response);
+         } else if (inFlight.remove(messageId) != null) {
+            request.getFuture().complete(response);
+         }
+         return true;
+      } catch (BufferUnderflowException e) {
+         readBuffer.position(start);
+         requiredBytes = decoder.getRequiredLimit() - start;
+         return false;
+      } catch (InvalidResponseException e) {
+         // the stream cannot be trusted any longer
+         close(e);
+         return false;
+      } catch (TransportException e) {
+         close(e);
+         return false;
+      } catch (HotRodClientException e) {
+         // error response sent by the server, which has been fully read
+         requiredBytes = 0;
+         if (inFlight.remove(request.getMessageId()) != null) request.getFuture().completeExceptionally(e);
+         if (isRequestDiscarded(e.getErrorStatusCode())) {
+            // the server could not parse the request, so it reads the rest of it as the next requests
+            close(e);
+            return false;
+         }
+         return true;
+      }
+   }
+
+   private static boolean isRequestDiscarded(int status) {
+      return status == HotRodConstants.UNKNOWN_COMMAND_STATUS || status == HotRodConstants.UNKNOWN_VERSION_STATUS;
+   }
+
+   /**
+    * Fails the requests whose first response is overdue and closes the connection if there were any, since the server
+    * is not responding. The other requests waiting for a response are then retried on other connections.
+    */
+   void expireRequests(long now, long timeout) {
+      TransportException cause = null;
+      for (PipelinedRequest request : inFlight.values()) {
+         if (request.getDeadline() > now || request.getFuture().isDone()) continue;
+         if (inFlight.remove(request.getMessageId(), request)) {
+            if (cause == null)
+               cause = new TransportException("No response received from " + serverAddress + " within " + timeout + " milliseconds");
+            request.getFuture().completeExceptionally(cause);
+         }
+      }
+      if (cause != null) close(cause);
+   }
+
+   /**
+    * Closes the connection. The requests waiting for a response are retried on other connections if possible.
+    */
+   void close(HotRodClientException cause) {
+      if (!closed.compareAndSet(false, true)) return;
+      if (trace) log.trace("Closing connection to " + serverAddress + " because of " + cause);
+      if (key != null) key.cancel();
+      try {
+         channel.close();
+      } catch (IOException e) {
+         log.warn("Issues closing connection to " + serverAddress, e);
+      }
+      writeQueue.clear();
+      for (Long messageId : inFlight.keySet()) {
+         PipelinedRequest request = inFlight.remove(messageId);
+         if (request != null) manager.retry(request, cause);
+      }
+   }
+
+   boolean isClosed() {
+      return closed.get();
+   }
+
+   InetSocketAddress getServerAddress() {
+      return serverAddress;
+   }
+
+   @Override
+   public String toString() {
+      return "PipelinedConnection{" +
+            "serverAddress=" + serverAddress +
+            ", inFlight=" + inFlight.size() +
+            ", closed=" + closed +
+            '}';
+   }
+}
@@ -0,0 +1,285 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
+import org.infinispan.client.hotrod.impl.transport.BufferTransport;
+import org.infinispan.client.hotrod.impl.transport.PipelinedOperation;
+import org.infinispan.client.hotrod.impl.transport.StreamingOperation;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Manages the {@link PipelinedConnection}s used for asynchronous operations, a fixed number per server, and the single
+ * I/O thread reading and writing all of them. Requests are encoded by the calling thread and spread over the
+ * connections of the target server in a round robin fashion. The I/O thread is only started when the first
+ * asynchronous operation is sent.
+ * <p/>
+ * Requests that cannot be completed because their connection failed, or could not be opened, are sent again, to the
+ * server chosen by the request balancer, at most once per known server.
+ * <p/>
+ * The I/O thread also sweeps the connections regularly. Requests whose response is overdue fail with a
+ * {@link TransportException}, and the connection they were sent on is closed since its server is not responsive.
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class PipelinedConnectionManager implements Runnable {
+
+   private static final Log log = LogFactory.getLog(PipelinedConnectionManager.class);
+
+   private static final int REQUEST_SIZE_ESTIMATE = 128;
+   private static final long MAX_SWEEP_INTERVAL = 1000;
+
+   private final TcpTransportFactory transportFactory;
+   private final int connectionsPerServer;
+   private final long requestTimeout;
+   private final long sweepInterval;
+   private final ConcurrentMap<InetSocketAddress, AtomicReferenceArray<PipelinedConnection>> connections =
+         new ConcurrentHashMap<InetSocketAddress, AtomicReferenceArray<PipelinedConnection>>();
+   private final AtomicInteger roundRobin = new AtomicInteger();
+   private final Queue<PipelinedConnection> pendingRegistrations = new ConcurrentLinkedQueue<PipelinedConnection>();
+   private final Queue<PipelinedConnection> pendingWrites = new ConcurrentLinkedQueue<PipelinedConnection>();
+   private volatile Selector selector;
+   private volatile Thread ioThread;
+   private volatile boolean stopped;
+
+   /**
+    * @param requestTimeout milliseconds to wait for the response of a request, or 0 to wait forever
+    */
+   public PipelinedConnectionManager(TcpTransportFactory transportFactory, int connectionsPerServer, long requestTimeout) {
+      this.transportFactory = transportFactory;
+      this.connectionsPerServer = Math.max(1, connectionsPerServer);
+      this.requestTimeout = Math.max(0, requestTimeout);
+      this.sweepInterval = requestTimeout > 0 ? Math.max(1, Math.min(MAX_SWEEP_INTERVAL, requestTimeout / 4)) : 0;
+   }
+
+   /**
+    * @param server the server to send the request to, or null to route it by the key of the operation
+    */
+   public void execute(PipelinedOperation operation, ResponseFuture<?> future, InetSocketAddress server) {
+      send(new PipelinedRequest(operation, future, server), false);
+   }
+
+   private void send(PipelinedRequest request, boolean retry) {
+      try {
+         ensureStarted();
+         BufferTransport encoder = new BufferTransport(transportFactory, REQUEST_SIZE_ESTIMATE);
+         long messageId = request.getOperation().writeRequest(encoder);
+         long deadline = requestTimeout > 0 ? System.currentTimeMillis() + requestTimeout : Long.MAX_VALUE;
+         request.newAttempt(messageId, encoder.getWrittenBytes(), deadline);
+         InetSocketAddress server = request.getServer();
+         if (server == null) {
+            server = retry ? transportFactory.getBalancer().nextServer() :
+                  transportFactory.getServer(request.getOperation().getRoutingKey());
+         }
+         PipelinedConnection connection;
+         try {
+            connection = getConnection(server);
+         } catch (TransportException e) {
+            // like pooled transports, try another server if this one cannot be connected to
+            retry(request, e);
+            return;
+         }
+         connection.send(request);
+      } catch (HotRodClientException e) {
+         request.getFuture().completeExceptionally(e);
+      }
+   }
+
+   /**
+    * Sends again a request whose connection failed, or fails its future if it has been tried on as many connections
+    * as there are servers. Streaming requests and requests for a given server are never retried.
+    */
+   void retry(PipelinedRequest request, HotRodClientException cause) {
+      if (request.getOperation() instanceof StreamingOperation) {
+         request.getFuture().completeExceptionally(cause);
+         ((StreamingOperation) request.getOperation()).streamClosed(cause);
+      } else if (stopped || request.getServer() != null || request.getAttempts() >= transportFactory.getServers().size()) {
+         request.getFuture().completeExceptionally(cause);
+      } else {
+         if (log.isTraceEnabled()) log.trace("Retrying request after failure: " + cause);
+         send(request, true);
+      }
+   }
+
+   void scheduleWrite(PipelinedConnection connection) {
+      pendingWrites.add(connection);
+      selector.wakeup();
+   }
+
+   TcpTransportFactory getTransportFactory() {
+      return transportFactory;
+   }
+
+   private PipelinedConnection getConnection(InetSocketAddress server) {
+      AtomicReferenceArray<PipelinedConnection> serverConnections = connections.get(server);
+      if (serverConnections == null) {
+         serverConnections = new AtomicReferenceArray<PipelinedConnection>(connectionsPerServer);
+         AtomicReferenceArray<PipelinedConnection> existing = connections.putIfAbsent(server, serverConnections);
+         if (existing != null) serverConnections = existing;
+      }
+      int index = (roundRobin.getAndIncrement() & Integer.MAX_VALUE) % connectionsPerServer;
+      PipelinedConnection connection = serverConnections.get(index);
+      if (connection == null || connection.isClosed()) {
+         synchronized (serverConnections) {
+            connection = serverConnections.get(index);
+            if (connection == null || connection.isClosed()) {
+               connection = new PipelinedConnection(this, server);
+               serverConnections.set(index, connection);
+               pendingRegistrations.add(connection);
+               selector.wakeup();
+            }
+         }
+      }
+      return connection;
+   }
+
+   /**
+    * Closes the connections to the given server, retrying their pending requests on other servers.
+    */
+   public void closeConnections(InetSocketAddress server) {
+      AtomicReferenceArray<PipelinedConnection> serverConnections = connections.remove(server);
+      if (serverConnections != null) {
+         for (int i = 0; i < serverConnections.length(); i++) {
+            PipelinedConnection connection = serverConnections.get(i);
+            if (connection != null)
+               connection.close(new TransportException("Server " + server + " is not part of the cluster anymore"));
+         }
+      }
+   }
+
+   private void ensureStarted() {
+      if (ioThread == null || stopped) start();
+   }
+
+   private synchronized void start() {
+      if (stopped) throw new TransportException("Transport factory was stopped");
+      if (ioThread != null) return;
+      try {
+         selector = Selector.open();
+      } catch (IOException e) {
+         throw new TransportException("Could not open selector", e);
+      }
+      ioThread = new Thread(this, "HotRodClient-IO");
+      ioThread.setDaemon(true);
+      ioThread.start();
+   }
+
+   public void stop() {
+      Thread thread;
+      synchronized (this) {
+         stopped = true;
+         thread = ioThread;
+      }
+      if (thread != null) {
+         selector.wakeup();
+         try {
+            thread.join(1000);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+
+   @Override
+   public void run() {
+      long nextSweep = System.currentTimeMillis() + sweepInterval;
+      while (!stopped) {
+         try {
+            selector.select(sweepInterval);
+            registerConnections();
+            writeConnections();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+               SelectionKey key = keys.next();
+               keys.remove();
+               handle(key, (PipelinedConnection) key.attachment());
+            }
+            if (sweepInterval > 0) {
+               long now = System.currentTimeMillis();
+               if (now >= nextSweep) {
+                  expireRequests(now);
+                  nextSweep = now + sweepInterval;
+               }
+            }
+         } catch (IOException e) {
+            log.warn("Unexpected exception in the I/O thread", e);
+         }
+      }
+      for (AtomicReferenceArray<PipelinedConnection> serverConnections : connections.values()) {
+         for (int i = 0; i < serverConnections.length(); i++) {
+            PipelinedConnection connection = serverConnections.get(i);
+            if (connection != null) connection.close(new TransportException("Transport factory was stopped"));
+         }
+      }
+      connections.clear();
+      try {
+         selector.close();
+      } catch (IOException e) {
+         log.warn("Issues closing selector", e);
+      }
+   }
+
+   private void handle(SelectionKey key, PipelinedConnection connection) {
+      try {
+         if (key.isConnectable()) connection.finishConnect();
+         if (key.isValid() && key.isWritable()) connection.write();
+         if (key.isValid() && key.isReadable()) connection.read();
+      } catch (CancelledKeyException e) {
+         // the connection was closed concurrently
+      } catch (IOException e) {
+         connection.close(new TransportException(e));
+      } catch (RuntimeException e) {
+         log.warn("Unexpected exception handling " + connection, e);
+         connection.close(new TransportException(e));
+      }
+   }
+
+   private void expireRequests(long now) {
+      for (AtomicReferenceArray<PipelinedConnection> serverConnections : connections.values()) {
+         for (int i = 0; i < serverConnections.length(); i++) {
+            PipelinedConnection connection = serverConnections.get(i);
+            if (connection != null && !connection.isClosed()) connection.expireRequests(now, requestTimeout);
+         }
+      }
+   }
+
+   private void registerConnections() {
+      PipelinedConnection connection;
+      while ((connection = pendingRegistrations.poll()) != null) {
+         try {
+            connection.register(selector);
+         } catch (IOException e) {
+            connection.close(new TransportException(e));
+         }
+      }
+   }
+
+   private void writeConnections() {
+      PipelinedConnection connection;
+      while ((connection = pendingWrites.poll()) != null) {
+         try {
+            connection.write();
+         } catch (CancelledKeyException e) {
+            // the connection was closed concurrently
+         } catch (IOException e) {
+            connection.close(new TransportException(e));
+         }
+      }
+   }
+}
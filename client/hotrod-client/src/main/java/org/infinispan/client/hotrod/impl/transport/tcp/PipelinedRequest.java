@@ -0,0 +1,73 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
+import org.infinispan.client.hotrod.impl.transport.PipelinedOperation;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * A pipelined operation together with the future waiting for its result and the state of its current attempt.
+ *
+ * @since 5.0
+ */
+class PipelinedRequest {
+
+   private final PipelinedOperation operation;
+   private final ResponseFuture<?> future;
+   private final InetSocketAddress server;
+   private int attempts;
+   private long messageId;
+   private ByteBuffer bytes;
+   private volatile long deadline;
+
+   PipelinedRequest(PipelinedOperation operation, ResponseFuture<?> future, InetSocketAddress server) {
+      this.operation = operation;
+      this.future = future;
+      this.server = server;
+   }
+
+   PipelinedOperation getOperation() {
+      return operation;
+   }
+
+   ResponseFuture<?> getFuture() {
+      return future;
+   }
+
+   /**
+    * @return the server the request must be sent to, or null if it is routed by the key of the operation
+    */
+   InetSocketAddress getServer() {
+      return server;
+   }
+
+   /**
+    * Records a new attempt to send the request, encoded with a new message id.
+    *
+    * @param deadline time, in milliseconds, by which the response of this attempt is due
+    * @return the number of attempts made so far, including this one
+    */
+   int newAttempt(long messageId, ByteBuffer bytes, long deadline) {
+      this.messageId = messageId;
+      this.bytes = bytes;
+      this.deadline = deadline;
+      return ++attempts;
+   }
+
+   int getAttempts() {
+      return attempts;
+   }
+
+   long getMessageId() {
+      return messageId;
+   }
+
+   ByteBuffer getBytes() {
+      return bytes;
+   }
+
+   long getDeadline() {
+      return deadline;
+   }
+}
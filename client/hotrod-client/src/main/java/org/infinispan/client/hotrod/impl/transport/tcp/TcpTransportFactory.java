@@ -5,7 +5,9 @@ import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.infinispan.client.hotrod.exceptions.TransportException;
 import org.infinispan.client.hotrod.impl.ConfigurationProperties;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
+import org.infinispan.client.hotrod.impl.transport.PipelinedOperation;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 
@@ -14,6 +16,7 @@ import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -38,6 +41,7 @@ public class TcpTransportFactory implements TransportFactory {
    private volatile Collection<InetSocketAddress> servers;
    private volatile ConsistentHash consistentHash;
    private volatile boolean tcpNoDelay;
+   private volatile PipelinedConnectionManager pipelinedConnections;
    private final ConsistentHashFactory hashFactory = new ConsistentHashFactory();
 
    @Override
@@ -48,6 +52,7 @@ public class TcpTransportFactory implements TransportFactory {
       String balancerClass = cfg.getRequestBalancingStrategy();
       balancer = (RequestBalancingStrategy) Util.getInstance(balancerClass);
       tcpNoDelay = cfg.getTcpNoDelay();
+      pipelinedConnections = new PipelinedConnectionManager(this, cfg.getAsyncConnectionsPerServer(), cfg.getAsyncRequestTimeout());
       PropsKeyedObjectPoolFactory poolFactory = new PropsKeyedObjectPoolFactory(new TransportObjectFactory(this, topologyId, pingOnStartup), cfg.getProperties());
       createAndPreparePool(staticConfiguredServers, poolFactory);
       balancer.setServers(servers);
@@ -66,6 +71,7 @@ public class TcpTransportFactory implements TransportFactory {
 
    @Override
    public void destroy() {
+      pipelinedConnections.stop();
       connectionPool.clear();
       try {
          connectionPool.close();
@@ -92,8 +98,16 @@ public class TcpTransportFactory implements TransportFactory {
    }
 
    public Transport getTransport(byte[] key) {
+      return borrowTransportFromPool(getServer(key));
+   }
+
+   /**
+    * @return the server owning the given key, or the next server chosen by the balancer if the key is null or no
+    *         consistent hash is available
+    */
+   public InetSocketAddress getServer(byte[] key) {
       InetSocketAddress server;
-      if (consistentHash != null) {
+      if (key != null && consistentHash != null) {
          server = consistentHash.getServer(key);
          if (log.isTraceEnabled()) {
             log.trace("Using consistent hash for determining the server: " + server);
@@ -104,7 +118,17 @@ public class TcpTransportFactory implements TransportFactory {
             log.trace("Using the balancer for determining the server: " + server);
          }
       }
-      return borrowTransportFromPool(server);
+      return server;
+   }
+
+   @Override
+   public void executeAsync(PipelinedOperation operation, ResponseFuture<?> future) {
+      pipelinedConnections.execute(operation, future, null);
+   }
+
+   @Override
+   public void executeAsync(PipelinedOperation operation, ResponseFuture<?> future, InetSocketAddress server) {
+      pipelinedConnections.execute(operation, future, server);
    }
 
    @Override
@@ -168,6 +192,7 @@ public class TcpTransportFactory implements TransportFactory {
          for (InetSocketAddress server : failedServers) {
             log.info("Server not in cluster anymore(" + server + "), removing from the pool.");
             connectionPool.clear(server);
+            pipelinedConnections.closeConnections(server);
          }
 
          servers.clear();
@@ -175,8 +200,11 @@ public class TcpTransportFactory implements TransportFactory {
       }
    }
 
+   @Override
    public Collection<InetSocketAddress> getServers() {
-      return servers;
+      synchronized (this) {
+         return new ArrayList<InetSocketAddress>(servers);
+      }
    }
 
    private void logConnectionInfo(InetSocketAddress server) {
@@ -197,6 +225,7 @@ public class TcpTransportFactory implements TransportFactory {
       }
    }
 
+   @Override
    public ConsistentHash getConsistentHash() {
       return consistentHash;
    }
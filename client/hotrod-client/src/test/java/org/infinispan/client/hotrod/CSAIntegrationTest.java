@@ -23,7 +23,9 @@ import org.testng.annotations.Test;
 
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
 
@@ -172,6 +174,20 @@ public class CSAIntegrationTest extends HitsAwareCacheManagersTest {
       }
    }
 
+   @Test(dependsOnMethods = "testRequestsGoToExpectedServer")
+   public void testPutAllAndGetAllSplitByOwner() throws Exception {
+      Map<Object, Object> data = new HashMap<Object, Object>();
+      for (int i = 0; i < 100; i++) data.put("bulk" + i, "value" + i);
+      remoteCache.putAll(data);
+      for (Object key : data.keySet()) {
+         byte[] keyBytes = m.objectToByteBuffer(key);
+         TcpTransport transport = (TcpTransport) tcpConnectionFactory.getTransport(keyBytes);
+         assertCacheContainsKey(transport.getServerAddress(), keyBytes);
+         tcpConnectionFactory.releaseTransport(transport);
+      }
+      assertEquals(data, remoteCache.getAll(data.keySet()));
+   }
+
    private void assertCacheContainsKey(InetSocketAddress serverAddress, byte[] keyBytes) {
       CacheContainer cacheContainer = hrServ2CacheManager.get(serverAddress);
       Cache<Object, Object> cache = cacheContainer.getCache();
@@ -0,0 +1,80 @@
+package org.infinispan.client.hotrod;
+
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests the multi-key getAll and putAll operations against a single server.
+ *
+ * @since 5.0
+ */
+@Test(testName = "client.hotrod.GetAllPutAllTest", groups = "functional")
+public class GetAllPutAllTest extends SingleCacheManagerTest {
+   private HotRodServer hotRodServer;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<Object, Object> remoteCache;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      cacheManager = TestCacheManagerFactory.createLocalCacheManager();
+      cache = cacheManager.getCache();
+
+      hotRodServer = TestHelper.startHotRodServer(cacheManager);
+
+      Properties hotrodClientConf = new Properties();
+      hotrodClientConf.put("infinispan.client.hotrod.server_list", "localhost:" + hotRodServer.getPort());
+      remoteCacheManager = new RemoteCacheManager(hotrodClientConf);
+      remoteCache = remoteCacheManager.getCache();
+      return cacheManager;
+   }
+
+   @AfterClass
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      remoteCacheManager.stop();
+      hotRodServer.stop();
+   }
+
+   public void testPutAllAndGetAll() {
+      Map<Object, Object> data = new HashMap<Object, Object>();
+      for (int i = 0; i < 100; i++) data.put(i, "v" + i);
+      remoteCache.putAll(data);
+      assertEquals(100, cache.size());
+
+      Set<Object> keys = new HashSet<Object>(data.keySet());
+      keys.add("missing");
+      Map<Object, Object> result = remoteCache.getAll(keys);
+      assertEquals(data, result);
+   }
+
+   public void testGetAllEmpty() {
+      assert remoteCache.getAll(Collections.emptySet()).isEmpty();
+      remoteCache.putAll(Collections.emptyMap());
+      assert remoteCache.getAll(Collections.<Object>singleton("nothing")).isEmpty();
+   }
+
+   public void testPutAllWithLifespan() throws Exception {
+      Map<Object, Object> data = new HashMap<Object, Object>();
+      data.put("k1", "v1");
+      data.put("k2", "v2");
+      remoteCache.putAll(data, 1, TimeUnit.SECONDS);
+      assertEquals("v1", remoteCache.get("k1"));
+      Thread.sleep(1100);
+      assert remoteCache.getAll(data.keySet()).isEmpty();
+   }
+}
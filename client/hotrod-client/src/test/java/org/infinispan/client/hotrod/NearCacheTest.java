@@ -0,0 +1,138 @@
+package org.infinispan.client.hotrod;
+
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * @since 5.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.NearCacheTest")
+public class NearCacheTest extends SingleCacheManagerTest {
+
+   private HotRodServer hotrodServer;
+   private RemoteCacheManager rcm1;
+   private RemoteCacheManager rcm2;
+   private RemoteCache<String, String> remote1;
+   private RemoteCache<String, String> remote2;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManagerEnforceJmxDomain(getClass().getSimpleName());
+      cache = cm.getCache();
+      hotrodServer = TestHelper.startHotRodServer(cm);
+      rcm1 = new RemoteCacheManager(nearCacheProperties());
+      rcm2 = new RemoteCacheManager(nearCacheProperties());
+      remote1 = rcm1.getCache();
+      remote2 = rcm2.getCache();
+      return cm;
+   }
+
+   private Properties nearCacheProperties() {
+      Properties props = new Properties();
+      props.put("infinispan.client.hotrod.server_list", "127.0.0.1:" + hotrodServer.getPort());
+      props.put("infinispan.client.hotrod.near_cache.max_entries", "100");
+      return props;
+   }
+
+   @AfterClass
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      rcm1.stop();
+      rcm2.stop();
+      hotrodServer.stop();
+   }
+
+   public void testReadsServedLocally() {
+      remote1.put("local", "v");
+      // the near cache is only used once the server acknowledged its listener
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            int hits = remote1.stats().getIntStatistic(ServerStatistics.HITS);
+            remote1.get("local");
+            return hits == remote1.stats().getIntStatistic(ServerStatistics.HITS);
+         }
+      });
+      int hits = remote1.stats().getIntStatistic(ServerStatistics.HITS);
+      for (int i = 0; i < 10; i++) assertEquals("v", remote1.get("local"));
+      assertEquals(hits, (int) remote1.stats().getIntStatistic(ServerStatistics.HITS));
+   }
+
+   public void testServerExpiryInvalidates() {
+      remote2.put("lifespan", "v", 2, TimeUnit.SECONDS);
+      remote2.put("idle", "v", -1, TimeUnit.SECONDS, 2, TimeUnit.SECONDS);
+      assertServedLocally("lifespan");
+      assertServedLocally("idle");
+      // near cache reads do not touch the entry on the server, so both expire there
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return remote1.get("lifespan") == null && remote1.get("idle") == null;
+         }
+      });
+   }
+
+   private void assertServedLocally(final String key) {
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            int hits = remote1.stats().getIntStatistic(ServerStatistics.HITS);
+            assertEquals("v", remote1.get(key));
+            return hits == remote1.stats().getIntStatistic(ServerStatistics.HITS);
+         }
+      });
+   }
+
+   public void testOwnWritesVisible() {
+      remote1.put("own", "v1");
+      assertEquals("v1", remote1.get("own"));
+      remote1.put("own", "v2");
+      assertEquals("v2", remote1.get("own"));
+      remote1.remove("own");
+      assertNull(remote1.get("own"));
+   }
+
+   public void testRemoteWritesInvalidate() {
+      remote2.put("remote", "v1");
+      assertEquals("v1", remote1.get("remote"));
+      assertEquals("v1", remote1.get("remote"));
+      remote2.put("remote", "v2");
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return "v2".equals(remote1.get("remote"));
+         }
+      });
+      remote2.remove("remote");
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return remote1.get("remote") == null;
+         }
+      });
+   }
+
+   public void testClearInvalidates() {
+      remote1.put("cleared", "v");
+      assertEquals("v", remote1.get("cleared"));
+      assertEquals("v", remote1.get("cleared"));
+      remote2.clear();
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return remote1.get("cleared") == null;
+         }
+      });
+   }
+}
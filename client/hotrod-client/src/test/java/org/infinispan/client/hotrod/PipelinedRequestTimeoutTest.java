@@ -0,0 +1,67 @@
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.ServerSocket;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous requests sent to a server that accepts connections but never answers must fail once the configured
+ * request timeout has elapsed.
+ *
+ * @since 5.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.PipelinedRequestTimeoutTest")
+public class PipelinedRequestTimeoutTest extends AbstractInfinispanTest {
+
+   private ServerSocket silentServer;
+   private RemoteCacheManager remoteCacheManager;
+
+   @BeforeMethod
+   public void startSilentServer() throws Exception {
+      silentServer = new ServerSocket(0);
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void stop() throws Exception {
+      if (remoteCacheManager != null) remoteCacheManager.stop();
+      silentServer.close();
+   }
+
+   public void testRequestsTimeOut() throws Exception {
+      RemoteCache<String, String> cache = createCache("127.0.0.1:" + silentServer.getLocalPort());
+      Future<String> f = cache.putAsync("k", "v");
+      assertTransportFailure(f);
+   }
+
+   public void testUnreachableServerSkipped() throws Exception {
+      RemoteCache<String, String> cache = createCache("unresolvable.invalid:11222;127.0.0.1:" + silentServer.getLocalPort());
+      // whichever server is picked first, the request ends up waiting on the silent one
+      for (int i = 0; i < 2; i++) assertTransportFailure(cache.putAsync("k" + i, "v"));
+   }
+
+   private RemoteCache<String, String> createCache(String servers) {
+      Properties props = new Properties();
+      props.put("infinispan.client.hotrod.server_list", servers);
+      props.put("infinispan.client.hotrod.ping_on_startup", "false");
+      props.put("infinispan.client.hotrod.async_request_timeout", "500");
+      remoteCacheManager = new RemoteCacheManager(props);
+      return remoteCacheManager.getCache();
+   }
+
+   private void assertTransportFailure(Future<?> f) throws Exception {
+      try {
+         f.get(10, TimeUnit.SECONDS);
+         assert false : "The request should have timed out";
+      } catch (ExecutionException e) {
+         assert e.getCause() instanceof TransportException : "Unexpected failure " + e.getCause();
+      }
+   }
+}
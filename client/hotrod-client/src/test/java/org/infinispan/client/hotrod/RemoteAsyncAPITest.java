@@ -4,13 +4,18 @@ import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.server.hotrod.HotRodServer;
 import org.infinispan.test.SingleCacheManagerTest;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.FutureListener;
 import org.infinispan.util.concurrent.NotifyingFuture;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static junit.framework.Assert.assertEquals;
 
@@ -164,4 +169,26 @@ public class RemoteAsyncAPITest extends SingleCacheManagerTest {
       assert !c.replaceWithVersion("aKey", "aNewValue", valueBinary.getVersion());
 
    }
+
+   public void testManyPipelinedCalls() throws Exception {
+      List<NotifyingFuture<String>> futures = new ArrayList<NotifyingFuture<String>>();
+      for (int i = 0; i < 1000; i++) futures.add(c.putAsync("pipelined" + i, "v" + i));
+      for (NotifyingFuture<String> f : futures) assert f.get() == null;
+      futures.clear();
+      for (int i = 0; i < 1000; i++) futures.add(c.replaceAsync("pipelined" + i, "value" + i));
+      for (int i = 0; i < 1000; i++) assertEquals("v" + i, futures.get(i).get());
+      for (int i = 0; i < 1000; i++) assertEquals("value" + i, c.get("pipelined" + i));
+   }
+
+   public void testListenerNotified() throws Exception {
+      final CountDownLatch latch = new CountDownLatch(1);
+      c.putAsync("listened", "v").attachListener(new FutureListener<String>() {
+         @Override
+         public void futureDone(Future<String> future) {
+            latch.countDown();
+         }
+      });
+      assert latch.await(10, TimeUnit.SECONDS);
+      assertEquals("v", c.get("listened"));
+   }
 }
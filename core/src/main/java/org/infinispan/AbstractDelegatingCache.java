@@ -219,6 +219,14 @@ public abstract class AbstractDelegatingCache<K, V> implements Cache<K, V> {
       return cache.get(key);
    }
 
+   public Map<K, V> getAll(Set<? extends K> keys) {
+      return cache.getAll(keys);
+   }
+
+   public NotifyingFuture<Map<K, V>> getAllAsync(Set<? extends K> keys) {
+      return cache.getAllAsync(keys);
+   }
+
    public V put(K key, V value) {
       return cache.put(key, value);
    }
@@ -310,6 +310,17 @@ public interface Cache<K, V> extends ConcurrentMap<K, V>, Lifecycle, Listenable
     */
    boolean replace(K key, V oldValue, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit);
 
+   /**
+    * Retrieves the values mapped to several keys in a single invocation.  This is equivalent to calling {@link
+    * #get(Object)} for each of the keys, but is considerably cheaper when using a distributed cache since keys that are
+    * not available locally are fetched with a single remote call per owner, and these calls are made in parallel.
+    *
+    * @param keys keys to retrieve
+    * @return a map containing the keys that are mapped to a value, and their values.  Keys that are not present in the
+    *         cache are not included.
+    */
+   Map<K, V> getAll(Set<? extends K> keys);
+
    /**
     * Asynchronous version of {@link #put(Object, Object)}.  This method does not block on remote calls, even if your
     * cache mode is synchronous.  Has no benefit over {@link #put(Object, Object)} if used in LOCAL mode.
@@ -534,6 +545,15 @@ public interface Cache<K, V> extends ConcurrentMap<K, V>, Lifecycle, Listenable
     */
    NotifyingFuture<Boolean> replaceAsync(K key, V oldValue, V newValue, long lifespan, TimeUnit lifespanUnit, long maxIdle, TimeUnit maxIdleUnit);
 
+   /**
+    * Asynchronous version of {@link #getAll(Set)}.  This method does not block on remote calls, even if your cache
+    * mode is synchronous.  Has no benefit over {@link #getAll(Set)} if used in LOCAL mode.
+    *
+    * @param keys keys to retrieve
+    * @return a future containing a map of the keys found to their values
+    */
+   NotifyingFuture<Map<K, V>> getAllAsync(Set<? extends K> keys);
+
 
    AdvancedCache<K, V> getAdvancedCache();
 
@@ -26,12 +26,16 @@ import static org.infinispan.context.Flag.*;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import javax.transaction.SystemException;
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
 
@@ -39,6 +43,7 @@ import org.infinispan.batch.BatchContainer;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.SizeCommand;
@@ -59,6 +64,8 @@ import org.infinispan.context.InvocationContextContainer;
 import org.infinispan.distribution.DistributionManager;
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.SurvivesRestarts;
 import org.infinispan.interceptors.InterceptorChain;
@@ -79,6 +86,7 @@ import org.infinispan.stats.Stats;
 import org.infinispan.stats.StatsImpl;
 import org.infinispan.util.concurrent.AbstractInProcessNotifyingFuture;
 import org.infinispan.util.concurrent.NotifyingFuture;
+import org.infinispan.util.concurrent.NotifyingFutureTask;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 import org.rhq.helpers.pluginAnnotations.agent.DataType;
@@ -116,6 +124,7 @@ public class CacheDelegate<K, V> extends CacheSupport<K,V> implements AdvancedCa
    // as above for ResponseGenerator
    private ResponseGenerator responseGenerator;
    private DistributionManager distributionManager;
+   private ExecutorService asyncExecutor;
    private final ThreadLocal<PreInvocationContext> flagHolder = new ThreadLocal<PreInvocationContext>();
 
    public CacheDelegate(String name) {
@@ -154,6 +163,11 @@ public class CacheDelegate<K, V> extends CacheSupport<K,V> implements AdvancedCa
       this.distributionManager = distributionManager;
    }
 
+   @Inject
+   public void injectAsyncExecutor(@ComponentName(KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncExecutor) {
+      this.asyncExecutor = asyncExecutor;
+   }
+
    private void assertKeyNotNull(Object key) {
       if (key == null) {
          throw new NullPointerException("Null keys are not supported!");
@@ -164,7 +178,14 @@ public class CacheDelegate<K, V> extends CacheSupport<K,V> implements AdvancedCa
       if (data == null) {
          throw new NullPointerException("Expected map cannot be null");
       }
-      for (Object key: data.keySet()) {
+      assertKeysNotNull(data.keySet());
+   }
+
+   private void assertKeysNotNull(Collection<?> keys) {
+      if (keys == null) {
+         throw new NullPointerException("Expected keys cannot be null");
+      }
+      for (Object key: keys) {
          if (key == null) {
             throw new NullPointerException("Null keys are not supported!");
          }
@@ -207,6 +228,14 @@ public class CacheDelegate<K, V> extends CacheSupport<K,V> implements AdvancedCa
       return (V) invoker.invoke(ctx, command);
    }
 
+   @SuppressWarnings("unchecked")
+   public final Map<K, V> getAll(Set<? extends K> keys) {
+      assertKeysNotNull(keys);
+      InvocationContext ctx = getInvocationContext(false);
+      GetAllCommand command = commandsFactory.buildGetAllCommand(new HashSet<Object>(keys));
+      return (Map<K, V>) invoker.invoke(ctx, command);
+   }
+
    @SuppressWarnings("unchecked")
    public final V remove(Object key) {
       assertKeyNotNull(key);
@@ -565,6 +594,32 @@ public class CacheDelegate<K, V> extends CacheSupport<K,V> implements AdvancedCa
       return wrapInFuture(invoker.invoke(ctx, command));
    }
 
+   public final NotifyingFuture<Map<K, V>> getAllAsync(final Set<? extends K> keys) {
+      assertKeysNotNull(keys);
+      // remote lookups only happen in clustered caches, and reads within a transaction must see the transaction's state
+      if (rpcManager == null || isInTransaction()) return wrapInFuture(getAll(keys));
+
+      // flags are held per thread, so hand them over to the thread doing the lookup
+      final PreInvocationContext pic = flagHolder.get();
+      flagHolder.remove();
+      NotifyingFutureTask<Map<K, V>> future = new NotifyingFutureTask<Map<K, V>>(new Callable<Map<K, V>>() {
+         public Map<K, V> call() throws Exception {
+            if (pic != null) flagHolder.set(pic);
+            return getAll(keys);
+         }
+      });
+      asyncExecutor.execute(future);
+      return future;
+   }
+
+   private boolean isInTransaction() {
+      try {
+         return transactionManager != null && transactionManager.getTransaction() != null;
+      } catch (SystemException e) {
+         throw new CacheException("Unable to retrieve the current transaction", e);
+      }
+   }
+
    public AdvancedCache<K, V> getAdvancedCache() {
       return this;
    }
@@ -0,0 +1,46 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.atomic;
+
+/**
+ * A function of the current value of an entry, passed as the value of a {@link org.infinispan.Cache#put(Object,
+ * Object)} to read and update the entry as a single operation.  The update is applied while holding the lock on the
+ * entry, on the node where the put is invoked.  In distributed caches, the current value is fetched from the owners
+ * first, even if return values are configured as unreliable.  The resulting value, not the update, is then replicated,
+ * so a put that is applied again, for example when replaying the transaction log during state transfer, does not
+ * apply the update twice.
+ * <p />
+ * The put returns the value computed by the update instead of the previous value.  Like {@link Delta}, updates are not
+ * supported on caches storing values as binary.
+ *
+ * @since 5.0
+ */
+public interface ValueUpdate {
+   /**
+    * Computes the new value of the entry.
+    *
+    * @param currentValue current value of the entry, or null if the entry does not exist
+    * @return the new value, or null to leave the entry untouched, in which case the put is not replicated
+    */
+   Object apply(Object currentValue);
+}
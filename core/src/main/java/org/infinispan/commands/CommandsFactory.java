@@ -23,12 +23,15 @@ package org.infinispan.commands;
 
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.control.RehashControlCommand;
+import org.infinispan.commands.control.StateSegmentsCommand;
 import org.infinispan.commands.control.StateTransferControlCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
@@ -53,6 +56,7 @@ import org.infinispan.transaction.xa.GlobalTransaction;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A factory to build commands, initializing and injecting dependencies accordingly.  Commands built for a specific,
@@ -132,6 +136,13 @@ public interface CommandsFactory {
     */
    GetKeyValueCommand buildGetKeyValueCommand(Object key);
 
+   /**
+    * Builds a GetAllCommand
+    * @param keys keys to get
+    * @return a GetAllCommand
+    */
+   GetAllCommand buildGetAllCommand(Set<Object> keys);
+
    /**
     * Builds a KeySetCommand
     * @return a KeySetCommand
@@ -229,6 +240,18 @@ public interface CommandsFactory {
     */
    StateTransferControlCommand buildStateTransferControlCommand(boolean block);
 
+   /**
+    * Builds a StateSegmentsCommand, used to transfer in-memory state in segments
+    * @param type type of StateSegmentsCommand
+    * @param sender sender's Address
+    * @param pullId id the sender gives to one pull of segments, not used by {@link StateSegmentsCommand.Type#SEGMENTS_APPLIED}
+    * @param segments segments to pull, only used by {@link StateSegmentsCommand.Type#PULL_SEGMENTS}
+    * @param numSegments total number of segments, only used by {@link StateSegmentsCommand.Type#PULL_SEGMENTS}
+    * @param transferId id of the state transfer, only used by {@link StateSegmentsCommand.Type#SEGMENTS_APPLIED}
+    * @return a StateSegmentsCommand
+    */
+   StateSegmentsCommand buildStateSegmentsCommand(StateSegmentsCommand.Type type, Address sender, int pullId, int[] segments, int numSegments, int transferId);
+
    /**
     * Builds a ClusteredGetCommand, which is a remote lookup command
     * @param key key to look up
@@ -236,6 +259,13 @@ public interface CommandsFactory {
     */
    ClusteredGetCommand buildClusteredGetCommand(Object key);
 
+   /**
+    * Builds a ClusteredGetAllCommand, which is a remote lookup command for several keys
+    * @param keys keys to look up
+    * @return a ClusteredGetAllCommand
+    */
+   ClusteredGetAllCommand buildClusteredGetAllCommand(Set<Object> keys);
+
    /**
     * Builds a LockControlCommand to control explicit remote locking
     * @param keys keys to lock
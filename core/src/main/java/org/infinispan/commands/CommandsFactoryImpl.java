@@ -24,15 +24,18 @@ package org.infinispan.commands;
 import org.infinispan.Cache;
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.control.RehashControlCommand;
+import org.infinispan.commands.control.StateSegmentsCommand;
 import org.infinispan.commands.control.StateTransferControlCommand;
 import static org.infinispan.commands.control.RehashControlCommand.Type.DRAIN_TX_PREPARES;
 import static org.infinispan.commands.control.RehashControlCommand.Type.DRAIN_TX;
 import static org.infinispan.commands.control.RehashControlCommand.Type.PUSH_STATE;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
@@ -59,6 +62,7 @@ import org.infinispan.factories.annotations.Start;
 import org.infinispan.interceptors.InterceptorChain;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.remoting.transport.Address;
+import org.infinispan.statetransfer.StateTransferManager;
 import org.infinispan.transaction.xa.DldGlobalTransaction;
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.transaction.xa.RemoteTransaction;
@@ -94,6 +98,7 @@ public class CommandsFactoryImpl implements CommandsFactory {
    EntrySetCommand cachedEntrySetCommand;
    private InterceptorChain interceptorChain;
    private DistributionManager distributionManager;
+   private StateTransferManager stateTransferManager;
    private InvocationContextContainer icc;
    private TransactionTable txTable;
    private Configuration configuration;
@@ -101,7 +106,8 @@ public class CommandsFactoryImpl implements CommandsFactory {
    @Inject
    public void setupDependencies(DataContainer container, CacheNotifier notifier, Cache cache,
                                  InterceptorChain interceptorChain, DistributionManager distributionManager,
-                                 InvocationContextContainer icc, TransactionTable txTable, Configuration configuration) {
+                                 InvocationContextContainer icc, TransactionTable txTable, Configuration configuration,
+                                 StateTransferManager stateTransferManager) {
       this.dataContainer = container;
       this.notifier = notifier;
       this.cache = cache;
@@ -110,6 +116,7 @@ public class CommandsFactoryImpl implements CommandsFactory {
       this.icc = icc;
       this.txTable = txTable;
       this.configuration = configuration;
+      this.stateTransferManager = stateTransferManager;
    }
 
    @Start(priority = 1)
@@ -174,6 +181,10 @@ public class CommandsFactoryImpl implements CommandsFactory {
       return new GetKeyValueCommand(key, notifier);
    }
 
+   public GetAllCommand buildGetAllCommand(Set<Object> keys) {
+      return new GetAllCommand(keys, notifier);
+   }
+
    public PutMapCommand buildPutMapCommand(Map map, long lifespan, long maxIdleTimeMillis) {
       return new PutMapCommand(map, notifier, lifespan, maxIdleTimeMillis);
    }
@@ -216,10 +227,18 @@ public class CommandsFactoryImpl implements CommandsFactory {
       return new StateTransferControlCommand(block);
    }
 
+   public StateSegmentsCommand buildStateSegmentsCommand(StateSegmentsCommand.Type type, Address sender, int pullId, int[] segments, int numSegments, int transferId) {
+      return new StateSegmentsCommand(cacheName, type, sender, pullId, segments, numSegments, transferId);
+   }
+
    public ClusteredGetCommand buildClusteredGetCommand(Object key) {
       return new ClusteredGetCommand(key, cacheName);
    }
 
+   public ClusteredGetAllCommand buildClusteredGetAllCommand(Set<Object> keys) {
+      return new ClusteredGetAllCommand(keys, cacheName);
+   }
+
    /**
     * @param isRemote true if the command is deserialized and is executed remote.
     */
@@ -290,6 +309,10 @@ public class CommandsFactoryImpl implements CommandsFactory {
             ClusteredGetCommand clusteredGetCommand = (ClusteredGetCommand) c;
             clusteredGetCommand.initialize(dataContainer, icc, this, interceptorChain);
             break;
+         case ClusteredGetAllCommand.COMMAND_ID:
+            ClusteredGetAllCommand clusteredGetAllCommand = (ClusteredGetAllCommand) c;
+            clusteredGetAllCommand.initialize(icc, this, interceptorChain, distributionManager);
+            break;
          case LockControlCommand.COMMAND_ID:
             LockControlCommand lcc = (LockControlCommand) c;
             lcc.init(interceptorChain, icc, txTable);
@@ -314,6 +337,10 @@ public class CommandsFactoryImpl implements CommandsFactory {
             RehashControlCommand rcc = (RehashControlCommand) c;
             rcc.init(distributionManager, configuration, dataContainer, this);
             break;
+         case StateSegmentsCommand.COMMAND_ID:
+            StateSegmentsCommand ssc = (StateSegmentsCommand) c;
+            ssc.init(stateTransferManager);
+            break;
          default:
             if (trace)
                log.trace("Nothing to initialize for command: " + c);
@@ -3,8 +3,10 @@ package org.infinispan.commands;
 import org.infinispan.CacheException;
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.control.RehashControlCommand;
+import org.infinispan.commands.control.StateSegmentsCommand;
 import org.infinispan.commands.control.StateTransferControlCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
@@ -108,9 +110,15 @@ public class RemoteCommandsFactory {
          case ClusteredGetCommand.COMMAND_ID:
             command = new ClusteredGetCommand();
             break;
+         case ClusteredGetAllCommand.COMMAND_ID:
+            command = new ClusteredGetAllCommand();
+            break;
          case RehashControlCommand.COMMAND_ID:
             command = new RehashControlCommand(transport);
             break;
+         case StateSegmentsCommand.COMMAND_ID:
+            command = new StateSegmentsCommand();
+            break;
          default:
             throw new CacheException("Unknown command id " + id + "!");
       }
@@ -26,8 +26,10 @@ import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Arrays;
 
 /**
@@ -46,7 +48,8 @@ public class RehashControlCommand extends BaseRpcCommand {
    public static final int COMMAND_ID = 17;
 
    public enum Type {
-      JOIN_REQ, JOIN_REHASH_START, JOIN_REHASH_END, JOIN_ABORT, PULL_STATE_JOIN, PULL_STATE_LEAVE, PUSH_STATE, DRAIN_TX, DRAIN_TX_PREPARES
+      JOIN_REQ, JOIN_REHASH_START, JOIN_REHASH_END, JOIN_ABORT, PULL_STATE_JOIN, PULL_STATE_LEAVE, PUSH_STATE, DRAIN_TX, DRAIN_TX_PREPARES,
+      PULL_STATE_JOIN_NEXT
    }
 
    Type type;
@@ -122,7 +125,9 @@ public class RehashControlCommand extends BaseRpcCommand {
             distributionManager.informRehashOnJoin(sender, false, nodeTopologyInfo);
             return null;
          case PULL_STATE_JOIN:
-            return pullStateForJoin();             
+            return distributionManager.startJoinStateTransfer(sender, oldCH, newCH);
+         case PULL_STATE_JOIN_NEXT:
+            return distributionManager.nextJoinStateChunk(sender);
          case PULL_STATE_LEAVE:
              return pullStateForLeave();    
          case PUSH_STATE:
@@ -137,28 +142,6 @@ public class RehashControlCommand extends BaseRpcCommand {
       throw new CacheException("Unknown rehash control command type " + type);
    }
 
-   public Map<Object, InternalCacheValue> pullStateForJoin() throws CacheLoaderException {           
-      
-      Map<Object, InternalCacheValue> state = new HashMap<Object, InternalCacheValue>();
-      for (InternalCacheEntry ice : dataContainer) {
-         Object k = ice.getKey();
-         if (shouldTransferOwnershipToJoinNode(k)) {            
-             state.put(k, ice.toInternalCacheValue());
-         }
-      }
-
-      CacheStore cacheStore = distributionManager.getCacheStoreForRehashing();
-      if (cacheStore != null) {
-         for (Object k: cacheStore.loadAllKeys(new ReadOnlyDataContainerBackedKeySet(dataContainer))) {
-            if (!state.containsKey(k) && shouldTransferOwnershipToJoinNode(k)) {                
-               InternalCacheValue v = loadValue(cacheStore, k);               
-               if (v != null) state.put(k, v);
-            }
-         }
-      }
-      return state;
-   }
-   
    public Map<Object, InternalCacheValue> pullStateForLeave() throws CacheLoaderException {
      
       Map<Object, InternalCacheValue> state = new HashMap<Object, InternalCacheValue>();
@@ -171,13 +154,11 @@ public class RehashControlCommand extends BaseRpcCommand {
 
       CacheStore cacheStore = distributionManager.getCacheStoreForRehashing();
       if (cacheStore != null) {
+         Set<Object> toLoad = new HashSet<Object>();
          for (Object k : cacheStore.loadAllKeys(new ReadOnlyDataContainerBackedKeySet(dataContainer))) {
-            if (!state.containsKey(k) && shouldTransferOwnershipFromLeftNodes(k)) {
-               InternalCacheValue v = loadValue(cacheStore, k);               
-               if (v != null)
-                  state.put(k, v);
-            }
+            if (!state.containsKey(k) && shouldTransferOwnershipFromLeftNodes(k)) toLoad.add(k);
          }
+         loadValues(cacheStore, toLoad, state);
       }
       return state;
    }
@@ -199,27 +180,14 @@ public class RehashControlCommand extends BaseRpcCommand {
    }
       
 
-   private InternalCacheValue loadValue(CacheStore cs, Object k) {
+   private void loadValues(CacheStore cs, Set<Object> keys, Map<Object, InternalCacheValue> state) {
+      if (keys.isEmpty()) return;
       try {
-         InternalCacheEntry ice = cs.load(k);
-         return ice == null ? null : ice.toInternalCacheValue();
+         for (InternalCacheEntry ice : cs.loadAll(keys)) state.put(ice.getKey(), ice.toInternalCacheValue());
       } catch (CacheLoaderException cle) {
-         log.warn("Unable to load " + k + " from cache loader", cle);
-      }
-      return null;
-   }
-
-   final boolean shouldTransferOwnershipToJoinNode(Object k) {     
-      Address self = transport.getAddress();      
-      int numCopies = configuration.getNumOwners(); 
-      List<Address> oldOwnerList = oldCH.locate(k, numCopies);
-      if (!oldOwnerList.isEmpty() && self.equals(oldOwnerList.get(0))) {
-         List<Address> newOwnerList = newCH.locate(k, numCopies);
-         if (newOwnerList.contains(sender)) return true;
+         log.warn("Unable to load " + keys.size() + " keys from cache loader", cle);
       }
-      return false;
    }
-   
 
    public Object pushState() {
       distributionManager.applyReceivedState(state);
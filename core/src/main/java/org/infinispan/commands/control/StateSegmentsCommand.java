@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.commands.control;
+
+import org.infinispan.CacheException;
+import org.infinispan.commands.remote.BaseRpcCommand;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.marshall.Ids;
+import org.infinispan.marshall.Marshallable;
+import org.infinispan.marshall.exts.ReplicableCommandExternalizer;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.statetransfer.StateTransferManager;
+
+import java.util.Arrays;
+
+/**
+ * A control command used when the in-memory state of a replicated cache is transferred in segments, see {@link
+ * org.infinispan.config.Configuration#setStateRetrievalNumSegments(int)}.  The joiner pulls the segments assigned to a
+ * member chunk by chunk, and tells the member providing the state transfer stream once all the segments have been
+ * applied, using the transfer id that member wrote to the stream.  Each pull carries an id chosen by the joiner, so a
+ * member can serve several pulls of the same joiner at the same time.
+ *
+ * @since 5.0
+ */
+@Marshallable(externalizer = ReplicableCommandExternalizer.class, id = Ids.STATE_SEGMENTS_COMMAND)
+public class StateSegmentsCommand extends BaseRpcCommand {
+
+   public static final byte COMMAND_ID = 19;
+
+   public enum Type {
+      PULL_SEGMENTS, PULL_NEXT_CHUNK, SEGMENTS_APPLIED
+   }
+
+   Type type;
+   Address sender;
+   int[] segments;
+   int numSegments;
+   int transferId;
+   int pullId;
+
+   // cache components
+   StateTransferManager stateTransferManager;
+
+   public StateSegmentsCommand() {
+   }
+
+   public StateSegmentsCommand(String cacheName, Type type, Address sender, int pullId, int[] segments, int numSegments, int transferId) {
+      super(cacheName);
+      this.type = type;
+      this.sender = sender;
+      this.pullId = pullId;
+      this.segments = segments;
+      this.numSegments = numSegments;
+      this.transferId = transferId;
+   }
+
+   public void init(StateTransferManager stateTransferManager) {
+      this.stateTransferManager = stateTransferManager;
+   }
+
+   public Object perform(InvocationContext ctx) throws Throwable {
+      if (stateTransferManager == null)
+         throw new CacheException("Cache " + cacheName + " does not support state transfer");
+      switch (type) {
+         case PULL_SEGMENTS:
+            return stateTransferManager.startSegmentsTransfer(sender, pullId, segments, numSegments);
+         case PULL_NEXT_CHUNK:
+            return stateTransferManager.nextSegmentsChunk(sender, pullId);
+         case SEGMENTS_APPLIED:
+            stateTransferManager.segmentsApplied(transferId);
+            return null;
+      }
+      throw new CacheException("Unknown state segments command type " + type);
+   }
+
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   public Object[] getParameters() {
+      return new Object[]{cacheName, (byte) type.ordinal(), sender, pullId, segments, numSegments, transferId};
+   }
+
+   public void setParameters(int commandId, Object[] parameters) {
+      int i = 0;
+      cacheName = (String) parameters[i++];
+      type = Type.values()[(Byte) parameters[i++]];
+      sender = (Address) parameters[i++];
+      pullId = (Integer) parameters[i++];
+      segments = (int[]) parameters[i++];
+      numSegments = (Integer) parameters[i++];
+      transferId = (Integer) parameters[i++];
+   }
+
+   @Override
+   public String toString() {
+      return "StateSegmentsCommand{" +
+            "type=" + type +
+            ", sender=" + sender +
+            ", pullId=" + pullId +
+            ", segments=" + Arrays.toString(segments) +
+            ", numSegments=" + numSegments +
+            ", transferId=" + transferId +
+            '}';
+   }
+}
@@ -0,0 +1,171 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.commands.remote;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.read.GetAllCommand;
+import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.container.entries.InternalEntryFactory;
+import org.infinispan.container.entries.MVCCEntry;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.context.InvocationContextContainer;
+import org.infinispan.context.impl.NonTxInvocationContext;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.marshall.Ids;
+import org.infinispan.marshall.Marshallable;
+import org.infinispan.marshall.exts.ReplicableCommandExternalizer;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Issues a remote get call for several keys owned by the same node, so that a {@link
+ * org.infinispan.Cache#getAll(java.util.Set)} needs a single RPC per owner rather than one per key.  Like {@link
+ * ClusteredGetCommand} this is not a {@link org.infinispan.commands.VisitableCommand}.
+ * <p/>
+ * The result maps each key the owner could answer for to its {@link InternalCacheValue}, or to null if the owner does
+ * not hold the key.  Keys affected by a rehash in progress are left out of the result, so that the caller can retry
+ * them with a {@link ClusteredGetCommand} against all owners.
+ *
+ * @since 5.0
+ */
+@Marshallable(externalizer = ReplicableCommandExternalizer.class, id = Ids.CLUSTERED_GET_ALL_COMMAND)
+public class ClusteredGetAllCommand implements CacheRpcCommand {
+
+   public static final byte COMMAND_ID = 18;
+   private static final Log log = LogFactory.getLog(ClusteredGetAllCommand.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private Set<Object> keys;
+   private String cacheName;
+
+   private InvocationContextContainer icc;
+   private CommandsFactory commandsFactory;
+   private InterceptorChain invoker;
+   private DistributionManager distributionManager;
+
+   public ClusteredGetAllCommand() {
+   }
+
+   public ClusteredGetAllCommand(Set<Object> keys, String cacheName) {
+      this.keys = keys;
+      this.cacheName = cacheName;
+   }
+
+   public void initialize(InvocationContextContainer icc, CommandsFactory commandsFactory, InterceptorChain interceptorChain,
+                          DistributionManager distributionManager) {
+      this.icc = icc;
+      this.commandsFactory = commandsFactory;
+      this.invoker = interceptorChain;
+      this.distributionManager = distributionManager;
+   }
+
+   /**
+    * Invokes a logical "getAll(keys)" on a remote cache and returns results.
+    *
+    * @param context invocation context, ignored.
+    * @return a map of keys to <code>InternalCacheValue</code>s, with null values for keys that are not found.
+    */
+   @SuppressWarnings("unchecked")
+   public Map<Object, InternalCacheValue> perform(InvocationContext context) throws Throwable {
+      Set<Object> toRetrieve = new HashSet<Object>(keys.size());
+      for (Object key : keys) {
+         if (distributionManager == null || !distributionManager.isAffectedByRehash(key)) toRetrieve.add(key);
+      }
+      if (toRetrieve.isEmpty()) return Collections.emptyMap();
+
+      GetAllCommand command = commandsFactory.buildGetAllCommand(toRetrieve);
+      command.setReturnCacheEntries(true);
+      NonTxInvocationContext invocationContext = icc.createRemoteInvocationContext();
+      Map<Object, Object> entries = (Map<Object, Object>) invoker.invoke(invocationContext, command);
+
+      Map<Object, InternalCacheValue> result = new HashMap<Object, InternalCacheValue>(toRetrieve.size());
+      for (Object key : toRetrieve) {
+         CacheEntry cacheEntry = (CacheEntry) entries.get(key);
+         if (cacheEntry == null) {
+            result.put(key, null);
+         } else if (cacheEntry instanceof MVCCEntry) {
+            //this might happen if the value was fetched from a cache loader
+            MVCCEntry mvccEntry = (MVCCEntry) cacheEntry;
+            result.put(key, InternalEntryFactory.createValue(mvccEntry.getValue(), -1, mvccEntry.getLifespan(), -1, mvccEntry.getMaxIdle()));
+         } else {
+            result.put(key, ((InternalCacheEntry) cacheEntry).toInternalCacheValue());
+         }
+      }
+      if (trace) log.trace("Found {0} of {1} requested keys", entries.size(), keys.size());
+      return result;
+   }
+
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   public Object[] getParameters() {
+      return new Object[]{keys, cacheName};
+   }
+
+   @SuppressWarnings("unchecked")
+   public void setParameters(int commandId, Object[] args) {
+      keys = (Set<Object>) args[0];
+      cacheName = (String) args[1];
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      ClusteredGetAllCommand that = (ClusteredGetAllCommand) o;
+
+      return !(keys != null ? !keys.equals(that.keys) : that.keys != null);
+   }
+
+   @Override
+   public int hashCode() {
+      return keys != null ? keys.hashCode() : 0;
+   }
+
+   @Override
+   public String toString() {
+      return "ClusteredGetAllCommand{" +
+            "keys=" + keys +
+            ", cacheName='" + cacheName + '\'' +
+            '}';
+   }
+
+   public String getCacheName() {
+      return cacheName;
+   }
+
+   public Set<Object> getKeys() {
+      return keys;
+   }
+}
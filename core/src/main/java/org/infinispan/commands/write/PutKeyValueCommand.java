@@ -23,6 +23,7 @@ package org.infinispan.commands.write;
 
 import org.infinispan.atomic.Delta;
 import org.infinispan.atomic.DeltaAware;
+import org.infinispan.atomic.ValueUpdate;
 import org.infinispan.commands.Visitor;
 import org.infinispan.container.entries.MVCCEntry;
 import org.infinispan.context.InvocationContext;
@@ -83,6 +84,24 @@ public class PutKeyValueCommand extends AbstractDataWriteCommand {
       if (entryValue != null && putIfAbsent && !e.isRemoved()) {
          successful = false;
          return entryValue;
+      } else if (value instanceof ValueUpdate) {
+         Object updated = ((ValueUpdate) value).apply(e.isRemoved() ? null : entryValue);
+         if (updated == null) {
+            successful = false;
+            return null;
+         }
+         notifier.notifyCacheEntryModified(key, entryValue, true, ctx);
+         e.setValue(updated);
+         if (e.isRemoved()) {
+            e.setRemoved(false);
+            e.setValid(true);
+         }
+         e.setLifespan(lifespanMillis);
+         e.setMaxIdle(maxIdleTimeMillis);
+         notifier.notifyCacheEntryModified(key, updated, false, ctx);
+         // replicate and log the resulting value rather than the update, so that applying the command again is harmless
+         value = updated;
+         return updated;
       } else {
          notifier.notifyCacheEntryModified(key, entryValue, true, ctx);
 
@@ -126,6 +145,13 @@ public class PutKeyValueCommand extends AbstractDataWriteCommand {
       maxIdleTimeMillis = (Long) parameters[3];
    }
 
+   /**
+    * @return true if the value is a {@link ValueUpdate} that still needs the current value of the entry
+    */
+   public boolean isValueUpdate() {
+      return value instanceof ValueUpdate;
+   }
+
    public boolean isPutIfAbsent() {
       return putIfAbsent;
    }
@@ -62,6 +62,12 @@ public class CacheLoaderManagerConfig extends AbstractNamedCacheConfigurationBea
    @ConfigurationDocRef(bean=CacheLoaderManagerConfig.class,targetElement="setShared")
    protected Boolean shared = false;
 
+   @ConfigurationDocRef(bean=CacheLoaderManagerConfig.class,targetElement="setPreloadThreads")
+   protected Integer preloadThreads = 1;
+
+   @ConfigurationDocRef(bean=CacheLoaderManagerConfig.class,targetElement="setPreloadPageSize")
+   protected Integer preloadPageSize = 0;
+
    protected List<CacheLoaderConfig> cacheLoaderConfigs = new LinkedList<CacheLoaderConfig>();
 
    public Boolean isPreload() {
@@ -83,6 +89,39 @@ public class CacheLoaderManagerConfig extends AbstractNamedCacheConfigurationBea
       this.preload = preload;
    }
 
+   public Integer getPreloadThreads() {
+      return preloadThreads;
+   }
+
+   /**
+    * Number of threads that load pages of entries from the cache store and insert them into memory during preload.
+    * Only used if {@link #setPreloadPageSize(Integer)} is greater than 0.  Defaults to 1.
+    *
+    * @param preloadThreads
+    */
+   @XmlAttribute
+   public void setPreloadThreads(Integer preloadThreads) {
+      testImmutability("preloadThreads");
+      this.preloadThreads = preloadThreads;
+   }
+
+   public Integer getPreloadPageSize() {
+      return preloadPageSize;
+   }
+
+   /**
+    * If greater than 0, preload lists the keys in the cache store and then reads the entries in pages of this many
+    * keys, so only a page of entries per preload thread is held in memory at any time.  The cache store must support
+    * listing its keys.  If 0, the whole contents of the cache store are read in a single call.  Defaults to 0.
+    *
+    * @param preloadPageSize
+    */
+   @XmlAttribute
+   public void setPreloadPageSize(Integer preloadPageSize) {
+      testImmutability("preloadPageSize");
+      this.preloadPageSize = preloadPageSize;
+   }
+
    /**
     * If true, data is only written to the cache store when it is evicted from memory, a phenomenon
     * known as 'passivation'. Next time the data is requested, it will be 'activated' which means
@@ -170,7 +209,8 @@ public class CacheLoaderManagerConfig extends AbstractNamedCacheConfigurationBea
    public String toString() {
       return new StringBuilder().append("CacheLoaderManagerConfig{").append("shared=").append(
                shared).append(", passivation=").append(passivation).append(", preload='").append(
-               preload).append('\'').append(", cacheLoaderConfigs.size()=").append(
+               preload).append('\'').append(", preloadThreads=").append(preloadThreads).append(
+               ", preloadPageSize=").append(preloadPageSize).append(", cacheLoaderConfigs.size()=").append(
                cacheLoaderConfigs.size()).append('}').toString();
    }
 
@@ -183,6 +223,8 @@ public class CacheLoaderManagerConfig extends AbstractNamedCacheConfigurationBea
          CacheLoaderManagerConfig other = (CacheLoaderManagerConfig) obj;
          return (this.passivation.equals(other.passivation)) && (this.shared.equals(other.shared))
                   && Util.safeEquals(this.preload, other.preload)
+                  && Util.safeEquals(this.preloadThreads, other.preloadThreads)
+                  && Util.safeEquals(this.preloadPageSize, other.preloadPageSize)
                   && Util.safeEquals(this.cacheLoaderConfigs, other.cacheLoaderConfigs);
       }
       return false;
@@ -201,6 +243,8 @@ public class CacheLoaderManagerConfig extends AbstractNamedCacheConfigurationBea
       result = 51 * result + (passivation ? 0 : 1);
       result = 51 * result + (shared ? 0 : 1);
       result = 51 * result + (preload ? 0 : 1);
+      result = 51 * result + (preloadThreads == null ? 0 : preloadThreads.hashCode());
+      result = 51 * result + (preloadPageSize == null ? 0 : preloadPageSize.hashCode());
       result = 51 * result + (cacheLoaderConfigs == null ? 0 : cacheLoaderConfigs.hashCode());
       return result;
    }
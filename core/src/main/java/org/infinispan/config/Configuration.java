@@ -21,6 +21,7 @@
  */
 package org.infinispan.config;
 
+import org.infinispan.container.InternalEntrySizeCalculator;
 import org.infinispan.distribution.ch.DefaultConsistentHash;
 import org.infinispan.distribution.ch.TopologyAwareConsistentHash;
 import org.infinispan.eviction.EvictionStrategy;
@@ -119,6 +120,9 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
    @XmlElement
    private InvocationBatching invocationBatching = new InvocationBatching();
 
+   @XmlElement
+   private OffHeap offHeap = new OffHeap();
+
    @XmlElement
    private DeadlockDetectionType deadlockDetection = new DeadlockDetectionType();
 
@@ -248,6 +252,21 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
       return clustering.hash.rehashRpcTimeout;
    }
 
+   /**
+    * Maximum number of entries sent in a single response when a joiner pulls state from the other nodes.  The joiner
+    * applies each chunk before asking for the next one, so this also bounds the state held in memory per state
+    * provider.  Must be greater than 0, defaults to 1000.
+    *
+    * @param rehashChunkSize
+    */
+   public void setRehashChunkSize(int rehashChunkSize) {
+      this.clustering.hash.setRehashChunkSize(rehashChunkSize);
+   }
+
+   public int getRehashChunkSize() {
+      return clustering.hash.rehashChunkSize;
+   }
+
    public boolean isWriteSkewCheck() {
       return locking.writeSkewCheck;
    }
@@ -505,6 +524,51 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
       this.eviction.setMaxEntries(evictionMaxEntries);
    }
 
+   public long getEvictionMaxBytes() {
+      return eviction.maxBytes;
+   }
+
+   /**
+    * Maximum approximate amount of memory, in bytes, retained by the entries of a cache instance. Entries are evicted
+    * according to the eviction strategy once this limit is exceeded. Can be combined with maxEntries, in which case
+    * whichever limit is hit first triggers eviction. -1 means no limit.
+    *
+    * @param evictionMaxBytes
+    */
+   public void setEvictionMaxBytes(long evictionMaxBytes) {
+      this.eviction.setMaxBytes(evictionMaxBytes);
+   }
+
+   public String getEvictionSizeCalculatorClass() {
+      return eviction.sizeCalculatorClass;
+   }
+
+   /**
+    * Fully qualified name of the class that estimates the memory retained by each entry when eviction is bounded by
+    * maxBytes. Must implement {@link org.infinispan.util.concurrent.BoundedConcurrentHashMap.EntrySizeCalculator},
+    * typically by extending {@link org.infinispan.container.InternalEntrySizeCalculator}.
+    *
+    * @param sizeCalculatorClass
+    */
+   public void setEvictionSizeCalculatorClass(String sizeCalculatorClass) {
+      this.eviction.setSizeCalculatorClass(sizeCalculatorClass);
+   }
+
+   public boolean isEvictionBufferedReads() {
+      return eviction.bufferedReads;
+   }
+
+   /**
+    * If true, reads are recorded for the LRU and LIRS eviction strategies in lock free buffers which are drained
+    * opportunistically, so that reads never block on eviction bookkeeping. Reads are dropped from the buffers under
+    * heavy contention, making eviction order slightly less accurate. Defaults to false.
+    *
+    * @param bufferedReads
+    */
+   public void setEvictionBufferedReads(boolean bufferedReads) {
+      this.eviction.setBufferedReads(bufferedReads);
+   }
+
    /**
     * Expiration lifespan, in milliseconds
     */
@@ -700,6 +764,28 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
       clustering.stateRetrieval.setNumRetries(numRetries);
    }
 
+   /**
+    * Number of segments the in-memory state is split into when it is transferred.  If greater than 0, the joiner pulls
+    * the segments from all the running members in parallel and applies them concurrently, instead of receiving the
+    * whole in-memory state from a single member as part of the state transfer stream.  Defaults to 0.
+    *
+    * @param numSegments
+    */
+   public void setStateRetrievalNumSegments(int numSegments) {
+      clustering.stateRetrieval.setNumSegments(numSegments);
+   }
+
+   /**
+    * Maximum number of entries sent in a single response when in-memory state is transferred in segments.  Defaults
+    * to 1000.
+    *
+    * @param chunkSize
+    * @see #setStateRetrievalNumSegments(int)
+    */
+   public void setStateRetrievalChunkSize(int chunkSize) {
+      clustering.stateRetrieval.setChunkSize(chunkSize);
+   }
+
    public void setIsolationLevel(String isolationLevel) {
       if (isolationLevel == null) throw new ConfigurationException("Isolation level cannot be null", "IsolationLevel");
       locking.setIsolationLevel(IsolationLevel.valueOf(uc(isolationLevel)));
@@ -713,6 +799,16 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
       lazyDeserialization.setEnabled(useLazyDeserialization);
    }
 
+   /**
+    * Toggle to store cache entries in off-heap memory, using an
+    * {@link org.infinispan.container.OffHeapDataContainer}, instead of on the Java heap.
+    *
+    * @param useOffHeapDataContainer
+    */
+   public void setUseOffHeapDataContainer(boolean useOffHeapDataContainer) {
+      offHeap.setEnabled(useOffHeapDataContainer);
+   }
+
    /**
     * Toggle to enable/disable L1 cache.
     *
@@ -923,10 +1019,22 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
       return clustering.stateRetrieval.logFlushTimeout;
    }
 
+   public int getStateRetrievalNumSegments() {
+      return clustering.stateRetrieval.numSegments;
+   }
+
+   public int getStateRetrievalChunkSize() {
+      return clustering.stateRetrieval.chunkSize;
+   }
+
    public boolean isUseLazyDeserialization() {
       return lazyDeserialization.enabled;
    }
 
+   public boolean isUseOffHeapDataContainer() {
+      return offHeap.enabled;
+   }
+
    public boolean isL1CacheEnabled() {
       return clustering.l1.enabled;
    }
@@ -975,6 +1083,7 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
       invocationBatching.accept(v);
       jmxStatistics.accept(v);
       lazyDeserialization.accept(v);
+      offHeap.accept(v);
       loaders.accept(v);
       locking.accept(v);
       transaction.accept(v);
@@ -1006,6 +1115,7 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
          return false;
       if (loaders != null ? !loaders.equals(that.loaders) : that.loaders != null) return false;
       if (locking != null ? !locking.equals(that.locking) : that.locking != null) return false;
+      if (offHeap != null ? !offHeap.equals(that.offHeap) : that.offHeap != null) return false;
       if (name != null ? !name.equals(that.name) : that.name != null) return false;
       if (transaction != null ? !transaction.equals(that.transaction) : that.transaction != null) return false;
       if (unsafe != null ? !unsafe.equals(that.unsafe) : that.unsafe != null) return false;
@@ -1029,6 +1139,7 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
       result = 31 * result + (lazyDeserialization != null ? lazyDeserialization.hashCode() : 0);
       result = 31 * result + (invocationBatching != null ? invocationBatching.hashCode() : 0);
       result = 31 * result + (deadlockDetection != null ? deadlockDetection.hashCode() : 0);
+      result = 31 * result + (offHeap != null ? offHeap.hashCode() : 0);
       return result;
    }
 
@@ -1049,6 +1160,7 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
          if (jmxStatistics != null) dolly.jmxStatistics = (JmxStatistics) jmxStatistics.clone();
          if (lazyDeserialization != null) dolly.lazyDeserialization = (LazyDeserialization) lazyDeserialization.clone();
          if (invocationBatching != null) dolly.invocationBatching = (InvocationBatching) invocationBatching.clone();
+         if (offHeap != null) dolly.offHeap = (OffHeap) offHeap.clone();
          if (deadlockDetection != null) dolly.deadlockDetection = (DeadlockDetectionType) deadlockDetection.clone();
          if (indexing != null) dolly.indexing = indexing.clone();
          return dolly;
@@ -1660,6 +1772,15 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
       @ConfigurationDocRef(bean = Configuration.class, targetElement = "setEvictionThreadPolicy")
       protected EvictionThreadPolicy threadPolicy = EvictionThreadPolicy.DEFAULT;
 
+      @ConfigurationDocRef(bean = Configuration.class, targetElement = "setEvictionMaxBytes")
+      protected Long maxBytes = -1L;
+
+      @ConfigurationDocRef(bean = Configuration.class, targetElement = "setEvictionSizeCalculatorClass")
+      protected String sizeCalculatorClass = InternalEntrySizeCalculator.class.getName();
+
+      @ConfigurationDocRef(bean = Configuration.class, targetElement = "setEvictionBufferedReads")
+      protected Boolean bufferedReads = false;
+
       @XmlAttribute
       public void setWakeUpInterval(Long wakeUpInterval) {
          testImmutability("wakeUpInterval");
@@ -1688,6 +1809,24 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
          this.maxEntries = maxEntries;
       }
 
+      @XmlAttribute
+      public void setMaxBytes(Long maxBytes) {
+         testImmutability("maxBytes");
+         this.maxBytes = maxBytes;
+      }
+
+      @XmlAttribute
+      public void setSizeCalculatorClass(String sizeCalculatorClass) {
+         testImmutability("sizeCalculatorClass");
+         this.sizeCalculatorClass = sizeCalculatorClass;
+      }
+
+      @XmlAttribute
+      public void setBufferedReads(Boolean bufferedReads) {
+         testImmutability("bufferedReads");
+         this.bufferedReads = bufferedReads;
+      }
+
       @Override
       public boolean equals(Object o) {
          if (this == o) return true;
@@ -1696,6 +1835,11 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
          EvictionType that = (EvictionType) o;
 
          if (maxEntries != null ? !maxEntries.equals(that.maxEntries) : that.maxEntries != null) return false;
+         if (maxBytes != null ? !maxBytes.equals(that.maxBytes) : that.maxBytes != null) return false;
+         if (sizeCalculatorClass != null ? !sizeCalculatorClass.equals(that.sizeCalculatorClass) : that.sizeCalculatorClass != null)
+            return false;
+         if (bufferedReads != null ? !bufferedReads.equals(that.bufferedReads) : that.bufferedReads != null)
+            return false;
          if (strategy != that.strategy) return false;
          if (threadPolicy != that.threadPolicy) return false;
          if (wakeUpInterval != null ? !wakeUpInterval.equals(that.wakeUpInterval) : that.wakeUpInterval != null)
@@ -1710,6 +1854,9 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
          result = 31 * result + (strategy != null ? strategy.hashCode() : 0);
          result = 31 * result + (threadPolicy != null ? threadPolicy.hashCode() : 0);
          result = 31 * result + (maxEntries != null ? maxEntries.hashCode() : 0);
+         result = 31 * result + (maxBytes != null ? maxBytes.hashCode() : 0);
+         result = 31 * result + (sizeCalculatorClass != null ? sizeCalculatorClass.hashCode() : 0);
+         result = 31 * result + (bufferedReads != null ? bufferedReads.hashCode() : 0);
          return result;
       }
    }
@@ -1755,6 +1902,12 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
       @ConfigurationDocRef(bean = Configuration.class, targetElement = "setStateRetrievalMaxNonProgressingLogWrites")
       protected Integer maxNonProgressingLogWrites = 100;
 
+      @ConfigurationDocRef(bean = Configuration.class, targetElement = "setStateRetrievalNumSegments")
+      protected Integer numSegments = 0;
+
+      @ConfigurationDocRef(bean = Configuration.class, targetElement = "setStateRetrievalChunkSize")
+      protected Integer chunkSize = 1000;
+
       @XmlAttribute
       public void setFetchInMemoryState(Boolean fetchInMemoryState) {
          testImmutability("fetchInMemoryState");
@@ -1803,6 +1956,18 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
          this.maxNonProgressingLogWrites = maxNonProgressingLogWrites;
       }
 
+      @XmlAttribute
+      public void setNumSegments(Integer numSegments) {
+         testImmutability("numSegments");
+         this.numSegments = numSegments;
+      }
+
+      @XmlAttribute
+      public void setChunkSize(Integer chunkSize) {
+         testImmutability("chunkSize");
+         this.chunkSize = chunkSize;
+      }
+
       public void accept(ConfigurationBeanVisitor v) {
          v.visitStateRetrievalType(this);
       }
@@ -1822,6 +1987,8 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
          if (retryWaitTimeIncreaseFactor != null ? !retryWaitTimeIncreaseFactor.equals(that.retryWaitTimeIncreaseFactor) : that.retryWaitTimeIncreaseFactor != null)
             return false;
          if (numRetries != null ? !numRetries.equals(that.numRetries) : that.numRetries != null) return false;
+         if (numSegments != null ? !numSegments.equals(that.numSegments) : that.numSegments != null) return false;
+         if (chunkSize != null ? !chunkSize.equals(that.chunkSize) : that.chunkSize != null) return false;
 
          return true;
       }
@@ -1833,6 +2000,8 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
          result = 31 * result + (initialRetryWaitTime != null ? initialRetryWaitTime.hashCode() : 0);
          result = 31 * result + (retryWaitTimeIncreaseFactor != null ? retryWaitTimeIncreaseFactor.hashCode() : 0);
          result = 31 * result + (numRetries != null ? numRetries.hashCode() : 0);
+         result = 31 * result + (numSegments != null ? numSegments.hashCode() : 0);
+         result = 31 * result + (chunkSize != null ? chunkSize.hashCode() : 0);
          return result;
       }
    }
@@ -1926,6 +2095,10 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
       @ConfigurationDocRef(bean = Configuration.class, targetElement = "setRehashEnabled")
       protected Boolean rehashEnabled = true;
 
+      @Dynamic
+      @ConfigurationDocRef(bean = Configuration.class, targetElement = "setRehashChunkSize")
+      protected Integer rehashChunkSize = 1000;
+
       @XmlAttribute(name = "class")
       public void setConsistentHashClass(String consistentHashClass) {
          testImmutability("consistentHashClass");
@@ -1960,6 +2133,12 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
          this.rehashEnabled = rehashEnabled;
       }
 
+      @XmlAttribute
+      public void setRehashChunkSize(Integer rehashChunkSize) {
+         testImmutability("rehashChunkSize");
+         this.rehashChunkSize = rehashChunkSize;
+      }
+
       @Override
       public boolean equals(Object o) {
          if (this == o) return true;
@@ -1974,6 +2153,8 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
             return false;
          if (rehashWait != null ? !rehashWait.equals(hashType.rehashWait) : hashType.rehashWait != null) return false;
          if (rehashEnabled != hashType.rehashEnabled) return false;
+         if (rehashChunkSize != null ? !rehashChunkSize.equals(hashType.rehashChunkSize) : hashType.rehashChunkSize != null)
+            return false;
 
          return true;
       }
@@ -1985,6 +2166,7 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
          result = 31 * result + (rehashWait != null ? rehashWait.hashCode() : 0);
          result = 31 * result + (rehashRpcTimeout != null ? rehashRpcTimeout.hashCode() : 0);
          result = 31 * result + (rehashEnabled ? 0 : 1);
+         result = 31 * result + (rehashChunkSize != null ? rehashChunkSize.hashCode() : 0);
          return result;
       }
    }
@@ -2166,6 +2348,24 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
       }
    }
 
+   /**
+    * Defines whether cache entries are stored in direct, off-heap memory rather than on the Java heap, which keeps
+    * large caches from causing long garbage collection pauses at the cost of marshalling entries on every access.
+    *
+    * @see <a href="../../../config.html#ce_default_offHeap">Configuration reference</a>
+    */
+   @ConfigurationDoc(name = "offHeap")
+   public static class OffHeap extends BooleanAttributeType {
+      /**
+       * The serialVersionUID
+       */
+      private static final long serialVersionUID = -3474591226391384785L;
+
+      public OffHeap() {
+         super("offHeap");
+      }
+   }
+
    /**
     * This element configures deadlock detection.
     *
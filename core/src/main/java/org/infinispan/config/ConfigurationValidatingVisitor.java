@@ -57,5 +57,9 @@ public class ConfigurationValidatingVisitor extends AbstractConfigurationBeanVis
 
       if (clusteringType.mode.isSynchronous() && clusteringType.async.useReplQueue)
          throw new ConfigurationException("Use of the replication queue is only allowed with an ASYNCHRONOUS cluster mode.");
+
+      Integer rehashChunkSize = clusteringType.hash.rehashChunkSize;
+      if (clusteringType.mode.isDistributed() && (rehashChunkSize == null || rehashChunkSize <= 0))
+         throw new ConfigurationException("Rehash chunk size must be greater than 0, but was " + rehashChunkSize);
    }
 }
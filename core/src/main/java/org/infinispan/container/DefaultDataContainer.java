@@ -20,6 +20,7 @@ import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.util.Immutables;
 import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EntrySizeCalculator;
 import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
 import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EvictionListener;
 
@@ -40,6 +41,7 @@ public class DefaultDataContainer implements DataContainer {
    final ConcurrentMap<Object, InternalCacheEntry> entries;
    final InternalEntryFactory entryFactory;
    final DefaultEvictionListener evictionListener;
+   final ExpirationIndex expirationIndex = new ExpirationIndex();
    private EvictionManager evictionManager;
 
    protected DefaultDataContainer(int concurrencyLevel) {
@@ -49,6 +51,12 @@ public class DefaultDataContainer implements DataContainer {
    }
 
    protected DefaultDataContainer(int concurrencyLevel, int maxEntries, EvictionStrategy strategy, EvictionThreadPolicy policy) {
+      this(concurrencyLevel, maxEntries, -1, strategy, policy, null, false);
+   }
+
+   protected DefaultDataContainer(int concurrencyLevel, int maxEntries, long maxBytes, EvictionStrategy strategy,
+            EvictionThreadPolicy policy, EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator,
+            boolean bufferedReads) {
 
       // translate eviction policy and strategy
       switch (policy) {
@@ -63,7 +71,11 @@ public class DefaultDataContainer implements DataContainer {
       Eviction eviction;
       switch (strategy) {
          case FIFO:
+            eviction = Eviction.FIFO;
+            break;
          case UNORDERED:
+            eviction = Eviction.UNORDERED;
+            break;
          case LRU:
             eviction = Eviction.LRU;
             break;
@@ -73,7 +85,8 @@ public class DefaultDataContainer implements DataContainer {
          default:
             throw new IllegalArgumentException("No such eviction strategy " + strategy);
       }
-      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(maxEntries, concurrencyLevel, eviction, evictionListener);
+      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(maxEntries, concurrencyLevel, eviction,
+               evictionListener, maxBytes, sizeCalculator, bufferedReads);
       entryFactory = new InternalEntryFactory();
    }
 
@@ -87,6 +100,31 @@ public class DefaultDataContainer implements DataContainer {
       return new DefaultDataContainer(concurrencyLevel, maxEntries, strategy, policy);
    }
 
+   /**
+    * Creates a container bounded by number of entries which, if <tt>bufferedReads</tt> is set, records reads for the
+    * LRU and LIRS eviction strategies in lossy, lock free buffers so that reads never block on eviction bookkeeping.
+    */
+   public static DataContainer boundedDataContainer(int concurrencyLevel, int maxEntries,
+            EvictionStrategy strategy, EvictionThreadPolicy policy, boolean bufferedReads) {
+      return new DefaultDataContainer(concurrencyLevel, maxEntries, -1, strategy, policy, null, bufferedReads);
+   }
+
+   /**
+    * Creates a container bounded by the approximate amount of memory retained by its entries, and optionally by
+    * number of entries as well.
+    *
+    * @param maxEntries maximum number of entries, or -1 to only bound the container by memory
+    * @param maxBytes maximum approximate size in bytes of all entries
+    * @param sizeCalculator estimates the memory retained by each entry
+    * @param bufferedReads whether reads are recorded in lossy, lock free buffers
+    */
+   public static DataContainer memoryBoundedDataContainer(int concurrencyLevel, int maxEntries, long maxBytes,
+            EvictionStrategy strategy, EvictionThreadPolicy policy,
+            EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator, boolean bufferedReads) {
+      return new DefaultDataContainer(concurrencyLevel, maxEntries < 0 ? -1 : maxEntries, maxBytes, strategy, policy,
+               sizeCalculator, bufferedReads);
+   }
+
    public static DataContainer unBoundedDataContainer(int concurrencyLevel) {
       return new DefaultDataContainer(concurrencyLevel);
    }
@@ -101,6 +139,7 @@ public class DefaultDataContainer implements DataContainer {
       if (e != null) {
          if (e.isExpired()) {
             entries.remove(k);
+            expirationIndex.unschedule(k);
             e = null;
          } else {
             e.touch();
@@ -124,12 +163,18 @@ public class DefaultDataContainer implements DataContainer {
          e = entryFactory.createNewEntry(k, v, lifespan, maxIdle);
       }
       entries.put(k, e);
+      if (e.canExpire()) {
+         expirationIndex.schedule(k, e.getExpiryTime());
+      } else {
+         expirationIndex.unschedule(k);
+      }
    }
 
    public boolean containsKey(Object k) {
       InternalCacheEntry ice = peek(k);
       if (ice != null && ice.isExpired()) {
          entries.remove(k);
+         expirationIndex.unschedule(k);
          ice = null;
       }
       return ice != null;
@@ -137,6 +182,7 @@ public class DefaultDataContainer implements DataContainer {
 
    public InternalCacheEntry remove(Object k) {
       InternalCacheEntry e = entries.remove(k);
+      if (e != null) expirationIndex.unschedule(k);
       return e == null || e.isExpired() ? null : e;
    }
 
@@ -146,6 +192,7 @@ public class DefaultDataContainer implements DataContainer {
 
    public void clear() {
       entries.clear();
+      expirationIndex.clear();
    }
 
    public Set<Object> keySet() {
@@ -160,11 +207,18 @@ public class DefaultDataContainer implements DataContainer {
       return new EntrySet();
    }
 
+   /**
+    * Only visits entries whose expiry time, as indexed when they were last stored, has passed.  Entries which have
+    * been touched or updated since are re-indexed under their current expiry time.
+    */
    public void purgeExpired() {
-      for (Iterator<InternalCacheEntry> purgeCandidates = entries.values().iterator(); purgeCandidates.hasNext();) {
-         InternalCacheEntry e = purgeCandidates.next();
+      for (Object k : expirationIndex.pollDue(System.currentTimeMillis())) {
+         InternalCacheEntry e = entries.get(k);
+         if (e == null || !e.canExpire()) continue;
          if (e.isExpired()) {
-            purgeCandidates.remove();
+            entries.remove(k, e);
+         } else {
+            expirationIndex.schedule(k, e.getExpiryTime());
          }
       }
    }
@@ -176,6 +230,7 @@ public class DefaultDataContainer implements DataContainer {
    private class DefaultEvictionListener implements EvictionListener<Object, InternalCacheEntry> {
       @Override
       public void onEntryEviction(Map<Object, InternalCacheEntry> evicted) {
+         for (Object k : evicted.keySet()) expirationIndex.unschedule(k);
          evictionManager.onEntryEviction(evicted);
       }
    }
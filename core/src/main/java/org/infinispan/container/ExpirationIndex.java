@@ -0,0 +1,145 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.util.concurrent.ConcurrentHashSet;
+
+/**
+ * Index of the keys of expirable entries, bucketed by expiry deadline, so that purging expired entries only needs to
+ * visit the keys whose deadline has passed rather than every entry in a data container.
+ * <p/>
+ * Each key is indexed under one bucket at a time: rescheduling a key moves it, and {@link #unschedule(Object)} drops
+ * it when its entry is removed.  Touching an entry is not tracked though, so callers check each key returned by
+ * {@link #pollDue(long)} against the data container, purging the entry if it has really expired, or rescheduling it
+ * if its deadline has moved since it was indexed.
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+class ExpirationIndex {
+
+   /**
+    * Default width of each bucket, in milliseconds
+    */
+   static final long DEFAULT_RESOLUTION = 1000;
+
+   private final long resolution;
+   private final ConcurrentSkipListMap<Long, Set<Object>> buckets = new ConcurrentSkipListMap<Long, Set<Object>>();
+   // bucket each key is currently indexed under; a key found in any other bucket is stale
+   private final ConcurrentMap<Object, Long> scheduled = new ConcurrentHashMap<Object, Long>();
+
+   ExpirationIndex() {
+      this(DEFAULT_RESOLUTION);
+   }
+
+   ExpirationIndex(long resolution) {
+      if (resolution <= 0) throw new IllegalArgumentException("Resolution must be positive");
+      this.resolution = resolution;
+   }
+
+   /**
+    * Indexes a key under the given expiry time, moving it out of the bucket it was previously indexed under
+    *
+    * @param key key of an expirable entry
+    * @param expiryTime time, in milliseconds, after which the entry expires
+    */
+   void schedule(Object key, long expiryTime) {
+      Long slot = expiryTime / resolution;
+      Long previous = scheduled.put(key, slot);
+      if (previous != null) {
+         if (previous.equals(slot)) return;
+         removeFromBucket(key, previous);
+      }
+      while (true) {
+         Set<Object> bucket = buckets.get(slot);
+         if (bucket == null) {
+            Set<Object> newBucket = new ConcurrentHashSet<Object>();
+            bucket = buckets.putIfAbsent(slot, newBucket);
+            if (bucket == null) bucket = newBucket;
+         }
+         bucket.add(key);
+         // if the bucket was polled concurrently the key may have been missed, so index it in a fresh bucket
+         if (buckets.get(slot) == bucket) return;
+      }
+   }
+
+   /**
+    * Removes a key from the index, if present
+    *
+    * @param key key of an entry which has been removed
+    */
+   void unschedule(Object key) {
+      Long slot = scheduled.remove(key);
+      if (slot != null) removeFromBucket(key, slot);
+   }
+
+   /**
+    * Removes from the index all keys whose expiry time has passed, along with keys of the current bucket whose expiry
+    * time may not have passed yet.  Callers should reschedule keys whose entries have not expired.
+    *
+    * @param now current time in milliseconds
+    * @return keys whose entries may have expired
+    */
+   List<Object> pollDue(long now) {
+      List<Object> due = new ArrayList<Object>();
+      long lastDueSlot = now / resolution;
+      while (true) {
+         Map.Entry<Long, Set<Object>> first = buckets.firstEntry();
+         if (first == null || first.getKey() > lastDueSlot) break;
+         if (buckets.remove(first.getKey(), first.getValue())) {
+            for (Object key : first.getValue()) {
+               // skip keys which have since been moved to another bucket or unscheduled
+               if (scheduled.remove(key, first.getKey())) due.add(key);
+            }
+         }
+      }
+      return due;
+   }
+
+   /**
+    * @return number of keys indexed
+    */
+   int size() {
+      return scheduled.size();
+   }
+
+   void clear() {
+      scheduled.clear();
+      buckets.clear();
+   }
+
+   private void removeFromBucket(Object key, Long slot) {
+      Set<Object> bucket = buckets.get(slot);
+      if (bucket != null) bucket.remove(key);
+   }
+}
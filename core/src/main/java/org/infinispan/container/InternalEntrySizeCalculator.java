@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.container.entries.ImmortalCacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.TransientMortalCacheEntry;
+import org.infinispan.util.ByteArrayKey;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EntrySizeCalculator;
+
+/**
+ * Estimates the memory retained by an {@link InternalCacheEntry} stored in a {@link DefaultDataContainer}, so that
+ * the container can be bounded by memory rather than number of entries.
+ * <p/>
+ * Sizes are approximations assuming a 64 bit JVM with compressed references.  They are exact for <tt>byte[]</tt>,
+ * {@link ByteArrayKey} and {@link String} keys and values, and account for boxed primitives; any other object is
+ * assumed to retain {@link #DEFAULT_OBJECT_SIZE} bytes.  Subclasses can provide exact sizes for their own types by
+ * overriding {@link #getObjectSize(Object)}, and are plugged in via the eviction <tt>sizeCalculatorClass</tt>
+ * attribute.
+ *
+ * @since 5.0
+ */
+public class InternalEntrySizeCalculator implements EntrySizeCalculator<Object, InternalCacheEntry> {
+
+   /**
+    * Size assumed for objects whose size cannot be determined
+    */
+   public static final int DEFAULT_OBJECT_SIZE = 64;
+
+   protected static final int OBJECT_HEADER = 12;
+   protected static final int ARRAY_HEADER = 16;
+   protected static final int REFERENCE = 4;
+
+   // the map's hash entry plus the node linking it in the eviction policy's queue
+   private static final int CONTAINER_OVERHEAD = align(OBJECT_HEADER + 4 * REFERENCE + 8) + align(OBJECT_HEADER + 3 * REFERENCE);
+   private static final int IMMORTAL_OVERHEAD = align(OBJECT_HEADER + 2 * REFERENCE) + align(OBJECT_HEADER + REFERENCE);
+   // mortal and transient values carry two longs, transient mortal ones carry four
+   private static final int EXPIRABLE_OVERHEAD = align(OBJECT_HEADER + 2 * REFERENCE) + align(OBJECT_HEADER + REFERENCE + 16);
+   private static final int TRANSIENT_MORTAL_OVERHEAD = align(OBJECT_HEADER + 2 * REFERENCE) + align(OBJECT_HEADER + REFERENCE + 32);
+
+   public long getEntrySize(Object key, InternalCacheEntry entry) {
+      long size = CONTAINER_OVERHEAD + getObjectSize(key) + getObjectSize(entry.getValue());
+      if (entry instanceof ImmortalCacheEntry)
+         size += IMMORTAL_OVERHEAD;
+      else if (entry instanceof TransientMortalCacheEntry)
+         size += TRANSIENT_MORTAL_OVERHEAD;
+      else
+         size += EXPIRABLE_OVERHEAD;
+      return size;
+   }
+
+   /**
+    * Returns the approximate number of bytes retained by a key or value.
+    *
+    * @param o key or value, possibly null
+    * @return approximate size in bytes
+    */
+   protected long getObjectSize(Object o) {
+      if (o == null) return 0;
+      if (o instanceof byte[]) return byteArraySize(((byte[]) o).length);
+      if (o instanceof ByteArrayKey) return align(OBJECT_HEADER + REFERENCE) + byteArraySize(((ByteArrayKey) o).getData().length);
+      if (o instanceof String) return align(OBJECT_HEADER + REFERENCE + 8) + align(ARRAY_HEADER + 2 * ((String) o).length());
+      if (o instanceof Long || o instanceof Double) return align(OBJECT_HEADER + 8);
+      if (o instanceof Number || o instanceof Boolean || o instanceof Character) return align(OBJECT_HEADER + 4);
+      return DEFAULT_OBJECT_SIZE;
+   }
+
+   /**
+    * @return the size of a byte array with the given length
+    */
+   protected static long byteArraySize(int length) {
+      return align(ARRAY_HEADER + (long) length);
+   }
+
+   protected static int align(int size) {
+      return (size + 7) & ~7;
+   }
+
+   protected static long align(long size) {
+      return (size + 7) & ~7L;
+   }
+}
@@ -0,0 +1,835 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.CacheException;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.InternalEntryFactory;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.util.Immutables;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * A {@link DataContainer} that keeps marshalled keys, values and expiry metadata in direct (off-heap) memory rather
+ * than as {@link InternalCacheEntry} instances on the Java heap.
+ * <p/>
+ * The container is split into segments, each guarded by a read/write lock.  A segment appends records to large direct
+ * {@link ByteBuffer} pages and keeps an open addressing hash index made of primitive arrays, so the only per-entry
+ * structures on the heap are a few array slots.  Records replaced or removed leave garbage behind in their page, which
+ * is reclaimed by compacting the segment once more than half of its allocated memory is garbage.
+ * <p/>
+ * Keys are compared in their marshalled form, so keys that are equal must also marshall to the same bytes.  Entries
+ * returned by this container are copies materialized from off-heap memory, which means that changing them does not
+ * affect the stored entry; touching an entry on {@link #get(Object)} is done by the container itself.
+ * <p/>
+ * When bounded, every segment evicts entries with the CLOCK algorithm (an approximation of LRU which only needs a
+ * reference bit per slot) and reports them to the {@link EvictionManager}, just like {@link DefaultDataContainer}.
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class OffHeapDataContainer implements DataContainer {
+
+   private static final Log log = LogFactory.getLog(OffHeapDataContainer.class);
+
+   /**
+    * Default size, in bytes, of the direct memory pages allocated by each segment.
+    */
+   public static final int DEFAULT_PAGE_SIZE = 1 << 20;
+
+   // record layout: key length, value length, created, last used, lifespan, max idle, key bytes, value bytes
+   private static final int KEY_LENGTH_OFFSET = 0;
+   private static final int VALUE_LENGTH_OFFSET = 4;
+   private static final int CREATED_OFFSET = 8;
+   private static final int LAST_USED_OFFSET = 16;
+   private static final int LIFESPAN_OFFSET = 24;
+   private static final int MAX_IDLE_OFFSET = 32;
+   private static final int HEADER_SIZE = 40;
+
+   private static final long EMPTY = -1L;
+   private static final int INITIAL_INDEX_CAPACITY = 64;
+   private static final float INDEX_LOAD_FACTOR = 0.75f;
+
+   final Segment[] segments;
+   final int segmentShift;
+   final int segmentMask;
+   final int pageSize;
+   private StreamingMarshaller marshaller;
+   private EvictionManager evictionManager;
+
+   protected OffHeapDataContainer(int concurrencyLevel, int maxEntries, int pageSize) {
+      this(concurrencyLevel, maxEntries, -1, pageSize);
+   }
+
+   protected OffHeapDataContainer(int concurrencyLevel, int maxEntries, long maxBytes, int pageSize) {
+      if (concurrencyLevel <= 0 || pageSize <= HEADER_SIZE)
+         throw new IllegalArgumentException("Invalid concurrency level " + concurrencyLevel + " or page size " + pageSize);
+
+      int sshift = 0;
+      int ssize = 1;
+      while (ssize < concurrencyLevel) {
+         ++sshift;
+         ssize <<= 1;
+      }
+      // a bounded container needs at least one entry per segment
+      if (maxEntries > 0) {
+         while (ssize > 1 && ssize > maxEntries) {
+            --sshift;
+            ssize >>= 1;
+         }
+      }
+      segmentShift = 32 - sshift;
+      segmentMask = ssize - 1;
+      this.pageSize = pageSize;
+
+      int maxPerSegment = -1;
+      if (maxEntries > 0) {
+         maxPerSegment = maxEntries / ssize;
+         if (maxPerSegment * ssize < maxEntries) ++maxPerSegment;
+      }
+      long maxBytesPerSegment = -1;
+      if (maxBytes > 0) {
+         maxBytesPerSegment = maxBytes / ssize;
+         if (maxBytesPerSegment * ssize < maxBytes) ++maxBytesPerSegment;
+      }
+      segments = new Segment[ssize];
+      for (int i = 0; i < segments.length; i++) segments[i] = new Segment(maxPerSegment, maxBytesPerSegment);
+   }
+
+   @Inject
+   public void initialize(EvictionManager evictionManager, StreamingMarshaller marshaller) {
+      this.evictionManager = evictionManager;
+      this.marshaller = marshaller;
+   }
+
+   public static DataContainer boundedDataContainer(int concurrencyLevel, int maxEntries) {
+      return new OffHeapDataContainer(concurrencyLevel, maxEntries, DEFAULT_PAGE_SIZE);
+   }
+
+   /**
+    * Creates a container bounded by number of entries and/or by the off-heap memory used by its records, where -1
+    * means no bound.  Memory bounds account for marshalled keys and values plus per-record metadata.
+    */
+   public static DataContainer boundedDataContainer(int concurrencyLevel, int maxEntries, long maxBytes) {
+      return new OffHeapDataContainer(concurrencyLevel, maxEntries, maxBytes, DEFAULT_PAGE_SIZE);
+   }
+
+   public static DataContainer unBoundedDataContainer(int concurrencyLevel) {
+      return new OffHeapDataContainer(concurrencyLevel, -1, DEFAULT_PAGE_SIZE);
+   }
+
+   public InternalCacheEntry peek(Object k) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      return segmentFor(hash).get(k, key, hash, false);
+   }
+
+   public InternalCacheEntry get(Object k) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      Segment s = segmentFor(hash);
+      InternalCacheEntry e = s.get(k, key, hash, true);
+      if (e != null && e.isExpired()) {
+         s.removeExpired(key, hash);
+         e = null;
+      }
+      return e;
+   }
+
+   public void put(Object k, Object v, long lifespan, long maxIdle) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      Map<Object, InternalCacheEntry> evicted = segmentFor(hash).put(key, hash, marshallValue(v), lifespan, maxIdle);
+      if (evicted != null && evictionManager != null)
+         evictionManager.onEntryEviction(evicted);
+   }
+
+   public boolean containsKey(Object k) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      Segment s = segmentFor(hash);
+      int r = s.containsKey(key, hash);
+      if (r < 0) {
+         s.removeExpired(key, hash);
+         return false;
+      }
+      return r > 0;
+   }
+
+   public InternalCacheEntry remove(Object k) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      InternalCacheEntry e = segmentFor(hash).remove(k, key, hash);
+      return e == null || e.isExpired() ? null : e;
+   }
+
+   public int size() {
+      long size = 0;
+      for (Segment s : segments) size += s.count;
+      return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+   }
+
+   public void clear() {
+      for (Segment s : segments) s.clear();
+   }
+
+   public Set<Object> keySet() {
+      return new KeySet();
+   }
+
+   public Collection<Object> values() {
+      return new Values();
+   }
+
+   public Set<InternalCacheEntry> entrySet() {
+      return new EntrySet();
+   }
+
+   public void purgeExpired() {
+      for (Segment s : segments) s.purgeExpired();
+   }
+
+   public Iterator<InternalCacheEntry> iterator() {
+      return new EntryIterator();
+   }
+
+   /**
+    * @return total number of bytes of direct memory currently allocated by this container
+    */
+   public long getAllocatedBytes() {
+      long total = 0;
+      for (Segment s : segments) total += s.allocatedBytes;
+      return total;
+   }
+
+   private Segment segmentFor(int hash) {
+      return segments[(hash >>> segmentShift) & segmentMask];
+   }
+
+   private byte[] marshall(Object o) {
+      try {
+         return marshaller.objectToByteBuffer(o);
+      } catch (IOException e) {
+         throw new CacheException("Unable to marshall " + o, e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while marshalling " + o, e);
+      }
+   }
+
+   private org.infinispan.io.ByteBuffer marshallValue(Object o) {
+      try {
+         return marshaller.objectToBuffer(o);
+      } catch (IOException e) {
+         throw new CacheException("Unable to marshall " + o, e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while marshalling " + o, e);
+      }
+   }
+
+   private Object unmarshall(byte[] bytes) {
+      try {
+         return marshaller.objectFromByteBuffer(bytes);
+      } catch (IOException e) {
+         throw new CacheException("Unable to unmarshall stored bytes", e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheException("Unable to unmarshall stored bytes", e);
+      }
+   }
+
+   private static int hash(byte[] bytes) {
+      int h = Arrays.hashCode(bytes);
+      // same spreading as BoundedConcurrentHashMap, so that both segment and slot bits are well distributed
+      h += h << 15 ^ 0xffffcd7d;
+      h ^= h >>> 10;
+      h += h << 3;
+      h ^= h >>> 6;
+      h += (h << 2) + (h << 14);
+      return h ^ h >>> 16;
+   }
+
+   private static boolean isExpired(long created, long lastUsed, long lifespan, long maxIdle, long now) {
+      return (lifespan > -1 && created > -1 && now > created + lifespan)
+            || (maxIdle > -1 && lastUsed > -1 && now > lastUsed + maxIdle);
+   }
+
+   /**
+    * A segment of the container: an open addressing index over records stored in direct memory pages.  Addresses are
+    * encoded as <tt>page index << 32 | offset within page</tt>.  Removal uses backward shift deletion so that no
+    * tombstones are needed.  Reads only hold the read lock and set the reference bits of the entries they return, so
+    * those are atomic; records themselves, including the last used time of entries with a max idle, are only written
+    * while holding the write lock.
+    */
+   final class Segment extends ReentrantReadWriteLock {
+
+      private static final long serialVersionUID = -4716364811542563520L;
+
+      final int maxEntries;
+      final long maxBytes;
+      volatile int count;
+      long allocatedBytes;
+      long liveBytes;
+
+      long[] addresses;
+      int[] hashes;
+      AtomicIntegerArray referenced;
+      int clockHand;
+
+      final List<ByteBuffer> pages = new ArrayList<ByteBuffer>();
+      ByteBuffer currentPage;
+      int currentPageIndex = -1;
+
+      Segment(int maxEntries, long maxBytes) {
+         this.maxEntries = maxEntries;
+         this.maxBytes = maxBytes;
+         initIndex(INITIAL_INDEX_CAPACITY);
+      }
+
+      private void initIndex(int capacity) {
+         addresses = new long[capacity];
+         Arrays.fill(addresses, EMPTY);
+         hashes = new int[capacity];
+         referenced = new AtomicIntegerArray(capacity);
+         clockHand = 0;
+      }
+
+      InternalCacheEntry get(Object k, byte[] key, int hash, boolean touch) {
+         readLock().lock();
+         try {
+            int slot = find(key, hash);
+            if (slot < 0) return null;
+            long address = addresses[slot];
+            ByteBuffer page = pages.get(page(address));
+            int offset = offset(address);
+            // expired entries are returned untouched, so that the caller sees them as expired and removes them
+            if (!touch || isExpired(page, offset, System.currentTimeMillis())) return readEntry(k, page, offset);
+            if (page.getLong(offset + MAX_IDLE_OFFSET) < 0) {
+               referenced.set(slot, 1);
+               return readEntry(k, page, offset);
+            }
+         } finally {
+            readLock().unlock();
+         }
+         // recording the last use of an entry with a max idle writes to its record
+         return getAndRecordUse(k, key, hash);
+      }
+
+      private InternalCacheEntry getAndRecordUse(Object k, byte[] key, int hash) {
+         writeLock().lock();
+         try {
+            int slot = find(key, hash);
+            if (slot < 0) return null;
+            long address = addresses[slot];
+            ByteBuffer page = pages.get(page(address));
+            int offset = offset(address);
+            long now = System.currentTimeMillis();
+            if (!isExpired(page, offset, now)) {
+               referenced.set(slot, 1);
+               if (page.getLong(offset + MAX_IDLE_OFFSET) > -1) page.putLong(offset + LAST_USED_OFFSET, now);
+            }
+            return readEntry(k, page, offset);
+         } finally {
+            writeLock().unlock();
+         }
+      }
+
+      /**
+       * @return 1 if the key is present, 0 if absent, -1 if present but expired
+       */
+      int containsKey(byte[] key, int hash) {
+         readLock().lock();
+         try {
+            int slot = find(key, hash);
+            if (slot < 0) return 0;
+            long address = addresses[slot];
+            return isExpired(pages.get(page(address)), offset(address), System.currentTimeMillis()) ? -1 : 1;
+         } finally {
+            readLock().unlock();
+         }
+      }
+
+      Map<Object, InternalCacheEntry> put(byte[] key, int hash, org.infinispan.io.ByteBuffer value, long lifespan, long maxIdle) {
+         Map<Object, InternalCacheEntry> evicted = null;
+         writeLock().lock();
+         try {
+            long now = System.currentTimeMillis();
+            int slot = find(key, hash);
+            if (slot >= 0) {
+               free(addresses[slot]);
+               // compacting the pages during allocation rewrites addresses but never moves index slots
+               long address = write(key, value, now, lifespan, maxIdle);
+               addresses[slot] = address;
+               referenced.set(slot, 1);
+            } else {
+               if (maxEntries > 0 && count >= maxEntries) evicted = evict();
+               if (count + 1 > addresses.length * INDEX_LOAD_FACTOR) resizeIndex(addresses.length << 1);
+               long address = write(key, value, now, lifespan, maxIdle);
+               insert(hash, address);
+               count++;
+            }
+            // never evict the entry just written, even if it alone exceeds the bound
+            while (maxBytes > 0 && liveBytes > maxBytes && count > 1) {
+               Map<Object, InternalCacheEntry> e = evict(key, hash);
+               if (e == null) break;
+               if (evicted == null) evicted = new HashMap<Object, InternalCacheEntry>(e);
+               else evicted.putAll(e);
+            }
+         } finally {
+            writeLock().unlock();
+         }
+         return evicted;
+      }
+
+      InternalCacheEntry remove(Object k, byte[] key, int hash) {
+         writeLock().lock();
+         try {
+            int slot = find(key, hash);
+            if (slot < 0) return null;
+            long address = addresses[slot];
+            InternalCacheEntry e = readEntry(k, pages.get(page(address)), offset(address));
+            delete(slot);
+            return e;
+         } finally {
+            writeLock().unlock();
+         }
+      }
+
+      void removeExpired(byte[] key, int hash) {
+         writeLock().lock();
+         try {
+            int slot = find(key, hash);
+            if (slot >= 0) {
+               long address = addresses[slot];
+               if (isExpired(pages.get(page(address)), offset(address), System.currentTimeMillis())) delete(slot);
+            }
+         } finally {
+            writeLock().unlock();
+         }
+      }
+
+      void purgeExpired() {
+         writeLock().lock();
+         try {
+            long now = System.currentTimeMillis();
+            int i = 0;
+            while (i < addresses.length) {
+               long address = addresses[i];
+               // a deletion shifts a following entry into this slot, so only advance when nothing was removed
+               if (address != EMPTY && isExpired(pages.get(page(address)), offset(address), now))
+                  delete(i);
+               else
+                  i++;
+            }
+         } finally {
+            writeLock().unlock();
+         }
+      }
+
+      void clear() {
+         writeLock().lock();
+         try {
+            pages.clear();
+            currentPage = null;
+            currentPageIndex = -1;
+            allocatedBytes = 0;
+            liveBytes = 0;
+            initIndex(INITIAL_INDEX_CAPACITY);
+            count = 0;
+         } finally {
+            writeLock().unlock();
+         }
+      }
+
+      /**
+       * Materializes every entry of this segment.  Used by iterators, which walk the container a segment at a time.
+       */
+      List<InternalCacheEntry> snapshot() {
+         readLock().lock();
+         try {
+            List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>(count);
+            for (long address : addresses) {
+               if (address != EMPTY) {
+                  ByteBuffer page = pages.get(page(address));
+                  int offset = offset(address);
+                  entries.add(readEntry(unmarshall(readKey(page, offset)), page, offset));
+               }
+            }
+            return entries;
+         } finally {
+            readLock().unlock();
+         }
+      }
+
+      private int find(byte[] key, int hash) {
+         int mask = addresses.length - 1;
+         int i = hash & mask;
+         while (addresses[i] != EMPTY) {
+            if (hashes[i] == hash && keyEquals(addresses[i], key)) return i;
+            i = (i + 1) & mask;
+         }
+         return -1;
+      }
+
+      private void insert(int hash, long address) {
+         int mask = addresses.length - 1;
+         int i = hash & mask;
+         while (addresses[i] != EMPTY) i = (i + 1) & mask;
+         addresses[i] = address;
+         hashes[i] = hash;
+         referenced.set(i, 0);
+      }
+
+      private void delete(int slot) {
+         free(addresses[slot]);
+         int mask = addresses.length - 1;
+         int hole = slot;
+         int i = slot;
+         while (true) {
+            i = (i + 1) & mask;
+            if (addresses[i] == EMPTY) break;
+            int home = hashes[i] & mask;
+            // move the entry back into the hole if its home slot is not cyclically within (hole, i]
+            boolean movable = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+            if (movable) {
+               addresses[hole] = addresses[i];
+               hashes[hole] = hashes[i];
+               referenced.set(hole, referenced.get(i));
+               hole = i;
+            }
+         }
+         addresses[hole] = EMPTY;
+         referenced.set(hole, 0);
+         count--;
+      }
+
+      private void resizeIndex(int capacity) {
+         long[] oldAddresses = addresses;
+         int[] oldHashes = hashes;
+         AtomicIntegerArray oldReferenced = referenced;
+         initIndex(capacity);
+         int mask = capacity - 1;
+         for (int j = 0; j < oldAddresses.length; j++) {
+            if (oldAddresses[j] != EMPTY) {
+               int i = oldHashes[j] & mask;
+               while (addresses[i] != EMPTY) i = (i + 1) & mask;
+               addresses[i] = oldAddresses[j];
+               hashes[i] = oldHashes[j];
+               referenced.set(i, oldReferenced.get(j));
+            }
+         }
+      }
+
+      /**
+       * Evicts one entry using the CLOCK algorithm: entries whose reference bit is set get a second chance.
+       */
+      private Map<Object, InternalCacheEntry> evict() {
+         return evict(null, 0);
+      }
+
+      /**
+       * Evicts one entry using the CLOCK algorithm, skipping the entry with the given key if not null.
+       */
+      private Map<Object, InternalCacheEntry> evict(byte[] retainedKey, int retainedHash) {
+         int capacity = addresses.length;
+         for (int scanned = 0; scanned < capacity * 2; scanned++) {
+            int slot = clockHand;
+            clockHand = (clockHand + 1) & (capacity - 1);
+            long address = addresses[slot];
+            if (address == EMPTY) continue;
+            if (retainedKey != null && hashes[slot] == retainedHash && keyEquals(address, retainedKey)) continue;
+            if (referenced.get(slot) != 0) {
+               referenced.set(slot, 0);
+               continue;
+            }
+            ByteBuffer page = pages.get(page(address));
+            int offset = offset(address);
+            InternalCacheEntry e = readEntry(unmarshall(readKey(page, offset)), page, offset);
+            delete(slot);
+            if (log.isTraceEnabled()) log.trace("Evicted {0} from off-heap segment", e.getKey());
+            return Collections.singletonMap(e.getKey(), e);
+         }
+         return null;
+      }
+
+      private long write(byte[] key, org.infinispan.io.ByteBuffer value, long now, long lifespan, long maxIdle) {
+         int size = HEADER_SIZE + key.length + value.getLength();
+         long address = allocate(size);
+         ByteBuffer page = pages.get(page(address));
+         int offset = offset(address);
+         page.putInt(offset + KEY_LENGTH_OFFSET, key.length);
+         page.putInt(offset + VALUE_LENGTH_OFFSET, value.getLength());
+         page.putLong(offset + CREATED_OFFSET, lifespan > -1 ? now : -1);
+         page.putLong(offset + LAST_USED_OFFSET, maxIdle > -1 ? now : -1);
+         page.putLong(offset + LIFESPAN_OFFSET, lifespan);
+         page.putLong(offset + MAX_IDLE_OFFSET, maxIdle);
+         ByteBuffer dup = page.duplicate();
+         dup.position(offset + HEADER_SIZE);
+         dup.put(key);
+         dup.put(value.getBuf(), value.getOffset(), value.getLength());
+         liveBytes += size;
+         return address;
+      }
+
+      private long allocate(int size) {
+         if (allocatedBytes > pageSize && (allocatedBytes - liveBytes) * 2 > allocatedBytes) compact();
+         if (currentPage == null || currentPage.remaining() < size) {
+            if (size > pageSize) {
+               // oversized records get a page of their own, the current page remains open for smaller ones
+               ByteBuffer dedicated = ByteBuffer.allocateDirect(size);
+               dedicated.position(size);
+               pages.add(dedicated);
+               allocatedBytes += size;
+               return address(pages.size() - 1, 0);
+            }
+            currentPage = ByteBuffer.allocateDirect(pageSize);
+            pages.add(currentPage);
+            currentPageIndex = pages.size() - 1;
+            allocatedBytes += pageSize;
+         }
+         int offset = currentPage.position();
+         currentPage.position(offset + size);
+         return address(currentPageIndex, offset);
+      }
+
+      private void free(long address) {
+         ByteBuffer page = pages.get(page(address));
+         int offset = offset(address);
+         liveBytes -= recordSize(page, offset);
+      }
+
+      /**
+       * Copies every live record into fresh pages, releasing the pages that only held garbage.
+       */
+      private void compact() {
+         List<ByteBuffer> oldPages = new ArrayList<ByteBuffer>(pages);
+         pages.clear();
+         currentPage = null;
+         currentPageIndex = -1;
+         allocatedBytes = 0;
+         for (int i = 0; i < addresses.length; i++) {
+            long address = addresses[i];
+            if (address == EMPTY) continue;
+            ByteBuffer oldPage = oldPages.get(page(address));
+            int oldOffset = offset(address);
+            int size = recordSize(oldPage, oldOffset);
+            long newAddress = allocate(size);
+            ByteBuffer src = oldPage.duplicate();
+            src.limit(oldOffset + size).position(oldOffset);
+            ByteBuffer dst = pages.get(page(newAddress)).duplicate();
+            dst.position(offset(newAddress));
+            dst.put(src);
+            addresses[i] = newAddress;
+         }
+         if (log.isTraceEnabled())
+            log.trace("Compacted off-heap segment from {0} pages to {1} pages", oldPages.size(), pages.size());
+      }
+
+      private boolean keyEquals(long address, byte[] key) {
+         ByteBuffer page = pages.get(page(address));
+         int offset = offset(address);
+         if (page.getInt(offset + KEY_LENGTH_OFFSET) != key.length) return false;
+         int start = offset + HEADER_SIZE;
+         for (int i = 0; i < key.length; i++) {
+            if (page.get(start + i) != key[i]) return false;
+         }
+         return true;
+      }
+
+      private byte[] readKey(ByteBuffer page, int offset) {
+         byte[] key = new byte[page.getInt(offset + KEY_LENGTH_OFFSET)];
+         ByteBuffer dup = page.duplicate();
+         dup.position(offset + HEADER_SIZE);
+         dup.get(key);
+         return key;
+      }
+
+      private InternalCacheEntry readEntry(Object k, ByteBuffer page, int offset) {
+         int keyLength = page.getInt(offset + KEY_LENGTH_OFFSET);
+         byte[] value = new byte[page.getInt(offset + VALUE_LENGTH_OFFSET)];
+         ByteBuffer dup = page.duplicate();
+         dup.position(offset + HEADER_SIZE + keyLength);
+         dup.get(value);
+         return InternalEntryFactory.create(k, unmarshall(value), page.getLong(offset + CREATED_OFFSET),
+               page.getLong(offset + LIFESPAN_OFFSET), page.getLong(offset + LAST_USED_OFFSET),
+               page.getLong(offset + MAX_IDLE_OFFSET));
+      }
+
+      private boolean isExpired(ByteBuffer page, int offset, long now) {
+         return OffHeapDataContainer.isExpired(page.getLong(offset + CREATED_OFFSET), page.getLong(offset + LAST_USED_OFFSET),
+               page.getLong(offset + LIFESPAN_OFFSET), page.getLong(offset + MAX_IDLE_OFFSET), now);
+      }
+
+      private int recordSize(ByteBuffer page, int offset) {
+         return HEADER_SIZE + page.getInt(offset + KEY_LENGTH_OFFSET) + page.getInt(offset + VALUE_LENGTH_OFFSET);
+      }
+   }
+
+   private static long address(int page, int offset) {
+      return ((long) page << 32) | (offset & 0xFFFFFFFFL);
+   }
+
+   private static int page(long address) {
+      return (int) (address >>> 32);
+   }
+
+   private static int offset(long address) {
+      return (int) address;
+   }
+
+   /**
+    * Iterates over the container one segment at a time.  Removal is not supported.
+    */
+   private class EntryIterator implements Iterator<InternalCacheEntry> {
+      private int nextSegment = 0;
+      private Iterator<InternalCacheEntry> current = Collections.<InternalCacheEntry>emptyList().iterator();
+
+      public boolean hasNext() {
+         while (!current.hasNext()) {
+            if (nextSegment >= segments.length) return false;
+            current = segments[nextSegment++].snapshot().iterator();
+         }
+         return true;
+      }
+
+      public InternalCacheEntry next() {
+         if (!hasNext()) throw new NoSuchElementException();
+         return current.next();
+      }
+
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   private class KeySet extends AbstractSet<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<Object>() {
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            public Object next() {
+               return it.next().getKey();
+            }
+
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         return peek(o) != null;
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   private class Values extends AbstractCollection<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<Object>() {
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            public Object next() {
+               return it.next().getValue();
+            }
+
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   private class EntrySet extends AbstractSet<InternalCacheEntry> {
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry)) return false;
+         @SuppressWarnings("rawtypes")
+         Map.Entry e = (Map.Entry) o;
+         InternalCacheEntry ice = peek(e.getKey());
+         return ice != null && ice.getValue().equals(e.getValue());
+      }
+
+      @Override
+      public Iterator<InternalCacheEntry> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<InternalCacheEntry>() {
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            public InternalCacheEntry next() {
+               return Immutables.immutableInternalCacheEntry(it.next());
+            }
+
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+}
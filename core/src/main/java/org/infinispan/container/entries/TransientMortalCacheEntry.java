@@ -113,8 +113,7 @@ public class TransientMortalCacheEntry extends AbstractInternalCacheEntry {
 
    @Override
    public int hashCode() {
-      int result = super.hashCode();
-      result = 31 * result + (int) (cacheValue.created ^ (cacheValue.created >>> 32));
+      int result = (int) (cacheValue.created ^ (cacheValue.created >>> 32));
       result = 31 * result + (int) (cacheValue.lifespan ^ (cacheValue.lifespan >>> 32));
       return result;
    }
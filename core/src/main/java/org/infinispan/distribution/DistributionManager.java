@@ -7,6 +7,7 @@ import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.distribution.ch.NodeTopologyInfo;
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheStore;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.commands.write.WriteCommand;
@@ -72,6 +73,21 @@ public interface DistributionManager {
     */
    InternalCacheEntry retrieveFromRemoteSource(Object key) throws Exception;
 
+   /**
+    * Retrieves several cache entries from remote sources.  Keys are grouped by their primary owner and each owner is
+    * sent a single {@link org.infinispan.commands.remote.ClusteredGetAllCommand}, with the RPCs to different owners
+    * issued in parallel.
+    * <p/>
+    * The returned map contains the keys the owners could answer for, mapped to the entry found or to null if the owner
+    * does not hold the key.  Keys that could not be answered reliably, e.g. because of a rehash in progress, are not
+    * included, and should be retrieved using {@link #retrieveFromRemoteSource(Object)}.
+    *
+    * @param keys keys to look up
+    * @return a map of keys to internal cache entries
+    * @throws Exception if something bad happens
+    */
+   Map<Object, InternalCacheEntry> retrieveFromRemoteSources(Collection<Object> keys) throws Exception;
+
    /**
     * Retrieves the consistent hash instance currently in use, which may be an instance of the configured ConsistentHash
     * instance (which defaults to {@link org.infinispan.distribution.ch.DefaultConsistentHash}, or an instance of
@@ -120,6 +136,28 @@ public interface DistributionManager {
     */
    NodeTopologyInfo informRehashOnJoin(Address joiner, boolean starting, NodeTopologyInfo nodeTopologyInfo);
 
+   /**
+    * Starts handing over to a joiner the state it will own in the new consistent hash, and returns the first chunk of
+    * it.  The following chunks are retrieved with {@link #nextJoinStateChunk(org.infinispan.remoting.transport.Address)}.
+    *
+    * @param joiner address of joiner
+    * @param oldCH consistent hash before the joiner joined
+    * @param newCH consistent hash including the joiner
+    * @return at most {@link org.infinispan.config.Configuration#getRehashChunkSize()} entries, or an empty map if
+    *         there is no state to transfer
+    */
+   Map<Object, InternalCacheValue> startJoinStateTransfer(Address joiner, ConsistentHash oldCH, ConsistentHash newCH) throws CacheLoaderException;
+
+   /**
+    * Retrieves the next chunk of the state transfer started with {@link #startJoinStateTransfer(org.infinispan.remoting.transport.Address,
+    * org.infinispan.distribution.ch.ConsistentHash, org.infinispan.distribution.ch.ConsistentHash)}.
+    *
+    * @param joiner address of joiner
+    * @return at most {@link org.infinispan.config.Configuration#getRehashChunkSize()} entries, or an empty map once all
+    *         the state has been transferred
+    */
+   Map<Object, InternalCacheValue> nextJoinStateChunk(Address joiner) throws CacheLoaderException;
+
    /**
     * Retrieves a cache store if one is available and set up for use in rehashing.  May return null!
     *
@@ -2,6 +2,7 @@ package org.infinispan.distribution;
 
 import org.infinispan.CacheException;
 import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
 import org.infinispan.commands.write.WriteCommand;
@@ -22,6 +23,8 @@ import org.infinispan.distribution.ch.ConsistentHashHelper;
 import org.infinispan.distribution.ch.NodeTopologyInfo;
 import org.infinispan.distribution.ch.TopologyInfo;
 import org.infinispan.distribution.ch.UnionConsistentHash;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
@@ -29,6 +32,7 @@ import org.infinispan.interceptors.InterceptorChain;
 import org.infinispan.jmx.annotations.MBean;
 import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.loaders.CacheStore;
 import org.infinispan.notifications.Listener;
@@ -53,11 +57,16 @@ import org.rhq.helpers.pluginAnnotations.agent.Operation;
 import org.rhq.helpers.pluginAnnotations.agent.Parameter;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -86,6 +95,7 @@ public class DistributionManagerImpl implements DistributionManager {
    private CommandsFactory cf;
    
    private final ExecutorService rehashExecutor;
+   private ExecutorService asyncTransportExecutor;
 
    private final TransactionLogger transactionLogger = new TransactionLoggerImpl();
 
@@ -118,6 +128,11 @@ public class DistributionManagerImpl implements DistributionManager {
    private final List<Address> leavers = new CopyOnWriteArrayList<Address>();
    private volatile Future<Void> leaveTaskFuture;
    private final ReclosableLatch startLatch = new ReclosableLatch(false);
+
+   /**
+    * State being handed over to joiners, kept between the requests for consecutive chunks
+    */
+   private final ConcurrentMap<Address, JoinStateIterator> joinStateIterators = new ConcurrentHashMap<Address, JoinStateIterator>();
   
 
    /**
@@ -141,8 +156,10 @@ public class DistributionManagerImpl implements DistributionManager {
    @Inject
    public void init(Configuration configuration, RpcManager rpcManager, CacheManagerNotifier notifier, CommandsFactory cf,
                     DataContainer dataContainer, InterceptorChain interceptorChain, InvocationContextContainer icc,
-                    CacheLoaderManager cacheLoaderManager) {
+                    CacheLoaderManager cacheLoaderManager,
+                    @ComponentName(KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncTransportExecutor) {
       this.cacheLoaderManager = cacheLoaderManager;
+      this.asyncTransportExecutor = asyncTransportExecutor;
       this.configuration = configuration;
       this.rpcManager = rpcManager;
       this.notifier = notifier;
@@ -213,6 +230,7 @@ public class DistributionManagerImpl implements DistributionManager {
    public void stop() {
       notifier.removeListener(listener);
       rehashExecutor.shutdownNow();
+      joinStateIterators.clear();
       setJoinComplete(false);
    }
 
@@ -227,6 +245,7 @@ public class DistributionManagerImpl implements DistributionManager {
       } else {
          Address leaver = MembershipArithmetic.getMemberLeft(oldMembers, newMembers);
          log.info("This is a LEAVE event!  Node {0} has just left", leaver);
+         joinStateIterators.remove(leaver);
 
 
          try {
@@ -348,6 +367,84 @@ public class DistributionManagerImpl implements DistributionManager {
       return null;
    }
 
+   public Map<Object, InternalCacheEntry> retrieveFromRemoteSources(Collection<Object> keys) throws Exception {
+      Map<Address, Set<Object>> keysByOwner = new HashMap<Address, Set<Object>>();
+      for (Map.Entry<Object, List<Address>> e : locateAll(keys, 1).entrySet()) {
+         Address owner = e.getValue().get(0);
+         Set<Object> ownerKeys = keysByOwner.get(owner);
+         if (ownerKeys == null) {
+            ownerKeys = new HashSet<Object>();
+            keysByOwner.put(owner, ownerKeys);
+         }
+         ownerKeys.add(e.getKey());
+      }
+
+      // the first owner is queried on the calling thread while the others are queried in the background
+      List<FutureTask<Map<Object, InternalCacheValue>>> futures = new ArrayList<FutureTask<Map<Object, InternalCacheValue>>>(keysByOwner.size());
+      Callable<Map<Object, InternalCacheValue>> first = null;
+      for (Map.Entry<Address, Set<Object>> e : keysByOwner.entrySet()) {
+         Callable<Map<Object, InternalCacheValue>> c = new RemoteGetAllTask(e.getKey(), e.getValue());
+         if (first == null) {
+            first = c;
+         } else {
+            FutureTask<Map<Object, InternalCacheValue>> f = new FutureTask<Map<Object, InternalCacheValue>>(c);
+            futures.add(f);
+            try {
+               asyncTransportExecutor.execute(f);
+            } catch (RejectedExecutionException ree) {
+               // run below, on the calling thread
+            }
+         }
+      }
+
+      Map<Object, InternalCacheEntry> result = new HashMap<Object, InternalCacheEntry>(keys.size());
+      if (first != null) addRemoteValues(result, first.call());
+      for (FutureTask<Map<Object, InternalCacheValue>> f : futures) {
+         // The calling thread may itself belong to the executor, as with getAllAsync, so it runs the queries no other
+         // thread has picked up yet instead of waiting for them. Running a task already started does nothing.
+         f.run();
+         try {
+            addRemoteValues(result, f.get());
+         } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw new CacheException(cause);
+         }
+      }
+      return result;
+   }
+
+   private void addRemoteValues(Map<Object, InternalCacheEntry> result, Map<Object, InternalCacheValue> values) {
+      for (Map.Entry<Object, InternalCacheValue> e : values.entrySet()) {
+         InternalCacheValue value = e.getValue();
+         result.put(e.getKey(), value == null ? null : value.toInternalCacheEntry(e.getKey()));
+      }
+   }
+
+   private class RemoteGetAllTask implements Callable<Map<Object, InternalCacheValue>> {
+      private final Address owner;
+      private final Set<Object> keys;
+
+      RemoteGetAllTask(Address owner, Set<Object> keys) {
+         this.owner = owner;
+         this.keys = keys;
+      }
+
+      @SuppressWarnings("unchecked")
+      public Map<Object, InternalCacheValue> call() throws Exception {
+         ClusteredGetAllCommand get = cf.buildClusteredGetAllCommand(keys);
+         List<Response> responses = rpcManager.invokeRemotely(Collections.singletonList(owner), get, ResponseMode.SYNCHRONOUS,
+                 configuration.getSyncReplTimeout(), false, null);
+         if (responses != null) {
+            for (Response r : responses) {
+               if (r instanceof SuccessfulResponse)
+                  return (Map<Object, InternalCacheValue>) ((SuccessfulResponse) r).getResponseValue();
+            }
+         }
+         return Collections.emptyMap();
+      }
+   }
+
    public ConsistentHash getConsistentHash() {
       return consistentHash;
    }
@@ -389,6 +486,7 @@ public class DistributionManagerImpl implements DistributionManager {
             consistentHash = uch.getNewConsistentHash();
             oldConsistentHash = null;
          }
+         joinStateIterators.remove(a);
          joiner = null;            
       } else {
          topologyInfo.addNodeTopologyInfo(a, nodeTopologyInfo);
@@ -404,8 +502,31 @@ public class DistributionManagerImpl implements DistributionManager {
       return topologyInfo.getNodeTopologyInfo(rpcManager.getAddress());
    }
 
+   public Map<Object, InternalCacheValue> startJoinStateTransfer(Address joiner, ConsistentHash oldCH, ConsistentHash newCH) throws CacheLoaderException {
+      JoinStateIterator state = new JoinStateIterator(self, joiner, oldCH, newCH, getReplCount(), dataContainer,
+                                                      getCacheStoreForRehashing());
+      joinStateIterators.put(joiner, state);
+      return nextJoinStateChunk(joiner);
+   }
+
+   public Map<Object, InternalCacheValue> nextJoinStateChunk(Address joiner) throws CacheLoaderException {
+      JoinStateIterator state = joinStateIterators.get(joiner);
+      if (state == null) return Collections.emptyMap();
+      Map<Object, InternalCacheValue> chunk = state.nextChunk(configuration.getRehashChunkSize());
+      if (chunk.isEmpty()) joinStateIterators.remove(joiner, state);
+      if (log.isTraceEnabled()) log.trace("Sending {0} entries to joiner {1}", chunk.size(), joiner);
+      return chunk;
+   }
+
+   /**
+    * @return the executor used to pull state from several nodes at the same time, or null if none is available
+    */
+   ExecutorService getAsyncTransportExecutor() {
+      return asyncTransportExecutor;
+   }
+
    public void applyState(ConsistentHash consistentHash, Map<Object, InternalCacheValue> state) {
-      log.trace("Apply state with " + state);
+      if (log.isTraceEnabled()) log.trace("Apply state with " + state);
       for (Map.Entry<Object, InternalCacheValue> e : state.entrySet()) {
          if (consistentHash.locate(e.getKey(), configuration.getNumOwners()).contains(self)) {
             InternalCacheValue v = e.getValue();
@@ -0,0 +1,103 @@
+package org.infinispan.distribution;
+
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.ReadOnlyDataContainerBackedKeySet;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Walks through the state a node has to hand over to a joiner, one chunk at a time: first the entries in the data
+ * container, then the keys in the cache store that are not in memory.  Keys are selected if this node is their primary
+ * owner in the old consistent hash and the joiner is one of their owners in the new one.
+ * <p />
+ * Entries written while the state is being transferred may or may not be included, the transaction log on the joiner
+ * makes sure they are applied anyway.
+ *
+ * @since 5.0
+ */
+class JoinStateIterator {
+
+   private static final Log log = LogFactory.getLog(JoinStateIterator.class);
+
+   private final Address self;
+   private final Address joiner;
+   private final ConsistentHash oldCH;
+   private final ConsistentHash newCH;
+   private final int numOwners;
+   private final DataContainer dataContainer;
+   private final CacheStore cacheStore;
+
+   private final Iterator<InternalCacheEntry> entries;
+   private Iterator<Object> storedKeys;
+
+   JoinStateIterator(Address self, Address joiner, ConsistentHash oldCH, ConsistentHash newCH, int numOwners,
+                     DataContainer dataContainer, CacheStore cacheStore) {
+      this.self = self;
+      this.joiner = joiner;
+      this.oldCH = oldCH;
+      this.newCH = newCH;
+      this.numOwners = numOwners;
+      this.dataContainer = dataContainer;
+      this.cacheStore = cacheStore;
+      this.entries = dataContainer.iterator();
+   }
+
+   /**
+    * @param maxEntries maximum number of entries to return
+    * @return the next entries to send to the joiner, or an empty map if all the state has been returned
+    */
+   synchronized Map<Object, InternalCacheValue> nextChunk(int maxEntries) throws CacheLoaderException {
+      Map<Object, InternalCacheValue> chunk = new HashMap<Object, InternalCacheValue>();
+      while (chunk.size() < maxEntries && entries.hasNext()) {
+         InternalCacheEntry ice = entries.next();
+         Object k = ice.getKey();
+         if (shouldTransferOwnershipToJoinNode(k)) chunk.put(k, ice.toInternalCacheValue());
+      }
+
+      if (cacheStore != null && chunk.size() < maxEntries) {
+         if (storedKeys == null)
+            storedKeys = cacheStore.loadAllKeys(new ReadOnlyDataContainerBackedKeySet(dataContainer)).iterator();
+         while (chunk.size() < maxEntries && storedKeys.hasNext()) {
+            Set<Object> toLoad = new HashSet<Object>();
+            while (chunk.size() + toLoad.size() < maxEntries && storedKeys.hasNext()) {
+               Object k = storedKeys.next();
+               if (!chunk.containsKey(k) && shouldTransferOwnershipToJoinNode(k)) toLoad.add(k);
+            }
+            // some of the keys may have expired or been removed meanwhile, hence the outer loop
+            loadValues(toLoad, chunk);
+         }
+      }
+      return chunk;
+   }
+
+   private boolean shouldTransferOwnershipToJoinNode(Object k) {
+      List<Address> oldOwnerList = oldCH.locate(k, numOwners);
+      if (!oldOwnerList.isEmpty() && self.equals(oldOwnerList.get(0))) {
+         List<Address> newOwnerList = newCH.locate(k, numOwners);
+         if (newOwnerList.contains(joiner)) return true;
+      }
+      return false;
+   }
+
+   private void loadValues(Set<Object> keys, Map<Object, InternalCacheValue> chunk) {
+      if (keys.isEmpty()) return;
+      try {
+         for (InternalCacheEntry ice : cacheStore.loadAll(keys)) chunk.put(ice.getKey(), ice.toInternalCacheValue());
+      } catch (CacheLoaderException cle) {
+         log.warn("Unable to load " + keys.size() + " keys from cache loader", cle);
+      }
+   }
+}
@@ -21,9 +21,15 @@ import org.infinispan.util.concurrent.TimeoutException;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * 5.  JoinTask: This is a PULL based rehash.  JoinTask is kicked off on the JOINER.
@@ -104,21 +110,10 @@ public class JoinTask extends RehashTask {
 
                // 5.  txLogger being enabled will cause ClusteredGetCommands to return uncertain responses.
    
-               // 6.  pull state from everyone.
-               Address myAddress = rpcManager.getTransport().getAddress();
-               
-               RehashControlCommand cmd = cf.buildRehashControlCommand(PULL_STATE_JOIN, myAddress, null, chOld, chNew,null);
-               // TODO I should be able to process state chunks from different nodes simultaneously!!
+               // 6.  pull state from everyone, in chunks and from all the state providers at the same time.
+               // 7.  Apply state as each chunk arrives
                List<Address> addressesWhoMaySendStuff = getAddressesWhoMaySendStuff(chNew, configuration.getNumOwners());
-               List<Response> resps = rpcManager.invokeRemotely(addressesWhoMaySendStuff, cmd, SYNCHRONOUS, configuration.getRehashRpcTimeout(), true);
-   
-               // 7.  Apply state
-               for (Response r : resps) {
-                  if (r instanceof SuccessfulResponse) {
-                     Map<Object, InternalCacheValue> state = getStateFromResponse((SuccessfulResponse) r);
-                     dmi.applyState(chNew, state);
-                  }
-               }
+               pullState(addressesWhoMaySendStuff, chOld, chNew);
    
                // 8.  Drain logs
                dmi.drainLocalTransactionLog();
@@ -150,6 +145,69 @@ public class JoinTask extends RehashTask {
       }
    }
 
+   /**
+    * Pulls and applies the state of each of the given nodes, using one thread per node.  The next chunk of a node's
+    * state is only requested once the previous one has been applied, so at most one chunk per node is held in memory.
+    */
+   private void pullState(List<Address> stateProviders, ConsistentHash chOld, ConsistentHash chNew) throws Exception {
+      ExecutorService executor = dmi.getAsyncTransportExecutor();
+      List<Callable<Void>> onThisThread = new ArrayList<Callable<Void>>(1);
+      List<Future<Void>> futures = new ArrayList<Future<Void>>(stateProviders.size());
+      for (Address stateProvider : stateProviders) {
+         Callable<Void> c = new StatePullTask(stateProvider, chOld, chNew);
+         if (executor == null || onThisThread.isEmpty())
+            onThisThread.add(c);
+         else
+            futures.add(executor.submit(c));
+      }
+
+      for (Callable<Void> c : onThisThread) c.call();
+      for (Future<Void> f : futures) {
+         try {
+            f.get();
+         } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw new CacheException(cause);
+         }
+      }
+   }
+
+   private class StatePullTask implements Callable<Void> {
+      private final Address stateProvider;
+      private final ConsistentHash chOld;
+      private final ConsistentHash chNew;
+
+      StatePullTask(Address stateProvider, ConsistentHash chOld, ConsistentHash chNew) {
+         this.stateProvider = stateProvider;
+         this.chOld = chOld;
+         this.chNew = chNew;
+      }
+
+      public Void call() throws Exception {
+         RehashControlCommand cmd = cf.buildRehashControlCommand(PULL_STATE_JOIN, self, null, chOld, chNew, null);
+         int chunks = 0, entries = 0;
+         Map<Object, InternalCacheValue> state;
+         while ((state = pullChunk(cmd)) != null && !state.isEmpty()) {
+            dmi.applyState(chNew, state);
+            chunks++;
+            entries += state.size();
+            cmd = cf.buildRehashControlCommand(PULL_STATE_JOIN_NEXT, self, null, null, null, null);
+         }
+         if (trace) log.trace("Applied {0} entries in {1} chunks from {2}", entries, chunks, stateProvider);
+         return null;
+      }
+
+      private Map<Object, InternalCacheValue> pullChunk(RehashControlCommand cmd) {
+         List<Response> resps = rpcManager.invokeRemotely(Collections.singletonList(stateProvider), cmd, SYNCHRONOUS,
+                                                          configuration.getRehashRpcTimeout(), true);
+         for (Response r : resps) {
+            if (r instanceof SuccessfulResponse) return getStateFromResponse((SuccessfulResponse) r);
+         }
+         return null;
+      }
+   }
+
    private void broadcastNewCh() {
       RehashControlCommand rehashControlCommand = cf.buildRehashControlCommand(JOIN_REHASH_START, self);
       rehashControlCommand.setNodeTopologyInfo(dmi.topologyInfo.getNodeTopologyInfo(rpcManager.getAddress()));
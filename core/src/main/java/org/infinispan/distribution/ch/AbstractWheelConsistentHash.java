@@ -5,6 +5,7 @@ import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,9 @@ public abstract class AbstractWheelConsistentHash extends AbstractConsistentHash
    protected SortedMap<Integer, Address> positions;
    // TODO: Maybe address and addressToHashIds can be combined in a LinkedHashMap?
    protected Map<Address, Integer> addressToHashIds;
+   // copy of the positions as sorted arrays, so that keys can be located without allocating
+   protected int[] positionKeys;
+   protected Address[] positionValues;
 
    final static int HASH_SPACE = 10240; // no more than 10k nodes?
 
@@ -37,7 +41,7 @@ public abstract class AbstractWheelConsistentHash extends AbstractConsistentHash
       // this list won't grow.
       addresses.trimToSize();
 
-      positions = new TreeMap<Integer, Address>();
+      SortedMap<Integer, Address> positions = new TreeMap<Integer, Address>();
       addressToHashIds = new HashMap<Address, Integer>();
 
       for (Address a : addresses) {
@@ -52,6 +56,8 @@ public abstract class AbstractWheelConsistentHash extends AbstractConsistentHash
             addressToHashIds.put(a, positionIndex);
       }
 
+      setPositions(positions);
+
       addresses.clear();
       // reorder addresses as per the positions.
       for (Address a : positions.values()) addresses.add(a);
@@ -60,6 +66,32 @@ public abstract class AbstractWheelConsistentHash extends AbstractConsistentHash
       }
    }
 
+   /**
+    * Sets the positions of the addresses on the wheel and builds the lookup table used by {@link
+    * #getPositionIndex(int)}.
+    */
+   protected void setPositions(SortedMap<Integer, Address> positions) {
+      this.positions = positions;
+      positionKeys = new int[positions.size()];
+      positionValues = new Address[positions.size()];
+      int i = 0;
+      for (Map.Entry<Integer, Address> position : positions.entrySet()) {
+         positionKeys[i] = position.getKey();
+         positionValues[i] = position.getValue();
+         i++;
+      }
+   }
+
+   /**
+    * @return the index, in {@link #positionKeys} and {@link #positionValues}, of the first position greater than or
+    *         equal to the given normalized hash, wrapping over the wheel
+    */
+   protected int getPositionIndex(int normalizedHash) {
+      int index = Arrays.binarySearch(positionKeys, normalizedHash);
+      if (index < 0) index = -index - 1;
+      return index == positionKeys.length ? 0 : index;
+   }
+
    @Override
    public List<Address> getBackupsForNode(Address node, int replCount) {
       return locate(node, replCount);
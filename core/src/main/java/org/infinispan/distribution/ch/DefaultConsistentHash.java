@@ -25,66 +25,24 @@ public class DefaultConsistentHash extends AbstractWheelConsistentHash {
    private static Log log = LogFactory.getLog(DefaultConsistentHash.class);
 
    public List<Address> locate(Object key, int replCount) {
-      int hash = getNormalizedHash(key);
       int numCopiesToFind = min(replCount, addresses.size());
-
       List<Address> owners = new ArrayList<Address>(numCopiesToFind);
-
-      SortedMap<Integer, Address> candidates = positions.tailMap(hash);
-
-      int numOwnersFound = 0;
-
-      for (Address a : candidates.values()) {
-         if (numOwnersFound < numCopiesToFind) {
-            owners.add(a);
-            numOwnersFound++;
-         } else {
-            break;
-         }
-      }
-
-      if (numOwnersFound < numCopiesToFind) {
-         for (Address a : positions.values()) {
-            if (numOwnersFound < numCopiesToFind) {
-               owners.add(a);
-               numOwnersFound++;
-            } else {
-               break;
-            }
-         }
+      int index = getPositionIndex(getNormalizedHash(key));
+      for (int i = 0; i < numCopiesToFind; i++) {
+         owners.add(positionValues[index]);
+         if (++index == positionValues.length) index = 0;
       }
-
       return owners;
    }
 
    @Override
    public boolean isKeyLocalToAddress(Address target, Object key, int replCount) {
-      int hash = getNormalizedHash(key);
       int numCopiesToFind = min(replCount, addresses.size());
-
-      SortedMap<Integer, Address> candidates = positions.tailMap(hash);
-      int nodesTested = 0;
-      for (Address a : candidates.values()) {
-         if (nodesTested < numCopiesToFind) {
-            if (a.equals(target)) return true;
-            nodesTested++;
-         } else {
-            break;
-         }
+      int index = getPositionIndex(getNormalizedHash(key));
+      for (int i = 0; i < numCopiesToFind; i++) {
+         if (positionValues[index].equals(target)) return true;
+         if (++index == positionValues.length) index = 0;
       }
-
-      // start from the beginning
-      if (nodesTested < numCopiesToFind) {
-         for (Address a : positions.values()) {
-            if (nodesTested < numCopiesToFind) {
-               if (a.equals(target)) return true;
-               nodesTested++;
-            } else {
-               break;
-            }
-         }
-      }
-
       return false;
    }
 
@@ -143,7 +101,7 @@ public class DefaultConsistentHash extends AbstractWheelConsistentHash {
       public Object readObject(ObjectInput unmarshaller) throws IOException, ClassNotFoundException {
          DefaultConsistentHash dch = new DefaultConsistentHash();
          dch.addresses = (ArrayList<Address>) unmarshaller.readObject();
-         dch.positions = (SortedMap<Integer, Address>) unmarshaller.readObject();
+         dch.setPositions((SortedMap<Integer, Address>) unmarshaller.readObject());
          dch.addressToHashIds = (Map<Address, Integer>) unmarshaller.readObject();
          return dch;
       }
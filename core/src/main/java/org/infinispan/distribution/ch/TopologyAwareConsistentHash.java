@@ -125,13 +125,7 @@ public class TopologyAwareConsistentHash extends AbstractWheelConsistentHash {
    }
 
    private Address getOwner(Object key) {
-      int hash = getNormalizedHash(key);
-      SortedMap<Integer, Address> map = positions.tailMap(hash);
-      if (map.size() == 0) {
-         return positions.get(positions.firstKey());
-      }
-      Integer ownerHash = map.firstKey();
-      return positions.get(ownerHash);
+      return positionValues[getPositionIndex(getNormalizedHash(key))];
    }
 
    public static class Externalizer implements org.infinispan.marshall.Externalizer {
@@ -150,7 +144,7 @@ public class TopologyAwareConsistentHash extends AbstractWheelConsistentHash {
       public Object readObject(ObjectInput unmarshaller) throws IOException, ClassNotFoundException {
          TopologyAwareConsistentHash ch = new TopologyAwareConsistentHash();
          ch.addresses = (ArrayList<Address>) unmarshaller.readObject();
-         ch.positions = (SortedMap<Integer, Address>) unmarshaller.readObject();
+         ch.setPositions((SortedMap<Integer, Address>) unmarshaller.readObject());
          ch.addressToHashIds = (Map<Address, Integer>) unmarshaller.readObject();
          ch.topologyInfo = new TopologyInfo();
          int ntiCount = unmarshaller.readInt();
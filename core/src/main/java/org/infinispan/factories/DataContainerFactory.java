@@ -24,9 +24,13 @@ package org.infinispan.factories;
 import org.infinispan.config.ConfigurationException;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.OffHeapDataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
+import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EntrySizeCalculator;
 
 /**
  * Constructs the data container
@@ -43,24 +47,49 @@ public class DataContainerFactory extends AbstractNamedCacheComponentFactory imp
    public <T> T construct(Class<T> componentType) {
       EvictionStrategy st = configuration.getEvictionStrategy();
       int level = configuration.getConcurrencyLevel();
+      boolean offHeap = configuration.isUseOffHeapDataContainer();
      
       switch (st) {
          case NONE:         
-            return (T) DefaultDataContainer.unBoundedDataContainer(level);
+            return (T) unBoundedDataContainer(level, offHeap);
          case UNORDERED:   
          case LRU:
          case FIFO:
          case LIRS:
             int maxEntries = configuration.getEvictionMaxEntries();
+            long maxBytes = configuration.getEvictionMaxBytes();
             //handle case when < 0 value signifies unbounded container 
-            if(maxEntries < 0) {
-                return (T) DefaultDataContainer.unBoundedDataContainer(level);
+            if(maxEntries < 0 && maxBytes < 0) {
+                return (T) unBoundedDataContainer(level, offHeap);
+            }
+            // off-heap containers always evict using their own CLOCK approximation of LRU
+            if (offHeap) {
+               return (T) OffHeapDataContainer.boundedDataContainer(level, maxEntries, maxBytes);
             }
             EvictionThreadPolicy policy = configuration.getEvictionThreadPolicy();
-            return (T) DefaultDataContainer.boundedDataContainer(level, maxEntries, st, policy);
+            boolean bufferedReads = configuration.isEvictionBufferedReads();
+            if (maxBytes >= 0) {
+               return (T) DefaultDataContainer.memoryBoundedDataContainer(level, maxEntries, maxBytes, st, policy,
+                        createSizeCalculator(), bufferedReads);
+            }
+            return (T) DefaultDataContainer.boundedDataContainer(level, maxEntries, st, policy, bufferedReads);
          default:
             throw new ConfigurationException("Unknown eviction strategy "
                      + configuration.getEvictionStrategy());
       }
    }
+
+   @SuppressWarnings("unchecked")
+   private EntrySizeCalculator<Object, InternalCacheEntry> createSizeCalculator() {
+      String calculatorClass = configuration.getEvictionSizeCalculatorClass();
+      Object calculator = Util.getInstance(calculatorClass);
+      if (!(calculator instanceof EntrySizeCalculator))
+         throw new ConfigurationException("Size calculator " + calculatorClass + " does not implement "
+                  + EntrySizeCalculator.class.getName());
+      return (EntrySizeCalculator<Object, InternalCacheEntry>) calculator;
+   }
+
+   private DataContainer unBoundedDataContainer(int level, boolean offHeap) {
+      return offHeap ? OffHeapDataContainer.unBoundedDataContainer(level) : DefaultDataContainer.unBoundedDataContainer(level);
+   }
 }
@@ -4,6 +4,7 @@ import org.infinispan.commands.RemoteCommandsFactory;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.io.BufferPool;
 import org.infinispan.remoting.InboundInvocationHandler;
 import org.infinispan.transaction.xa.GlobalTransactionFactory;
 import org.infinispan.transaction.xa.TransactionTable;
@@ -16,7 +17,7 @@ import org.infinispan.util.Util;
  * @author <a href="mailto:galder.zamarreno@jboss.com">Galder Zamarreno</a>
  * @since 4.0
  */
-@DefaultFactoryFor(classes = {InboundInvocationHandler.class, RemoteCommandsFactory.class, TransactionTable.class, GlobalTransactionFactory.class})
+@DefaultFactoryFor(classes = {InboundInvocationHandler.class, RemoteCommandsFactory.class, TransactionTable.class, GlobalTransactionFactory.class, BufferPool.class})
 @Scope(Scopes.GLOBAL)
 public class EmptyConstructorFactory extends AbstractComponentFactory implements AutoInstantiableFactory {
    public <T> T construct(Class<T> componentType) {
@@ -2,6 +2,7 @@ package org.infinispan.interceptors;
 
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
 import org.infinispan.commands.write.PutMapCommand;
@@ -40,6 +41,13 @@ public class ActivationInterceptor extends CacheLoaderInterceptor {
       return retval;
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      Object retval = super.visitGetAllCommand(ctx, command);
+      removeFromStore(command.getKeys().toArray());
+      return retval;
+   }
+
    @Override
    public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) throws Throwable {
       Object retval = super.visitRemoveCommand(ctx, command);
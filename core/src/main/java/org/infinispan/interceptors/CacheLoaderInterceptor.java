@@ -21,8 +21,11 @@
  */
 package org.infinispan.interceptors;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.InvalidateCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
@@ -91,6 +94,31 @@ public class CacheLoaderInterceptor extends JmxStatsCommandInterceptor {
       return invokeNextInterceptor(ctx, command);
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      // all the misses are loaded into the context before the command proceeds, so any remote lookups further down the
+      // chain only need to deal with keys that are in neither the data container nor the loader
+      if (skipLoad(ctx)) {
+         if (getStatisticsEnabled()) cacheMisses.addAndGet(command.getKeys().size());
+         return invokeNextInterceptor(ctx, command);
+      }
+      Map<Object, Boolean> toLoad = new HashMap<Object, Boolean>();
+      for (Object key : command.getKeys()) {
+         Boolean keyLocked = lockIfLoadNeeded(ctx, key);
+         if (keyLocked != null) toLoad.put(key, keyLocked);
+      }
+      if (!toLoad.isEmpty()) {
+         // the misses are fetched from the loader with a single bulk load
+         Map<Object, InternalCacheEntry> loaded = new HashMap<Object, InternalCacheEntry>();
+         for (InternalCacheEntry ice : loader.loadAll(toLoad.keySet())) loaded.put(ice.getKey(), ice);
+         for (Map.Entry<Object, Boolean> e : toLoad.entrySet()) {
+            boolean found = recordLoad(ctx, e.getKey(), e.getValue(), loaded.get(e.getKey()));
+            if (!found && getStatisticsEnabled()) cacheMisses.incrementAndGet();
+         }
+      }
+      return invokeNextInterceptor(ctx, command);
+   }
+
    @Override
    public Object visitInvalidateCommand(InvocationContext ctx, InvalidateCommand command) throws Throwable {
       Object[] keys;
@@ -121,48 +149,63 @@ public class CacheLoaderInterceptor extends JmxStatsCommandInterceptor {
    }
 
    private boolean loadIfNeeded(InvocationContext ctx, Object key) throws Throwable {
-      if (ctx.hasFlag(Flag.SKIP_CACHE_STORE) || ctx.hasFlag(Flag.SKIP_CACHE_LOAD)) {
+      if (skipLoad(ctx)) {
          return false; //skip operation
       }
+      Boolean keyLocked = lockIfLoadNeeded(ctx, key);
+      if (keyLocked == null) return true;
+      // we *may* need to load this.
+      return recordLoad(ctx, key, keyLocked, loader.load(key));
+   }
+
+   private boolean skipLoad(InvocationContext ctx) {
+      return ctx.hasFlag(Flag.SKIP_CACHE_STORE) || ctx.hasFlag(Flag.SKIP_CACHE_LOAD);
+   }
+
+   /**
+    * Checks whether the key is in the data container, and if not, locks it before it gets loaded.
+    *
+    * @return null if the key does not need to be loaded, otherwise whether the lock was acquired by this call
+    */
+   private Boolean lockIfLoadNeeded(InvocationContext ctx, Object key) throws Throwable {
       // first check if the container contains the key we need.  Try and load this into the context.
       CacheEntry e = entryFactory.wrapEntryForReading(ctx, key);
-      if (e == null || e.isNull()) {
-
-         // Obtain a temporary lock to verify the key is not being concurrently added
-         boolean keyLocked = entryFactory.acquireLock(ctx, key);
-         boolean unlockOnWayOut = false;
-         try {
-            // check again, in case there is a concurrent addition
-            if (dataContainer.containsKey(key)) {
-               log.trace("No need to load.  Key exists in the data container.");
-               unlockOnWayOut = true;
-               return true;
-            }
-         } finally {
-            if (keyLocked && unlockOnWayOut) {
-               entryFactory.releaseLock(key);
-            }
-         }
+      if (e != null && !e.isNull()) return null;
 
-         // we *may* need to load this.
-         InternalCacheEntry loaded = loader.load(key);
-         if (loaded == null) {
-            if (log.isTraceEnabled()) {
-               log.trace("No need to load.  Key doesn't exist in the loader.");
-            }
-            if (keyLocked) {
-               entryFactory.releaseLock(key);
-            }
-            return false;
+      // Obtain a temporary lock to verify the key is not being concurrently added
+      boolean keyLocked = entryFactory.acquireLock(ctx, key);
+      // check again, in case there is a concurrent addition
+      if (dataContainer.containsKey(key)) {
+         log.trace("No need to load.  Key exists in the data container.");
+         if (keyLocked) {
+            entryFactory.releaseLock(key);
          }
+         return null;
+      }
+      return keyLocked;
+   }
 
-         // Reuse the lock and create a new entry for loading
-         MVCCEntry n = entryFactory.wrapEntryForWriting(ctx, key, true, false, keyLocked, false, true);
-         recordLoadedEntry(ctx, key, n, loaded);
-         return true;
-      } else {
-         return true;
+   /**
+    * Records the entry loaded for a key locked by {@link #lockIfLoadNeeded(InvocationContext, Object)}, or releases
+    * the lock if the loader did not have the key.
+    *
+    * @return true if an entry was loaded
+    */
+   private boolean recordLoad(InvocationContext ctx, Object key, boolean keyLocked, InternalCacheEntry loaded) throws Throwable {
+      if (loaded == null) {
+         if (log.isTraceEnabled()) {
+            log.trace("No need to load.  Key doesn't exist in the loader.");
+         }
+         if (keyLocked) {
+            entryFactory.releaseLock(key);
+         }
+         return false;
       }
+
+      // Reuse the lock and create a new entry for loading
+      MVCCEntry n = entryFactory.wrapEntryForWriting(ctx, key, true, false, keyLocked, false, true);
+      recordLoadedEntry(ctx, key, n, loaded);
+      return true;
    }
 
    /**
@@ -21,6 +21,7 @@
  */
 package org.infinispan.interceptors;
 
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.EvictCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
@@ -92,6 +93,24 @@ public class CacheMgmtInterceptor extends JmxStatsCommandInterceptor {
       return retval;
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      long t1 = System.currentTimeMillis();
+      Map retval = (Map) invokeNextInterceptor(ctx, command);
+      long t2 = System.currentTimeMillis();
+      int requested = command.getKeys().size();
+      if (requested > 0) {
+         // attribute the time spent to hits and misses in proportion to their number
+         int found = retval.size();
+         long hitTime = (t2 - t1) * found / requested;
+         hitTimes.getAndAdd(hitTime);
+         hits.addAndGet(found);
+         missTimes.getAndAdd(t2 - t1 - hitTime);
+         misses.addAndGet(requested - found);
+      }
+      return retval;
+   }
+
    @Override
    public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) throws Throwable {
       Map data = command.getMap();
@@ -231,11 +231,12 @@ public class CacheStoreInterceptor extends JmxStatsCommandInterceptor {
       if (skip(ctx, command) || ctx.isInTxScope()) return returnValue;
 
       Map<Object, Object> map = command.getMap();
+      List<Modification> mods = new ArrayList<Modification>(map.size());
       for (Object key : map.keySet()) {
-         InternalCacheEntry se = getStoredEntry(key, ctx);
-         store.store(se);
-         if (trace) log.trace("Stored entry {0} under key {1}", se, key);
+         mods.add(new Store(getStoredEntry(key, ctx)));
       }
+      store.applyModifications(mods);
+      if (trace) log.trace("Stored entries under keys {0}", map.keySet());
       if (getStatisticsEnabled()) cacheStores.getAndAdd(map.size());
       return returnValue;
    }
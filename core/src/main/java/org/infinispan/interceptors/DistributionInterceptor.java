@@ -3,6 +3,7 @@ package org.infinispan.interceptors;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.DataCommand;
 import org.infinispan.commands.control.LockControlCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
@@ -98,6 +99,44 @@ public class DistributionInterceptor extends BaseRpcInterceptor {
       return returnValue;
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      boolean isStillRehashingOnJoin = !dm.isJoinComplete();
+      Map<Object, Object> result = (Map<Object, Object>) invokeNextInterceptor(ctx, command);
+      if (ctx.hasFlag(Flag.SKIP_REMOTE_LOOKUP)) return result;
+
+      // keys owned by other nodes are fetched with one RPC per owner, while keys mapped to this node that may still be
+      // in flight because of a join are looked up individually, as visitGetKeyValueCommand() does
+      List<Object> remoteKeys = new ArrayList<Object>();
+      for (Object key : command.getKeys()) {
+         if (!needsRemoteGet(ctx, key, !result.containsKey(key))) continue;
+         boolean isMappedToLocalNode = false;
+         if (ctx.isOriginLocal() && !(isMappedToLocalNode = dm.isLocal(key)) && isNotInL1(key)) {
+            remoteKeys.add(key);
+         } else if (isMappedToLocalNode && isStillRehashingOnJoin) {
+            Object value = realRemoteGet(ctx, key, false);
+            if (value != null) result.put(key, value);
+         }
+      }
+      if (remoteKeys.isEmpty()) return result;
+
+      if (trace) log.trace("Doing a remote get for keys {0}", remoteKeys);
+      Map<Object, InternalCacheEntry> retrieved = dm.retrieveFromRemoteSources(remoteKeys);
+      for (Object key : remoteKeys) {
+         Object value;
+         if (retrieved.containsKey(key)) {
+            InternalCacheEntry ice = retrieved.get(key);
+            value = ice == null ? null : storeRemoteEntry(ctx, key, ice, true);
+         } else {
+            // the owner could not give a reliable answer, so ask all the owners of this key
+            value = realRemoteGet(ctx, key, true);
+         }
+         if (value != null) result.put(key, value);
+      }
+      return result;
+   }
+
    private boolean needsRemoteGet(InvocationContext ctx, Object key, boolean retvalCheck) {
       CacheEntry entry;
       return retvalCheck && !ctx.hasFlag(Flag.SKIP_REMOTE_LOOKUP) && ((entry = ctx.lookupEntry(key)) == null || entry.isLockPlaceholder());
@@ -141,30 +180,30 @@ public class DistributionInterceptor extends BaseRpcInterceptor {
       if (trace) log.trace("Doing a remote get for key {0}", key);
       // attempt a remote lookup
       InternalCacheEntry ice = dm.retrieveFromRemoteSource(key);
+      return ice == null ? null : storeRemoteEntry(ctx, key, ice, storeInL1);
+   }
 
-      if (ice != null) {
-         if (storeInL1) {
-            if (isL1CacheEnabled) {
-               if (trace) log.trace("Caching remotely retrieved entry for key {0} in L1", key);
-               long lifespan = ice.getLifespan() < 0 ? configuration.getL1Lifespan() : Math.min(ice.getLifespan(), configuration.getL1Lifespan());
-               PutKeyValueCommand put = cf.buildPutKeyValueCommand(ice.getKey(), ice.getValue(), lifespan, -1);
-               entryFactory.wrapEntryForWriting(ctx, key, true, false, ctx.hasLockedKey(key), false, false);
-               invokeNextInterceptor(ctx, put);
-            } else {
-               CacheEntry ce = ctx.lookupEntry(key);
-               if (ce == null || ce.isNull() || ce.isLockPlaceholder()) {
-                  if (ce != null && ce.isChanged())
-                     ce.setValue(ice.getValue());
-                  else
-                     ctx.putLookedUpEntry(key, ice);
-               }
-            }
+   private Object storeRemoteEntry(InvocationContext ctx, Object key, InternalCacheEntry ice, boolean storeInL1) throws Throwable {
+      if (storeInL1) {
+         if (isL1CacheEnabled) {
+            if (trace) log.trace("Caching remotely retrieved entry for key {0} in L1", key);
+            long lifespan = ice.getLifespan() < 0 ? configuration.getL1Lifespan() : Math.min(ice.getLifespan(), configuration.getL1Lifespan());
+            PutKeyValueCommand put = cf.buildPutKeyValueCommand(ice.getKey(), ice.getValue(), lifespan, -1);
+            entryFactory.wrapEntryForWriting(ctx, key, true, false, ctx.hasLockedKey(key), false, false);
+            invokeNextInterceptor(ctx, put);
          } else {
-            if (trace) log.trace("Not caching remotely retrieved entry for key {0} in L1", key);
+            CacheEntry ce = ctx.lookupEntry(key);
+            if (ce == null || ce.isNull() || ce.isLockPlaceholder()) {
+               if (ce != null && ce.isChanged())
+                  ce.setValue(ice.getValue());
+               else
+                  ctx.putLookedUpEntry(key, ice);
+            }
          }
-         return ice.getValue();
+      } else {
+         if (trace) log.trace("Not caching remotely retrieved entry for key {0} in L1", key);
       }
-      return null;
+      return ice.getValue();
    }
 
    /**
@@ -273,16 +312,22 @@ public class DistributionInterceptor extends BaseRpcInterceptor {
       return invokeNextInterceptor(ctx, command);
    }
 
-   private void remoteGetBeforeWrite(InvocationContext ctx, boolean isConditionalCommand, KeyGenerator keygen) throws Throwable {
+   private void remoteGetBeforeWrite(InvocationContext ctx, boolean isConditionalCommand, boolean needsCurrentValue, KeyGenerator keygen) throws Throwable {
       // this should only happen if:
       //   a) unsafeUnreliableReturnValues is false
       //   b) unsafeUnreliableReturnValues is true, we are in a TX and the command is conditional
+      //   c) the command computes the new value from the current one
       boolean isStillRehashingOnJoin = !dm.isJoinComplete();
-      if (isNeedReliableReturnValues(ctx) || (isConditionalCommand && ctx.isInTxScope())) {
+      if (isNeedReliableReturnValues(ctx) || (isConditionalCommand && ctx.isInTxScope()) || needsCurrentValue) {
          for (Object k : keygen.getKeys()) remoteGetAndStoreInL1(ctx, k, isStillRehashingOnJoin);
       }
    }
 
+   private boolean needsCurrentValue(InvocationContext ctx, WriteCommand command) {
+      return !ctx.hasFlag(Flag.SKIP_REMOTE_LOOKUP) && command instanceof PutKeyValueCommand
+            && ((PutKeyValueCommand) command).isValueUpdate();
+   }
+
    private boolean isNeedReliableReturnValues(InvocationContext ctx) {
       return !ctx.hasFlag(Flag.SKIP_REMOTE_LOOKUP) && needReliableReturnValues;
    }
@@ -306,7 +351,7 @@ public class DistributionInterceptor extends BaseRpcInterceptor {
       // TODO Remove isSingleOwnerAndLocal() once https://jira.jboss.org/jira/browse/JGRP-1084 has been implemented
       boolean localModeForced = isLocalModeForced(ctx) || isSingleOwnerAndLocal(recipientGenerator);
       // see if we need to load values from remote srcs first
-      if (!skipRemoteGet) remoteGetBeforeWrite(ctx, command.isConditional(), recipientGenerator);
+      if (!skipRemoteGet) remoteGetBeforeWrite(ctx, command.isConditional(), needsCurrentValue(ctx, command), recipientGenerator);
 
       // if this is local mode then skip distributing
       if (localModeForced) {
@@ -22,6 +22,7 @@
 package org.infinispan.interceptors;
 
 import org.infinispan.commands.control.LockControlCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
@@ -133,6 +134,16 @@ public class LockingInterceptor extends CommandInterceptor {
       }
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         for (Object key : command.getKeys()) entryFactory.wrapEntryForReading(ctx, key);
+         return invokeNextInterceptor(ctx, command);
+      } finally {
+         doAfterCall(ctx);
+      }
+   }
+
    @Override
    public Object visitLockControlCommand(TxInvocationContext ctx, LockControlCommand c) throws Throwable {
       boolean localTxScope = ctx.isOriginLocal() && ctx.isInTxScope();
@@ -23,6 +23,7 @@ package org.infinispan.interceptors;
 
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.ValuesCommand;
@@ -170,6 +171,35 @@ public class MarshalledValueInterceptor extends CommandInterceptor {
       return processRetVal(retVal, ctx);
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      Set<Object> rawKeys = command.getKeys();
+      Set<Object> keys = new HashSet<Object>(rawKeys.size());
+      Set<MarshalledValue> marshalledKeys = new HashSet<MarshalledValue>();
+      for (Object key : rawKeys) {
+         if (isTypeExcluded(key.getClass())) {
+            keys.add(key);
+         } else {
+            MarshalledValue mv = createMarshalledValue(key, ctx);
+            marshalledKeys.add(mv);
+            keys.add(mv);
+         }
+      }
+      command.setKeys(keys);
+      Map<Object, Object> retVal = (Map<Object, Object>) invokeNextInterceptor(ctx, command);
+      for (MarshalledValue mv : marshalledKeys) compact(mv);
+      if (!ctx.isOriginLocal()) return retVal;
+
+      Map<Object, Object> copy = new HashMap<Object, Object>(retVal.size());
+      for (Map.Entry<Object, Object> e : retVal.entrySet()) {
+         Object key = e.getKey();
+         if (key instanceof MarshalledValue) key = ((MarshalledValue) key).get();
+         copy.put(key, processRetVal(e.getValue(), ctx));
+      }
+      return copy;
+   }
+
    @Override
    public Object visitKeySetCommand(InvocationContext ctx, KeySetCommand command) throws Throwable {
       Set keys = (Set) invokeNextInterceptor(ctx, command);
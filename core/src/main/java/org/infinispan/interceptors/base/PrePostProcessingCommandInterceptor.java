@@ -22,6 +22,7 @@
 package org.infinispan.interceptors.base;
 
 import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.tx.CommitCommand;
@@ -167,6 +168,20 @@ public abstract class PrePostProcessingCommandInterceptor extends CommandInterce
       return handleDefault(ctx, command);
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         return (doBeforeCall(ctx, command)) ? handleGetAllCommand(ctx, command) : null;
+      }
+      finally {
+         doAfterCall(ctx, command);
+      }
+   }
+
+   protected Object handleGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      return handleDefault(ctx, command);
+   }
+
    // tx commands
 
    @Override
@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.io;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.rhq.helpers.pluginAnnotations.agent.DisplayType;
+import org.rhq.helpers.pluginAnnotations.agent.MeasurementType;
+import org.rhq.helpers.pluginAnnotations.agent.Metric;
+import org.rhq.helpers.pluginAnnotations.agent.Operation;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of {@link ExposedByteArrayOutputStream}s that objects are marshalled into, so that marshalling does not
+ * allocate and grow a new array every time.  A stream is obtained through {@link #borrow(int)} and must be handed back
+ * through {@link #release(ExposedByteArrayOutputStream)} once its contents are no longer needed, i.e. they have been
+ * copied or written somewhere else.  The raw buffer of a released stream must not be referenced any more.
+ * <p/>
+ * Streams are pooled by the capacity of their buffer in three size classes: small and medium ones are cached per
+ * thread, one of each class, while large ones are shared by all threads in a queue of bounded size.  Streams that have
+ * grown beyond {@link #MAX_POOLED_CAPACITY} are never retained.
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+@Scope(Scopes.GLOBAL)
+@MBean(objectName = "BufferPool", description = "Pool of the buffers objects are marshalled into")
+public class BufferPool {
+
+   /**
+    * Lowest capacity of the buffers in each size class, the last one being shared by all threads
+    */
+   private static final int[] SIZE_CLASSES = {1024, 8 * 1024, 64 * 1024};
+   private static final int THREAD_LOCAL_CLASSES = SIZE_CLASSES.length - 1;
+   private static final int SHARED_CLASS = SIZE_CLASSES.length - 1;
+
+   /**
+    * Capacity above which a released buffer is not retained
+    */
+   public static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+
+   private final ThreadLocal<ExposedByteArrayOutputStream[]> threadLocalStreams = new ThreadLocal<ExposedByteArrayOutputStream[]>() {
+      @Override
+      protected ExposedByteArrayOutputStream[] initialValue() {
+         return new ExposedByteArrayOutputStream[THREAD_LOCAL_CLASSES];
+      }
+   };
+
+   private final BlockingQueue<ExposedByteArrayOutputStream> sharedStreams =
+         new ArrayBlockingQueue<ExposedByteArrayOutputStream>(Runtime.getRuntime().availableProcessors());
+
+   private final AtomicLong hits = new AtomicLong(0);
+   private final AtomicLong misses = new AtomicLong(0);
+   private final AtomicLong discards = new AtomicLong(0);
+
+   /**
+    * Returns an empty stream, preferably one whose buffer can hold <tt>estimatedSize</tt> bytes without growing.
+    *
+    * @param estimatedSize estimated number of bytes that will be written to the stream
+    */
+   public ExposedByteArrayOutputStream borrow(int estimatedSize) {
+      ExposedByteArrayOutputStream[] streams = threadLocalStreams.get();
+      for (int i = sizeClassOf(estimatedSize); i < THREAD_LOCAL_CLASSES; i++) {
+         ExposedByteArrayOutputStream out = streams[i];
+         if (out != null) {
+            streams[i] = null;
+            hits.incrementAndGet();
+            return out;
+         }
+      }
+      ExposedByteArrayOutputStream out = sharedStreams.poll();
+      if (out != null) {
+         hits.incrementAndGet();
+         return out;
+      }
+      misses.incrementAndGet();
+      return new ExposedByteArrayOutputStream(Math.max(estimatedSize, SIZE_CLASSES[0]));
+   }
+
+   /**
+    * Hands a stream obtained from {@link #borrow(int)} back to the pool.  The stream may be retained or not depending
+    * on its capacity and on the streams already pooled.
+    */
+   public void release(ExposedByteArrayOutputStream out) {
+      int capacity = out.getRawBuffer().length;
+      if (capacity < SIZE_CLASSES[0] || capacity > MAX_POOLED_CAPACITY) {
+         discards.incrementAndGet();
+         return;
+      }
+      out.reset();
+      int sizeClass = sizeClassOf(capacity);
+      if (sizeClass < THREAD_LOCAL_CLASSES) {
+         ExposedByteArrayOutputStream[] streams = threadLocalStreams.get();
+         if (streams[sizeClass] == null) {
+            streams[sizeClass] = out;
+            return;
+         }
+      } else if (sharedStreams.offer(out)) {
+         return;
+      }
+      discards.incrementAndGet();
+   }
+
+   private static int sizeClassOf(int capacity) {
+      for (int i = SHARED_CLASS; i > 0; i--) {
+         if (capacity >= SIZE_CLASSES[i]) return i;
+      }
+      return 0;
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component")
+   @Operation(displayName = "Reset statistics")
+   public void resetStatistics() {
+      hits.set(0);
+      misses.set(0);
+      discards.set(0);
+   }
+
+   @ManagedAttribute(description = "Number of buffers borrowed from the pool")
+   @Metric(displayName = "Number of buffer pool hits", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getHits() {
+      return hits.get();
+   }
+
+   @ManagedAttribute(description = "Number of buffers allocated because the pool had none available")
+   @Metric(displayName = "Number of buffer pool misses", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getMisses() {
+      return misses.get();
+   }
+
+   @ManagedAttribute(description = "Number of released buffers that were too small, too large or in excess to be retained")
+   @Metric(displayName = "Number of discarded buffers", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getDiscards() {
+      return discards.get();
+   }
+}
@@ -1,6 +1,9 @@
 package org.infinispan.loaders;
 
+import org.infinispan.AdvancedCache;
 import org.infinispan.Cache;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.io.BufferPool;
 import org.infinispan.loaders.modifications.Modification;
 import org.infinispan.loaders.modifications.Remove;
 import org.infinispan.loaders.modifications.Store;
@@ -37,10 +40,16 @@ public abstract class AbstractCacheStore extends AbstractCacheLoader implements
    protected ExecutorService purgerService;
    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger(0);
    protected boolean multiThreadedPurge = false;
+   private BufferPool bufferPool;
 
    public void init(CacheLoaderConfig config, Cache<?, ?> cache, StreamingMarshaller m) throws CacheLoaderException{
       super.init(config, cache, m);
       this.config = (AbstractCacheStoreConfig) config;
+      AdvancedCache<?, ?> advancedCache = cache == null ? null : cache.getAdvancedCache();
+      // caches created outside of a cache manager, as in some tests, have no component registry
+      ComponentRegistry registry = advancedCache == null ? null : advancedCache.getComponentRegistry();
+      if (registry != null) bufferPool = registry.getComponent(BufferPool.class);
+      if (bufferPool == null) bufferPool = new BufferPool();
    }
 
    protected final int getConcurrencyLevel() {
@@ -91,7 +100,7 @@ public abstract class AbstractCacheStore extends AbstractCacheLoader implements
 
    protected abstract void purgeInternal() throws CacheLoaderException;
 
-   protected void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
       for (Modification m : mods) {
          switch (m.getType()) {
             case STORE:
@@ -156,6 +165,14 @@ public abstract class AbstractCacheStore extends AbstractCacheLoader implements
       }
    }
 
+   /**
+    * @return the pool to borrow the buffers entries are marshalled into from, shared with the marshaller of the cache
+    *         manager when available
+    */
+   protected BufferPool getBufferPool() {
+      return bufferPool;
+   }
+
    protected StreamingMarshaller getMarshaller() {
       return marshaller;
    }
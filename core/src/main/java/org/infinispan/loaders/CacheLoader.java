@@ -43,6 +43,17 @@ public interface CacheLoader {
     */
    Set<InternalCacheEntry> loadAll() throws CacheLoaderException;
 
+   /**
+    * Loads the entries mapped to by the given keys, preferably with fewer round trips to the underlying source than a
+    * {@link #load(Object)} per key would need.  Keys that do not exist or whose entries have expired are left out of
+    * the result.
+    *
+    * @param keys keys to load
+    * @return a set of the entries found, or an empty set if none of the keys exist
+    * @throws CacheLoaderException in the event of problems reading from source
+    */
+   Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException;
+
    /**
     * Loads up to a specific number of entries.  There is no guarantee as to order of entries loaded.  The set returned
     * would contain up to a maximum of <tt>numEntries</tt> entries, and no more.
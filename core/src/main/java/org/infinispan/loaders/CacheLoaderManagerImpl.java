@@ -1,5 +1,6 @@
 package org.infinispan.loaders;
 
+import org.infinispan.AdvancedCache;
 import org.infinispan.Cache;
 import org.infinispan.CacheException;
 import org.infinispan.config.CacheLoaderManagerConfig;
@@ -12,6 +13,8 @@ import static org.infinispan.context.Flag.*;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.loaders.decorators.AsyncStore;
 import org.infinispan.loaders.decorators.ChainingCacheStore;
 import org.infinispan.loaders.decorators.ReadOnlyStore;
@@ -22,11 +25,25 @@ import org.infinispan.util.ReflectionUtil;
 import org.infinispan.util.Util;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
+import org.rhq.helpers.pluginAnnotations.agent.Metric;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+@MBean(objectName = "CacheLoaderManager", description = "Component that manages the cache loaders and preloads their contents")
 public class CacheLoaderManagerImpl implements CacheLoaderManager {
 
    Configuration configuration;
@@ -34,6 +51,8 @@ public class CacheLoaderManagerImpl implements CacheLoaderManager {
    Cache<Object, Object> cache;
    StreamingMarshaller m;
    CacheLoader loader;
+   private final AtomicLong preloadTotal = new AtomicLong();
+   private final AtomicLong preloaded = new AtomicLong();
    private static final Log log = LogFactory.getLog(CacheLoaderManagerImpl.class);
 
    @Inject
@@ -121,36 +140,118 @@ public class CacheLoaderManagerImpl implements CacheLoaderManager {
                start = System.currentTimeMillis();
                log.debug("Preloading transient state from cache loader {0}", loader);
             }
-            Set<InternalCacheEntry> state;
+            preloadTotal.set(0);
+            preloaded.set(0);
             try {
-               state = loadState();
+               if (clmConfig.getPreloadPageSize() > 0)
+                  preloadInPages();
+               else
+                  preloadAll();
             } catch (CacheLoaderException e) {
                throw new CacheException("Unable to preload!", e);
             }
 
-            for (InternalCacheEntry e : state) {
-               if (clmConfig.isShared() || !(loader instanceof ChainingCacheStore)) {
-                  cache.getAdvancedCache()
-                       .withFlags(SKIP_CACHE_STATUS_CHECK, CACHE_MODE_LOCAL, SKIP_CACHE_STORE) 
-                       .put(e.getKey(), e.getValue(), e.getLifespan(), MILLISECONDS, e.getMaxIdle(), MILLISECONDS);
-               } else {
-                  cache.getAdvancedCache()
-                       .withFlags(SKIP_CACHE_STATUS_CHECK, CACHE_MODE_LOCAL)
-                       .put(e.getKey(), e.getValue(), e.getLifespan(), MILLISECONDS, e.getMaxIdle(), MILLISECONDS);
-               }
-            }
-
             if (debugTiming) {
                long stop = System.currentTimeMillis();
-               log.debug("Preloaded {0} keys in {1} milliseconds", state.size(), stop - start);
+               log.debug("Preloaded {0} keys in {1} milliseconds", preloaded.get(), stop - start);
             }
          }
       }
    }
 
+   @ManagedAttribute(description = "Number of entries to preload from the cache loader, known once preload has started")
+   @Metric(displayName = "Number of entries to preload")
+   public long getPreloadTotal() {
+      return preloadTotal.get();
+   }
+
+   @ManagedAttribute(description = "Number of entries preloaded from the cache loader so far")
+   @Metric(displayName = "Number of entries preloaded")
+   public long getPreloaded() {
+      return preloaded.get();
+   }
+
+   private void preloadAll() throws CacheLoaderException {
+      Set<InternalCacheEntry> state = loadState();
+      preloadTotal.set(state.size());
+      for (InternalCacheEntry e : state) preload(e);
+   }
+
+   /**
+    * Lists the keys in the cache loader and loads their entries in pages, each on one of the preload threads, so at
+    * most a page of entries per thread is held in memory.
+    */
+   private void preloadInPages() throws CacheLoaderException {
+      int maxEntries = getMaxEntries();
+      if (maxEntries == 0) return;
+      int pageSize = clmConfig.getPreloadPageSize();
+      List<Set<Object>> pages = new ArrayList<Set<Object>>();
+      Set<Object> page = null;
+      int total = 0;
+      for (Object key : loader.loadAllKeys(Collections.emptySet())) {
+         if (maxEntries > 0 && total == maxEntries) break;
+         if (page == null || page.size() == pageSize) {
+            page = new HashSet<Object>();
+            pages.add(page);
+         }
+         page.add(key);
+         total++;
+      }
+      preloadTotal.set(total);
+
+      int threads = clmConfig.getPreloadThreads();
+      if (threads <= 1) {
+         for (Set<Object> keys : pages) new PreloadPage(keys).call();
+         return;
+      }
+      ExecutorService executor = createPreloadExecutor(threads);
+      try {
+         List<Future<Void>> futures = new ArrayList<Future<Void>>(pages.size());
+         for (Set<Object> keys : pages) futures.add(executor.submit(new PreloadPage(keys)));
+         for (Future<Void> f : futures) f.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while preloading", e);
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof CacheLoaderException) throw (CacheLoaderException) e.getCause();
+         throw new CacheException("Unable to preload!", e.getCause());
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private ExecutorService createPreloadExecutor(int threads) {
+      final String prefix = cache.getName() + "-Preloader-";
+      final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+      return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+         final AtomicInteger counter = new AtomicInteger();
+
+         public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + counter.getAndIncrement());
+            t.setDaemon(true);
+            t.setContextClassLoader(classLoader);
+            return t;
+         }
+      });
+   }
+
+   private void preload(InternalCacheEntry e) {
+      AdvancedCache<Object, Object> ac;
+      if (clmConfig.isShared() || !(loader instanceof ChainingCacheStore)) {
+         ac = cache.getAdvancedCache().withFlags(SKIP_CACHE_STATUS_CHECK, CACHE_MODE_LOCAL, SKIP_CACHE_STORE);
+      } else {
+         ac = cache.getAdvancedCache().withFlags(SKIP_CACHE_STATUS_CHECK, CACHE_MODE_LOCAL);
+      }
+      ac.put(e.getKey(), e.getValue(), e.getLifespan(), MILLISECONDS, e.getMaxIdle(), MILLISECONDS);
+      preloaded.incrementAndGet();
+   }
+
+   private int getMaxEntries() {
+      return configuration.getEvictionStrategy().isEnabled() ? configuration.getEvictionMaxEntries() : -1;
+   }
+
    private Set<InternalCacheEntry> loadState() throws CacheLoaderException {
-      int ne = -1;
-      if (configuration.getEvictionStrategy().isEnabled()) ne = configuration.getEvictionMaxEntries();
+      int ne = getMaxEntries();
       Set<InternalCacheEntry> state;
       switch (ne) {
          case -1:
@@ -166,6 +267,19 @@ public class CacheLoaderManagerImpl implements CacheLoaderManager {
       return state;
    }
 
+   private final class PreloadPage implements Callable<Void> {
+      private final Set<Object> keys;
+
+      PreloadPage(Set<Object> keys) {
+         this.keys = keys;
+      }
+
+      public Void call() throws CacheLoaderException {
+         for (InternalCacheEntry e : loader.loadAll(keys)) preload(e);
+         return null;
+      }
+   }
+
    @Stop
    public void stop() {
       if (loader != null) try {
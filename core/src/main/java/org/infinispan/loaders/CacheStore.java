@@ -95,6 +95,15 @@ public interface CacheStore extends CacheLoader {
     */
    void removeAll(Set<Object> keys) throws CacheLoaderException;
 
+   /**
+    * Bulk write operation, applying the modifications in the order given.  Implementations should write them to the
+    * underlying storage in as few round trips as it allows, e.g. as one batch or one storage transaction.
+    *
+    * @param modifications modifications to apply
+    * @throws CacheLoaderException in the event of problems writing to the store
+    */
+   void applyModifications(List<? extends Modification> modifications) throws CacheLoaderException;
+
    /**
     * Purges expired entries from the store.
     *
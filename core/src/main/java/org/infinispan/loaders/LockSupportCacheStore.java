@@ -9,6 +9,7 @@ import org.infinispan.util.logging.LogFactory;
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -112,6 +113,15 @@ public abstract class LockSupportCacheStore extends AbstractCacheStore {
       }
    }
 
+   public final Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      acquireGlobalLock(false);
+      try {
+         return loadAllLockSafe(keys);
+      } finally {
+         releaseGlobalLock(false);
+      }
+   }
+
    public final Set<InternalCacheEntry> load(int maxEntries) throws CacheLoaderException {
       if (maxEntries < 0) return loadAll();
       acquireGlobalLock(false);
@@ -205,6 +215,20 @@ public abstract class LockSupportCacheStore extends AbstractCacheStore {
 
    protected abstract Set<InternalCacheEntry> loadLockSafe(int maxEntries) throws CacheLoaderException;
 
+   /**
+    * Loads the given keys while the global read lock is held.  This implementation calls {@link
+    * #loadLockSafe(Object, String)} for each key, and should be overridden where the storage can serve several keys
+    * at once.
+    */
+   protected Set<InternalCacheEntry> loadAllLockSafe(Set<Object> keys) throws CacheLoaderException {
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      for (Object key : keys) {
+         InternalCacheEntry ice = loadLockSafe(key, getLockFromKey(key));
+         if (ice != null) result.add(ice);
+      }
+      return result;
+   }
+
    protected abstract Set<Object> loadAllKeysLockSafe(Set<Object> keysToExclude) throws CacheLoaderException;
 
    protected abstract void toStreamLockSafe(ObjectOutput oos) throws CacheLoaderException;
@@ -4,9 +4,13 @@ import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.LockSupportCacheStore;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -47,6 +51,33 @@ public abstract class BucketBasedCacheStore extends LockSupportCacheStore {
       }
    }
 
+   /**
+    * Loads each Bucket holding any of the keys only once, however many of the keys it holds.
+    */
+   @Override
+   protected Set<InternalCacheEntry> loadAllLockSafe(Set<Object> keys) throws CacheLoaderException {
+      Map<String, List<Object>> keysByBucket = new HashMap<String, List<Object>>();
+      for (Object key : keys) {
+         String bucketName = getLockFromKey(key);
+         List<Object> bucketKeys = keysByBucket.get(bucketName);
+         if (bucketKeys == null) {
+            bucketKeys = new ArrayList<Object>();
+            keysByBucket.put(bucketName, bucketKeys);
+         }
+         bucketKeys.add(key);
+      }
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      for (Map.Entry<String, List<Object>> e : keysByBucket.entrySet()) {
+         Bucket bucket = loadBucket(e.getKey());
+         if (bucket == null) continue;
+         for (Object key : e.getValue()) {
+            InternalCacheEntry se = bucket.getEntry(key);
+            if (se != null && !se.isExpired()) result.add(se);
+         }
+      }
+      return result;
+   }
+
    /**
     * Stores an entry in an appropriate Bucket, based on the key's hash code.  If the Bucket does not exist in the
     * underlying store, a new one is created.
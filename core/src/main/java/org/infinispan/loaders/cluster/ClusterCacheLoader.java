@@ -2,6 +2,7 @@ package org.infinispan.loaders.cluster;
 
 import org.infinispan.AdvancedCache;
 import org.infinispan.Cache;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.entries.InternalCacheValue;
@@ -22,8 +23,10 @@ import org.infinispan.remoting.transport.Address;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static java.util.Collections.emptySet;
@@ -65,6 +68,35 @@ public class ClusterCacheLoader extends AbstractCacheLoader {
       throw new CacheLoaderException(message);
    }
 
+   /**
+    * Asks all the other members for the keys with a single {@link ClusteredGetAllCommand}, rather than a {@link
+    * ClusteredGetCommand} per key.
+    */
+   @Override
+   @SuppressWarnings(value = "unchecked")
+   public Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      if (keys.isEmpty() || !(isCacheReady() && isLocalCall())) return emptySet();
+      ClusteredGetAllCommand clusteredGetAllCommand = new ClusteredGetAllCommand(keys, cache.getName());
+      List<Response> responses;
+      try {
+         responses = rpcManager.invokeRemotely(null, clusteredGetAllCommand, ResponseMode.SYNCHRONOUS, config.getRemoteCallTimeout(), false, null);
+      } catch (Exception e) {
+         log.error("error while doing remote call", e);
+         throw new CacheLoaderException(e);
+      }
+      Map<Object, InternalCacheEntry> found = new HashMap<Object, InternalCacheEntry>();
+      for (Response response : responses) {
+         if (!(response instanceof SuccessfulResponse)) continue;
+         Map<Object, InternalCacheValue> values = (Map<Object, InternalCacheValue>) ((SuccessfulResponse) response).getResponseValue();
+         if (values == null) continue;
+         for (Map.Entry<Object, InternalCacheValue> e : values.entrySet()) {
+            if (e.getValue() != null && !found.containsKey(e.getKey()))
+               found.put(e.getKey(), e.getValue().toInternalCacheEntry(e.getKey()));
+         }
+      }
+      return new HashSet<InternalCacheEntry>(found.values());
+   }
+
    @SuppressWarnings(value = "unchecked")
    public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
       return emptySet();
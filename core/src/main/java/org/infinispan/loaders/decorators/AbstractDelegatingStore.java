@@ -46,6 +46,10 @@ public class AbstractDelegatingStore implements CacheStore {
       delegate.store(ed);
    }
 
+   public void applyModifications(List<? extends Modification> modifications) throws CacheLoaderException {
+      delegate.applyModifications(modifications);
+   }
+
    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
       delegate.fromStream(inputStream);
    }
@@ -90,6 +94,10 @@ public class AbstractDelegatingStore implements CacheStore {
       return delegate.loadAll();
    }
 
+   public Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      return delegate.loadAll(keys);
+   }
+
    @Override
    public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
       return delegate.load(numEntries);
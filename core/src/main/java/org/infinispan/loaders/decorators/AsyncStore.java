@@ -18,6 +18,7 @@ import org.infinispan.util.concurrent.locks.containers.ReentrantPerEntryLockCont
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -115,6 +116,11 @@ public class AsyncStore extends AbstractDelegatingStore {
       return true;
    }
 
+   @Override
+   public void applyModifications(List<? extends Modification> modifications) throws CacheLoaderException {
+      enqueueModificationsList(modifications);
+   }
+
    @Override
    public void clear() {
       Clear clear = new Clear();
@@ -196,20 +202,19 @@ public class AsyncStore extends AbstractDelegatingStore {
    }
 
    protected void applyModificationsSync(ConcurrentMap<Object, Modification> mods) throws CacheLoaderException {
-      Set<Map.Entry<Object, Modification>> entries = mods.entrySet();
-      for (Map.Entry<Object, Modification> entry : entries) {
-         Modification mod = entry.getValue();
+      List<Modification> list = new ArrayList<Modification>(mods.size());
+      for (Modification mod : mods.values()) {
          switch (mod.getType()) {
             case STORE:
-               super.store(((Store) mod).getStoredEntry());
-               break;
             case REMOVE:
-               super.remove(entry.getKey());
+               list.add(mod);
                break;
             default:
                throw new IllegalArgumentException("Unexpected modification type " + mod.getType());
          }
       }
+      // the coalesced changes reach the decorated store as one group
+      super.applyModifications(list);
    }
    
    protected boolean applyClear() {
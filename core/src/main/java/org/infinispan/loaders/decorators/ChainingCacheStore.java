@@ -79,6 +79,10 @@ public class ChainingCacheStore implements CacheStore {
       for (CacheStore s : stores.keySet()) s.removeAll(keys);
    }
 
+   public void applyModifications(List<? extends Modification> modifications) throws CacheLoaderException {
+      for (CacheStore s : stores.keySet()) s.applyModifications(modifications);
+   }
+
    public void purgeExpired() throws CacheLoaderException {
       for (CacheStore s : stores.keySet()) s.purgeExpired();
    }
@@ -116,6 +120,20 @@ public class ChainingCacheStore implements CacheStore {
       return set;
    }
 
+   public Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      // as with load(key), each loader is only asked for the keys the loaders before it did not find
+      Set<InternalCacheEntry> set = new HashSet<InternalCacheEntry>();
+      Set<Object> remaining = new HashSet<Object>(keys);
+      for (CacheLoader l : loaders.keySet()) {
+         if (remaining.isEmpty()) break;
+         for (InternalCacheEntry se : l.loadAll(remaining)) {
+            set.add(se);
+            remaining.remove(se.getKey());
+         }
+      }
+      return set;
+   }
+
    @Override
    public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
       if (numEntries < 0) return loadAll();
@@ -39,6 +39,11 @@ public class ReadOnlyStore extends AbstractDelegatingStore {
       if (log.isTraceEnabled()) log.trace("Ignoring clear invocation");
    }
 
+   @Override
+   public void applyModifications(List<? extends Modification> modifications) {
+      if (log.isTraceEnabled()) log.trace("Ignoring modifications");
+   }
+
    @Override
    public boolean remove(Object key) {
       if (log.isTraceEnabled()) log.trace("Ignoring removal of key");
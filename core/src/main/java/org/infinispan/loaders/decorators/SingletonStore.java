@@ -121,6 +121,11 @@ public class SingletonStore extends AbstractDelegatingStore {
       if (active) super.clear();
    }
 
+   @Override
+   public void applyModifications(List<? extends Modification> modifications) throws CacheLoaderException {
+      if (active) super.applyModifications(modifications);
+   }
+
    @Override
    public boolean remove(Object key) throws CacheLoaderException {
       return active && super.remove(key);
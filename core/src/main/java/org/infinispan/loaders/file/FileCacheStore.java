@@ -2,12 +2,14 @@ package org.infinispan.loaders.file;
 
 import org.infinispan.Cache;
 import org.infinispan.config.ConfigurationException;
+import org.infinispan.io.ByteBuffer;
 import org.infinispan.io.ExposedByteArrayOutputStream;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
 import org.infinispan.loaders.bucket.Bucket;
 import org.infinispan.loaders.bucket.BucketBasedCacheStore;
+import org.infinispan.marshall.MarshallUtil;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.Util;
 import org.infinispan.util.logging.Log;
@@ -227,10 +229,11 @@ public class FileCacheStore extends BucketBasedCacheStore {
 
       if (!b.getEntries().isEmpty()) {
          FileOutputStream fos = null;
+         ExposedByteArrayOutputStream out = getBufferPool().borrow(0);
          try {
-            byte[] bytes = marshaller.objectToByteBuffer(b);
+            ByteBuffer bytes = MarshallUtil.marshallInto(marshaller, b, out);
             fos = new FileOutputStream(f);
-            fos.write(bytes);
+            fos.write(bytes.getBuf(), bytes.getOffset(), bytes.getLength());
             fos.flush();
          } catch (IOException ex) {
             log.error("Exception while saving bucket " + b, ex);
@@ -241,6 +244,7 @@ public class FileCacheStore extends BucketBasedCacheStore {
          }
          finally {
             safeClose(fos);
+            getBufferPool().release(out);
          }
       }
    }
@@ -278,18 +282,22 @@ public class FileCacheStore extends BucketBasedCacheStore {
 
    private Object objectFromInputStreamInReentrantMode(InputStream is) throws IOException, ClassNotFoundException, InterruptedException {
       int len = is.available();
-      ExposedByteArrayOutputStream bytes = new ExposedByteArrayOutputStream(len);
-      byte[] buf = new byte[Math.min(len, 1024)];
-      int bytesRead;
-      while ((bytesRead = is.read(buf, 0, buf.length)) != -1) bytes.write(buf, 0, bytesRead);
-      is = new ByteArrayInputStream(bytes.getRawBuffer(), 0, bytes.size());
-      ObjectInput unmarshaller = marshaller.startObjectInput(is, true);
-      Object o = null;
+      ExposedByteArrayOutputStream bytes = getBufferPool().borrow(len);
       try {
-         o = marshaller.objectFromObjectStream(unmarshaller);
+         byte[] buf = new byte[Math.min(len, 1024)];
+         int bytesRead;
+         while ((bytesRead = is.read(buf, 0, buf.length)) != -1) bytes.write(buf, 0, bytesRead);
+         is = new ByteArrayInputStream(bytes.getRawBuffer(), 0, bytes.size());
+         ObjectInput unmarshaller = marshaller.startObjectInput(is, true);
+         Object o = null;
+         try {
+            o = marshaller.objectFromObjectStream(unmarshaller);
+         } finally {
+            marshaller.finishObjectInput(unmarshaller);
+         }
+         return o;
       } finally {
-         marshaller.finishObjectInput(unmarshaller);
+         getBufferPool().release(bytes);
       }
-      return o;
    }
 }
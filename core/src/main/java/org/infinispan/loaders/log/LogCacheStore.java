@@ -0,0 +1,545 @@
+package org.infinispan.loaders.log;
+
+import org.infinispan.Cache;
+import org.infinispan.config.ConfigurationException;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.io.ByteBuffer;
+import org.infinispan.io.ExposedByteArrayOutputStream;
+import org.infinispan.loaders.AbstractCacheStore;
+import org.infinispan.loaders.CacheLoaderConfig;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.marshall.MarshallUtil;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A filesystem-based {@link org.infinispan.loaders.CacheStore} which appends entries to segment files instead of
+ * rewriting them in place.  Segments are stored in the following format: <tt>/{location}/cache
+ * name/segment_number.log</tt>
+ * <p/>
+ * Each record holds the length of its data, its type, and either a marshalled entry or the marshalled key of a removed
+ * entry.  The location of the latest record of every key is kept in memory, so that loading an entry takes a single
+ * positional read and storing it a single append to the current segment.  Once the current segment reaches the
+ * configured size, entries are appended to a new one.  When the records that have been overwritten, removed or have
+ * expired take more than the configured share of the older segments, the live entries of those segments are copied to
+ * the current one in the background, and the older segments deleted.
+ * <p/>
+ * The index is rebuilt from the segments when the store starts, which truncates any incomplete record left at the end
+ * of a segment.
+ *
+ * @since 5.0
+ */
+@CacheLoaderMetadata(configurationClass = LogCacheStoreConfig.class)
+public class LogCacheStore extends AbstractCacheStore {
+
+   private static final Log log = LogFactory.getLog(LogCacheStore.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final String SEGMENT_SUFFIX = ".log";
+   /** Length of the data of a record, followed by its type */
+   private static final int HEADER_LENGTH = 5;
+   private static final byte ENTRY = 1;
+   private static final byte REMOVAL = 2;
+
+   private LogCacheStoreConfig config;
+   private File root;
+
+   /** Location of the latest record of each key, only modified while holding the append lock */
+   private final ConcurrentMap<Object, Location> index = new ConcurrentHashMap<Object, Location>();
+   private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<Integer, Segment>();
+   /** Held while appending records, so that the index is updated in the same order as records are written */
+   private final Object appendLock = new Object();
+   /** Segments are read while holding the read lock, and only closed while holding the write lock */
+   private final ReadWriteLock segmentsLock = new ReentrantReadWriteLock();
+   private final AtomicBoolean compacting = new AtomicBoolean();
+   private volatile Segment current;
+
+   /**
+    * @return root directory where all segments of this {@link org.infinispan.loaders.CacheStore CacheStore} are
+    *         written.
+    */
+   public File getRoot() {
+      return root;
+   }
+
+   @Override
+   public void init(CacheLoaderConfig config, Cache<?, ?> cache, StreamingMarshaller m) throws CacheLoaderException {
+      super.init(config, cache, m);
+      this.config = (LogCacheStoreConfig) config;
+   }
+
+   @Override
+   public void start() throws CacheLoaderException {
+      super.start();
+      String location = config.getLocation();
+      if (location == null || location.trim().length() == 0)
+         location = "Infinispan-LogCacheStore"; // use relative path!
+      location += File.separator + cache.getName();
+      root = new File(location);
+      if (!root.exists()) {
+         if (!root.mkdirs()) {
+            log.warn("Problems creating the directory: " + root);
+         }
+      }
+      if (!root.exists()) {
+         throw new ConfigurationException("Directory " + root.getAbsolutePath() + " does not exist and cannot be created!");
+      }
+      try {
+         File[] files = root.listFiles();
+         if (files != null) {
+            for (File f : files) {
+               String name = f.getName();
+               if (!name.endsWith(SEGMENT_SUFFIX)) continue;
+               try {
+                  int id = Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                  segments.put(id, new Segment(id, f));
+               } catch (NumberFormatException e) {
+                  log.warn("Ignoring file {0}, which is not a segment", f);
+               }
+            }
+         }
+         for (Segment segment : segments.values()) replay(segment);
+         current = segments.isEmpty() ? openSegment(0) : segments.lastEntry().getValue();
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to read the segments in " + root, e);
+      }
+   }
+
+   @Override
+   public void stop() throws CacheLoaderException {
+      super.stop();
+      segmentsLock.writeLock().lock();
+      try {
+         for (Segment segment : segments.values()) close(segment);
+         segments.clear();
+         index.clear();
+      } finally {
+         segmentsLock.writeLock().unlock();
+      }
+   }
+
+   public Class<? extends CacheLoaderConfig> getConfigurationClass() {
+      return LogCacheStoreConfig.class;
+   }
+
+   public InternalCacheEntry load(Object key) throws CacheLoaderException {
+      Location location = index.get(key);
+      if (location == null || location.isExpired(System.currentTimeMillis())) return null;
+      byte[] data = read(key, location);
+      return data == null ? null : (InternalCacheEntry) unmarshall(data);
+   }
+
+   public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
+      return load(Integer.MAX_VALUE);
+   }
+
+   public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
+      if (numEntries < 0) return loadAll();
+      Set<InternalCacheEntry> entries = new HashSet<InternalCacheEntry>();
+      long now = System.currentTimeMillis();
+      for (Map.Entry<Object, Location> e : index.entrySet()) {
+         if (entries.size() >= numEntries) break;
+         if (e.getValue().isExpired(now)) continue;
+         byte[] data = read(e.getKey(), e.getValue());
+         if (data != null) entries.add((InternalCacheEntry) unmarshall(data));
+      }
+      return entries;
+   }
+
+   public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderException {
+      Set<Object> keys = new HashSet<Object>();
+      long now = System.currentTimeMillis();
+      for (Map.Entry<Object, Location> e : index.entrySet()) {
+         if (!e.getValue().isExpired(now) && (keysToExclude == null || !keysToExclude.contains(e.getKey())))
+            keys.add(e.getKey());
+      }
+      return keys;
+   }
+
+   @Override
+   public boolean containsKey(Object key) throws CacheLoaderException {
+      Location location = index.get(key);
+      return location != null && !location.isExpired(System.currentTimeMillis());
+   }
+
+   public void store(InternalCacheEntry entry) throws CacheLoaderException {
+      ExposedByteArrayOutputStream out = getBufferPool().borrow(0);
+      try {
+         ByteBuffer bytes = MarshallUtil.marshallInto(marshaller, entry, out);
+         synchronized (appendLock) {
+            Location location = append(ENTRY, bytes.getBuf(), bytes.getOffset(), bytes.getLength(), entry.getExpiryTime());
+            discard(index.put(entry.getKey(), location));
+         }
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to store " + entry, e);
+      } catch (InterruptedException ie) {
+         if (trace) log.trace("Interrupted while marshalling an entry");
+         Thread.currentThread().interrupt(); // Restore interrupted status
+      } finally {
+         getBufferPool().release(out);
+      }
+      compactIfNeeded();
+   }
+
+   public boolean remove(Object key) throws CacheLoaderException {
+      boolean removed = remove(key, null);
+      if (removed) compactIfNeeded();
+      return removed;
+   }
+
+   public void clear() throws CacheLoaderException {
+      synchronized (appendLock) {
+         segmentsLock.writeLock().lock();
+         try {
+            int next = current.id + 1;
+            for (Segment segment : segments.values()) delete(segment);
+            segments.clear();
+            index.clear();
+            current = openSegment(next);
+         } catch (IOException e) {
+            throw new CacheLoaderException("Unable to clear " + root, e);
+         } finally {
+            segmentsLock.writeLock().unlock();
+         }
+      }
+   }
+
+   public void toStream(ObjectOutput outputStream) throws CacheLoaderException {
+      try {
+         Set<InternalCacheEntry> entries = loadAll();
+         marshaller.objectToObjectStream(entries.size(), outputStream);
+         for (InternalCacheEntry entry : entries) marshaller.objectToObjectStream(entry, outputStream);
+      } catch (IOException e) {
+         throw new CacheLoaderException("I/O exception while generating stream", e);
+      }
+   }
+
+   public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
+      try {
+         int numEntries = (Integer) marshaller.objectFromObjectStream(inputStream);
+         for (int i = 0; i < numEntries; i++)
+            store((InternalCacheEntry) marshaller.objectFromObjectStream(inputStream));
+      } catch (IOException e) {
+         throw new CacheLoaderException("I/O error", e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheLoaderException("Unexpected exception", e);
+      } catch (InterruptedException ie) {
+         if (trace) log.trace("Interrupted while reading from stream");
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   protected void purgeInternal() throws CacheLoaderException {
+      if (trace) log.trace("purgeInternal()");
+      long now = System.currentTimeMillis();
+      for (Map.Entry<Object, Location> e : index.entrySet()) {
+         if (e.getValue().isExpired(now)) remove(e.getKey(), e.getValue());
+      }
+      compactIfNeeded();
+   }
+
+   /**
+    * Appends the removal of a key, unless the latest record of the key is no longer the expected one.
+    *
+    * @param expected the expected location of the latest record of the key, or null to remove the key regardless
+    */
+   private boolean remove(Object key, Location expected) throws CacheLoaderException {
+      if (!index.containsKey(key)) return false;
+      ExposedByteArrayOutputStream out = getBufferPool().borrow(0);
+      try {
+         ByteBuffer bytes = MarshallUtil.marshallInto(marshaller, key, out);
+         synchronized (appendLock) {
+            Location location = expected == null ? index.remove(key) : index.remove(key, expected) ? expected : null;
+            if (location == null) return false;
+            // Nothing refers to a removal, it is only kept until the older records of the key have been compacted away
+            discard(append(REMOVAL, bytes.getBuf(), bytes.getOffset(), bytes.getLength(), -1));
+            discard(location);
+            return true;
+         }
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to remove " + key, e);
+      } catch (InterruptedException ie) {
+         if (trace) log.trace("Interrupted while marshalling a key");
+         Thread.currentThread().interrupt();
+         return false;
+      } finally {
+         getBufferPool().release(out);
+      }
+   }
+
+   /**
+    * Must be called while holding the append lock.
+    */
+   private Location append(byte type, byte[] buf, int offset, int length, long expiryTime) throws IOException {
+      int recordLength = HEADER_LENGTH + length;
+      Segment segment = current;
+      if (segment.size > 0 && segment.size + recordLength > config.getSegmentSize()) {
+         segment = openSegment(segment.id + 1);
+         current = segment;
+      }
+      java.nio.ByteBuffer header = java.nio.ByteBuffer.allocate(HEADER_LENGTH);
+      header.putInt(length).put(type).flip();
+      java.nio.ByteBuffer[] record = {header, java.nio.ByteBuffer.wrap(buf, offset, length)};
+      long position = segment.size;
+      try {
+         while (record[1].hasRemaining()) segment.channel.write(record);
+         if (config.isSyncWrites()) segment.channel.force(false);
+      } catch (IOException e) {
+         segment.channel.truncate(position);
+         throw e;
+      }
+      segment.size = position + recordLength;
+      return new Location(segment, position, recordLength, expiryTime);
+   }
+
+   private void discard(Location location) {
+      if (location != null) location.segment.stale.addAndGet(location.length);
+   }
+
+   /**
+    * Reads the data of the latest record of a key, starting at the given location.
+    *
+    * @return the data, or null if the key has been removed in the meantime
+    */
+   private byte[] read(Object key, Location location) throws CacheLoaderException {
+      while (location != null) {
+         segmentsLock.readLock().lock();
+         try {
+            if (!location.segment.closed) return readData(location);
+         } catch (IOException e) {
+            throw new CacheLoaderException("Unable to read the entry of " + key + " from " + location.segment.file, e);
+         } finally {
+            segmentsLock.readLock().unlock();
+         }
+         // The segment was compacted after the location was looked up, so the entry has been copied elsewhere
+         location = index.get(key);
+      }
+      return null;
+   }
+
+   private byte[] readData(Location location) throws IOException {
+      byte[] data = new byte[location.length - HEADER_LENGTH];
+      java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(data);
+      long position = location.offset + HEADER_LENGTH;
+      while (buffer.hasRemaining()) {
+         if (location.segment.channel.read(buffer, position + buffer.position()) < 0)
+            throw new EOFException("Record at " + location.offset + " ends after the end of the segment");
+      }
+      return data;
+   }
+
+   private Object unmarshall(byte[] data) throws CacheLoaderException {
+      try {
+         return marshaller.objectFromByteBuffer(data);
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to unmarshall a record", e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheLoaderException("Unable to unmarshall a record", e);
+      }
+   }
+
+   /**
+    * Reads all the records of a segment into the index, truncating an incomplete record at the end of the segment.
+    */
+   private void replay(Segment segment) throws IOException, CacheLoaderException {
+      long fileLength = segment.file.length();
+      long offset = 0;
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file)));
+      try {
+         while (offset + HEADER_LENGTH <= fileLength) {
+            int length = in.readInt();
+            byte type = in.readByte();
+            if (length < 0 || offset + HEADER_LENGTH + length > fileLength) break;
+            byte[] data = new byte[length];
+            in.readFully(data);
+            int recordLength = HEADER_LENGTH + length;
+            Object o = unmarshall(data);
+            if (type == ENTRY) {
+               InternalCacheEntry entry = (InternalCacheEntry) o;
+               discard(index.put(entry.getKey(), new Location(segment, offset, recordLength, entry.getExpiryTime())));
+            } else {
+               discard(index.remove(o));
+               segment.stale.addAndGet(recordLength);
+            }
+            offset += recordLength;
+         }
+      } finally {
+         in.close();
+      }
+      if (offset < fileLength) {
+         log.warn("Truncating incomplete record at the end of {0}", segment.file);
+         segment.channel.truncate(offset);
+      }
+      segment.size = offset;
+      segment.channel.position(offset);
+   }
+
+   private void compactIfNeeded() {
+      if (!isCompactionDue() || !compacting.compareAndSet(false, true)) return;
+      try {
+         purgerService.execute(new Runnable() {
+            public void run() {
+               try {
+                  compact();
+               } catch (CacheLoaderException e) {
+                  log.error("Problems encountered while compacting segments", e);
+               } finally {
+                  compacting.set(false);
+               }
+            }
+         });
+      } catch (RejectedExecutionException e) {
+         compacting.set(false);
+      }
+   }
+
+   private boolean isCompactionDue() {
+      long size = 0, stale = 0;
+      for (Segment segment : segments.headMap(current.id).values()) {
+         size += segment.size;
+         stale += segment.stale.get();
+      }
+      return size > 0 && stale >= size * config.getCompactionThreshold();
+   }
+
+   /**
+    * Copies the live entries of all the segments older than the current one to the current segment, and deletes the
+    * older segments.  Removals are dropped, since every record they might hide is deleted along with them.
+    */
+   private void compact() throws CacheLoaderException {
+      List<Segment> compacted = new ArrayList<Segment>(segments.headMap(current.id).values());
+      if (compacted.isEmpty()) return;
+      if (trace) log.trace("Compacting {0} segments", compacted.size());
+      Set<Segment> compactedSet = new HashSet<Segment>(compacted);
+      long now = System.currentTimeMillis();
+      try {
+         for (Map.Entry<Object, Location> e : index.entrySet()) {
+            Location location = e.getValue();
+            if (!compactedSet.contains(location.segment)) continue;
+            if (location.isExpired(now)) {
+               synchronized (appendLock) {
+                  index.remove(e.getKey(), location);
+               }
+               continue;
+            }
+            byte[] data;
+            segmentsLock.readLock().lock();
+            try {
+               if (location.segment.closed) return; // Cleared or stopped
+               data = readData(location);
+            } finally {
+               segmentsLock.readLock().unlock();
+            }
+            synchronized (appendLock) {
+               if (index.get(e.getKey()) == location)
+                  index.put(e.getKey(), append(ENTRY, data, 0, data.length, location.expiryTime));
+            }
+         }
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to compact segments in " + root, e);
+      }
+      segmentsLock.writeLock().lock();
+      try {
+         // Oldest first, so that a removal is never deleted before the records it hides
+         for (Segment segment : compacted) {
+            if (!segment.closed) {
+               delete(segment);
+               segments.remove(segment.id);
+            }
+         }
+      } finally {
+         segmentsLock.writeLock().unlock();
+      }
+   }
+
+   private Segment openSegment(int id) throws IOException {
+      Segment segment = new Segment(id, new File(root, id + SEGMENT_SUFFIX));
+      segments.put(id, segment);
+      return segment;
+   }
+
+   /**
+    * Must be called while holding the write lock of the segments.
+    */
+   private void close(Segment segment) {
+      segment.closed = true;
+      try {
+         segment.raf.close();
+      } catch (IOException e) {
+         log.warn("Problems closing file {0}", segment.file);
+      }
+   }
+
+   /**
+    * Must be called while holding the write lock of the segments.
+    */
+   private void delete(Segment segment) {
+      close(segment);
+      if (trace) log.trace("Really delete file {0}", segment.file);
+      if (!segment.file.delete()) log.warn("Had problems removing file {0}", segment.file);
+   }
+
+   private static final class Segment {
+      final int id;
+      final File file;
+      final RandomAccessFile raf;
+      final FileChannel channel;
+      /** Bytes written to the segment, only modified while holding the append lock */
+      volatile long size;
+      /** Bytes taken by records that are no longer the latest of their key */
+      final AtomicLong stale = new AtomicLong();
+      /** Guarded by the lock of the segments */
+      boolean closed;
+
+      Segment(int id, File file) throws IOException {
+         this.id = id;
+         this.file = file;
+         raf = new RandomAccessFile(file, "rw");
+         channel = raf.getChannel();
+      }
+   }
+
+   private static final class Location {
+      final Segment segment;
+      final long offset;
+      final int length;
+      final long expiryTime;
+
+      Location(Segment segment, long offset, int length, long expiryTime) {
+         this.segment = segment;
+         this.offset = offset;
+         this.length = length;
+         this.expiryTime = expiryTime;
+      }
+
+      boolean isExpired(long now) {
+         return expiryTime > -1 && now > expiryTime;
+      }
+   }
+}
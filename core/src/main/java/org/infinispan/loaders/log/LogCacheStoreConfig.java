@@ -0,0 +1,70 @@
+package org.infinispan.loaders.log;
+
+import org.infinispan.loaders.AbstractCacheStoreConfig;
+
+/**
+ * Configures {@link LogCacheStore}.
+ * <p/>
+ * <ul>
+ *    <li><tt>location</tt> - a location on disk where the store writes its segment files.  This defaults to
+ * <tt>Infinispan-LogCacheStore</tt> in the current working directory.</li>
+ *    <li><tt>segmentSize</tt> - the size, in bytes, a segment file grows to before entries are appended to a new one.
+ * By default, this is set to <tt>16777216</tt> (16 MB).</li>
+ *    <li><tt>compactionThreshold</tt> - the ratio of the space taken by overwritten, removed or expired entries in the
+ * segments no longer appended to, above which the live entries of those segments are copied to the current segment
+ * and the old segments deleted.  By default, this is set to <tt>0.5</tt>.</li>
+ *    <li><tt>syncWrites</tt> - whether every write is forced to disk before returning.  By default, this is set to
+ * <tt>false</tt>.</li>
+ * </ul>
+ *
+ * @since 5.0
+ */
+public class LogCacheStoreConfig extends AbstractCacheStoreConfig {
+
+   private static final long serialVersionUID = -1283592785232312473L;
+
+   private String location = "Infinispan-LogCacheStore";
+   private int segmentSize = 16 * 1024 * 1024;
+   private float compactionThreshold = 0.5f;
+   private boolean syncWrites = false;
+
+   public LogCacheStoreConfig() {
+      setCacheLoaderClassName(LogCacheStore.class.getName());
+   }
+
+   public String getLocation() {
+      return location;
+   }
+
+   public void setLocation(String location) {
+      testImmutability("location");
+      this.location = location;
+   }
+
+   public int getSegmentSize() {
+      return segmentSize;
+   }
+
+   public void setSegmentSize(int segmentSize) {
+      testImmutability("segmentSize");
+      this.segmentSize = segmentSize;
+   }
+
+   public float getCompactionThreshold() {
+      return compactionThreshold;
+   }
+
+   public void setCompactionThreshold(float compactionThreshold) {
+      testImmutability("compactionThreshold");
+      this.compactionThreshold = compactionThreshold;
+   }
+
+   public boolean isSyncWrites() {
+      return syncWrites;
+   }
+
+   public void setSyncWrites(boolean syncWrites) {
+      testImmutability("syncWrites");
+      this.syncWrites = syncWrites;
+   }
+}
@@ -0,0 +1,4 @@
+/**
+ * Filesystem-based {@link CacheStore} implementation that appends entries to log files.
+ */
+package org.infinispan.loaders.log;
@@ -39,6 +39,8 @@ public abstract class AbstractMarshaller implements Marshaller {
    @Override
    public byte[] objectToByteBuffer(Object obj, int estimatedSize) throws IOException, InterruptedException {
       ByteBuffer b = objectToBuffer(obj, estimatedSize);
+      // no need to copy a buffer that has been sized exactly, it is not shared with anyone else
+      if (b.getOffset() == 0 && b.getLength() == b.getBuf().length) return b.getBuf();
       byte[] bytes = new byte[b.getLength()];
       System.arraycopy(b.getBuf(), b.getOffset(), bytes, 0, b.getLength());
       return bytes;
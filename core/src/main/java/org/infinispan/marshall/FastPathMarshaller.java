@@ -0,0 +1,509 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.marshall;
+
+import org.infinispan.atomic.DeltaAware;
+import org.infinispan.commands.RemoteCommandsFactory;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.SingleRpcCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.RemoveCommand;
+import org.infinispan.io.ByteBuffer;
+import org.infinispan.marshall.exts.ReplicableCommandExternalizer;
+import org.infinispan.marshall.jboss.ConstantObjectTable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.UTFDataFormatException;
+
+/**
+ * Marshals the most common commands sent across the cluster without going through JBoss Marshalling, as long as
+ * their parameters are <tt>byte[]</tt>, <tt>String</tt>, boxed primitives, or types with an {@link Externalizer}
+ * registered in the {@link ConstantObjectTable} whose state is made of the same.  There is no class or object
+ * reference information in the stream, just a tag byte per object followed by its state.
+ * <p />
+ * Objects are written to a buffer owned by the calling thread and reused across calls, so that the only allocation
+ * is the exact-size array handed back to the caller.  If any object that cannot be written this way is found, {@link
+ * #objectToBuffer(Object)} returns null and the caller falls back to JBoss Marshalling.
+ * <p />
+ * The encoded buffer starts with {@link #MAGIC}, a value JBoss Marshalling never writes as first byte, so that the
+ * reader can tell both encodings apart.
+ *
+ * @since 5.0
+ */
+class FastPathMarshaller {
+
+   /**
+    * River writes its protocol version first, which is a small positive number.
+    */
+   static final byte MAGIC = (byte) 0xFE;
+
+   private static final int INITIAL_BUFFER_SIZE = 512;
+   private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+   private static final int NULL = 0;
+   private static final int BYTE_ARRAY = 1;
+   private static final int STRING = 2;
+   private static final int BOOLEAN = 3;
+   private static final int BYTE = 4;
+   private static final int SHORT = 5;
+   private static final int INTEGER = 6;
+   private static final int LONG = 7;
+   private static final int CHARACTER = 8;
+   private static final int FLOAT = 9;
+   private static final int DOUBLE = 10;
+   private static final int COMMAND = 11;
+   private static final int EXTERNALIZED = 12;
+
+   private static final UnsupportedTypeException UNSUPPORTED_TYPE = new UnsupportedTypeException();
+
+   private final ConstantObjectTable objectTable;
+   private final RemoteCommandsFactory cmdFactory;
+
+   private final ThreadLocal<Output> outputs = new ThreadLocal<Output>() {
+      @Override
+      protected Output initialValue() {
+         return new Output();
+      }
+   };
+
+   FastPathMarshaller(ConstantObjectTable objectTable, RemoteCommandsFactory cmdFactory) {
+      this.objectTable = objectTable;
+      this.cmdFactory = cmdFactory;
+   }
+
+   /**
+    * @return true if the object is a command this marshaller may be able to write
+    */
+   static boolean isCandidate(Object o) {
+      return o != null && isFastPathCommand(o.getClass());
+   }
+
+   private static boolean isFastPathCommand(Class<?> clazz) {
+      return clazz == PutKeyValueCommand.class || clazz == RemoveCommand.class
+            || clazz == ClusteredGetCommand.class || clazz == SingleRpcCommand.class;
+   }
+
+   /**
+    * @return the encoded object, or null if it contains an object that cannot be written by this marshaller
+    */
+   ByteBuffer objectToBuffer(Object o) throws IOException {
+      Output out = outputs.get();
+      if (out.inUse) {
+         // an externalizer is marshalling something else through the marshaller, don't touch the pooled buffer
+         out = new Output();
+      }
+      out.inUse = true;
+      try {
+         out.writeByte(MAGIC);
+         out.writeObject(o);
+         byte[] bytes = new byte[out.position];
+         System.arraycopy(out.buf, 0, bytes, 0, out.position);
+         return new ByteBuffer(bytes, 0, bytes.length);
+      } catch (UnsupportedTypeException e) {
+         return null;
+      } finally {
+         out.reset();
+         out.inUse = false;
+      }
+   }
+
+   Object objectFromByteBuffer(byte[] bytes, int offset, int length) throws IOException, ClassNotFoundException {
+      Input in = new Input(bytes, offset, length);
+      if (in.readByte() != MAGIC) throw new IOException("Buffer was not written by the fast path marshaller");
+      return in.readObject();
+   }
+
+   private static class UnsupportedTypeException extends IOException {
+      private static final long serialVersionUID = -1873424389271040187L;
+
+      @Override
+      public synchronized Throwable fillInStackTrace() {
+         // thrown to unwind a write that has to fall back to JBoss Marshalling, the stack trace is never used
+         return this;
+      }
+   }
+
+   private class Output implements ObjectOutput {
+      byte[] buf = new byte[INITIAL_BUFFER_SIZE];
+      int position;
+      boolean inUse;
+
+      void reset() {
+         position = 0;
+         if (buf.length > MAX_POOLED_BUFFER_SIZE) buf = new byte[INITIAL_BUFFER_SIZE];
+      }
+
+      private void ensureCapacity(int extra) {
+         int required = position + extra;
+         if (required > buf.length) {
+            byte[] newBuf = new byte[Math.max(buf.length << 1, required)];
+            System.arraycopy(buf, 0, newBuf, 0, position);
+            buf = newBuf;
+         }
+      }
+
+      public void writeObject(Object o) throws IOException {
+         if (o == null) {
+            write(NULL);
+            return;
+         }
+         Class<?> clazz = o.getClass();
+         if (clazz == byte[].class) {
+            byte[] bytes = (byte[]) o;
+            write(BYTE_ARRAY);
+            writeInt(bytes.length);
+            write(bytes);
+         } else if (clazz == String.class) {
+            write(STRING);
+            writeString((String) o);
+         } else if (clazz == Boolean.class) {
+            write(BOOLEAN);
+            writeBoolean((Boolean) o);
+         } else if (clazz == Byte.class) {
+            write(BYTE);
+            writeByte((Byte) o);
+         } else if (clazz == Short.class) {
+            write(SHORT);
+            writeShort((Short) o);
+         } else if (clazz == Integer.class) {
+            write(INTEGER);
+            writeInt((Integer) o);
+         } else if (clazz == Long.class) {
+            write(LONG);
+            writeLong((Long) o);
+         } else if (clazz == Character.class) {
+            write(CHARACTER);
+            writeChar((Character) o);
+         } else if (clazz == Float.class) {
+            write(FLOAT);
+            writeFloat((Float) o);
+         } else if (clazz == Double.class) {
+            write(DOUBLE);
+            writeDouble((Double) o);
+         } else if (isFastPathCommand(clazz)) {
+            writeCommand((ReplicableCommand) o);
+         } else {
+            Externalizer externalizer = objectTable.getExternalizer(clazz);
+            if (externalizer == null || externalizer instanceof ReplicableCommandExternalizer) throw UNSUPPORTED_TYPE;
+            write(EXTERNALIZED);
+            write(objectTable.getExternalizerId(clazz));
+            externalizer.writeObject(this, o);
+         }
+      }
+
+      private void writeCommand(ReplicableCommand command) throws IOException {
+         write(COMMAND);
+         write(command.getCommandId());
+         Object[] args = command.getParameters();
+         int numArgs = args == null ? 0 : args.length;
+         // Taking the delta resets it, so a fallback after it was taken would send an empty delta. Commands carrying
+         // one are always left to the default marshaller.
+         for (int i = 0; i < numArgs; i++) {
+            if (args[i] instanceof DeltaAware) throw UNSUPPORTED_TYPE;
+         }
+         write(numArgs);
+         for (int i = 0; i < numArgs; i++) writeObject(args[i]);
+      }
+
+      /**
+       * Writes the number of chars followed by the modified UTF-8 encoding of each of them, which is a single byte
+       * for ASCII characters.
+       */
+      private void writeString(String s) {
+         int length = s.length();
+         writeInt(length);
+         ensureCapacity(length);
+         for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+               buf[position++] = (byte) c;
+            } else {
+               ensureCapacity(length - i + 2);
+               if (c > 0x07FF) {
+                  buf[position++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                  buf[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                  buf[position++] = (byte) (0x80 | (c & 0x3F));
+               } else {
+                  buf[position++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                  buf[position++] = (byte) (0x80 | (c & 0x3F));
+               }
+            }
+         }
+      }
+
+      public void write(int b) {
+         ensureCapacity(1);
+         buf[position++] = (byte) b;
+      }
+
+      public void write(byte[] b) {
+         write(b, 0, b.length);
+      }
+
+      public void write(byte[] b, int off, int len) {
+         ensureCapacity(len);
+         System.arraycopy(b, off, buf, position, len);
+         position += len;
+      }
+
+      public void writeBoolean(boolean v) {
+         write(v ? 1 : 0);
+      }
+
+      public void writeByte(int v) {
+         write(v);
+      }
+
+      public void writeShort(int v) {
+         ensureCapacity(2);
+         buf[position++] = (byte) (v >> 8);
+         buf[position++] = (byte) v;
+      }
+
+      public void writeChar(int v) {
+         writeShort(v);
+      }
+
+      public void writeInt(int v) {
+         ensureCapacity(4);
+         buf[position++] = (byte) (v >> 24);
+         buf[position++] = (byte) (v >> 16);
+         buf[position++] = (byte) (v >> 8);
+         buf[position++] = (byte) v;
+      }
+
+      public void writeLong(long v) {
+         writeInt((int) (v >> 32));
+         writeInt((int) v);
+      }
+
+      public void writeFloat(float v) {
+         writeInt(Float.floatToIntBits(v));
+      }
+
+      public void writeDouble(double v) {
+         writeLong(Double.doubleToLongBits(v));
+      }
+
+      public void writeBytes(String s) {
+         int length = s.length();
+         ensureCapacity(length);
+         for (int i = 0; i < length; i++) buf[position++] = (byte) s.charAt(i);
+      }
+
+      public void writeChars(String s) {
+         int length = s.length();
+         for (int i = 0; i < length; i++) writeChar(s.charAt(i));
+      }
+
+      public void writeUTF(String s) {
+         writeString(s);
+      }
+
+      public void flush() {
+      }
+
+      public void close() {
+      }
+   }
+
+   private class Input implements ObjectInput {
+      private final byte[] buf;
+      private final int limit;
+      private int position;
+
+      Input(byte[] buf, int offset, int length) {
+         this.buf = buf;
+         this.position = offset;
+         this.limit = offset + length;
+      }
+
+      private void require(int bytes) throws EOFException {
+         if (position + bytes > limit) throw new EOFException();
+      }
+
+      public Object readObject() throws ClassNotFoundException, IOException {
+         int tag = readUnsignedByte();
+         switch (tag) {
+            case NULL:
+               return null;
+            case BYTE_ARRAY:
+               byte[] bytes = new byte[readInt()];
+               readFully(bytes);
+               return bytes;
+            case STRING:
+               return readString();
+            case BOOLEAN:
+               return readBoolean();
+            case BYTE:
+               return readByte();
+            case SHORT:
+               return readShort();
+            case INTEGER:
+               return readInt();
+            case LONG:
+               return readLong();
+            case CHARACTER:
+               return readChar();
+            case FLOAT:
+               return readFloat();
+            case DOUBLE:
+               return readDouble();
+            case COMMAND:
+               byte commandId = readByte();
+               int numArgs = readUnsignedByte();
+               Object[] args = null;
+               if (numArgs > 0) {
+                  args = new Object[numArgs];
+                  for (int i = 0; i < numArgs; i++) args[i] = readObject();
+               }
+               return cmdFactory.fromStream(commandId, args);
+            case EXTERNALIZED:
+               int id = readUnsignedByte();
+               Externalizer externalizer = objectTable.getExternalizer(id);
+               if (externalizer == null) throw new IOException("No externalizer registered with id " + id);
+               return externalizer.readObject(this);
+            default:
+               throw new IOException("Unknown fast path type " + tag);
+         }
+      }
+
+      private String readString() throws IOException {
+         int length = readInt();
+         char[] chars = new char[length];
+         for (int i = 0; i < length; i++) {
+            int c = readUnsignedByte();
+            if (c < 0x80) {
+               chars[i] = (char) c;
+            } else if ((c & 0xE0) == 0xC0) {
+               chars[i] = (char) (((c & 0x1F) << 6) | (readUnsignedByte() & 0x3F));
+            } else if ((c & 0xF0) == 0xE0) {
+               int c2 = readUnsignedByte();
+               chars[i] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (readUnsignedByte() & 0x3F));
+            } else {
+               throw new UTFDataFormatException("Malformed input around byte " + position);
+            }
+         }
+         return new String(chars);
+      }
+
+      public int read() {
+         return position < limit ? buf[position++] & 0xFF : -1;
+      }
+
+      public int read(byte[] b) {
+         return read(b, 0, b.length);
+      }
+
+      public int read(byte[] b, int off, int len) {
+         if (position >= limit) return -1;
+         int n = Math.min(len, limit - position);
+         System.arraycopy(buf, position, b, off, n);
+         position += n;
+         return n;
+      }
+
+      public long skip(long n) {
+         int skipped = (int) Math.min(n, limit - position);
+         position += skipped;
+         return skipped;
+      }
+
+      public int available() {
+         return limit - position;
+      }
+
+      public void close() {
+      }
+
+      public void readFully(byte[] b) throws IOException {
+         readFully(b, 0, b.length);
+      }
+
+      public void readFully(byte[] b, int off, int len) throws IOException {
+         require(len);
+         System.arraycopy(buf, position, b, off, len);
+         position += len;
+      }
+
+      public int skipBytes(int n) {
+         return (int) skip(n);
+      }
+
+      public boolean readBoolean() throws IOException {
+         return readUnsignedByte() != 0;
+      }
+
+      public byte readByte() throws IOException {
+         require(1);
+         return buf[position++];
+      }
+
+      public int readUnsignedByte() throws IOException {
+         return readByte() & 0xFF;
+      }
+
+      public short readShort() throws IOException {
+         require(2);
+         return (short) (((buf[position++] & 0xFF) << 8) | (buf[position++] & 0xFF));
+      }
+
+      public int readUnsignedShort() throws IOException {
+         return readShort() & 0xFFFF;
+      }
+
+      public char readChar() throws IOException {
+         return (char) readShort();
+      }
+
+      public int readInt() throws IOException {
+         require(4);
+         return ((buf[position++] & 0xFF) << 24) | ((buf[position++] & 0xFF) << 16)
+               | ((buf[position++] & 0xFF) << 8) | (buf[position++] & 0xFF);
+      }
+
+      public long readLong() throws IOException {
+         return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+      }
+
+      public float readFloat() throws IOException {
+         return Float.intBitsToFloat(readInt());
+      }
+
+      public double readDouble() throws IOException {
+         return Double.longBitsToDouble(readLong());
+      }
+
+      public String readLine() {
+         throw new UnsupportedOperationException();
+      }
+
+      public String readUTF() throws IOException {
+         return readString();
+      }
+   }
+}
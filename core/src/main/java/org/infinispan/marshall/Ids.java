@@ -119,4 +119,8 @@ public interface Ids {
    static final byte TOPOLOGY_VIEW = 59;
    static final byte NODE_TOPOLOGY_INFO = 60;
    static final byte TOPOLOGY_AWARE_CH = 61;
+
+   static final byte CLUSTERED_GET_ALL_COMMAND = 62;
+   static final byte STATE_SEGMENTS_COMMAND = 63;
+   static final byte MEMCACHED_VALUE_UPDATE = 64;
 }
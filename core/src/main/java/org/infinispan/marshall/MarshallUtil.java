@@ -30,6 +30,8 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
+import org.infinispan.io.ByteBuffer;
+import org.infinispan.io.ExposedByteArrayOutputStream;
 import org.infinispan.io.UnsignedNumeric;
 
 /**
@@ -64,5 +66,25 @@ public class MarshallUtil {
       int size = UnsignedNumeric.readUnsignedInt(in);
       for (int i = 0; i < size; i++) map.put(in.readObject(), in.readObject());
    }
+
+   /**
+    * Marshalls an object into an empty stream, typically borrowed from a {@link org.infinispan.io.BufferPool}, in the
+    * format read by {@link StreamingMarshaller#objectFromByteBuffer(byte[], int, int)}.  The returned buffer is backed
+    * by the raw buffer of the stream, so it must not be used once the stream has been released or written to again.
+    */
+   public static ByteBuffer marshallInto(StreamingMarshaller marshaller, Object o, ExposedByteArrayOutputStream out) throws IOException, InterruptedException {
+      ObjectOutput oo = marshaller.startObjectOutput(out, false);
+      try {
+         marshaller.objectToObjectStream(o, oo);
+      } catch (IOException ioe) {
+         if (ioe.getCause() instanceof InterruptedException)
+            throw (InterruptedException) ioe.getCause();
+         else
+            throw ioe;
+      } finally {
+         marshaller.finishObjectOutput(oo);
+      }
+      return new ByteBuffer(out.getRawBuffer(), 0, out.size());
+   }
    
 }
@@ -25,6 +25,7 @@ import org.infinispan.commands.RemoteCommandsFactory;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
+import org.infinispan.io.BufferPool;
 import org.infinispan.io.ByteBuffer;
 import org.infinispan.io.ExposedByteArrayOutputStream;
 import org.infinispan.marshall.jboss.JBossMarshaller;
@@ -57,8 +58,10 @@ public class VersionAwareMarshaller extends AbstractStreamingMarshaller {
    private static final int CUSTOM_MARSHALLER = 999;
 
    private final JBossMarshaller defaultMarshaller;
+   private volatile FastPathMarshaller fastPathMarshaller;
    private ClassLoader loader;
    private RemoteCommandsFactory remoteCommandsFactory;
+   private BufferPool bufferPool;
 
    public VersionAwareMarshaller() {
       defaultMarshaller = new JBossMarshaller();
@@ -70,10 +73,17 @@ public class VersionAwareMarshaller extends AbstractStreamingMarshaller {
       this.remoteCommandsFactory = remoteCommandsFactory;
    }
 
+   @Inject
+   public void injectBufferPool(BufferPool bufferPool) {
+      this.bufferPool = bufferPool;
+   }
+
    @Start(priority = 9)
    // should start before Transport component
    public void start() {
+      if (bufferPool == null) bufferPool = new BufferPool();
       defaultMarshaller.start(loader, remoteCommandsFactory, this);
+      fastPathMarshaller = new FastPathMarshaller(defaultMarshaller.getObjectTable(), remoteCommandsFactory);
    }
 
    @Stop(priority = 11) // Stop after transport to avoid send/receive and marshaller not being ready
@@ -87,27 +97,58 @@ public class VersionAwareMarshaller extends AbstractStreamingMarshaller {
 
    @Override
    protected ByteBuffer objectToBuffer(Object obj, int estimatedSize) throws IOException, InterruptedException {
-      ExposedByteArrayOutputStream baos = new ExposedByteArrayOutputStream(estimatedSize);
-      ObjectOutput out = startObjectOutput(baos, false);
+      FastPathMarshaller fastPath = fastPathMarshaller;
+      if (fastPath != null && FastPathMarshaller.isCandidate(obj)) {
+         ByteBuffer buffer = fastPath.objectToBuffer(obj);
+         if (buffer != null) return buffer;
+      }
+      // the buffer is handed over to the caller, which may keep it (e.g. JGroups until the message is acknowledged),
+      // so only the stream the object is marshalled into is pooled and an exact size copy of its contents is returned
+      ExposedByteArrayOutputStream baos = bufferPool.borrow(estimatedSize);
       try {
-         defaultMarshaller.objectToObjectStream(obj, out);
-      } catch (java.io.NotSerializableException nse) {
-         if (log.isDebugEnabled()) log.debug("Object is not serializable", nse);
-         throw new org.infinispan.marshall.NotSerializableException(nse.getMessage(), nse.getCause());
-      } catch (IOException ioe) {
-         if (log.isTraceEnabled()) log.trace("Exception while marshalling object", ioe);
-         if (ioe.getCause() instanceof InterruptedException)
-            throw (InterruptedException) ioe.getCause();
-         else
-            throw ioe;
+         ObjectOutput out = startObjectOutput(baos, false);
+         try {
+            defaultMarshaller.objectToObjectStream(obj, out);
+         } catch (java.io.NotSerializableException nse) {
+            if (log.isDebugEnabled()) log.debug("Object is not serializable", nse);
+            throw new org.infinispan.marshall.NotSerializableException(nse.getMessage(), nse.getCause());
+         } catch (IOException ioe) {
+            if (log.isTraceEnabled()) log.trace("Exception while marshalling object", ioe);
+            if (ioe.getCause() instanceof InterruptedException)
+               throw (InterruptedException) ioe.getCause();
+            else
+               throw ioe;
+         } finally {
+            finishObjectOutput(out);
+         }
+         byte[] bytes = new byte[baos.size()];
+         System.arraycopy(baos.getRawBuffer(), 0, bytes, 0, bytes.length);
+         return new ByteBuffer(bytes, 0, bytes.length);
       } finally {
-         finishObjectOutput(out);
+         bufferPool.release(baos);
+      }
+   }
+
+   @Override
+   public Object objectFromInputStream(InputStream inputStream) throws IOException, ClassNotFoundException {
+      ExposedByteArrayOutputStream bytes = bufferPool.borrow(DEFAULT_BUF_SIZE);
+      try {
+         byte[] buf = new byte[Math.min(DEFAULT_BUF_SIZE, 1024)];
+         int bytesRead;
+         while ((bytesRead = inputStream.read(buf, 0, buf.length)) != -1) bytes.write(buf, 0, bytesRead);
+         return objectFromByteBuffer(bytes.getRawBuffer(), 0, bytes.size());
+      } finally {
+         bufferPool.release(bytes);
       }
-      return new ByteBuffer(baos.getRawBuffer(), 0, baos.size());
    }
 
    @Override
    public Object objectFromByteBuffer(byte[] bytes, int offset, int len) throws IOException, ClassNotFoundException {
+      if (len > 0 && bytes[offset] == FastPathMarshaller.MAGIC) {
+         FastPathMarshaller fastPath = fastPathMarshaller;
+         if (fastPath == null) throw new IOException("Marshaller is not started, cannot read fast path buffer");
+         return fastPath.objectFromByteBuffer(bytes, offset, len);
+      }
       ByteArrayInputStream is = new ByteArrayInputStream(bytes, offset, len);
       ObjectInput in = startObjectInput(is, false);
       Object o = null;
@@ -30,8 +30,10 @@ import org.infinispan.atomic.RemoveOperation;
 import org.infinispan.commands.RemoteCommandsFactory;
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.control.RehashControlCommand;
+import org.infinispan.commands.control.StateSegmentsCommand;
 import org.infinispan.commands.control.StateTransferControlCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
@@ -152,6 +154,8 @@ public class ConstantObjectTable implements ObjectTable {
       MARSHALLABLES.add(InvalidateL1Command.class.getName());
       MARSHALLABLES.add(LockControlCommand.class.getName());
       MARSHALLABLES.add(RehashControlCommand.class.getName());
+      MARSHALLABLES.add(ClusteredGetAllCommand.class.getName());
+      MARSHALLABLES.add(StateSegmentsCommand.class.getName());
 
       MARSHALLABLES.add(ImmortalCacheEntry.class.getName());
       MARSHALLABLES.add(MortalCacheEntry.class.getName());
@@ -177,6 +181,7 @@ public class ConstantObjectTable implements ObjectTable {
 
       MARSHALLABLES.add("org.infinispan.server.core.CacheValue");
       MARSHALLABLES.add("org.infinispan.server.memcached.MemcachedValue");
+      MARSHALLABLES.add("org.infinispan.server.memcached.MemcachedValueUpdate");
       MARSHALLABLES.add(ByteArrayKey.class.getName());
       MARSHALLABLES.add("org.infinispan.server.hotrod.TopologyAddress");
       MARSHALLABLES.add("org.infinispan.server.hotrod.TopologyView");
@@ -276,6 +281,30 @@ public class ConstantObjectTable implements ObjectTable {
       return writer;
    }
 
+   /**
+    * @return the id of the externalizer registered for the given type, or -1 if there is none
+    */
+   public int getExternalizerId(Class<?> clazz) {
+      ExternalizerAdapter adapter = writers.get(clazz);
+      return adapter == null ? -1 : adapter.id;
+   }
+
+   /**
+    * @return the externalizer registered for the given type, or null if there is none
+    */
+   public Externalizer getExternalizer(Class<?> clazz) {
+      ExternalizerAdapter adapter = writers.get(clazz);
+      return adapter == null ? null : adapter.externalizer;
+   }
+
+   /**
+    * @return the externalizer registered with the given id, or null if there is none
+    */
+   public Externalizer getExternalizer(int id) {
+      ExternalizerAdapter adapter = readers.get(id);
+      return adapter == null ? null : adapter.externalizer;
+   }
+
    public Object readObject(Unmarshaller input) throws IOException, ClassNotFoundException {
       int readerIndex = input.readUnsignedByte();
       ExternalizerAdapter adapter = readers.get(readerIndex);
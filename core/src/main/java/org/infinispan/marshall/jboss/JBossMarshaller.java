@@ -61,6 +61,10 @@ public class JBossMarshaller extends GenericJBossMarshaller implements Streaming
       if (objectTable != null) objectTable.stop();
    }
 
+   public ConstantObjectTable getObjectTable() {
+      return objectTable;
+   }
+
    @Override
    public Object objectFromInputStream(InputStream inputStream) throws IOException, ClassNotFoundException {
       // TODO: available() call commented until https://issues.apache.org/jira/browse/HTTPCORE-199 httpcore-nio issue is fixed.
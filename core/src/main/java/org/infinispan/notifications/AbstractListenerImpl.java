@@ -7,7 +7,6 @@ import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.util.ReflectionUtil;
-import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
 
 import java.lang.annotation.Annotation;
@@ -21,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Functionality common to both {@link org.infinispan.notifications.cachemanagerlistener.CacheManagerNotifierImpl} and
@@ -33,19 +33,31 @@ public abstract class AbstractListenerImpl {
    protected final Map<Class<? extends Annotation>, List<ListenerInvocation>> listenersMap = new HashMap<Class<? extends Annotation>, List<ListenerInvocation>>(16, 0.99f);
 
 
-   // two separate executor services, one for sync and one for async listeners
-   protected ExecutorService syncProcessor;
+   // synchronous listeners are invoked in the notifying thread, asynchronous ones through this executor
    protected ExecutorService asyncProcessor;
 
+   /**
+    * Maximum number of events waiting to be delivered to an asynchronous listener, notifying threads block when it is
+    * reached
+    */
+   protected static final int ASYNC_QUEUE_CAPACITY = 4096;
+
+   /**
+    * Maximum number of events delivered to an asynchronous listener by a single task of the async executor
+    */
+   protected static final int ASYNC_BATCH_SIZE = 64;
+
 
    @Inject
    void injectExecutor(@ComponentName(KnownComponentNames.ASYNC_NOTIFICATION_EXECUTOR) ExecutorService executor) {
       this.asyncProcessor = executor;
    }
 
+   /**
+    * Nothing needs to be set up anymore, kept so that existing callers and subclasses still have a start hook.
+    */
    @Start (priority = 9)
    public void start() {
-      syncProcessor = new WithinThreadExecutor();
    }
 
    /**
@@ -104,6 +116,8 @@ public abstract class AbstractListenerImpl {
    @SuppressWarnings("unchecked")
    private void validateAndAddListenerInvocation(Object listener) {
       boolean sync = testListenerClassValidity(listener.getClass());
+      // all the methods of an asynchronous listener share a queue, so that it receives events in order
+      AsyncListenerQueue asyncQueue = sync ? null : new AsyncListenerQueue();
       boolean foundMethods = false;
       Map<Class<? extends Annotation>, Class> allowedListeners = getAllowedMethodAnnotations();
       // now try all methods on the listener for anything that we like.  Note that only PUBLIC methods are scanned.
@@ -114,7 +128,7 @@ public abstract class AbstractListenerImpl {
             Class value = annotationEntry.getValue();
             if (m.isAnnotationPresent(key)) {
                testListenerMethodValidity(m, value, key.getName());
-               addListenerInvocation(key, new ListenerInvocation(listener, m, sync));
+               addListenerInvocation(key, new ListenerInvocation(listener, m, asyncQueue));
                foundMethods = true;
             }
          }
@@ -134,7 +148,8 @@ public abstract class AbstractListenerImpl {
     * invoked synchronously or asynchronously.
     *
     * @param listenerClass class to inspect
-    * @return true if callbacks on this class should use the syncProcessor; false if it should use the asyncProcessor.
+    * @return true if callbacks on this class should be invoked in the notifying thread; false if they should be queued
+    *         and delivered through the asyncProcessor.
     */
    protected boolean testListenerClassValidity(Class<?> listenerClass) {
       Listener l = ReflectionUtil.getAnnotation(listenerClass, Listener.class);
@@ -154,41 +169,164 @@ public abstract class AbstractListenerImpl {
 
    /**
     * Class that encapsulates a valid invocation for a given registered listener - containing a reference to the method
-    * to be invoked as well as the target object.
+    * to be invoked as well as the target object.  Synchronous listeners are invoked directly in the caller's thread,
+    * events for asynchronous listeners are queued and delivered in batches.
     */
    protected class ListenerInvocation {
       public final Object target;
       public final Method method;
       public final boolean sync;
+      private final AsyncListenerQueue asyncQueue;
 
       public ListenerInvocation(Object target, Method method, boolean sync) {
+         this(target, method, sync ? null : new AsyncListenerQueue());
+      }
+
+      ListenerInvocation(Object target, Method method, AsyncListenerQueue asyncQueue) {
          this.target = target;
          this.method = method;
-         this.sync = sync;
+         this.sync = asyncQueue == null;
+         this.asyncQueue = asyncQueue;
+         try {
+            // skips the access checks on every invocation
+            method.setAccessible(true);
+         } catch (SecurityException e) {
+            getLog().debug("Unable to suppress access checks for listener method " + method, e);
+         }
       }
 
-      public void invoke(final Object event) {
-         Runnable r = new Runnable() {
+      public void invoke(Object event) {
+         if (sync)
+            invokeDirectly(event);
+         else
+            asyncQueue.add(this, event);
+      }
+
+      void invokeDirectly(Object event) {
+         try {
+            method.invoke(target, event);
+         }
+         catch (InvocationTargetException exception) {
+            Throwable cause = getRealException(exception);
+            throw new CacheException("Caught exception invoking method " + method + " on listener instance " + target, cause);
+         }
+         catch (IllegalAccessException exception) {
+            getLog().warn("Unable to invoke method " + method + " on Object instance " + target + " - removing this target object from list of listeners!", exception);
+            removeListener(target);
+         }
+      }
+   }
+
+   /**
+    * Bounded queue of the events waiting to be delivered to an asynchronous listener.  Rather than submitting a task
+    * per event, a single task is scheduled on the async executor whenever the queue becomes non empty, and it delivers
+    * the queued events in batches of up to {@link #ASYNC_BATCH_SIZE} until the queue is drained.  Events are delivered
+    * in the order they were queued, one at a time.
+    */
+   private class AsyncListenerQueue implements Runnable {
+      private final ListenerInvocation[] invocations = new ListenerInvocation[ASYNC_QUEUE_CAPACITY];
+      private final Object[] events = new Object[ASYNC_QUEUE_CAPACITY];
+      private int head;
+      private int size;
+      private boolean scheduled;
+      private Thread dispatcher;
+
+      // only used by the dispatching thread
+      private final ListenerInvocation[] batchInvocations = new ListenerInvocation[ASYNC_BATCH_SIZE];
+      private final Object[] batchEvents = new Object[ASYNC_BATCH_SIZE];
 
-            public void run() {
+      void add(ListenerInvocation invocation, Object event) {
+         boolean schedule;
+         synchronized (this) {
+            while (size == ASYNC_QUEUE_CAPACITY) {
+               if (dispatcher == Thread.currentThread()) {
+                  // the listener generated this event itself, waiting for room would never end
+                  break;
+               }
                try {
-                  method.invoke(target, event);
+                  wait();
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  throw new CacheException("Interrupted while waiting to notify listener " + invocation.target, e);
+               }
+            }
+            if (size == ASYNC_QUEUE_CAPACITY) {
+               schedule = false;
+            } else {
+               int tail = (head + size) % ASYNC_QUEUE_CAPACITY;
+               invocations[tail] = invocation;
+               events[tail] = event;
+               size++;
+               schedule = !scheduled;
+               scheduled = true;
+               invocation = null;
+            }
+         }
+         if (invocation != null) {
+            deliver(invocation, event);
+         } else if (schedule) {
+            try {
+               asyncProcessor.execute(this);
+            } catch (RejectedExecutionException e) {
+               synchronized (this) {
+                  scheduled = false;
+               }
+               throw e;
+            }
+         }
+      }
+
+      public void run() {
+         boolean drained = false;
+         try {
+            drain();
+            drained = true;
+         } finally {
+            if (!drained) {
+               // events still queued are delivered by the task scheduled with the next event
+               synchronized (this) {
+                  scheduled = false;
+                  dispatcher = null;
                }
-               catch (InvocationTargetException exception) {
-                  Throwable cause = getRealException(exception);
-                  throw new CacheException("Caught exception invoking method " + method + " on listener instance " + target, cause);
+            }
+         }
+      }
+
+      private void drain() {
+         while (true) {
+            int batchSize;
+            synchronized (this) {
+               batchSize = Math.min(size, ASYNC_BATCH_SIZE);
+               if (batchSize == 0) {
+                  scheduled = false;
+                  dispatcher = null;
+                  return;
                }
-               catch (IllegalAccessException exception) {
-                  getLog().warn("Unable to invoke method " + method + " on Object instance " + target + " - removing this target object from list of listeners!", exception);
-                  removeListener(target);
+               dispatcher = Thread.currentThread();
+               for (int i = 0; i < batchSize; i++) {
+                  batchInvocations[i] = invocations[head];
+                  batchEvents[i] = events[head];
+                  invocations[head] = null;
+                  events[head] = null;
+                  head = (head + 1) % ASYNC_QUEUE_CAPACITY;
                }
+               size -= batchSize;
+               notifyAll();
+            }
+            for (int i = 0; i < batchSize; i++) {
+               deliver(batchInvocations[i], batchEvents[i]);
+               batchInvocations[i] = null;
+               batchEvents[i] = null;
             }
-         };
+         }
+      }
 
-         if (sync)
-            syncProcessor.execute(r);
-         else
-            asyncProcessor.execute(r);
+      private void deliver(ListenerInvocation invocation, Object event) {
+         try {
+            invocation.invokeDirectly(event);
+         } catch (RuntimeException e) {
+            getLog().warn("Asynchronous listener " + invocation.target + " failed to process event " + event, e);
+         }
       }
    }
 
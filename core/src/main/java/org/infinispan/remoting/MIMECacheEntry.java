@@ -1,6 +1,7 @@
 package org.infinispan.remoting;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  * Wrapper object for entries that arrive via RESTful PUT/POST interface.
@@ -38,4 +39,27 @@ public class MIMECacheEntry implements Serializable {
         this.data = data;
         lastModified = System.currentTimeMillis() / 1000 * 1000;
     }
+
+    /**
+     * Entries are equal if they hold the same content, regardless of when they were written, so that conditional
+     * operations such as {@link java.util.concurrent.ConcurrentMap#replace(Object, Object, Object)} can be given an
+     * entry previously read from the cache.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        MIMECacheEntry that = (MIMECacheEntry) o;
+
+        if (contentType != null ? !contentType.equals(that.contentType) : that.contentType != null) return false;
+        return Arrays.equals(data, that.data);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = contentType != null ? contentType.hashCode() : 0;
+        result = 31 * result + Arrays.hashCode(data);
+        return result;
+    }
 }
@@ -1,6 +1,8 @@
 package org.infinispan.remoting.responses;
 
+import org.infinispan.commands.control.StateSegmentsCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 
 /**
@@ -11,7 +13,8 @@ import org.infinispan.commands.remote.ClusteredGetCommand;
  */
 public class DefaultResponseGenerator implements ResponseGenerator {
    public Response getResponse(CacheRpcCommand command, Object returnValue) {
-      if (returnValue != null && command instanceof ClusteredGetCommand)
+      if (returnValue != null && (command instanceof ClusteredGetCommand || command instanceof ClusteredGetAllCommand
+            || command instanceof StateSegmentsCommand))
          return new SuccessfulResponse(returnValue);
       else
          return null; // saves on serializing a response!
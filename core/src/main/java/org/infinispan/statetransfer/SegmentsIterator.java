@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.statetransfer;
+
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.util.hash.MurmurHash2;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Walks through the in-memory entries of the segments requested by a node retrieving state, one chunk at a time.  A
+ * key belongs to segment <tt>hash(key) % numSegments</tt>, see {@link #getSegment(Object, int)}.
+ * <p />
+ * Entries written while the segments are being transferred may or may not be included, the transaction log sent
+ * through the state transfer stream makes sure they are applied anyway.
+ *
+ * @since 5.0
+ */
+class SegmentsIterator {
+
+   private final boolean[] requested;
+   private final Iterator<InternalCacheEntry> entries;
+
+   SegmentsIterator(DataContainer dataContainer, int[] segments, int numSegments) {
+      this.requested = new boolean[numSegments];
+      for (int segment : segments) requested[segment] = true;
+      this.entries = dataContainer.iterator();
+   }
+
+   static int getSegment(Object key, int numSegments) {
+      return (MurmurHash2.hash(key) & Integer.MAX_VALUE) % numSegments;
+   }
+
+   /**
+    * @param maxEntries maximum number of entries to return
+    * @return the next entries of the requested segments, or an empty list once all of them have been returned
+    */
+   synchronized List<InternalCacheEntry> nextChunk(int maxEntries) {
+      List<InternalCacheEntry> chunk = new ArrayList<InternalCacheEntry>(Math.min(maxEntries, 1024));
+      while (chunk.size() < maxEntries && entries.hasNext()) {
+         InternalCacheEntry ice = entries.next();
+         if (!ice.isExpired() && requested[getSegment(ice.getKey(), requested.length)]) chunk.add(ice);
+      }
+      return chunk;
+   }
+}
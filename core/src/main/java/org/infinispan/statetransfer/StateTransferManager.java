@@ -21,11 +21,14 @@
  */
 package org.infinispan.statetransfer;
 
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.remoting.transport.Address;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
 
 /**
  * Handles generation and application of state on the cache
@@ -36,4 +39,28 @@ public interface StateTransferManager {
    void generateState(OutputStream out) throws StateTransferException;
 
    void applyState(InputStream in) throws StateTransferException;
+
+   /**
+    * Starts handing over the in-memory entries that belong to the given segments to a node that is retrieving state.
+    *
+    * @param requestor   node retrieving state
+    * @param pullId      id the requestor gave to this pull, unique among its concurrent pulls
+    * @param segments    segments to hand over
+    * @param numSegments total number of segments the key space is split into
+    * @return the first chunk of entries, empty if there is no entry in these segments
+    */
+   List<InternalCacheEntry> startSegmentsTransfer(Address requestor, int pullId, int[] segments, int numSegments) throws StateTransferException;
+
+   /**
+    * @param requestor node retrieving state
+    * @param pullId    id the requestor gave to the pull when starting it
+    * @return the next chunk of entries for the pull, empty once all of them have been returned
+    */
+   List<InternalCacheEntry> nextSegmentsChunk(Address requestor, int pullId) throws StateTransferException;
+
+   /**
+    * Signals that the node retrieving state has applied all the segments, so that the state transfer stream with the
+    * given id can proceed.
+    */
+   void segmentsApplied(int transferId);
 }
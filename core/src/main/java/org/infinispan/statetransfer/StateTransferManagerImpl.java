@@ -22,7 +22,9 @@
 package org.infinispan.statetransfer;
 
 import org.infinispan.AdvancedCache;
+import org.infinispan.CacheException;
 import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.control.StateSegmentsCommand;
 import org.infinispan.commands.control.StateTransferControlCommand;
 import org.infinispan.commands.tx.PrepareCommand;
 import org.infinispan.commands.write.WriteCommand;
@@ -34,15 +36,26 @@ import org.infinispan.context.InvocationContext;
 import org.infinispan.context.InvocationContextContainer;
 import static org.infinispan.context.Flag.CACHE_MODE_LOCAL;
 import org.infinispan.context.impl.RemoteTxInvocationContext;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
 import org.infinispan.interceptors.InterceptorChain;
 import org.infinispan.io.UnclosableObjectInputStream;
 import org.infinispan.io.UnclosableObjectOutputStream;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.loaders.CacheStore;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachemanagerlistener.CacheManagerNotifier;
+import org.infinispan.notifications.cachemanagerlistener.annotation.ViewChanged;
+import org.infinispan.notifications.cachemanagerlistener.event.ViewChangedEvent;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.SuccessfulResponse;
 import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.transport.Address;
@@ -53,18 +66,33 @@ import org.infinispan.transaction.xa.TransactionTable;
 import org.infinispan.util.Util;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
+import org.rhq.helpers.pluginAnnotations.agent.Metric;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.infinispan.commands.control.StateSegmentsCommand.Type.*;
 
+@MBean(objectName = "StateTransferManager", description = "Component that handles state transfer")
 public class StateTransferManagerImpl implements StateTransferManager {
 
    RpcManager rpcManager;
@@ -79,6 +107,8 @@ public class StateTransferManagerImpl implements StateTransferManager {
    InterceptorChain interceptorChain;
    CommandsFactory commandsFactory;
    TransactionTable txTable;
+   ExecutorService asyncTransportExecutor;
+   CacheManagerNotifier cacheManagerNotifier;
    private static final Log log = LogFactory.getLog(StateTransferManagerImpl.class);
    private static final boolean trace = log.isTraceEnabled();
    private static final Byte DELIMITER = (byte) 123;
@@ -89,12 +119,23 @@ public class StateTransferManagerImpl implements StateTransferManager {
    volatile boolean needToUnblockRPC = false;
    volatile Address stateSender;
 
+   // segments being handed over, by requestor and by the id the requestor gave to each of its pulls
+   private final ConcurrentMap<Address, ConcurrentMap<Integer, SegmentsIterator>> segmentsIterators = new ConcurrentHashMap<Address, ConcurrentMap<Integer, SegmentsIterator>>();
+   private final ConcurrentMap<Integer, CountDownLatch> segmentsAppliedLatches = new ConcurrentHashMap<Integer, CountDownLatch>();
+   private final AtomicInteger transferIdGenerator = new AtomicInteger();
+   private final AtomicInteger pullIdGenerator = new AtomicInteger();
+   private final SegmentsRequestorListener segmentsRequestorListener = new SegmentsRequestorListener();
+   private final AtomicInteger segmentsTotal = new AtomicInteger();
+   private final AtomicInteger segmentsCompleted = new AtomicInteger();
+   private final AtomicLong segmentEntriesReceived = new AtomicLong();
+
    @Inject
    @SuppressWarnings("unchecked")
    public void injectDependencies(RpcManager rpcManager, AdvancedCache cache, Configuration configuration,
                                   DataContainer dataContainer, CacheLoaderManager clm, StreamingMarshaller marshaller,
                                   TransactionLog transactionLog, InterceptorChain interceptorChain, InvocationContextContainer invocationContextContainer,
-                                  CommandsFactory commandsFactory, TransactionTable txTable) {
+                                  CommandsFactory commandsFactory, TransactionTable txTable, CacheManagerNotifier cacheManagerNotifier,
+                                  @ComponentName(KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncTransportExecutor) {
       this.rpcManager = rpcManager;
       this.cache = cache;
       this.configuration = configuration;
@@ -106,6 +147,8 @@ public class StateTransferManagerImpl implements StateTransferManager {
       this.interceptorChain = interceptorChain;
       this.commandsFactory = commandsFactory;
       this.txTable = txTable;
+      this.asyncTransportExecutor = asyncTransportExecutor;
+      this.cacheManagerNotifier = cacheManagerNotifier;
    }
 
    @Start(priority = 55)
@@ -118,6 +161,7 @@ public class StateTransferManagerImpl implements StateTransferManager {
       persistentState = cs != null && clm.isEnabled() && clm.isFetchPersistentState() && !clm.isShared();
       maxNonProgressingLogWrites = configuration.getStateRetrievalMaxNonProgressingLogWrites();
       flushTimeout = configuration.getStateRetrievalLogFlushTimeout();
+      if (configuration.getStateRetrievalNumSegments() > 0) cacheManagerNotifier.addListener(segmentsRequestorListener);
 
       if (transientState || persistentState) {
          long startTime = 0;
@@ -135,6 +179,13 @@ public class StateTransferManagerImpl implements StateTransferManager {
       }
    }
 
+   @Stop
+   public void stop() {
+      if (cacheManagerNotifier != null) cacheManagerNotifier.removeListener(segmentsRequestorListener);
+      segmentsIterators.clear();
+      for (CountDownLatch latch : segmentsAppliedLatches.values()) latch.countDown();
+   }
+
    @Start(priority = 1000)
    // needs to be the last thing that happens on this cache
    public void releaseRPCBlock() throws Exception {
@@ -158,7 +209,13 @@ public class StateTransferManagerImpl implements StateTransferManager {
 
          if (canProvideState) {
             delimit(oo);
-            if (transientState || alwaysProvideTransientState) generateInMemoryState(oo); // always provide in-memory state if requested.  ISPN-610.
+            if (transientState || alwaysProvideTransientState) {
+               // always provide in-memory state if requested.  ISPN-610.
+               if (configuration.getStateRetrievalNumSegments() > 0)
+                  generateSegmentedInMemoryState(oo);
+               else
+                  generateInMemoryState(oo);
+            }
             delimit(oo);
             if (persistentState) generatePersistentState(oo);
             delimit(oo);
@@ -338,7 +395,13 @@ public class StateTransferManagerImpl implements StateTransferManager {
    private void applyInMemoryState(ObjectInput i) throws StateTransferException {
       dataContainer.clear();
       try {
-         Set<InternalCacheEntry> set = (Set<InternalCacheEntry>) marshaller.objectFromObjectStream(i);
+         Object state = marshaller.objectFromObjectStream(i);
+         if (state instanceof Integer) {
+            // the provider sends the number of segments and a transfer id instead of the entries
+            applySegmentedInMemoryState((Integer) state, (Integer) marshaller.objectFromObjectStream(i));
+            return;
+         }
+         Set<InternalCacheEntry> set = (Set<InternalCacheEntry>) state;
          for (InternalCacheEntry se : set)
             cache.withFlags(CACHE_MODE_LOCAL).put(se.getKey(), se.getValue(), se.getLifespan(), MILLISECONDS, se.getMaxIdle(), MILLISECONDS);
       } catch (Exception e) {
@@ -362,6 +425,218 @@ public class StateTransferManagerImpl implements StateTransferManager {
       }
    }
 
+   /**
+    * Instead of the entries themselves, writes the number of segments and the id of this transfer, and waits for the
+    * node retrieving state to pull the segments from all the members.  The transaction log is already active, so the
+    * writes happening in the meantime are sent through the stream afterwards.
+    */
+   private void generateSegmentedInMemoryState(ObjectOutput oo) throws StateTransferException {
+      int numSegments = configuration.getStateRetrievalNumSegments();
+      int transferId = transferIdGenerator.incrementAndGet();
+      CountDownLatch latch = new CountDownLatch(1);
+      segmentsAppliedLatches.put(transferId, latch);
+      try {
+         if (log.isDebugEnabled()) log.debug("Providing in-memory state in {0} segments, transfer id is {1}", numSegments, transferId);
+         marshaller.objectToObjectStream(numSegments, oo);
+         marshaller.objectToObjectStream(transferId, oo);
+         oo.flush();
+         if (!latch.await(configuration.getStateRetrievalTimeout(), MILLISECONDS))
+            throw new StateTransferException("Timed out waiting for the in-memory state segments to be applied");
+      } catch (StateTransferException ste) {
+         throw ste;
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         throw new StateTransferException(ie);
+      } catch (Exception e) {
+         throw new StateTransferException(e);
+      } finally {
+         segmentsAppliedLatches.remove(transferId);
+      }
+   }
+
+   public List<InternalCacheEntry> startSegmentsTransfer(Address requestor, int pullId, int[] segments, int numSegments) throws StateTransferException {
+      if (!transientState && !alwaysProvideTransientState)
+         throw new StateTransferException("In-memory state is not provided by " + rpcManager.getAddress());
+      ConcurrentMap<Integer, SegmentsIterator> pulls = segmentsIterators.get(requestor);
+      if (pulls == null) {
+         pulls = new ConcurrentHashMap<Integer, SegmentsIterator>();
+         ConcurrentMap<Integer, SegmentsIterator> existing = segmentsIterators.putIfAbsent(requestor, pulls);
+         if (existing != null) pulls = existing;
+      }
+      SegmentsIterator iterator = new SegmentsIterator(dataContainer, segments, numSegments);
+      pulls.put(pullId, iterator);
+      return nextChunk(requestor, pullId, pulls, iterator);
+   }
+
+   public List<InternalCacheEntry> nextSegmentsChunk(Address requestor, int pullId) throws StateTransferException {
+      ConcurrentMap<Integer, SegmentsIterator> pulls = segmentsIterators.get(requestor);
+      SegmentsIterator iterator = pulls == null ? null : pulls.get(pullId);
+      if (iterator == null) throw new StateTransferException("No segments transfer " + pullId + " in progress for " + requestor);
+      return nextChunk(requestor, pullId, pulls, iterator);
+   }
+
+   private List<InternalCacheEntry> nextChunk(Address requestor, int pullId, ConcurrentMap<Integer, SegmentsIterator> pulls, SegmentsIterator iterator) {
+      List<InternalCacheEntry> chunk = iterator.nextChunk(configuration.getStateRetrievalChunkSize());
+      if (chunk.isEmpty()) pulls.remove(pullId, iterator);
+      if (trace) log.trace("Sending {0} entries of pull {1} to {2}", chunk.size(), pullId, requestor);
+      return chunk;
+   }
+
+   public void segmentsApplied(int transferId) {
+      CountDownLatch latch = segmentsAppliedLatches.get(transferId);
+      if (latch != null) latch.countDown();
+   }
+
+   /**
+    * Spreads the segments over all the members and pulls them in parallel, a chunk at a time.  The segments of a member
+    * that cannot provide them are pulled from the member providing the state transfer stream instead.
+    */
+   private void applySegmentedInMemoryState(int numSegments, int transferId) throws StateTransferException {
+      dataContainer.clear();
+      Address self = rpcManager.getAddress();
+      Address source = rpcManager.getCurrentStateTransferSource();
+      List<Address> providers = new ArrayList<Address>(rpcManager.getTransport().getMembers());
+      providers.remove(self);
+      if (!providers.contains(source)) providers.add(source);
+
+      List<List<Integer>> segmentsPerProvider = new ArrayList<List<Integer>>(providers.size());
+      for (int i = 0; i < providers.size(); i++) segmentsPerProvider.add(new ArrayList<Integer>());
+      for (int segment = 0; segment < numSegments; segment++)
+         segmentsPerProvider.get(segment % providers.size()).add(segment);
+
+      segmentsTotal.set(numSegments);
+      segmentsCompleted.set(0);
+      segmentEntriesReceived.set(0);
+      if (log.isDebugEnabled()) log.debug("Pulling {0} segments from {1}", numSegments, providers);
+      try {
+         List<Callable<Void>> onThisThread = new ArrayList<Callable<Void>>(1);
+         List<Future<Void>> futures = new ArrayList<Future<Void>>(providers.size());
+         for (int i = 0; i < providers.size(); i++) {
+            List<Integer> segments = segmentsPerProvider.get(i);
+            if (segments.isEmpty()) continue;
+            Callable<Void> c = new SegmentsPullTask(providers.get(i), source, segments, numSegments);
+            if (asyncTransportExecutor == null || onThisThread.isEmpty())
+               onThisThread.add(c);
+            else
+               futures.add(asyncTransportExecutor.submit(c));
+         }
+
+         for (Callable<Void> c : onThisThread) c.call();
+         for (Future<Void> f : futures) {
+            try {
+               f.get();
+            } catch (ExecutionException ee) {
+               Throwable cause = ee.getCause();
+               if (cause instanceof Exception) throw (Exception) cause;
+               throw new CacheException(cause);
+            }
+         }
+         if (log.isDebugEnabled()) log.debug("Applied {0} entries from {1} segments", segmentEntriesReceived.get(), numSegments);
+      } catch (Exception e) {
+         dataContainer.clear();
+         throw e instanceof StateTransferException ? (StateTransferException) e : new StateTransferException(e);
+      } finally {
+         StateSegmentsCommand cmd = commandsFactory.buildStateSegmentsCommand(SEGMENTS_APPLIED, self, 0, null, 0, transferId);
+         rpcManager.invokeRemotely(Collections.singletonList(source), cmd, ResponseMode.SYNCHRONOUS, configuration.getStateRetrievalTimeout(), true);
+      }
+   }
+
+   private class SegmentsPullTask implements Callable<Void> {
+      private final Address provider;
+      private final Address fallbackProvider;
+      private final int[] segments;
+      private final int numSegments;
+
+      SegmentsPullTask(Address provider, Address fallbackProvider, List<Integer> segments, int numSegments) {
+         this.provider = provider;
+         this.fallbackProvider = fallbackProvider;
+         this.segments = new int[segments.size()];
+         for (int i = 0; i < this.segments.length; i++) this.segments[i] = segments.get(i);
+         this.numSegments = numSegments;
+      }
+
+      public Void call() throws Exception {
+         if (!pullFrom(provider)) {
+            if (provider.equals(fallbackProvider))
+               throw new StateTransferException("Unable to pull segments " + Arrays.toString(segments) + " from " + provider);
+            log.warn("Unable to pull segments {0} from {1}, pulling them from {2}", Arrays.toString(segments), provider, fallbackProvider);
+            if (!pullFrom(fallbackProvider))
+               throw new StateTransferException("Unable to pull segments " + Arrays.toString(segments) + " from " + fallbackProvider);
+         }
+         segmentsCompleted.addAndGet(segments.length);
+         return null;
+      }
+
+      /**
+       * @return false if the provider did not return its entries, in which case nothing has been applied
+       */
+      private boolean pullFrom(Address address) throws StateTransferException {
+         Address self = rpcManager.getAddress();
+         int pullId = pullIdGenerator.incrementAndGet();
+         StateSegmentsCommand cmd = commandsFactory.buildStateSegmentsCommand(PULL_SEGMENTS, self, pullId, segments, numSegments, 0);
+         int chunks = 0;
+         List<InternalCacheEntry> chunk;
+         while ((chunk = pullChunk(address, cmd)) != null && !chunk.isEmpty()) {
+            for (InternalCacheEntry se : chunk)
+               cache.withFlags(CACHE_MODE_LOCAL).put(se.getKey(), se.getValue(), se.getLifespan(), MILLISECONDS, se.getMaxIdle(), MILLISECONDS);
+            segmentEntriesReceived.addAndGet(chunk.size());
+            chunks++;
+            cmd = commandsFactory.buildStateSegmentsCommand(PULL_NEXT_CHUNK, self, pullId, null, 0, 0);
+         }
+         if (trace) log.trace("Applied {0} chunks of segments {1} from {2}", chunks, Arrays.toString(segments), address);
+         // a provider failing after some chunks leaves the segments half applied, they can't be pulled from elsewhere
+         if (chunk == null && chunks > 0)
+            throw new StateTransferException("Unable to pull the remaining entries of segments " + Arrays.toString(segments) + " from " + address);
+         return chunk != null;
+      }
+
+      @SuppressWarnings("unchecked")
+      private List<InternalCacheEntry> pullChunk(Address address, StateSegmentsCommand cmd) {
+         try {
+            List<Response> resps = rpcManager.invokeRemotely(Collections.singletonList(address), cmd, ResponseMode.SYNCHRONOUS,
+                                                             configuration.getStateRetrievalTimeout(), true);
+            for (Response r : resps) {
+               if (r instanceof SuccessfulResponse) return (List<InternalCacheEntry>) ((SuccessfulResponse) r).getResponseValue();
+            }
+         } catch (Exception e) {
+            if (trace) log.trace("Failed pulling segments from " + address, e);
+         }
+         return null;
+      }
+   }
+
+   /**
+    * Drops the segments being handed over to members that left, they will never pull the remaining chunks.
+    */
+   @Listener
+   public class SegmentsRequestorListener {
+      @ViewChanged
+      public void handleViewChange(ViewChangedEvent e) {
+         for (Address a : e.getOldMembers()) {
+            if (!e.getNewMembers().contains(a) && segmentsIterators.remove(a) != null && log.isDebugEnabled())
+               log.debug("Dropped the in-memory state segments being handed over to {0}, which left", a);
+         }
+      }
+   }
+
+   @ManagedAttribute(description = "Number of segments the in-memory state is being retrieved in, zero if it is not retrieved in segments")
+   @Metric(displayName = "Number of state segments")
+   public int getSegmentsTotal() {
+      return segmentsTotal.get();
+   }
+
+   @ManagedAttribute(description = "Number of in-memory state segments retrieved and applied")
+   @Metric(displayName = "Number of state segments applied")
+   public int getSegmentsCompleted() {
+      return segmentsCompleted.get();
+   }
+
+   @ManagedAttribute(description = "Number of entries received while retrieving in-memory state segments")
+   @Metric(displayName = "Number of state segment entries received")
+   public long getSegmentEntriesReceived() {
+      return segmentEntriesReceived.get();
+   }
+
    private void applyPersistentState(ObjectInput i) throws StateTransferException {
       try {
          // always use the unclosable stream delegate to ensure the impl doesn't close the stream
@@ -38,6 +38,7 @@ import java.io.Serializable;
 import java.util.AbstractCollection;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
@@ -48,11 +49,17 @@ import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantLock;
 
 
@@ -131,6 +138,11 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
     */
    static final int DEFAULT_MAXIMUM_CAPACITY = 512;
 
+   /**
+    * The initial capacity for this table when it is only bounded by the size of its entries.
+    */
+   static final int DEFAULT_INITIAL_CAPACITY = 16;
+
    /**
     * The default load factor for this table, used when not
     * otherwise specified in a constructor.
@@ -236,12 +248,22 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
       volatile V value;
       final HashEntry<K, V> next;
       volatile Recency state;
+      /**
+       * Approximate size of this entry in bytes, only maintained when the map is bounded by size.
+       * Guarded by the segment lock.
+       */
+      int size;
 
       HashEntry(K key, int hash, HashEntry<K, V> next, V value) {
+         this(key, hash, next, value, 0);
+      }
+
+      HashEntry(K key, int hash, HashEntry<K, V> next, V value, int size) {
          this.key = key;
          this.hash = hash;
          this.next = next;
          this.value = value;
+         this.size = size;
          this.state = Recency.HIR_RESIDENT;
       }
 
@@ -302,23 +324,51 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
       LRU {
          @Override
          public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
-            return new LRU<K, V>(s,capacity,lf,capacity*10,lf);
+            return new LRU<K, V>(s,capacity,lf,batchSize(capacity),lf);
          }
       },
       LIRS {
          @Override
          public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
-            return new LIRS<K,V>(s,capacity,capacity*10,lf);
+            return new LIRS<K,V>(s,capacity,batchSize(capacity),lf);
+         }
+      },
+      FIFO {
+         @Override
+         public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
+            return new FIFO<K, V>(s, capacity, lf);
+         }
+      },
+      UNORDERED {
+         @Override
+         public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
+            return new Unordered<K, V>(s, capacity, lf);
          }
       };
 
       abstract <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf);
+
+      static int batchSize(int capacity) {
+         // same as capacity * 10 once capped by the recorder, without overflowing for unbounded segments
+         return Math.min(capacity, EvictionPolicy.MAX_BATCH_SIZE) * 10;
+      }
    }
 
    public interface EvictionListener<K, V> {
       void onEntryEviction(Map<K, V> evicted);
    }
 
+   /**
+   * Calculates the approximate size in bytes of a map entry, used to bound a map by memory rather than by number of
+   * entries.
+   */
+   public interface EntrySizeCalculator<K, V> {
+      /**
+       * @return approximate number of bytes retained by the given key and value, including any overhead
+       */
+      long getEntrySize(K key, V value);
+   }
+
    static class NullEvictionListener<K, V> implements EvictionListener<K, V> {
       @Override
       public void onEntryEviction(Map<K, V> evicted) {
@@ -373,6 +423,17 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
        */
       void onEntryRemove(HashEntry<K, V> e);
 
+      /**
+       * Invoked to notify EvictionPolicy implementation that an entry in Segment has been replaced
+       * by a copy, as happens to the entries preceding a removed one in its bucket.
+       *
+       * @param original
+       *            entry no longer in Segment
+       * @param copy
+       *            entry with the same key and value that took its place
+       */
+      void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy);
+
       /**
        * Invoked to notify EvictionPolicy implementation that all Segment entries have been
        * cleared.
@@ -424,6 +485,11 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
          // Do nothing.
       }
 
+      @Override
+      public void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy) {
+         // Do nothing.
+      }
+
       @Override
       public boolean thresholdExpired() {
          return false;
@@ -435,21 +501,201 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
       }
    }
 
-   static final class LRU<K, V> implements EvictionPolicy<K, V> {
+   /**
+    * Records hits on entries, which happen without holding the segment lock, so that eviction policies can later
+    * replay them in batch while holding it.
+    */
+   interface AccessRecorder<K, V> {
+
+      /**
+       * Records an access to an entry. Invoked without holding the segment lock.
+       *
+       * @return true if enough accesses are pending that they should be drained
+       */
+      boolean record(HashEntry<K, V> e);
+
+      /**
+       * Returns true if pending accesses must be drained even if that means blocking on the segment lock. Invoked
+       * without holding the segment lock.
+       */
+      boolean mustDrain();
+
+      /**
+       * Moves all pending accesses to the given list, in the order they were recorded. Call only while holding
+       * segment lock.
+       */
+      void drainTo(List<HashEntry<K, V>> accessed);
+
+      /**
+       * Forgets any pending access to the given entry. Call only while holding segment lock.
+       */
+      void onEntryRemove(HashEntry<K, V> e);
+
+      void clear();
+   }
+
+   /**
+    * Records accesses in an unbounded queue. Once the queue exceeds its maximum batch size, readers block on the
+    * segment lock until the queue is drained, so no access is ever lost.
+    */
+   static final class QueueAccessRecorder<K, V> implements AccessRecorder<K, V> {
       private final ConcurrentLinkedQueue<HashEntry<K, V>> accessQueue;
-      private final Segment<K,V> segment;
-      private final LinkedList<HashEntry<K, V>> lruQueue;
       private final int maxBatchQueueSize;
-      private final int trimDownSize;
       private final float batchThresholdFactor;
 
+      QueueAccessRecorder(int maxBatchSize, float batchThresholdFactor) {
+         this.maxBatchQueueSize = maxBatchSize > EvictionPolicy.MAX_BATCH_SIZE ? EvictionPolicy.MAX_BATCH_SIZE : maxBatchSize;
+         this.batchThresholdFactor = batchThresholdFactor;
+         this.accessQueue = new ConcurrentLinkedQueue<HashEntry<K, V>>();
+      }
+
+      @Override
+      public boolean record(HashEntry<K, V> e) {
+         accessQueue.add(e);
+         return accessQueue.size() >= maxBatchQueueSize * batchThresholdFactor;
+      }
+
+      @Override
+      public boolean mustDrain() {
+         return accessQueue.size() >= maxBatchQueueSize;
+      }
+
+      @Override
+      public void drainTo(List<HashEntry<K, V>> accessed) {
+         HashEntry<K, V> e;
+         while ((e = accessQueue.poll()) != null) {
+            accessed.add(e);
+         }
+      }
+
+      @Override
+      public void onEntryRemove(HashEntry<K, V> e) {
+         // we could have multiple instances of e in accessQueue; remove them all
+         while (accessQueue.remove(e)) {
+            continue;
+         }
+      }
+
+      @Override
+      public void clear() {
+         accessQueue.clear();
+      }
+   }
+
+   /**
+    * Records accesses in striped, fixed size ring buffers without any locking. Readers pick a stripe based on their
+    * thread id, so that concurrent readers rarely contend on the same buffer. When a buffer is full, or another reader
+    * wins the race for a slot, the access is simply dropped: eviction order becomes slightly less accurate under heavy
+    * load, but readers never block on eviction bookkeeping. Buffers are drained opportunistically by whichever thread
+    * acquires the segment lock.
+    * <p/>
+    * Since entries are not removed from the buffers when they are removed from the segment, draining skips entries
+    * which are no longer mapped in the segment.
+    */
+   static final class StripedAccessBuffer<K, V> implements AccessRecorder<K, V> {
+      static final int BUFFER_SIZE = 32;
+      static final int BUFFER_MASK = BUFFER_SIZE - 1;
+      // drain once a buffer is half full, leaving room for concurrent readers while the lock is acquired
+      static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+      static final int MAX_STRIPES = 16;
+
+      private final Segment<K, V> segment;
+      private final AtomicReferenceArray<HashEntry<K, V>>[] buffers;
+      private final AtomicLong[] writeCounts;
+      // only advanced while holding the segment lock
+      private final AtomicLongArray readCounts;
+      private final int stripeMask;
+
+      @SuppressWarnings("unchecked")
+      StripedAccessBuffer(Segment<K, V> segment) {
+         this.segment = segment;
+         int stripes = 1;
+         int processors = Runtime.getRuntime().availableProcessors();
+         while (stripes < processors && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+         }
+         stripeMask = stripes - 1;
+         buffers = new AtomicReferenceArray[stripes];
+         writeCounts = new AtomicLong[stripes];
+         readCounts = new AtomicLongArray(stripes);
+         for (int i = 0; i < stripes; i++) {
+            buffers[i] = new AtomicReferenceArray<HashEntry<K, V>>(BUFFER_SIZE);
+            writeCounts[i] = new AtomicLong();
+         }
+      }
+
+      private int stripe() {
+         long id = Thread.currentThread().getId();
+         return (int) (id ^ (id >>> 16)) & stripeMask;
+      }
+
+      @Override
+      public boolean record(HashEntry<K, V> e) {
+         int stripe = stripe();
+         AtomicLong writeCount = writeCounts[stripe];
+         long write = writeCount.get();
+         long pending = write - readCounts.get(stripe);
+         if (pending < BUFFER_SIZE && writeCount.compareAndSet(write, write + 1)) {
+            buffers[stripe].lazySet((int) write & BUFFER_MASK, e);
+            pending++;
+         }
+         return pending >= DRAIN_THRESHOLD;
+      }
+
+      @Override
+      public boolean mustDrain() {
+         // accesses are dropped rather than blocking readers
+         return false;
+      }
+
+      @Override
+      public void drainTo(List<HashEntry<K, V>> accessed) {
+         for (int stripe = 0; stripe < buffers.length; stripe++) {
+            AtomicReferenceArray<HashEntry<K, V>> buffer = buffers[stripe];
+            long write = writeCounts[stripe].get();
+            long read = readCounts.get(stripe);
+            for (; read < write; read++) {
+               int index = (int) read & BUFFER_MASK;
+               HashEntry<K, V> e = buffer.get(index);
+               if (e == null) {
+                  // slot claimed by a reader that has not published its entry yet; resume from here next time
+                  break;
+               }
+               buffer.lazySet(index, null);
+               if (segment.isMapped(e)) {
+                  accessed.add(e);
+               }
+            }
+            readCounts.set(stripe, read);
+         }
+      }
+
+      @Override
+      public void onEntryRemove(HashEntry<K, V> e) {
+         // stale entries are skipped when draining
+      }
+
+      @Override
+      public void clear() {
+         drainTo(new ArrayList<HashEntry<K, V>>());
+      }
+   }
+
+   static final class LRU<K, V> implements EvictionPolicy<K, V> {
+      private final AccessRecorder<K, V> accessRecorder;
+      // only used while holding the segment lock
+      private final List<HashEntry<K, V>> accessed;
+      private final Segment<K,V> segment;
+      // keyed so that entries can be moved or swapped in constant time; least recently used first
+      private final LinkedHashMap<K, HashEntry<K, V>> lruQueue;
+      private final int trimDownSize;
+
       public LRU(Segment<K,V> s, int capacity, float lf, int maxBatchSize, float batchThresholdFactor) {
          this.segment = s;
          this.trimDownSize = (int) (capacity * lf);
-         this.maxBatchQueueSize = maxBatchSize > MAX_BATCH_SIZE ? MAX_BATCH_SIZE : maxBatchSize;
-         this.batchThresholdFactor = batchThresholdFactor;
-         this.accessQueue = new ConcurrentLinkedQueue<HashEntry<K, V>>();
-         this.lruQueue = new LinkedList<HashEntry<K, V>>();
+         this.accessRecorder = s.newAccessRecorder(maxBatchSize, batchThresholdFactor);
+         this.accessed = new ArrayList<HashEntry<K, V>>();
+         this.lruQueue = new LinkedHashMap<K, HashEntry<K, V>>();
       }
 
       @Override
@@ -459,29 +705,31 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
             evicted = new HashSet<HashEntry<K, V>>();
          }
          try {
-            for (HashEntry<K, V> e : accessQueue) {
-               if (lruQueue.remove(e)) {
-                  lruQueue.addFirst(e);
+            accessRecorder.drainTo(accessed);
+            for (HashEntry<K, V> e : accessed) {
+               HashEntry<K, V> current = lruQueue.remove(e.key);
+               if (current != null) {
+                  lruQueue.put(current.key, current);
                }
             }
-            while (isOverflow()) {
-               HashEntry<K, V> first = lruQueue.getLast();
+            while (isOverflow() && !lruQueue.isEmpty()) {
+               HashEntry<K, V> first = lruQueue.values().iterator().next();
                segment.remove(first.key, first.hash, null);
                evicted.add(first);
             }
          } finally {
-            accessQueue.clear();
+            accessed.clear();
          }
          return evicted;
       }
 
       private boolean isOverflow() {
-         return lruQueue.size() > trimDownSize;
+         return lruQueue.size() > trimDownSize || segment.isOverweight();
       }
 
       @Override
       public Set<HashEntry<K, V>> onEntryMiss(HashEntry<K, V> e) {
-         lruQueue.addFirst(e);
+         lruQueue.put(e.key, e);
          return Collections.emptySet();
       }
 
@@ -490,8 +738,7 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
        */
       @Override
       public boolean onEntryHit(HashEntry<K, V> e) {
-         accessQueue.add(e);
-         return accessQueue.size() >= maxBatchQueueSize * batchThresholdFactor;
+         return accessRecorder.record(e);
       }
 
       /*
@@ -499,22 +746,25 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
        */
       @Override
       public boolean thresholdExpired() {
-         return accessQueue.size() >= maxBatchQueueSize;
+         return accessRecorder.mustDrain();
       }
 
       @Override
       public void onEntryRemove(HashEntry<K, V> e) {
-         lruQueue.remove(e);
-         // we could have multiple instances of e in accessQueue; remove them all
-         while (accessQueue.remove(e)) {
-            continue;
-         }
+         lruQueue.remove(e.key);
+         accessRecorder.onEntryRemove(e);
+      }
+
+      @Override
+      public void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy) {
+         // the key is already queued, so this keeps its position
+         lruQueue.put(copy.key, copy);
       }
 
       @Override
       public void clear() {
          lruQueue.clear();
-         accessQueue.clear();
+         accessRecorder.clear();
       }
 
       @Override
@@ -523,17 +773,183 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
       }
    }
 
+   /**
+    * Evicts entries in insertion order. Updating or reading an entry does not change its position, so hits cost
+    * nothing and never contend on the segment lock.
+    */
+   static final class FIFO<K, V> implements EvictionPolicy<K, V> {
+      private final Segment<K,V> segment;
+      private final LinkedHashMap<K, HashEntry<K, V>> fifoQueue;
+      private final int trimDownSize;
+
+      public FIFO(Segment<K,V> s, int capacity, float lf) {
+         this.segment = s;
+         this.trimDownSize = (int) (capacity * lf);
+         this.fifoQueue = new LinkedHashMap<K, HashEntry<K, V>>();
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> execute() {
+         Set<HashEntry<K, V>> evicted = Collections.emptySet();
+         if (isOverflow()) {
+            evicted = new HashSet<HashEntry<K, V>>();
+         }
+         while (isOverflow() && !fifoQueue.isEmpty()) {
+            HashEntry<K, V> first = fifoQueue.values().iterator().next();
+            segment.remove(first.key, first.hash, null);
+            evicted.add(first);
+         }
+         return evicted;
+      }
+
+      private boolean isOverflow() {
+         return fifoQueue.size() > trimDownSize || segment.isOverweight();
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> onEntryMiss(HashEntry<K, V> e) {
+         fifoQueue.put(e.key, e);
+         return Collections.emptySet();
+      }
+
+      /*
+       * Invoked without holding a lock on Segment
+       */
+      @Override
+      public boolean onEntryHit(HashEntry<K, V> e) {
+         return false;
+      }
+
+      /*
+       * Invoked without holding a lock on Segment
+       */
+      @Override
+      public boolean thresholdExpired() {
+         return false;
+      }
+
+      @Override
+      public void onEntryRemove(HashEntry<K, V> e) {
+         fifoQueue.remove(e.key);
+      }
+
+      @Override
+      public void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy) {
+         // the key is already queued, so this keeps its insertion position
+         fifoQueue.put(copy.key, copy);
+      }
+
+      @Override
+      public void clear() {
+         fifoQueue.clear();
+      }
+
+      @Override
+      public Eviction strategy() {
+         return Eviction.FIFO;
+      }
+   }
+
+   /**
+    * Evicts entries picked at random from the segment's table. No ordering structure is maintained at all, so neither
+    * hits nor misses do any work beyond the hash table update itself.
+    */
+   static final class Unordered<K, V> implements EvictionPolicy<K, V> {
+      private final Segment<K,V> segment;
+      private final int trimDownSize;
+      // only used while holding the segment lock
+      private final Random random = new Random();
+
+      public Unordered(Segment<K,V> s, int capacity, float lf) {
+         this.segment = s;
+         this.trimDownSize = (int) (capacity * lf);
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> execute() {
+         Set<HashEntry<K, V>> evicted = Collections.emptySet();
+         while (segment.count > trimDownSize || segment.isOverweight()) {
+            HashEntry<K, V> victim = sample();
+            if (victim == null) {
+               break;
+            }
+            if (evicted.isEmpty()) {
+               evicted = new HashSet<HashEntry<K, V>>();
+            }
+            segment.remove(victim.key, victim.hash, null);
+            evicted.add(victim);
+         }
+         return evicted;
+      }
+
+      /**
+       * Returns the first entry found scanning the table from a random bin, or null if the table is empty.
+       */
+      private HashEntry<K, V> sample() {
+         HashEntry<K, V>[] tab = segment.table;
+         int start = random.nextInt(tab.length);
+         for (int i = 0; i < tab.length; i++) {
+            HashEntry<K, V> e = tab[(start + i) & (tab.length - 1)];
+            if (e != null) {
+               return e;
+            }
+         }
+         return null;
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> onEntryMiss(HashEntry<K, V> e) {
+         return Collections.emptySet();
+      }
+
+      /*
+       * Invoked without holding a lock on Segment
+       */
+      @Override
+      public boolean onEntryHit(HashEntry<K, V> e) {
+         return false;
+      }
+
+      /*
+       * Invoked without holding a lock on Segment
+       */
+      @Override
+      public boolean thresholdExpired() {
+         return false;
+      }
+
+      @Override
+      public void onEntryRemove(HashEntry<K, V> e) {
+         // Do nothing.
+      }
+
+      @Override
+      public void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy) {
+         // Do nothing.
+      }
+
+      @Override
+      public void clear() {
+         // Do nothing.
+      }
+
+      @Override
+      public Eviction strategy() {
+         return Eviction.UNORDERED;
+      }
+   }
+
    static final class LIRS<K, V> implements EvictionPolicy<K, V> {
       private final static int MIN_HIR_SIZE = 2;
       private final Segment<K,V> segment;
-      private final ConcurrentLinkedQueue<HashEntry<K, V>> accessQueue;
+      private final AccessRecorder<K, V> accessRecorder;
+      // only used while holding the segment lock
+      private final List<HashEntry<K, V>> accessed;
       private final LinkedHashMap<K, HashEntry<K, V>> stack;
       private final LinkedList<HashEntry<K, V>> queue;
-      private final int maxBatchQueueSize;
       private final int lirSizeLimit;
       private final int hirSizeLimit;
       private int currentLIRSize;
-      private final float batchThresholdFactor;
 
       public LIRS(Segment<K,V> s, int capacity, int maxBatchSize, float batchThresholdFactor) {
          this.segment = s;
@@ -546,9 +962,8 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
             hirSizeLimit = tmpHirSizeLimit;
             lirSizeLimit = tmpLirSize;
          }
-         this.maxBatchQueueSize = maxBatchSize > MAX_BATCH_SIZE ? MAX_BATCH_SIZE : maxBatchSize;
-         this.batchThresholdFactor = batchThresholdFactor;
-         this.accessQueue = new ConcurrentLinkedQueue<HashEntry<K, V>>();
+         this.accessRecorder = s.newAccessRecorder(maxBatchSize, batchThresholdFactor);
+         this.accessed = new ArrayList<HashEntry<K, V>>();
          this.stack = new LinkedHashMap<K, HashEntry<K, V>>();
          this.queue = new LinkedList<HashEntry<K, V>>();
       }
@@ -557,7 +972,8 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
       public Set<HashEntry<K, V>> execute() {
          Set<HashEntry<K, V>> evicted = new HashSet<HashEntry<K, V>>();
          try {
-            for (HashEntry<K, V> e : accessQueue) {
+            accessRecorder.drainTo(accessed);
+            for (HashEntry<K, V> e : accessed) {
                if (present(e)) {
                   if (e.recency() == Recency.LIR_RESIDENT) {
                      handleLIRHit(e, evicted);
@@ -567,8 +983,9 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
                }
             }
             removeFromSegment(evicted);
+            pruneOverweight(evicted);
          } finally {
-            accessQueue.clear();
+            accessed.clear();
          }
          return evicted;
       }
@@ -643,6 +1060,28 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
          return evicted;
       }
 
+      /**
+       * Evicts resident HIR entries, demoting LIR entries when no HIR entries are left, until the segment
+       * is back within its size bound.
+       */
+      private void pruneOverweight(Set<HashEntry<K, V>> evicted) {
+         while (segment.isOverweight()) {
+            if (queue.isEmpty()) {
+               Set<HashEntry<K, V>> pruned = new HashSet<HashEntry<K, V>>();
+               switchBottomostLIRtoHIRAndPrune(pruned);
+               removeFromSegment(pruned);
+               evicted.addAll(pruned);
+               if (queue.isEmpty()) {
+                  break;
+               }
+            }
+            HashEntry<K, V> first = queue.removeFirst();
+            first.transitionHIRResidentToHIRNonResident();
+            evicted.add(first);
+            segment.remove(first.key, first.hash, null);
+         }
+      }
+
       private void removeFromSegment(Set<HashEntry<K, V>> evicted) {
          for (HashEntry<K, V> e : evicted) {
             segment.remove(e.key, e.hash, null);
@@ -674,8 +1113,7 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
        */
       @Override
       public boolean onEntryHit(HashEntry<K, V> e) {
-         accessQueue.add(e);
-         return accessQueue.size() >= maxBatchQueueSize * batchThresholdFactor;
+         return accessRecorder.record(e);
       }
 
       /*
@@ -683,7 +1121,7 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
        */
       @Override
       public boolean thresholdExpired() {
-         return accessQueue.size() >= maxBatchQueueSize;
+         return accessRecorder.mustDrain();
       }
 
       @Override
@@ -693,16 +1131,28 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
             currentLIRSize--;
          }
          queue.remove(e);
-         // we could have multiple instances of e in accessQueue; remove them all
-         while (accessQueue.remove(e)) {
-            continue;
+         accessRecorder.onEntryRemove(e);
+      }
+
+      @Override
+      public void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy) {
+         copy.state = original.state;
+         if (stack.containsKey(copy.key)) {
+            // keeps its position in the stack
+            stack.put(copy.key, copy);
+         }
+         for (ListIterator<HashEntry<K, V>> i = queue.listIterator(); i.hasNext();) {
+            if (i.next() == original) {
+               i.set(copy);
+               break;
+            }
          }
       }
 
       @Override
       public void clear() {
          stack.clear();
-         accessQueue.clear();
+         accessRecorder.clear();
       }
 
       @Override
@@ -795,9 +1245,43 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
 
       transient final EvictionListener<K, V> evictionListener;
 
+      /**
+       * Maximum approximate size in bytes of this segment's entries, or -1 if the segment is only bounded
+       * by number of entries.
+       */
+      final long maxWeight;
+
+      transient final EntrySizeCalculator<K, V> sizeCalculator;
+
+      /**
+       * Approximate size in bytes of this segment's entries, only maintained when maxWeight is set.
+       * Guarded by the segment lock.
+       */
+      transient long weight;
+
+      /**
+       * Whether hits are recorded in lossy, lock free buffers rather than in a queue that readers may block on.
+       */
+      final boolean bufferedReads;
+
+      /**
+       * Whether the number of entries is bounded by the table capacity. Otherwise the table grows as needed and
+       * the segment is only bounded by maxWeight.
+       */
+      final boolean boundedByCount;
+
       Segment(int cap, float lf, Eviction es, EvictionListener<K, V> listener) {
+         this(cap, lf, es, listener, -1, null, false, true);
+      }
+
+      Segment(int cap, float lf, Eviction es, EvictionListener<K, V> listener, long maxWeight,
+               EntrySizeCalculator<K, V> sizeCalculator, boolean bufferedReads, boolean boundedByCount) {
          loadFactor = lf;
-         eviction = es.make(this, cap, lf);
+         this.maxWeight = maxWeight;
+         this.sizeCalculator = sizeCalculator;
+         this.bufferedReads = bufferedReads;
+         this.boundedByCount = boundedByCount;
+         eviction = es.make(this, boundedByCount ? cap : MAXIMUM_CAPACITY, lf);
          evictionListener = listener;
          setTable(HashEntry.<K, V> newArray(cap));
       }
@@ -811,6 +1295,58 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
          return evictionListener;
       }
 
+      AccessRecorder<K, V> newAccessRecorder(int maxBatchSize, float batchThresholdFactor) {
+         if (bufferedReads) {
+            return new StripedAccessBuffer<K, V>(this);
+         }
+         return new QueueAccessRecorder<K, V>(maxBatchSize, batchThresholdFactor);
+      }
+
+      /**
+       * Returns true if this exact entry instance is currently mapped in this segment.
+       * Call only while holding lock.
+       */
+      boolean isMapped(HashEntry<K, V> e) {
+         for (HashEntry<K, V> p = getFirst(e.hash); p != null; p = p.next) {
+            if (p == e) {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      /**
+       * Returns true if this segment is bounded by size and its entries exceed that bound.
+       * Call only while holding lock.
+       */
+      boolean isOverweight() {
+         return maxWeight > -1 && weight > maxWeight;
+      }
+
+      /**
+       * Computes the size of a new mapping, outside of the segment lock.
+       */
+      int sizeOf(K key, V value) {
+         if (maxWeight < 0) {
+            return 0;
+         }
+         long size = sizeCalculator.getEntrySize(key, value);
+         return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+      }
+
+      private Set<HashEntry<K, V>> evictIfOverweight(Set<HashEntry<K, V>> evicted) {
+         if (isOverweight()) {
+            Set<HashEntry<K, V>> newlyEvicted = eviction.execute();
+            if (evicted == null || evicted.isEmpty()) {
+               return newlyEvicted;
+            }
+            if (!newlyEvicted.isEmpty()) {
+               evicted.addAll(newlyEvicted);
+            }
+         }
+         return evicted;
+      }
+
       /**
        * Sets table to new HashEntry array.
        * Call only while holding lock or in constructor.
@@ -909,6 +1445,7 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
       }
 
       boolean replace(K key, int hash, V oldValue, V newValue) {
+         int size = sizeOf(key, newValue);
          lock();
          Set<HashEntry<K, V>> evicted = null;
          try {
@@ -921,9 +1458,12 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
             if (e != null && oldValue.equals(e.value)) {
                replaced = true;
                e.value = newValue;
+               weight += size - e.size;
+               e.size = size;
                if (eviction.onEntryHit(e)) {
                   evicted = attemptEviction(true);
                }
+               evicted = evictIfOverweight(evicted);
             }
             return replaced;
          } finally {
@@ -933,6 +1473,7 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
       }
 
       V replace(K key, int hash, V newValue) {
+         int size = sizeOf(key, newValue);
          lock();
          Set<HashEntry<K, V>> evicted = null;
          try {
@@ -945,9 +1486,12 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
             if (e != null) {
                oldValue = e.value;
                e.value = newValue;
+               weight += size - e.size;
+               e.size = size;
                if (eviction.onEntryHit(e)) {
                   evicted = attemptEviction(true);
                }
+               evicted = evictIfOverweight(evicted);
             }
             return oldValue;
          } finally {
@@ -957,11 +1501,12 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
       }
 
       V put(K key, int hash, V value, boolean onlyIfAbsent) {
+         int size = sizeOf(key, value);
          lock();
          Set<HashEntry<K, V>> evicted = null;
          try {
             int c = count;
-            if (c++ > threshold && eviction.strategy() == Eviction.NONE) {
+            if (c++ > threshold && (eviction.strategy() == Eviction.NONE || !boundedByCount)) {
                rehash();
             }
             HashEntry<K, V>[] tab = table;
@@ -977,21 +1522,25 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
                oldValue = e.value;
                if (!onlyIfAbsent) {
                   e.value = value;
+                  weight += size - e.size;
+                  e.size = size;
                   eviction.onEntryHit(e);
+                  evicted = evictIfOverweight(evicted);
                }
             } else {
                oldValue = null;
                ++modCount;
                count = c; // write-volatile
                if (eviction.strategy() != Eviction.NONE) {
-                  if (c > tab.length) {
+                  if (boundedByCount && c > tab.length) {
                      // remove entries;lower count
                      evicted = eviction.execute();
                      // re-read first
                      first = tab[index];
                   }
                   // add a new entry
-                  tab[index] = new HashEntry<K, V>(key, hash, first, value);
+                  tab[index] = new HashEntry<K, V>(key, hash, first, value, size);
+                  weight += size;
                   // notify a miss
                   Set<HashEntry<K, V>> newlyEvicted = eviction.onEntryMiss(tab[index]);
                   if (!newlyEvicted.isEmpty()) {
@@ -1001,6 +1550,7 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
                         evicted = newlyEvicted;
                      }
                   }
+                  evicted = evictIfOverweight(evicted);
                } else {
                   tab[index] = new HashEntry<K, V>(key, hash, first, value);
                }
@@ -1067,8 +1617,9 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
                   for (HashEntry<K,V> p = e; p != lastRun; p = p.next) {
                      int k = p.hash & sizeMask;
                      HashEntry<K,V> n = newTable[k];
-                     newTable[k] = new HashEntry<K,V>(p.key, p.hash,
-                           n, p.value);
+                     HashEntry<K,V> copy = new HashEntry<K,V>(p.key, p.hash, n, p.value, p.size);
+                     newTable[k] = copy;
+                     eviction.onEntryCopied(p, copy);
                   }
                }
             }
@@ -1103,14 +1654,14 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
 
                   // e was removed
                   eviction.onEntryRemove(e);
+                  weight -= e.size;
 
                   HashEntry<K, V> newFirst = e.next;
                   for (HashEntry<K, V> p = first; p != e; p = p.next) {
-                     // allow p to be GC-ed
-                     eviction.onEntryRemove(p);
-                     newFirst = new HashEntry<K, V>(p.key, p.hash, newFirst, p.value);
-                     // and notify eviction algorithm about new hash entries
-                     eviction.onEntryMiss(newFirst);
+                     HashEntry<K, V> copy = new HashEntry<K, V>(p.key, p.hash, newFirst, p.value, p.size);
+                     // allow p to be GC-ed and notify eviction algorithm about the new hash entry
+                     eviction.onEntryCopied(p, copy);
+                     newFirst = copy;
                   }
 
                   tab[index] = newFirst;
@@ -1133,6 +1684,7 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
                }
                ++modCount;
                eviction.clear();
+               weight = 0;
                count = 0; // write-volatile
             } finally {
                unlock();
@@ -1205,10 +1757,98 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
     */
    public BoundedConcurrentHashMap(int capacity, int concurrencyLevel,
          Eviction evictionStrategy, EvictionListener<K, V> evictionListener) {
-      if (capacity < 0 || concurrencyLevel <= 0) {
+      this(capacity, concurrencyLevel, evictionStrategy, evictionListener, -1, null);
+   }
+
+   /**
+    * Creates a new, empty map with the specified maximum capacity, concurrency level and eviction strategy, which is
+    * additionally bounded by the approximate size in bytes of its entries. Whenever a segment's entries exceed their
+    * share of <code>maxSize</code>, entries are evicted following the eviction strategy.
+    *
+    * @param capacity
+    *            is the upper bound capacity for the number of elements in this map, or -1 to
+    *            only bound the map by <code>maxSize</code>
+    *
+    * @param concurrencyLevel
+    *            the estimated number of concurrently updating threads. The implementation performs
+    *            internal sizing to try to accommodate this many threads.
+    *
+    * @param evictionStrategy
+    *            the algorithm used to evict elements from this map
+    *
+    * @param evictionListener
+    *            the evicton listener callback to be notified about evicted elements
+    *
+    * @param maxSize
+    *            the upper bound for the approximate size in bytes of all entries in this map, or -1 to only bound
+    *            the map by number of elements
+    *
+    * @param sizeCalculator
+    *            calculates the approximate size of every entry; required if <code>maxSize</code> is set
+    *
+    * @throws IllegalArgumentException
+    *             if the initial capacity is negative or the load factor or concurrencyLevel are
+    *             nonpositive, or if the map is bounded by size without a size calculator or eviction strategy.
+    */
+   public BoundedConcurrentHashMap(int capacity, int concurrencyLevel, Eviction evictionStrategy,
+         EvictionListener<K, V> evictionListener, long maxSize, EntrySizeCalculator<K, V> sizeCalculator) {
+      this(capacity, concurrencyLevel, evictionStrategy, evictionListener, maxSize, sizeCalculator, false);
+   }
+
+   /**
+    * Creates a new, empty map with the specified maximum capacity, concurrency level, eviction strategy and size
+    * bound, choosing how LRU and LIRS record hits.
+    * <p>
+    * With <code>bufferedReads</code>, hits are recorded into striped, lock free ring buffers that are only drained
+    * when a thread manages to acquire the segment lock without waiting. Hits are dropped when a buffer is full, so
+    * readers never block on eviction bookkeeping at the cost of slightly less accurate eviction order. Otherwise hits
+    * are queued and readers block on the segment lock once too many hits are pending.
+    *
+    * @param capacity
+    *            is the upper bound capacity for the number of elements in this map, or -1 to
+    *            only bound the map by <code>maxSize</code>
+    *
+    * @param concurrencyLevel
+    *            the estimated number of concurrently updating threads. The implementation performs
+    *            internal sizing to try to accommodate this many threads.
+    *
+    * @param evictionStrategy
+    *            the algorithm used to evict elements from this map
+    *
+    * @param evictionListener
+    *            the evicton listener callback to be notified about evicted elements
+    *
+    * @param maxSize
+    *            the upper bound for the approximate size in bytes of all entries in this map, or -1 to only bound
+    *            the map by number of elements
+    *
+    * @param sizeCalculator
+    *            calculates the approximate size of every entry; required if <code>maxSize</code> is set
+    *
+    * @param bufferedReads
+    *            whether hits are recorded in lossy, lock free buffers
+    *
+    * @throws IllegalArgumentException
+    *             if the initial capacity is negative or the load factor or concurrencyLevel are
+    *             nonpositive, or if the map is bounded by size without a size calculator or eviction strategy.
+    */
+   public BoundedConcurrentHashMap(int capacity, int concurrencyLevel, Eviction evictionStrategy,
+         EvictionListener<K, V> evictionListener, long maxSize, EntrySizeCalculator<K, V> sizeCalculator,
+         boolean bufferedReads) {
+      boolean boundedByCount = capacity > -1;
+      if ((!boundedByCount && maxSize < 0) || concurrencyLevel <= 0) {
          throw new IllegalArgumentException();
       }
 
+      if (maxSize > -1 && (sizeCalculator == null || evictionStrategy == Eviction.NONE)) {
+         throw new IllegalArgumentException("Bounding by size requires a size calculator and an eviction strategy");
+      }
+
+      if (!boundedByCount) {
+         // tables start small and grow, so the size bound alone limits the map
+         capacity = Math.max(DEFAULT_INITIAL_CAPACITY, concurrencyLevel * 2);
+      }
+
       concurrencyLevel = Math.min(capacity / 2, concurrencyLevel); // concurrencyLevel cannot be > capacity/2
       concurrencyLevel = Math.max(concurrencyLevel, 1); // concurrencyLevel cannot be less than 1
 
@@ -1248,8 +1888,17 @@ public class BoundedConcurrentHashMap<K, V> extends AbstractMap<K, V>
          cap <<= 1;
       }
 
+      long segmentMaxSize = -1;
+      if (maxSize > -1) {
+         segmentMaxSize = maxSize / ssize;
+         if (segmentMaxSize * ssize < maxSize) {
+            ++segmentMaxSize;
+         }
+      }
+
       for (int i = 0; i < this.segments.length; ++i) {
-         this.segments[i] = new Segment<K, V>(cap, DEFAULT_LOAD_FACTOR, evictionStrategy, evictionListener);
+         this.segments[i] = new Segment<K, V>(cap, DEFAULT_LOAD_FACTOR, evictionStrategy, evictionListener,
+               segmentMaxSize, sizeCalculator, bufferedReads, boundedByCount);
       }
    }
 
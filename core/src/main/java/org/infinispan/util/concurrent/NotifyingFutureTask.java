@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.util.concurrent;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link NotifyingFuture} for a task that is run by an executor, and whose result is the value computed by the
+ * task.  Listeners are notified once the task completes, fails or is cancelled.
+ * <p/>
+ * Typical usage:
+ * <p/>
+ * <code> NotifyingFutureTask&lt;Object&gt; f = new NotifyingFutureTask&lt;Object&gt;(callable); executor.execute(f);
+ * return f; </code>
+ *
+ * @since 5.0
+ */
+public class NotifyingFutureTask<T> extends FutureTask<T> implements NotifyingFuture<T> {
+
+   private final Set<FutureListener<T>> listeners = new CopyOnWriteArraySet<FutureListener<T>>();
+   private final ReadWriteLock listenerLock = new ReentrantReadWriteLock();
+   private boolean callCompleted = false;
+
+   public NotifyingFutureTask(Callable<T> callable) {
+      super(callable);
+   }
+
+   @Override
+   protected void done() {
+      listenerLock.writeLock().lock();
+      try {
+         callCompleted = true;
+         for (FutureListener<T> l : listeners) l.futureDone(this);
+      } finally {
+         listenerLock.writeLock().unlock();
+      }
+   }
+
+   public NotifyingFuture<T> attachListener(FutureListener<T> listener) {
+      listenerLock.readLock().lock();
+      try {
+         if (callCompleted)
+            listener.futureDone(this);
+         else
+            listeners.add(listener);
+         return this;
+      } finally {
+         listenerLock.readLock().unlock();
+      }
+   }
+}
@@ -0,0 +1,92 @@
+package org.infinispan.api;
+
+import org.infinispan.Cache;
+import org.infinispan.config.Configuration;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalEntryFactory;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.CacheStoreConfig;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStore;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Test(groups = "functional", testName = "api.GetAllTest")
+public class GetAllTest extends SingleCacheManagerTest {
+   Cache<String, String> c;
+
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      Configuration cfg = new Configuration();
+      CacheStoreConfig cacheStoreConfig = new DummyInMemoryCacheStore.Cfg();
+      cacheStoreConfig.setPurgeOnStartup(true);
+      cfg.getCacheLoaderManagerConfig().addCacheLoaderConfig(cacheStoreConfig);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(cfg);
+      c = cm.getCache();
+      return cm;
+   }
+
+   public void testGetAll() {
+      c.put("k1", "v1");
+      c.put("k2", "v2");
+      c.put("k3", "v3");
+
+      Map<String, String> values = c.getAll(keys("k1", "k2", "missing"));
+      assert values.size() == 2 : "Unexpected values " + values;
+      assert "v1".equals(values.get("k1"));
+      assert "v2".equals(values.get("k2"));
+      assert !values.containsKey("missing");
+
+      assert c.getAll(Collections.<String>emptySet()).isEmpty();
+   }
+
+   public void testGetAllLoadsMissingEntries() throws Exception {
+      CacheStore store = TestingUtil.extractComponent(c, CacheLoaderManager.class).getCacheStore();
+      store.store(InternalEntryFactory.create("stored1", "v1"));
+      store.store(InternalEntryFactory.create("stored2", "v2"));
+      c.put("inMemory", "v3");
+
+      Map<String, String> values = c.getAll(keys("stored1", "stored2", "inMemory", "missing"));
+      assert values.size() == 3 : "Unexpected values " + values;
+      assert "v1".equals(values.get("stored1"));
+      assert "v2".equals(values.get("stored2"));
+      assert "v3".equals(values.get("inMemory"));
+
+      DataContainer dataContainer = TestingUtil.extractComponent(c, DataContainer.class);
+      assert dataContainer.containsKey("stored1");
+      assert dataContainer.containsKey("stored2");
+      assert !dataContainer.containsKey("missing");
+   }
+
+   public void testGetAllAsync() throws Exception {
+      c.put("k1", "v1");
+      c.put("k2", "v2");
+
+      NotifyingFuture<Map<String, String>> f = c.getAllAsync(keys("k1", "k2", "missing"));
+      assert f != null;
+      Map<String, String> values = f.get();
+      assert f.isDone();
+      assert values.size() == 2 : "Unexpected values " + values;
+      assert "v1".equals(values.get("k1"));
+      assert "v2".equals(values.get("k2"));
+   }
+
+   @Test(expectedExceptions = NullPointerException.class)
+   public void testNullKeysNotAllowed() {
+      c.getAll(keys("k1", null));
+   }
+
+   private static Set<String> keys(String... keys) {
+      Set<String> set = new HashSet<String>();
+      Collections.addAll(set, keys);
+      return set;
+   }
+}
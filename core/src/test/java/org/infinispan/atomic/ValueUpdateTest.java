@@ -0,0 +1,79 @@
+package org.infinispan.atomic;
+
+import org.infinispan.Cache;
+import org.infinispan.config.Configuration;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+
+/**
+ * Tests that {@link ValueUpdate}s passed to put are applied on every node and return the updated value, including
+ * when the put is invoked on a node that does not own the key.
+ *
+ * @since 5.0
+ */
+@Test(groups = "functional", testName = "atomic.ValueUpdateTest")
+public class ValueUpdateTest extends MultipleCacheManagersTest {
+
+   protected void createCacheManagers() throws Throwable {
+      Configuration c = getDefaultClusteredConfig(Configuration.CacheMode.REPL_SYNC);
+      createClusteredCaches(2, "update", c);
+      Configuration dist = getDefaultClusteredConfig(Configuration.CacheMode.DIST_SYNC);
+      dist.setNumOwners(1);
+      dist.setUnsafeUnreliableReturnValues(true);
+      defineConfigurationOnAllManagers("distUpdate", dist);
+   }
+
+   public void testUpdateExistingEntry() {
+      Cache<String, Object> cache1 = cache(0, "update");
+      Cache<String, Object> cache2 = cache(1, "update");
+
+      cache1.put("counter", 10);
+      assert cache1.put("counter", new Increment(5)).equals(15);
+      assert cache2.put("counter", new Increment(1)).equals(16);
+
+      assert cache1.get("counter").equals(16);
+      assert cache2.get("counter").equals(16);
+   }
+
+   public void testUpdateMissingEntry() {
+      Cache<String, Object> cache1 = cache(0, "update");
+      Cache<String, Object> cache2 = cache(1, "update");
+
+      assert cache1.put("missing", new Increment(1)) == null;
+      assert !cache1.containsKey("missing");
+      assert !cache2.containsKey("missing");
+   }
+
+   public void testUpdateFromNonOwner() {
+      Cache<String, Object> cache1 = cache(0, "distUpdate");
+      Cache<String, Object> cache2 = cache(1, "distUpdate");
+      waitForClusterToForm("distUpdate");
+
+      Address self = address(cache1);
+      String key = null;
+      for (int i = 0; key == null; i++) {
+         if (!cache1.getAdvancedCache().getDistributionManager().locate("counter" + i).contains(self)) key = "counter" + i;
+      }
+
+      cache2.put(key, 10);
+      assert cache1.put(key, new Increment(5)).equals(15);
+      assert cache2.get(key).equals(15);
+      assert cache1.put(key, new Increment(1)).equals(16);
+      assert cache2.get(key).equals(16);
+   }
+
+   public static class Increment implements ValueUpdate, Serializable {
+      private final int delta;
+
+      public Increment(int delta) {
+         this.delta = delta;
+      }
+
+      public Object apply(Object currentValue) {
+         return currentValue == null ? null : (Integer) currentValue + delta;
+      }
+   }
+}
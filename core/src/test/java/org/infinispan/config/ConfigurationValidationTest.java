@@ -87,6 +87,20 @@ public class ConfigurationValidationTest extends AbstractInfinispanTest {
       }
    }
 
+   @Test (expectedExceptions = ConfigurationException.class)
+   public void testDistAndNonPositiveRehashChunkSize() {
+      EmbeddedCacheManager ecm = null;
+      try {
+         Configuration c = new Configuration();
+         c.setCacheMode(DIST_SYNC);
+         c.setRehashChunkSize(0);
+         ecm = TestCacheManagerFactory.createClusteredCacheManager(c);
+         ecm.getCache();
+      } finally {
+         TestingUtil.killCacheManagers(ecm);
+      }
+   }
+
    private EmbeddedCacheManager createCacheManager() throws Exception {
       GlobalConfiguration gc = GlobalConfiguration.getNonClusteredDefault();
       Configuration config = new Configuration();
@@ -0,0 +1,107 @@
+package org.infinispan.container;
+
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.easymock.EasyMock.createNiceMock;
+
+@Test(groups = "unit", testName = "container.ExpirationIndexTest")
+public class ExpirationIndexTest extends AbstractInfinispanTest {
+
+   public void testOnlyDueKeysPolled() {
+      ExpirationIndex index = new ExpirationIndex(1000);
+      index.schedule("a", 1500);
+      index.schedule("b", 2500);
+      index.schedule("c", 10500);
+
+      assert index.pollDue(999).isEmpty();
+      List<Object> due = index.pollDue(1999);
+      assert due.size() == 1 && due.contains("a") : "Unexpected keys " + due;
+      due = index.pollDue(3000);
+      assert due.size() == 1 && due.contains("b") : "Unexpected keys " + due;
+      assert index.size() == 1;
+      assert index.pollDue(3000).isEmpty();
+   }
+
+   public void testDuplicatesCollapseWithinBucket() {
+      ExpirationIndex index = new ExpirationIndex(1000);
+      index.schedule("a", 1100);
+      index.schedule("a", 1900);
+      assert index.size() == 1;
+   }
+
+   public void testRescheduleMovesKey() {
+      ExpirationIndex index = new ExpirationIndex(1000);
+      index.schedule("a", 1500);
+      index.schedule("a", 5500);
+      assert index.size() == 1;
+      assert index.pollDue(2000).isEmpty();
+      List<Object> due = index.pollDue(6000);
+      assert due.size() == 1 && due.contains("a") : "Unexpected keys " + due;
+   }
+
+   public void testUnscheduledKeysNotPolled() {
+      ExpirationIndex index = new ExpirationIndex(1000);
+      index.schedule("a", 1500);
+      index.schedule("b", 1500);
+      index.unschedule("a");
+      assert index.size() == 1;
+      List<Object> due = index.pollDue(2000);
+      assert due.size() == 1 && due.contains("b") : "Unexpected keys " + due;
+   }
+
+   public void testRemovedEntriesUnscheduled() {
+      DefaultDataContainer dc = new DefaultDataContainer(16);
+      for (int i = 0; i < 10; i++) dc.put("k" + i, "v", 600000, -1);
+      // overwriting moves the key rather than indexing it twice
+      for (int i = 0; i < 10; i++) dc.put("k" + i, "v2", 1200000, -1);
+      assert dc.expirationIndex.size() == 10;
+      dc.remove("k0");
+      // no longer expirable
+      dc.put("k1", "v", -1, -1);
+      assert dc.expirationIndex.size() == 8;
+   }
+
+   public void testEvictedEntriesUnscheduled() {
+      DefaultDataContainer dc = (DefaultDataContainer) DefaultDataContainer.boundedDataContainer(1, 16,
+            EvictionStrategy.LRU, EvictionThreadPolicy.DEFAULT);
+      dc.initialize(createNiceMock(EvictionManager.class));
+      for (int i = 0; i < 100; i++) dc.put("k" + i, "v", 600000, -1);
+      assert dc.size() <= 16;
+      assert dc.expirationIndex.size() == dc.size() : "Expected " + dc.size() + " keys indexed but got " + dc.expirationIndex.size();
+   }
+
+   public void testPurgeOnlyVisitsDueEntries() throws Exception {
+      DefaultDataContainer dc = new DefaultDataContainer(16);
+      for (int i = 0; i < 100; i++) dc.put("immortal" + i, "v", -1, -1);
+      for (int i = 0; i < 100; i++) dc.put("mortal" + i, "v", 600000, -1);
+      dc.put("expiring", "v", 1, -1);
+      dc.put("idle", "v", -1, 1);
+      // immortal entries are never indexed
+      assert dc.expirationIndex.size() == 102;
+
+      Thread.sleep(100);
+      dc.purgeExpired();
+      assert dc.size() == 200;
+      assert !dc.containsKey("expiring");
+      assert !dc.containsKey("idle");
+      assert dc.expirationIndex.size() == 100;
+   }
+
+   public void testTouchedEntriesRescheduled() throws Exception {
+      DefaultDataContainer dc = new DefaultDataContainer(16);
+      dc.put("k", "v", -1, 1500);
+      Thread.sleep(1000);
+      assert dc.get("k") != null;
+      Thread.sleep(1000);
+      // deadline has moved on since the entry was indexed
+      dc.purgeExpired();
+      assert dc.containsKey("k");
+      assert dc.expirationIndex.size() == 1;
+   }
+}
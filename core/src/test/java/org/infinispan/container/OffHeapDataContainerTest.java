@@ -0,0 +1,176 @@
+package org.infinispan.container;
+
+import org.infinispan.commands.RemoteCommandsFactory;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.marshall.VersionAwareMarshaller;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.easymock.EasyMock.*;
+
+@Test(groups = "unit", testName = "container.OffHeapDataContainerTest")
+public class OffHeapDataContainerTest extends SimpleDataContainerTest {
+
+   private VersionAwareMarshaller marshaller;
+
+   @BeforeClass
+   public void startMarshaller() {
+      marshaller = new VersionAwareMarshaller();
+      marshaller.inject(Thread.currentThread().getContextClassLoader(), new RemoteCommandsFactory());
+      marshaller.start();
+   }
+
+   @AfterClass(alwaysRun = true)
+   public void stopMarshaller() {
+      marshaller.stop();
+   }
+
+   @Override
+   protected DataContainer createContainer() {
+      return createContainer(-1, OffHeapDataContainer.DEFAULT_PAGE_SIZE, null);
+   }
+
+   private OffHeapDataContainer createContainer(int maxEntries, int pageSize, EvictionManager evictionManager) {
+      return createContainer(maxEntries, -1, pageSize, evictionManager);
+   }
+
+   private OffHeapDataContainer createContainer(int maxEntries, long maxBytes, int pageSize, EvictionManager evictionManager) {
+      if (marshaller == null) startMarshaller();
+      OffHeapDataContainer container = new OffHeapDataContainer(16, maxEntries, maxBytes, pageSize);
+      container.initialize(evictionManager, marshaller);
+      return container;
+   }
+
+   /**
+    * Entries are copies of the off-heap records, so the last used stamp is only visible on entries retrieved after the
+    * access that updated it.
+    */
+   @Override
+   public void testUpdatingLastUsed() throws Exception {
+      long idle = 600000;
+      dc.put("k", "v", -1, idle);
+      long oldTime = System.currentTimeMillis();
+      Thread.sleep(100); // for time calc granularity
+      InternalCacheEntry ice = dc.get("k");
+      assert ice.getClass().equals(transienttype());
+      assert ice.getLastUsed() > oldTime;
+      assert ice.getMaxIdle() == idle;
+      assert ice.getLifespan() == -1;
+
+      oldTime = System.currentTimeMillis();
+      Thread.sleep(100); // for time calc granularity
+      assert dc.get("k") != null;
+      assert dc.peek("k").getLastUsed() > oldTime;
+   }
+
+   public void testConcurrentReadsOfIdleEntries() throws Exception {
+      final OffHeapDataContainer container = createContainer(64, OffHeapDataContainer.DEFAULT_PAGE_SIZE, createNiceMock(EvictionManager.class));
+      final long start = System.currentTimeMillis();
+      for (int i = 0; i < 32; i++) container.put(i, "v" + i, -1, 600000);
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         List<Future<Void>> futures = new ArrayList<Future<Void>>();
+         for (int t = 0; t < 3; t++) {
+            futures.add(executor.submit(new Callable<Void>() {
+               public Void call() {
+                  for (int n = 0; n < 20000; n++) {
+                     InternalCacheEntry ice = container.get(n % 32);
+                     if (ice != null) {
+                        long lastUsed = ice.getLastUsed();
+                        assert lastUsed >= start && lastUsed <= System.currentTimeMillis() : "Invalid last used time " + lastUsed;
+                     }
+                  }
+                  return null;
+               }
+            }));
+         }
+         futures.add(executor.submit(new Callable<Void>() {
+            public Void call() {
+               // keeps the CLOCK sweep clearing reference bits while the entries are being read
+               for (int n = 0; n < 20000; n++) container.put("other" + (n % 200), "v", -1, -1);
+               return null;
+            }
+         }));
+         for (Future<Void> f : futures) f.get();
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testOverwriteAndRemove() {
+      for (int i = 0; i < 1000; i++) dc.put(i, "v" + i, -1, -1);
+      for (int i = 0; i < 1000; i++) dc.put(i, "value" + i, -1, -1);
+      assert dc.size() == 1000;
+      for (int i = 0; i < 1000; i++) assert ("value" + i).equals(dc.get(i).getValue());
+      for (int i = 0; i < 1000; i += 2) assert ("value" + i).equals(dc.remove(i).getValue());
+      assert dc.size() == 500;
+      for (int i = 0; i < 1000; i++) assert dc.containsKey(i) == (i % 2 == 1) : "Unexpected presence of " + i;
+   }
+
+   public void testCompactionReclaimsGarbage() {
+      OffHeapDataContainer container = createContainer(-1, 4096, null);
+      byte[] value = new byte[512];
+      for (int round = 0; round < 50; round++) {
+         for (int i = 0; i < 32; i++) container.put(i, value, -1, -1);
+      }
+      assert container.size() == 32;
+      for (int i = 0; i < 32; i++) assert container.get(i) != null;
+      // 32 live records of roughly 600 bytes each should not need more than twice that in pages
+      assert container.getAllocatedBytes() < 32 * 1200 + 16 * 4096 : "Allocated " + container.getAllocatedBytes();
+   }
+
+   public void testOversizedValue() {
+      OffHeapDataContainer container = createContainer(-1, 1024, null);
+      byte[] value = new byte[10000];
+      value[9999] = 42;
+      container.put("big", value, -1, -1);
+      container.put("small", "v", -1, -1);
+      assert ((byte[]) container.get("big").getValue())[9999] == 42;
+      assert "v".equals(container.get("small").getValue());
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testEvictionNotifiesEvictionManager() {
+      final Map<Object, InternalCacheEntry> evicted = new HashMap<Object, InternalCacheEntry>();
+      EvictionManager evictionManager = createMock(EvictionManager.class);
+      evictionManager.onEntryEviction((Map<Object, InternalCacheEntry>) anyObject());
+      expectLastCall().andAnswer(new org.easymock.IAnswer<Object>() {
+         public Object answer() {
+            evicted.putAll((Map<Object, InternalCacheEntry>) getCurrentArguments()[0]);
+            return null;
+         }
+      }).anyTimes();
+      replay(evictionManager);
+
+      OffHeapDataContainer container = createContainer(64, OffHeapDataContainer.DEFAULT_PAGE_SIZE, evictionManager);
+      for (int i = 0; i < 256; i++) container.put(i, "v" + i, -1, -1);
+
+      assert container.size() <= 64 : "Container size too big: " + container.size();
+      assert container.size() + evicted.size() == 256;
+      for (Map.Entry<Object, InternalCacheEntry> e : evicted.entrySet()) {
+         assert ("v" + e.getKey()).equals(e.getValue().getValue());
+         assert !container.containsKey(e.getKey());
+      }
+   }
+
+   public void testMemoryBound() {
+      EvictionManager evictionManager = createNiceMock(EvictionManager.class);
+      replay(evictionManager);
+      OffHeapDataContainer container = createContainer(-1, 64 * 1024, OffHeapDataContainer.DEFAULT_PAGE_SIZE, evictionManager);
+      for (int i = 0; i < 1024; i++) container.put(i, new byte[1024], -1, -1);
+      assert container.size() > 0;
+      assert container.size() <= 64 : "Container size too big: " + container.size();
+      assert container.containsKey(1023) : "Most recently written entry should not have been evicted";
+   }
+}
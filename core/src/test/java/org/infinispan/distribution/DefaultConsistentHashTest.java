@@ -122,5 +122,25 @@ public class DefaultConsistentHashTest extends AbstractInfinispanTest {
          assert ch.isAdjacent(l.get(0), l.get(1)) : "Nodes " + l + " should be adjacent!";
       }
    }
-}
 
+   public void testLocateWalksTheWheel() {
+      ch = (DefaultConsistentHash) BaseDistFunctionalTest.createNewConsistentHash(servers);
+      List<Address> wheel = ch.getCaches();
+
+      Random r = new Random();
+      for (int i = 0; i < 1000; i++) {
+         String key = Integer.toHexString(r.nextInt());
+         List<Address> owners = ch.locate(key, wheel.size() + 1);
+         assert owners.size() == wheel.size() : "Expected all the nodes to own [" + key + "], found " + owners;
+         int first = wheel.indexOf(owners.get(0));
+         for (int j = 0; j < owners.size(); j++) {
+            assert owners.get(j).equals(wheel.get((first + j) % wheel.size())) : "Owners " + owners + " of [" + key + "] are not consecutive on " + wheel;
+         }
+
+         List<Address> backups = ch.locate(key, 2);
+         for (Address a : wheel) {
+            assert ch.isKeyLocalToAddress(a, key, 2) == backups.contains(a);
+         }
+      }
+   }
+}
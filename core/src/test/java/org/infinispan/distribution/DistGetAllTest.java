@@ -0,0 +1,87 @@
+package org.infinispan.distribution;
+
+import org.infinispan.Cache;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@Test(groups = "functional", testName = "distribution.DistGetAllTest")
+public class DistGetAllTest extends BaseDistFunctionalTest {
+
+   public DistGetAllTest() {
+      sync = true;
+      tx = false;
+      testRetVals = true;
+   }
+
+   public void testGetAllFromEveryNode() {
+      Set<Object> keys = new HashSet<Object>();
+      for (int i = 0; i < 50; i++) {
+         keys.add("k" + i);
+         c1.put("k" + i, "v" + i);
+      }
+      Set<Object> requested = new HashSet<Object>(keys);
+      requested.add("missing");
+
+      for (Cache<Object, String> c : caches) {
+         Map<Object, String> values = c.getAll(requested);
+         assert values.size() == keys.size() : "Unexpected values on " + addressOf(c) + ": " + values;
+         for (Object key : keys) {
+            assert ("v" + ((String) key).substring(1)).equals(values.get(key)) : "Wrong value for " + key + " on " + addressOf(c);
+         }
+         assert !values.containsKey("missing");
+      }
+   }
+
+   public void testRemotelyRetrievedEntriesStoredInL1() {
+      Set<Object> keys = new HashSet<Object>();
+      for (int i = 0; i < 20; i++) {
+         keys.add("l1-" + i);
+         c2.put("l1-" + i, "v" + i);
+      }
+
+      Map<Object, String> values = c1.getAll(keys);
+      assert values.size() == keys.size();
+      for (Object key : keys) {
+         if (isOwner(c1, key))
+            assertIsInContainerImmortal(c1, key);
+         else
+            assertIsInL1(c1, key);
+      }
+   }
+
+   public void testGetAllAsync() throws Exception {
+      Set<Object> keys = new HashSet<Object>();
+      for (int i = 0; i < 20; i++) {
+         keys.add("async-" + i);
+         c3.put("async-" + i, "v" + i);
+      }
+
+      NotifyingFuture<Map<Object, String>> f = c4.getAllAsync(keys);
+      Map<Object, String> values = f.get();
+      assert f.isDone();
+      assert values.size() == keys.size() : "Unexpected values " + values;
+      for (Object key : keys) {
+         assert ("v" + ((String) key).substring(6)).equals(values.get(key));
+      }
+   }
+
+   public void testManyConcurrentGetAllAsync() throws Exception {
+      // missing keys are not stored in L1, so every lookup queries the owners
+      Set<Object> keys = new HashSet<Object>();
+      for (int i = 0; i < 20; i++) keys.add("missing-" + i);
+
+      // more lookups than the async transport executor has threads, each of them querying several owners
+      List<NotifyingFuture<Map<Object, String>>> futures = new ArrayList<NotifyingFuture<Map<Object, String>>>();
+      for (int i = 0; i < 200; i++) futures.add(c4.getAllAsync(keys));
+      for (NotifyingFuture<Map<Object, String>> f : futures) {
+         assert f.get(30, TimeUnit.SECONDS).isEmpty();
+      }
+   }
+}
@@ -0,0 +1,41 @@
+package org.infinispan.distribution.rehash;
+
+import org.infinispan.Cache;
+import org.infinispan.config.Configuration;
+import org.infinispan.distribution.BaseDistFunctionalTest;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.testng.annotations.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Tests that a joiner receives all its state when it is transferred in many small chunks.
+ *
+ * @since 5.0
+ */
+@Test(groups = "functional", testName = "distribution.rehash.ChunkedJoinTest")
+public class ChunkedJoinTest extends BaseDistFunctionalTest {
+
+   private static final int NUM_KEYS = 300;
+   private static final int CHUNK_SIZE = 7;
+
+   public ChunkedJoinTest() {
+      performRehashing = true;
+   }
+
+   public void testJoinWithSmallChunks() {
+      for (Cache<Object, String> c : caches) c.getConfiguration().setRehashChunkSize(CHUNK_SIZE);
+      for (int i = 0; i < NUM_KEYS; i++) c1.put("k" + i, "v" + i);
+
+      EmbeddedCacheManager joinerManager = addClusterEnabledCacheManager();
+      Configuration joinerConfiguration = configuration.clone();
+      joinerConfiguration.setRehashChunkSize(CHUNK_SIZE);
+      joinerManager.defineConfiguration(cacheName, joinerConfiguration);
+      Cache<Object, String> joiner = joinerManager.getCache(cacheName);
+      waitForJoinTasksToComplete(SECONDS.toMillis(480), joiner);
+      caches.add(locateJoiner(joinerManager.getAddress()), joiner);
+
+      for (int i = 0; i < NUM_KEYS; i++) assertOnAllCachesAndOwnership("k" + i, "v" + i);
+      assertProperConsistentHashOnAllCaches();
+   }
+}
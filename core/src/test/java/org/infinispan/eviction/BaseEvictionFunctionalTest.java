@@ -25,12 +25,17 @@ public abstract class BaseEvictionFunctionalTest extends SingleCacheManagerTest
 
    protected abstract EvictionStrategy getEvictionStrategy();
 
+   protected void configure(Configuration cfg) {
+      // no-op by default
+   }
+
    protected EmbeddedCacheManager createCacheManager() throws Exception {
       Configuration cfg = new Configuration();
       cfg.setEvictionStrategy(getEvictionStrategy());
       cfg.setEvictionWakeUpInterval(100);
       cfg.setEvictionMaxEntries(128); // 128 max entries
       cfg.setUseLockStriping(false); // to minimize chances of deadlock in the unit test
+      configure(cfg);
       EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(cfg);
       cache = cm.getCache();
       cache.addListener(new EvictionListener());
@@ -0,0 +1,18 @@
+package org.infinispan.eviction;
+
+import org.infinispan.config.Configuration;
+import org.testng.annotations.Test;
+
+@Test(groups = "functional", testName = "eviction.BufferedReadsLRUEvictionFunctionalTest")
+public class BufferedReadsLRUEvictionFunctionalTest extends BaseEvictionFunctionalTest {
+
+   protected EvictionStrategy getEvictionStrategy() {
+      return EvictionStrategy.LRU;
+   }
+
+   @Override
+   protected void configure(Configuration cfg) {
+      cfg.setEvictionBufferedReads(true);
+   }
+
+}
@@ -0,0 +1,12 @@
+package org.infinispan.eviction;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "functional", testName = "eviction.LIRSMemoryBoundedEvictionFunctionalTest")
+public class LIRSMemoryBoundedEvictionFunctionalTest extends MemoryBoundedEvictionFunctionalTest {
+
+   @Override
+   protected EvictionStrategy getEvictionStrategy() {
+      return EvictionStrategy.LIRS;
+   }
+}
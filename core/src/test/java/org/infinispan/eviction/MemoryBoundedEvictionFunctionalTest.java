@@ -0,0 +1,52 @@
+package org.infinispan.eviction;
+
+import org.infinispan.config.Configuration;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.InternalEntrySizeCalculator;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+@Test(groups = "functional", testName = "eviction.MemoryBoundedEvictionFunctionalTest")
+public class MemoryBoundedEvictionFunctionalTest extends SingleCacheManagerTest {
+
+   private static final long MAX_BYTES = 64 * 1024;
+
+   protected EvictionStrategy getEvictionStrategy() {
+      return EvictionStrategy.LRU;
+   }
+
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      Configuration cfg = new Configuration();
+      cfg.setEvictionStrategy(getEvictionStrategy());
+      cfg.setEvictionWakeUpInterval(100);
+      cfg.setEvictionMaxBytes(MAX_BYTES);
+      cfg.setUseLockStriping(false);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(cfg);
+      cache = cm.getCache();
+      return cm;
+   }
+
+   public void testMemoryBound() {
+      for (int i = 0; i < 1024; i++) cache.put("key-" + i, new byte[1024]);
+      DataContainer dc = cache.getAdvancedCache().getDataContainer();
+      InternalEntrySizeCalculator calculator = new InternalEntrySizeCalculator();
+      long total = 0;
+      for (InternalCacheEntry ice : dc) total += calculator.getEntrySize(ice.getKey(), ice);
+      assert dc.size() > 0;
+      assert dc.size() < 64 : "Too many entries retained: " + dc.size();
+      // each segment may hold a single entry beyond its share of the bound
+      assert total <= MAX_BYTES + 1024 * dc.size() / 4 : "Retained " + total + " bytes";
+   }
+
+   public void testLargeEntriesEvictSmallOnes() {
+      // about 200 bytes each, well within every segment's share of the bound
+      for (int i = 0; i < 128; i++) cache.put("small-" + i, "v");
+      int smallEntries = cache.getAdvancedCache().getDataContainer().size();
+      assert smallEntries == 128 : "Small entries should fit, got " + smallEntries;
+      for (int i = 0; i < 60; i++) cache.put("large-" + i, new byte[1024]);
+      assert cache.getAdvancedCache().getDataContainer().size() < smallEntries;
+   }
+}
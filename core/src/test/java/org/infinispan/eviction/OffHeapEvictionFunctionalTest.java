@@ -0,0 +1,23 @@
+package org.infinispan.eviction;
+
+import org.infinispan.config.Configuration;
+import org.infinispan.container.OffHeapDataContainer;
+import org.testng.annotations.Test;
+
+@Test(groups = "functional", testName = "eviction.OffHeapEvictionFunctionalTest")
+public class OffHeapEvictionFunctionalTest extends BaseEvictionFunctionalTest {
+
+   protected EvictionStrategy getEvictionStrategy() {
+      return EvictionStrategy.LRU;
+   }
+
+   @Override
+   protected void configure(Configuration cfg) {
+      cfg.setUseOffHeapDataContainer(true);
+   }
+
+   public void testOffHeapDataContainerInUse() {
+      assert cache.getAdvancedCache().getDataContainer() instanceof OffHeapDataContainer;
+   }
+
+}
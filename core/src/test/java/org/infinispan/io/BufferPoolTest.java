@@ -0,0 +1,72 @@
+package org.infinispan.io;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Test(groups = "unit", testName = "io.BufferPoolTest")
+public class BufferPoolTest {
+
+   public void testReleasedStreamIsReused() {
+      BufferPool pool = new BufferPool();
+      ExposedByteArrayOutputStream out = pool.borrow(100);
+      out.write(new byte[100], 0, 100);
+      pool.release(out);
+
+      ExposedByteArrayOutputStream reused = pool.borrow(100);
+      assert reused == out;
+      assert reused.size() == 0 : "Released stream should have been reset";
+      assert pool.getHits() == 1;
+      assert pool.getMisses() == 1;
+   }
+
+   public void testNestedBorrowsGetDistinctStreams() {
+      BufferPool pool = new BufferPool();
+      ExposedByteArrayOutputStream outer = pool.borrow(0);
+      ExposedByteArrayOutputStream inner = pool.borrow(0);
+      assert outer != inner;
+      pool.release(inner);
+      pool.release(outer);
+      // only one stream per size class is kept per thread
+      assert pool.getDiscards() == 1;
+   }
+
+   public void testGrownStreamMovesToLargerSizeClass() {
+      BufferPool pool = new BufferPool();
+      ExposedByteArrayOutputStream out = pool.borrow(0);
+      out.write(new byte[10 * 1024], 0, 10 * 1024);
+      pool.release(out);
+
+      // a small request is served with the larger stream rather than allocating a new one
+      assert pool.borrow(0) == out;
+   }
+
+   public void testOversizedStreamIsNotRetained() {
+      BufferPool pool = new BufferPool();
+      ExposedByteArrayOutputStream out = pool.borrow(BufferPool.MAX_POOLED_CAPACITY + 1);
+      pool.release(out);
+      assert pool.getDiscards() == 1;
+      assert pool.borrow(BufferPool.MAX_POOLED_CAPACITY + 1) != out;
+   }
+
+   public void testLargeStreamsAreSharedAcrossThreads() throws Exception {
+      final BufferPool pool = new BufferPool();
+      final ExposedByteArrayOutputStream out = pool.borrow(128 * 1024);
+      pool.release(out);
+
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         ExposedByteArrayOutputStream borrowed = executor.submit(new Callable<ExposedByteArrayOutputStream>() {
+            @Override
+            public ExposedByteArrayOutputStream call() {
+               return pool.borrow(128 * 1024);
+            }
+         }).get();
+         assert borrowed == out;
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+}
@@ -499,6 +499,27 @@ public abstract class BaseCacheStoreTest extends AbstractInfinispanTest {
       assert !s.contains("k3");
    }
 
+   public void testLoadAllWithKeys() throws CacheLoaderException {
+      cs.store(InternalEntryFactory.create("k1", "v1"));
+      cs.store(InternalEntryFactory.create("k2", "v2"));
+      cs.store(InternalEntryFactory.create("k3", "v3"));
+      cs.store(InternalEntryFactory.create("expired", "v", System.currentTimeMillis() - 1000, 1, -1, -1));
+
+      Set<Object> keys = new HashSet<Object>();
+      keys.add("k1");
+      keys.add("k3");
+      keys.add("expired");
+      keys.add("missing");
+      Set<InternalCacheEntry> s = cs.loadAll(keys);
+      assert s.size() == 2 : "Expected 2 entries, was " + s;
+      for (InternalCacheEntry ice : s) {
+         assert ice.getKey().equals("k1") || ice.getKey().equals("k3") : "Unexpected entry " + ice;
+         assert ice.getValue().equals("v" + ((String) ice.getKey()).substring(1));
+      }
+
+      assert cs.loadAll(Collections.<Object>emptySet()).isEmpty();
+   }
+
    public void testStreamingAPI() throws IOException, ClassNotFoundException, CacheLoaderException {
       cs.store(InternalEntryFactory.create("k1", "v1"));
       cs.store(InternalEntryFactory.create("k2", "v2"));
@@ -9,6 +9,7 @@ import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.entries.InternalEntryFactory;
 import org.infinispan.context.Flag;
+import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.lifecycle.ComponentStatus;
 import org.infinispan.loaders.dummy.DummyInMemoryCacheStore;
 import org.infinispan.manager.EmbeddedCacheManager;
@@ -300,6 +301,47 @@ public class CacheLoaderFunctionalTest extends AbstractInfinispanTest {
       }
    }
 
+   public void testPagedPreloading() throws CacheLoaderException {
+      Cache pagedCache = startPagedPreloadingCache("pagedPreloadingCache", -1);
+      CacheStore pagedStore = TestingUtil.extractComponent(pagedCache, CacheLoaderManager.class).getCacheStore();
+      for (int i = 0; i < 20; i++) pagedStore.store(InternalEntryFactory.create("k" + i, "v" + i));
+      pagedCache.stop();
+      pagedCache.start();
+
+      assert pagedCache.getAdvancedCache().getDataContainer().size() == 20;
+      for (int i = 0; i < 20; i++) assertInCacheAndStore(pagedCache, pagedStore, "k" + i, "v" + i);
+      CacheLoaderManagerImpl clm = (CacheLoaderManagerImpl) TestingUtil.extractComponent(pagedCache, CacheLoaderManager.class);
+      assert clm.getPreloadTotal() == 20;
+      assert clm.getPreloaded() == 20;
+   }
+
+   public void testPagedPreloadingHonoursMaxEntries() throws CacheLoaderException {
+      Cache pagedCache = startPagedPreloadingCache("pagedPreloadingBoundedCache", 5);
+      CacheStore pagedStore = TestingUtil.extractComponent(pagedCache, CacheLoaderManager.class).getCacheStore();
+      for (int i = 0; i < 20; i++) pagedStore.store(InternalEntryFactory.create("k" + i, "v" + i));
+      pagedCache.stop();
+      pagedCache.start();
+
+      assert pagedCache.getAdvancedCache().getDataContainer().size() == 5;
+      CacheLoaderManagerImpl clm = (CacheLoaderManagerImpl) TestingUtil.extractComponent(pagedCache, CacheLoaderManager.class);
+      assert clm.getPreloadTotal() == 5;
+      assert clm.getPreloaded() == 5;
+   }
+
+   private Cache startPagedPreloadingCache(String name, int maxEntries) {
+      Configuration preloadingCfg = cfg.clone();
+      preloadingCfg.getCacheLoaderManagerConfig().setPreload(true);
+      preloadingCfg.getCacheLoaderManagerConfig().setPreloadThreads(3);
+      preloadingCfg.getCacheLoaderManagerConfig().setPreloadPageSize(3);
+      if (maxEntries > 0) {
+         preloadingCfg.setEvictionStrategy(EvictionStrategy.LRU);
+         preloadingCfg.setEvictionMaxEntries(maxEntries);
+      }
+      ((DummyInMemoryCacheStore.Cfg) preloadingCfg.getCacheLoaderManagerConfig().getFirstCacheLoaderConfig()).setStore(name);
+      cm.defineConfiguration(name, preloadingCfg);
+      return cm.getCache(name);
+   }
+
    public void testPurgeOnStartup() throws CacheLoaderException {
       Configuration purgingCfg = cfg.clone();
       CacheStoreConfig firstCacheLoaderConfig = (CacheStoreConfig) purgingCfg.getCacheLoaderManagerConfig().getFirstCacheLoaderConfig();
@@ -116,6 +116,58 @@ public class AsyncTest extends AbstractInfinispanTest {
       doTestRemove(number, key);
    }
 
+   @Test(timeOut=10000)
+   public void testModificationsAppliedInBulk(Method m) throws Exception {
+      final AtomicInteger batched = new AtomicInteger();
+      final AtomicInteger largestBatch = new AtomicInteger();
+      final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+      final CountDownLatch firstBatchReleased = new CountDownLatch(1);
+      DummyInMemoryCacheStore delegate = new DummyInMemoryCacheStore() {
+         @Override
+         public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+            if (firstBatchStarted.getCount() > 0) {
+               // hold the only worker thread, so that the following changes pile up
+               firstBatchStarted.countDown();
+               try {
+                  firstBatchReleased.await(5, TimeUnit.SECONDS);
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+               }
+            }
+            batched.addAndGet(mods.size());
+            if (mods.size() > largestBatch.get()) largestBatch.set(mods.size());
+            super.applyModifications(mods);
+         }
+      };
+      AsyncStoreConfig singleThreadConfig = new AsyncStoreConfig();
+      singleThreadConfig.setThreadPoolSize(1);
+      final AsyncStore bulkStore = new AsyncStore(delegate, singleThreadConfig);
+      DummyInMemoryCacheStore.Cfg cfg = new DummyInMemoryCacheStore.Cfg(m.getName(), false);
+      cfg.setStore(m.getName());
+      bulkStore.init(cfg, null, null);
+      bulkStore.start();
+      try {
+         bulkStore.store(InternalEntryFactory.create(k(m, "0"), v(m, "0")));
+         assert firstBatchStarted.await(5, TimeUnit.SECONDS);
+         for (int i = 1; i < 100; i++) bulkStore.store(InternalEntryFactory.create(k(m, String.valueOf(i)), v(m, String.valueOf(i))));
+         bulkStore.remove(k(m, "0"));
+         eventually(new Condition() {
+            public boolean isSatisfied() throws Exception {
+               return ((Map<?, ?>) TestingUtil.extractField(bulkStore, "state")).size() == 100;
+            }
+         });
+         firstBatchReleased.countDown();
+      } finally {
+         firstBatchReleased.countDown();
+         bulkStore.stop();
+      }
+      // every change reaches the decorated store, the ones queued while the worker was busy in a single batch
+      assert batched.get() == 101 : batched.get();
+      assert largestBatch.get() > 1 : "Changes were applied one at a time";
+      assert delegate.load(k(m, "0")) == null;
+      for (int i = 1; i < 100; i++) assert delegate.load(k(m, String.valueOf(i))).getValue().equals(v(m, String.valueOf(i)));
+   }
+
    public void testThreadSafetyWritingDiffValuesForKey(Method m) throws Exception {
       try {
          final String key = "k1";
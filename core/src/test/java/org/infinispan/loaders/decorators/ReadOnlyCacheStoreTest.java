@@ -23,6 +23,7 @@ public class ReadOnlyCacheStoreTest extends AbstractInfinispanTest {
       store.store(null);
       store.fromStream(null);
       store.prepare(null, null, true);
+      store.applyModifications(null);
       store.commit(null);
       store.rollback(null);
       assert mockEntry == store.load("key");
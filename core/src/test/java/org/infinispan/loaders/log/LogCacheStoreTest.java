@@ -0,0 +1,104 @@
+package org.infinispan.loaders.log;
+
+import org.infinispan.container.entries.InternalEntryFactory;
+import org.infinispan.loaders.BaseCacheStoreTest;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+@Test(groups = "unit", testName = "loaders.log.LogCacheStoreTest")
+public class LogCacheStoreTest extends BaseCacheStoreTest {
+
+   private String tmpDirectory;
+
+   @BeforeClass
+   @Parameters({"basedir"})
+   protected void setUpTempDir(@Optional(value = "/tmp") String basedir) {
+      tmpDirectory = TestingUtil.tmpDirectory(basedir, this);
+   }
+
+   @AfterClass
+   protected void clearTempDir() {
+      TestingUtil.recursiveFileRemove(tmpDirectory);
+      new File(tmpDirectory).mkdirs();
+   }
+
+   protected CacheStore createCacheStore() throws CacheLoaderException {
+      clearTempDir();
+      return createLogCacheStore(1024);
+   }
+
+   private LogCacheStore createLogCacheStore(int segmentSize) throws CacheLoaderException {
+      LogCacheStore store = new LogCacheStore();
+      LogCacheStoreConfig cfg = new LogCacheStoreConfig();
+      cfg.setLocation(tmpDirectory);
+      cfg.setSegmentSize(segmentSize);
+      cfg.setPurgeSynchronously(true); // for more accurate unit testing
+      store.init(cfg, getCache(), getMarshaller());
+      store.start();
+      return store;
+   }
+
+   public void testCompaction() throws Exception {
+      for (int i = 0; i < 100; i++) {
+         for (int j = 0; j < 10; j++) cs.store(InternalEntryFactory.create("k" + j, "v" + i + "-" + j));
+      }
+      cs.remove("k9");
+      // Every entry but the latest ten has been overwritten, so older segments keep being compacted away
+      assert segmentFiles() <= 4 : "Found " + segmentFiles() + " segments";
+      for (int j = 0; j < 9; j++) assert cs.load("k" + j).getValue().equals("v99-" + j);
+      assert cs.load("k9") == null;
+   }
+
+   public void testRestartAfterCompaction() throws Exception {
+      for (int i = 0; i < 100; i++) {
+         for (int j = 0; j < 10; j++) cs.store(InternalEntryFactory.create("k" + j, "v" + i + "-" + j));
+      }
+      cs.remove("k0");
+      cs.store(InternalEntryFactory.create("k1", "v-final"));
+      cs.stop();
+      cs = createLogCacheStore(1024);
+      assert cs.load("k0") == null;
+      assert cs.load("k1").getValue().equals("v-final");
+      for (int j = 2; j < 10; j++) assert cs.load("k" + j).getValue().equals("v99-" + j);
+      assert cs.loadAllKeys(null).size() == 9;
+   }
+
+   public void testRestartTruncatesIncompleteRecord() throws Exception {
+      cs.store(InternalEntryFactory.create("k1", "v1"));
+      cs.store(InternalEntryFactory.create("k2", "v2"));
+      cs.stop();
+      File[] segments = segments();
+      assert segments.length == 1;
+      RandomAccessFile raf = new RandomAccessFile(segments[0], "rw");
+      try {
+         raf.setLength(raf.length() - 1);
+      } finally {
+         raf.close();
+      }
+      cs = createLogCacheStore(1024);
+      assert cs.load("k1").getValue().equals("v1");
+      assert cs.load("k2") == null;
+      cs.store(InternalEntryFactory.create("k3", "v3"));
+      cs.stop();
+      cs = createLogCacheStore(1024);
+      assert cs.load("k1").getValue().equals("v1");
+      assert cs.load("k3").getValue().equals("v3");
+   }
+
+   private int segmentFiles() {
+      return segments().length;
+   }
+
+   private File[] segments() {
+      return ((LogCacheStore) cs).getRoot().listFiles();
+   }
+}
@@ -23,11 +23,13 @@
 package org.infinispan.marshall;
 
 import org.infinispan.atomic.AtomicHashMap;
+import org.infinispan.atomic.Delta;
 import org.infinispan.commands.RemoteCommandsFactory;
 import org.infinispan.commands.control.StateTransferControlCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
 import org.infinispan.commands.tx.RollbackCommand;
@@ -63,6 +65,7 @@ import org.infinispan.test.data.Person;
 import org.infinispan.transaction.TransactionLog;
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.transaction.xa.GlobalTransactionFactory;
+import org.infinispan.util.ByteArrayKey;
 import org.infinispan.util.FastCopyHashMap;
 import org.infinispan.util.Immutables;
 import org.infinispan.util.concurrent.TimeoutException;
@@ -407,6 +410,7 @@ public class VersionAwareMarshallerTest extends AbstractInfinispanTest {
       assert Arrays.equals(rEntry.data, entry.data);
       assert rEntry.contentType.equals(entry.contentType);
       assert rEntry.lastModified == entry.lastModified;
+      assert rEntry.equals(entry) && rEntry.hashCode() == entry.hashCode();
    }
 
    public void testNestedNonSerializable() throws Exception {
@@ -466,6 +470,63 @@ public class VersionAwareMarshallerTest extends AbstractInfinispanTest {
       marshaller.objectFromByteBuffer(bytes);
    }
    
+   public void testFastPathCommandsMarshalling() throws Exception {
+      ByteArrayKey key = new ByteArrayKey(new byte[]{1, 2, 3});
+      byte[] value = new byte[]{4, 5, 6};
+      PutKeyValueCommand put = new PutKeyValueCommand(key, value, false, null, 1000, 2000);
+      byte[] bytes = marshaller.objectToByteBuffer(put);
+      assert bytes[0] == FastPathMarshaller.MAGIC;
+      PutKeyValueCommand readPut = (PutKeyValueCommand) marshaller.objectFromByteBuffer(bytes);
+      assert readPut.getKey().equals(key);
+      assert Arrays.equals((byte[]) readPut.getValue(), value);
+      assert readPut.getLifespanMillis() == 1000;
+      assert readPut.getMaxIdleTimeMillis() == 2000;
+
+      SingleRpcCommand rpc = new SingleRpcCommand("mycache", new PutKeyValueCommand("k\u00e9\u20ac\u0000", 42L, false, null, 0, 0));
+      bytes = marshaller.objectToByteBuffer(rpc);
+      assert bytes[0] == FastPathMarshaller.MAGIC;
+      assert marshaller.objectFromByteBuffer(bytes).equals(rpc);
+
+      RemoveCommand remove = new RemoveCommand(key, null, null);
+      bytes = marshaller.objectToByteBuffer(remove);
+      assert bytes[0] == FastPathMarshaller.MAGIC;
+      assert marshaller.objectFromByteBuffer(bytes).equals(remove);
+
+      ClusteredGetCommand get = new ClusteredGetCommand(3.5d, "mycache");
+      bytes = marshaller.objectToByteBuffer(get);
+      assert bytes[0] == FastPathMarshaller.MAGIC;
+      assert marshaller.objectFromByteBuffer(bytes).equals(get);
+   }
+
+   public void testFastPathFallback() throws Exception {
+      Person p = new Person();
+      p.setName("Bob Dylan");
+      PutKeyValueCommand put = new PutKeyValueCommand("k", p, false, null, 0, 0);
+      byte[] bytes = marshaller.objectToByteBuffer(put);
+      assert bytes[0] != FastPathMarshaller.MAGIC;
+      assert marshaller.objectFromByteBuffer(bytes).equals(put);
+
+      // the pooled buffer must not keep anything from the aborted attempt
+      PutKeyValueCommand other = new PutKeyValueCommand("k", "v", false, null, 0, 0);
+      marshallAndAssertEquality(other);
+   }
+
+   public void testFastPathFallbackKeepsDelta() throws Exception {
+      Person p = new Person();
+      p.setName("Bob Dylan");
+      AtomicHashMap<String, Person> m = new AtomicHashMap<String, Person>();
+      m.initForWriting();
+      m.put("person", p);
+      PutKeyValueCommand put = new PutKeyValueCommand("k", m, false, null, 0, 0);
+      byte[] bytes = marshaller.objectToByteBuffer(put);
+      assert bytes[0] != FastPathMarshaller.MAGIC;
+      // the delta is only taken once, so the changes must have been marshalled by the fallback
+      PutKeyValueCommand readPut = (PutKeyValueCommand) marshaller.objectFromByteBuffer(bytes);
+      AtomicHashMap<String, Person> readMap = new AtomicHashMap<String, Person>();
+      ((Delta) readPut.getValue()).merge(readMap);
+      assert p.equals(readMap.get("person")) : "Lost delta " + readPut.getValue();
+   }
+
    protected void marshallAndAssertEquality(Object writeObj) throws Exception {
       byte[] bytes = marshaller.objectToByteBuffer(writeObj);
       Object readObj = marshaller.objectFromByteBuffer(bytes);
@@ -5,13 +5,17 @@ import org.infinispan.manager.CacheContainer;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
 import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
 import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
 import org.infinispan.test.AbstractInfinispanTest;
 import org.infinispan.test.TestingUtil;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 @Test(groups = "functional", testName = "notifications.AsyncNotificationTest")
@@ -44,6 +48,24 @@ public class AsyncNotificationTest extends AbstractInfinispanTest {
       assert asyncListener.caller != Thread.currentThread();
    }
 
+   public void testAsyncEventsDeliveredInOrder() throws InterruptedException {
+      // more events than an asynchronous listener queue can hold
+      int numKeys = 5000;
+      CountDownLatch latch = new CountDownLatch(1);
+      OrderRecordingListener listener = new OrderRecordingListener(latch, "k" + (numKeys - 1));
+      c.addListener(listener);
+      for (int i = 0; i < numKeys; i++) {
+         c.put("k" + i, "v");
+         c.remove("k" + i);
+      }
+      latch.await();
+      assert listener.events.size() == numKeys * 2 : "Expected " + numKeys * 2 + " events but got " + listener.events.size();
+      for (int i = 0; i < numKeys; i++) {
+         assert listener.events.get(i * 2).equals("created k" + i) : "Unexpected event " + listener.events.get(i * 2);
+         assert listener.events.get(i * 2 + 1).equals("removed k" + i) : "Unexpected event " + listener.events.get(i * 2 + 1);
+      }
+   }
+
    public abstract static class AbstractListener {
       Thread caller;
       CountDownLatch latch;
@@ -68,6 +90,32 @@ public class AsyncNotificationTest extends AbstractInfinispanTest {
       }
    }
 
+   @Listener(sync = false)
+   public static class OrderRecordingListener extends AbstractListener {
+      final List<String> events = new ArrayList<String>();
+      final String lastKey;
+
+      public OrderRecordingListener(CountDownLatch latch, String lastKey) {
+         super(latch);
+         this.lastKey = lastKey;
+      }
+
+      @CacheEntryCreated
+      public void created(CacheEntryCreatedEvent e) {
+         if (!e.isPre()) events.add("created " + e.getKey());
+      }
+
+      @CacheEntryRemoved
+      public void removed(CacheEntryRemovedEvent e) {
+         if (!e.isPre()) {
+            events.add("removed " + e.getKey());
+            if (e.getKey().equals(lastKey)) latch.countDown();
+         }
+         // exceptions thrown by asynchronous listeners do not stop the delivery of the following events
+         if (e.isPre() && e.getKey().equals("k0")) throw new IllegalStateException("Failing on purpose");
+      }
+   }
+
    @Listener(sync = false)
    public static class AsyncListener extends AbstractListener {
       public AsyncListener(CountDownLatch latch) {
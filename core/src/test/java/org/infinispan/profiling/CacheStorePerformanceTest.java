@@ -0,0 +1,108 @@
+package org.infinispan.profiling;
+
+import org.easymock.EasyMock;
+import org.infinispan.Cache;
+import org.infinispan.commands.RemoteCommandsFactory;
+import org.infinispan.container.entries.InternalEntryFactory;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.CacheStoreConfig;
+import org.infinispan.loaders.file.FileCacheStoreConfig;
+import org.infinispan.loaders.log.LogCacheStoreConfig;
+import org.infinispan.marshall.VersionAwareMarshaller;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.util.Util;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the time taken by cache stores to serve a mix of stores and loads of random keys.  Stores of other modules
+ * are added to the comparison by extending this test and overriding {@link #createConfigs(String)}.
+ *
+ * @since 5.0
+ */
+@Test(groups = "profiling", enabled = false, testName = "profiling.CacheStorePerformanceTest")
+public class CacheStorePerformanceTest extends AbstractInfinispanTest {
+   // adjust these values
+   int numKeys = 10000;
+   int warmupOperations = 20000;
+   int operations = 200000;
+   int valueSize = 512;
+   float writeRatio = 0.5f;
+
+   private String tmpDirectory;
+   private VersionAwareMarshaller marshaller;
+
+   @BeforeClass
+   protected void setUp() {
+      tmpDirectory = TestingUtil.tmpDirectory("/tmp", this);
+      marshaller = new VersionAwareMarshaller();
+      marshaller.inject(Thread.currentThread().getContextClassLoader(), new RemoteCommandsFactory());
+      marshaller.start();
+   }
+
+   @AfterClass
+   protected void tearDown() {
+      marshaller.stop();
+      TestingUtil.recursiveFileRemove(tmpDirectory);
+   }
+
+   public void testCacheStorePerformance() throws Exception {
+      Cache cache = EasyMock.createNiceMock(Cache.class);
+      EasyMock.expect(cache.getName()).andReturn("perfCache").anyTimes();
+      EasyMock.replay(cache);
+
+      for (Map.Entry<String, CacheStoreConfig> e : createConfigs(tmpDirectory).entrySet()) {
+         CacheStore store = (CacheStore) Util.getInstance(e.getValue().getCacheLoaderClassName());
+         store.init(e.getValue(), cache, marshaller);
+         store.start();
+         try {
+            store.clear();
+            run(store, warmupOperations);
+            System.out.println(e.getKey() + ": " + run(store, operations));
+         } finally {
+            store.stop();
+         }
+      }
+   }
+
+   /**
+    * @return configurations of the stores to compare, by name
+    */
+   protected Map<String, CacheStoreConfig> createConfigs(String location) {
+      Map<String, CacheStoreConfig> configs = new LinkedHashMap<String, CacheStoreConfig>();
+      FileCacheStoreConfig fileConfig = new FileCacheStoreConfig();
+      fileConfig.setLocation(location + File.separator + "file");
+      configs.put("FileCacheStore", fileConfig);
+      LogCacheStoreConfig logConfig = new LogCacheStoreConfig();
+      logConfig.setLocation(location + File.separator + "log");
+      configs.put("LogCacheStore", logConfig);
+      return configs;
+   }
+
+   private String run(CacheStore store, int operations) throws Exception {
+      Random r = new Random(1);
+      byte[] value = new byte[valueSize];
+      r.nextBytes(value);
+      int writes = 0;
+      long start = System.nanoTime();
+      for (int i = 0; i < operations; i++) {
+         String key = "key" + r.nextInt(numKeys);
+         if (r.nextFloat() < writeRatio) {
+            store.store(InternalEntryFactory.create(key, value));
+            writes++;
+         } else {
+            store.load(key);
+         }
+      }
+      long duration = System.nanoTime() - start;
+      return operations + " operations (" + writes + " stores) of " + valueSize + " bytes values in "
+            + Util.prettyPrintTime(duration / 1000000) + " (" + (duration / operations) + " ns each)";
+   }
+}
@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.profiling;
+
+import org.infinispan.commands.RemoteCommandsFactory;
+import org.infinispan.commands.remote.SingleRpcCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.marshall.VersionAwareMarshaller;
+import org.infinispan.marshall.jboss.JBossMarshaller;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.ByteArrayKey;
+import org.infinispan.util.Util;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+/**
+ * Compares the time taken to marshall and unmarshall a replicated Hot Rod style put with the fast path of {@link
+ * VersionAwareMarshaller} and with JBoss Marshalling alone.
+ *
+ * @since 5.0
+ */
+@Test(groups = "profiling", enabled = false, testName = "profiling.MarshallerPerformanceTest")
+public class MarshallerPerformanceTest extends AbstractInfinispanTest {
+   // adjust these values
+   int warmupIterations = 100000;
+   int iterations = 1000000;
+   int keySize = 32;
+   int valueSize = 512;
+
+   public void testMarshallerPerformance() throws Exception {
+      RemoteCommandsFactory commandsFactory = new RemoteCommandsFactory();
+      ClassLoader cl = Thread.currentThread().getContextClassLoader();
+
+      VersionAwareMarshaller versionAwareMarshaller = new VersionAwareMarshaller();
+      versionAwareMarshaller.inject(cl, commandsFactory);
+      versionAwareMarshaller.start();
+
+      JBossMarshaller jbossMarshaller = new JBossMarshaller();
+      jbossMarshaller.start(cl, commandsFactory, versionAwareMarshaller);
+
+      Random r = new Random();
+      byte[] key = new byte[keySize];
+      byte[] value = new byte[valueSize];
+      r.nextBytes(key);
+      r.nextBytes(value);
+      Object command = new SingleRpcCommand("___hotRodTopologyCache",
+                                            new PutKeyValueCommand(new ByteArrayKey(key), value, false, null, -1, -1));
+
+      try {
+         run(jbossMarshaller, command, warmupIterations);
+         run(versionAwareMarshaller, command, warmupIterations);
+         System.out.println("JBoss Marshalling: " + run(jbossMarshaller, command, iterations));
+         System.out.println("Fast path: " + run(versionAwareMarshaller, command, iterations));
+      } finally {
+         jbossMarshaller.stop();
+         versionAwareMarshaller.stop();
+      }
+   }
+
+   private String run(StreamingMarshaller marshaller, Object command, int iterations) throws Exception {
+      int bytes = 0;
+      long start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+         byte[] buf = marshaller.objectToByteBuffer(command);
+         marshaller.objectFromByteBuffer(buf);
+         bytes = buf.length;
+      }
+      long duration = System.nanoTime() - start;
+      return iterations + " round trips of " + bytes + " bytes in " + Util.prettyPrintTime(duration / 1000000)
+            + " (" + (duration / iterations) + " ns each)";
+   }
+}
@@ -0,0 +1,100 @@
+package org.infinispan.statetransfer;
+
+import org.infinispan.Cache;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs the state transfer functional tests with the in-memory state pulled in segments, and checks that a joiner
+ * receives all the entries when they are spread over many small chunks and several members.
+ *
+ * @since 5.0
+ */
+@Test(groups = "functional", testName = "statetransfer.SegmentedStateTransferTest", enabled = true)
+public class SegmentedStateTransferTest extends StateTransferFunctionalTest {
+
+   private static final int NUM_KEYS = 500;
+
+   public SegmentedStateTransferTest() {
+      cacheName = "nbst-segmented";
+   }
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      super.createCacheManagers();
+      config.setStateRetrievalNumSegments(16);
+      config.setStateRetrievalChunkSize(3);
+   }
+
+   public void testSegmentsPulledFromAllMembers() throws Exception {
+      Cache<Object, Object> cache1 = createCacheManager().getCache(cacheName);
+      Cache<Object, Object> cache2 = createCacheManager().getCache(cacheName);
+      for (int i = 0; i < NUM_KEYS; i++) cache1.put("k" + i, "v" + i);
+
+      EmbeddedCacheManager joinerManager = createCacheManager();
+      Cache<Object, Object> joiner = joinerManager.getCache(cacheName);
+      TestingUtil.blockUntilViewsReceived(60000, cache1, cache2, joiner);
+
+      for (int i = 0; i < NUM_KEYS; i++) assert ("v" + i).equals(joiner.get("k" + i)) : "Missing key k" + i;
+      StateTransferManagerImpl stm = (StateTransferManagerImpl) TestingUtil.extractComponent(joiner, StateTransferManager.class);
+      assert stm.getSegmentsTotal() == 16;
+      assert stm.getSegmentsCompleted() == 16;
+      assert stm.getSegmentEntriesReceived() == NUM_KEYS;
+   }
+
+   public void testConcurrentPullsFromSameRequestor() throws Exception {
+      Cache<Object, Object> provider = createCacheManager().getCache(cacheName);
+      Cache<Object, Object> requestor = createCacheManager().getCache(cacheName);
+      TestingUtil.blockUntilViewsReceived(60000, provider, requestor);
+      for (int i = 0; i < NUM_KEYS; i++) provider.put("k" + i, "v" + i);
+
+      StateTransferManager stm = TestingUtil.extractComponent(provider, StateTransferManager.class);
+      Address requestorAddress = requestor.getAdvancedCache().getRpcManager().getAddress();
+      int[] segments = new int[16];
+      for (int i = 0; i < segments.length; i++) segments[i] = i;
+
+      // a fallback pull starting while another pull of the same requestor is in progress must not disturb it
+      Set<Object> first = new HashSet<Object>(), second = new HashSet<Object>();
+      addKeys(first, stm.startSegmentsTransfer(requestorAddress, 1, segments, segments.length));
+      addKeys(second, stm.startSegmentsTransfer(requestorAddress, 2, segments, segments.length));
+      boolean firstDone = false, secondDone = false;
+      while (!firstDone || !secondDone) {
+         if (!firstDone) firstDone = !addKeys(first, stm.nextSegmentsChunk(requestorAddress, 1));
+         if (!secondDone) secondDone = !addKeys(second, stm.nextSegmentsChunk(requestorAddress, 2));
+      }
+      assert first.size() == NUM_KEYS : "First pull received " + first.size() + " keys";
+      assert second.size() == NUM_KEYS : "Second pull received " + second.size() + " keys";
+   }
+
+   public void testPullDroppedWhenRequestorLeaves() throws Exception {
+      Cache<Object, Object> provider = createCacheManager().getCache(cacheName);
+      EmbeddedCacheManager requestorManager = createCacheManager();
+      Cache<Object, Object> requestor = requestorManager.getCache(cacheName);
+      TestingUtil.blockUntilViewsReceived(60000, provider, requestor);
+      for (int i = 0; i < NUM_KEYS; i++) provider.put("k" + i, "v" + i);
+
+      StateTransferManager stm = TestingUtil.extractComponent(provider, StateTransferManager.class);
+      Address requestorAddress = requestor.getAdvancedCache().getRpcManager().getAddress();
+      stm.startSegmentsTransfer(requestorAddress, 1, new int[]{0, 1, 2, 3}, 4);
+      TestingUtil.killCacheManagers(requestorManager);
+      TestingUtil.blockUntilViewsReceived(60000, false, provider);
+
+      try {
+         stm.nextSegmentsChunk(requestorAddress, 1);
+         assert false : "The pull of a member that left should have been dropped";
+      } catch (StateTransferException expected) {
+      }
+   }
+
+   private boolean addKeys(Set<Object> keys, List<InternalCacheEntry> chunk) {
+      for (InternalCacheEntry e : chunk) keys.add(e.getKey());
+      return !chunk.isEmpty();
+   }
+}
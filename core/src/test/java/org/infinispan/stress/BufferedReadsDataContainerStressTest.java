@@ -0,0 +1,45 @@
+package org.infinispan.stress;
+
+import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionThreadPolicy;
+import org.testng.annotations.Test;
+
+/**
+ * Compares read throughput of bounded data containers with many concurrent readers, recording reads for LRU and LIRS
+ * either in the default access queue or in lock free, striped access buffers.
+ *
+ * @since 5.0
+ */
+@Test(testName = "stress.BufferedReadsDataContainerStressTest", groups = "stress", enabled = false,
+      description = "Disabled by default, designed to be run manually.")
+public class BufferedReadsDataContainerStressTest extends DataContainerStressTest {
+
+   private static final int MAX_ENTRIES = 256;
+   private static final int CONCURRENCY_LEVEL = 16;
+
+   @Override
+   protected int getNumReaders() {
+      return 64;
+   }
+
+   public void testLRU() throws InterruptedException {
+      doTest(DefaultDataContainer.boundedDataContainer(CONCURRENCY_LEVEL, MAX_ENTRIES, EvictionStrategy.LRU,
+               EvictionThreadPolicy.DEFAULT, false));
+   }
+
+   public void testLRUBufferedReads() throws InterruptedException {
+      doTest(DefaultDataContainer.boundedDataContainer(CONCURRENCY_LEVEL, MAX_ENTRIES, EvictionStrategy.LRU,
+               EvictionThreadPolicy.DEFAULT, true));
+   }
+
+   public void testLIRS() throws InterruptedException {
+      doTest(DefaultDataContainer.boundedDataContainer(CONCURRENCY_LEVEL, MAX_ENTRIES, EvictionStrategy.LIRS,
+               EvictionThreadPolicy.DEFAULT, false));
+   }
+
+   public void testLIRSBufferedReads() throws InterruptedException {
+      doTest(DefaultDataContainer.boundedDataContainer(CONCURRENCY_LEVEL, MAX_ENTRIES, EvictionStrategy.LIRS,
+               EvictionThreadPolicy.DEFAULT, true));
+   }
+}
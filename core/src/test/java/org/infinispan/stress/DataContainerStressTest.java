@@ -11,6 +11,7 @@ import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Stress test different data containers
@@ -36,7 +37,14 @@ public class DataContainerStressTest {
       doTest(DefaultDataContainer.unBoundedDataContainer(5000));
    }
 
-   private void doTest(final DataContainer dc) throws InterruptedException {
+   /**
+    * @return number of threads concurrently reading from the container
+    */
+   protected int getNumReaders() {
+      return 1;
+   }
+
+   protected void doTest(final DataContainer dc) throws InterruptedException {
       doTest(dc, true);
       doTest(dc, false);
    }
@@ -47,21 +55,28 @@ public class DataContainerStressTest {
       final Map<String, String> perf = new ConcurrentSkipListMap<String, String>();
       final AtomicBoolean run = new AtomicBoolean(true);
       final int actual_num_loops = warmup ? warmup_num_loops : num_loops;
+      final int numReaders = getNumReaders();
+      final AtomicLong readOps = new AtomicLong();
+      final AtomicLong readNanos = new AtomicLong();
 
-      Thread getter = new Thread() {
-         public void run() {
-            waitForStart();
-            long start = System.nanoTime();
-            int runs = 0;
-            while (use_time && run.get() || runs < actual_num_loops) {
-               if (runs % 100000 == 0) log.info("GET run # " + runs);
-//               TestingUtil.sleepThread(10);
-               dc.get(key + R.nextInt(NUM_KEYS));
-               runs++;
+      Thread[] getters = new Thread[numReaders];
+      for (int i = 0; i < numReaders; i++) {
+         getters[i] = new Thread() {
+            public void run() {
+               waitForStart();
+               long start = System.nanoTime();
+               int runs = 0;
+               while (use_time && run.get() || runs < actual_num_loops) {
+                  if (runs % 100000 == 0) log.info("GET run # " + runs);
+//                  TestingUtil.sleepThread(10);
+                  dc.get(key + R.nextInt(NUM_KEYS));
+                  runs++;
+               }
+               readNanos.addAndGet(System.nanoTime() - start);
+               readOps.addAndGet(runs);
             }
-            perf.put("GET", opsPerMS(System.nanoTime() - start, runs));
-         }
-      };
+         };
+      }
 
       Thread putter = new Thread() {
          public void run() {
@@ -93,7 +108,10 @@ public class DataContainerStressTest {
          }
       };
 
-      Thread[] threads = {getter, putter, remover};
+      Thread[] threads = new Thread[numReaders + 2];
+      System.arraycopy(getters, 0, threads, 0, numReaders);
+      threads[numReaders] = putter;
+      threads[numReaders + 1] = remover;
       for (Thread t : threads) t.start();
       latch.countDown();
 
@@ -101,6 +119,8 @@ public class DataContainerStressTest {
       Thread.sleep(warmup ? WARMUP_TIME_MILLIS : RUN_TIME_MILLIS);
       run.set(false);
       for (Thread t : threads) t.join();
+      // aggregate throughput of all readers, based on their average run time
+      perf.put("GET", opsPerMS(readNanos.get() / numReaders, readOps.get()));
       if (!warmup) log.warn("{0}: Performance: {1}", dc.getClass().getSimpleName(), perf);
    }
 
@@ -112,7 +132,7 @@ public class DataContainerStressTest {
       }
    }
 
-   private String opsPerMS(long nanos, int ops) {
+   private String opsPerMS(long nanos, long ops) {
       long totalMillis = TimeUnit.NANOSECONDS.toMillis(nanos);
       if (totalMillis > 0)
          return ops / totalMillis + " ops/ms";
@@ -0,0 +1,130 @@
+package org.infinispan.util.concurrent;
+
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EvictionListener;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Test(groups = "unit", testName = "util.concurrent.BoundedConcurrentHashMapTest")
+public class BoundedConcurrentHashMapTest {
+
+   private static final int CAPACITY = 64;
+
+   public void testFIFOEvictsInInsertionOrder() {
+      RecordingListener listener = new RecordingListener();
+      // a single segment, so that insertion order is global
+      Map<Integer, Integer> map = new BoundedConcurrentHashMap<Integer, Integer>(CAPACITY, 1, Eviction.FIFO, listener);
+      for (int i = 0; i < CAPACITY; i++) map.put(i, i);
+      // hits must not protect entries from eviction
+      for (int i = 0; i < CAPACITY; i++) map.get(0);
+      map.put(CAPACITY, CAPACITY);
+
+      assert !listener.evicted.isEmpty();
+      assert map.size() + listener.evicted.size() == CAPACITY + 1;
+      for (int i = 0; i < listener.evicted.size(); i++) {
+         assert listener.evicted.containsKey(i) : "Expected oldest entries to be evicted first, but " + i + " was not";
+         assert !map.containsKey(i);
+      }
+      assert map.containsKey(CAPACITY);
+   }
+
+   public void testUnorderedBoundsSize() {
+      RecordingListener listener = new RecordingListener();
+      Map<Integer, Integer> map = new BoundedConcurrentHashMap<Integer, Integer>(CAPACITY, 4, Eviction.UNORDERED, listener);
+      for (int i = 0; i < CAPACITY * 10; i++) map.put(i, i);
+
+      assert map.size() <= CAPACITY : "Map size too big: " + map.size();
+      assert map.size() + listener.evicted.size() == CAPACITY * 10;
+      for (Integer k : listener.evicted.keySet()) assert !map.containsKey(k);
+      for (Map.Entry<Integer, Integer> e : map.entrySet()) assert e.getKey().equals(e.getValue());
+   }
+
+   public void testFIFOAndUnorderedBoundedBySize() {
+      BoundedConcurrentHashMap.EntrySizeCalculator<Integer, byte[]> calculator = new BoundedConcurrentHashMap.EntrySizeCalculator<Integer, byte[]>() {
+         public long getEntrySize(Integer key, byte[] value) {
+            return value.length;
+         }
+      };
+      for (Eviction eviction : new Eviction[]{Eviction.FIFO, Eviction.UNORDERED}) {
+         Map<Integer, byte[]> map = new BoundedConcurrentHashMap<Integer, byte[]>(1024, 1, eviction,
+                  new BoundedConcurrentHashMap.NullEvictionListener<Integer, byte[]>(), 10 * 100, calculator);
+         for (int i = 0; i < 100; i++) map.put(i, new byte[100]);
+         assert map.size() <= 10 : eviction + " map size too big: " + map.size();
+         assert map.containsKey(99);
+      }
+   }
+
+   public void testBoundedOnlyBySize() {
+      BoundedConcurrentHashMap.EntrySizeCalculator<Integer, Integer> calculator = new BoundedConcurrentHashMap.EntrySizeCalculator<Integer, Integer>() {
+         public long getEntrySize(Integer key, Integer value) {
+            return 100;
+         }
+      };
+      for (Eviction eviction : new Eviction[]{Eviction.LRU, Eviction.LIRS, Eviction.FIFO, Eviction.UNORDERED}) {
+         RecordingListener listener = new RecordingListener();
+         BoundedConcurrentHashMap<Integer, Integer> map = new BoundedConcurrentHashMap<Integer, Integer>(-1, 1,
+                  eviction, listener, 1000 * 100, calculator);
+         assert map.segments[0].table.length == BoundedConcurrentHashMap.DEFAULT_INITIAL_CAPACITY;
+         // the table grows well beyond its initial capacity before the size bound is reached
+         for (int i = 0; i < 1000; i++) map.put(i, i);
+         assert listener.evicted.isEmpty() : eviction + " evicted " + listener.evicted.size() + " entries";
+         assert map.size() == 1000;
+         for (int i = 1000; i < 2000; i++) map.put(i, i);
+         assert map.size() == 1000 : eviction + " map size: " + map.size();
+         assert map.size() + listener.evicted.size() == 2000;
+         if (eviction != Eviction.UNORDERED) {
+            // entries copied while growing the table keep their place in the eviction order
+            for (int i = 0; i < 1000; i++) assert listener.evicted.containsKey(i) : eviction + " kept " + i;
+         }
+      }
+   }
+
+   public void testBufferedReadsKeepHotEntries() {
+      for (Eviction eviction : new Eviction[]{Eviction.LRU, Eviction.LIRS}) {
+         RecordingListener listener = new RecordingListener();
+         Map<Integer, Integer> map = new BoundedConcurrentHashMap<Integer, Integer>(CAPACITY, 1, eviction, listener,
+                  -1, null, true);
+         for (int i = 0; i < CAPACITY * 10; i++) {
+            map.put(i, i);
+            // keep reading the first entry, which should then survive eviction
+            assert map.get(0) == 0 : eviction + " evicted hot entry after " + i + " insertions";
+         }
+         assert map.size() <= CAPACITY : eviction + " map size too big: " + map.size();
+         assert map.size() + listener.evicted.size() == CAPACITY * 10;
+      }
+   }
+
+   public void testBufferedReadsSkipRemovedEntries() throws Exception {
+      for (Eviction eviction : new Eviction[]{Eviction.LRU, Eviction.LIRS}) {
+         final Map<Integer, Integer> map = new BoundedConcurrentHashMap<Integer, Integer>(CAPACITY, 4, eviction,
+                  new BoundedConcurrentHashMap.NullEvictionListener<Integer, Integer>(), -1, null, true);
+         Thread[] readers = new Thread[8];
+         for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread() {
+               public void run() {
+                  for (int i = 0; i < 100000; i++) map.get(i % (CAPACITY * 2));
+               }
+            };
+            readers[t].start();
+         }
+         for (int i = 0; i < 100000; i++) {
+            int k = i % (CAPACITY * 2);
+            if (i % 3 == 0) map.remove(k);
+            else map.put(k, k);
+         }
+         for (Thread t : readers) t.join();
+         assert map.size() <= CAPACITY : eviction + " map size too big: " + map.size();
+         for (Map.Entry<Integer, Integer> e : map.entrySet()) assert e.getKey().equals(e.getValue());
+      }
+   }
+
+   private static class RecordingListener implements EvictionListener<Integer, Integer> {
+      final Map<Integer, Integer> evicted = new HashMap<Integer, Integer>();
+
+      public void onEntryEviction(Map<Integer, Integer> e) {
+         evicted.putAll(e);
+      }
+   }
+}
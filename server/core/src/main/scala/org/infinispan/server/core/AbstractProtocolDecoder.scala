@@ -75,35 +75,35 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue] extends Decoder {
       val v = createValue(h, p, generateVersion(c))
       // Get an optimised cache in case we can make the operation more efficient
       val prev = getOptimizedCache(h, c).put(k, v, toMillis(p.lifespan), DefaultTimeUnit, toMillis(p.maxIdle), DefaultTimeUnit)
-      createSuccessResponse(h, params, prev)
+      createStoredResponse(h, params, prev, v)
    }
 
    protected def getOptimizedCache(header: SuitableHeader, c: Cache[K, V]): Cache[K, V] = c
 
    private def putIfAbsent(header: SuitableHeader, k: K, params: Option[SuitableParameters], c: Cache[K, V]): AnyRef = {
       val p = params.get
-      var prev = c.get(k)
+      val prev = c.get(k)
       if (prev == null) { // Generate new version only if key not present
          val v = createValue(header, p, generateVersion(c))
-         prev = c.putIfAbsent(k, v, toMillis(p.lifespan), DefaultTimeUnit, toMillis(p.maxIdle), DefaultTimeUnit)
-      }
-      if (prev == null)
-         createSuccessResponse(header, params, prev)
-      else
-         createNotExecutedResponse(header, params, prev)
+         val existing = c.putIfAbsent(k, v, toMillis(p.lifespan), DefaultTimeUnit, toMillis(p.maxIdle), DefaultTimeUnit)
+         if (existing == null)
+            createStoredResponse(header, params, existing, v)
+         else
+            createNotExecutedResponse(header, params, existing)
+      } else createNotExecutedResponse(header, params, prev)
    }
 
    private def replace(header: SuitableHeader, k: K, params: Option[SuitableParameters], c: Cache[K, V]): AnyRef = {
       val p = params.get
-      var prev = c.get(k)
+      val prev = c.get(k)
       if (prev != null) { // Generate new version only if key present
          val v = createValue(header, p, generateVersion(c))
-         prev = c.replace(k, v, toMillis(p.lifespan), DefaultTimeUnit, toMillis(p.maxIdle), DefaultTimeUnit)
-      }
-      if (prev != null)
-         createSuccessResponse(header, params, prev)
-      else
-         createNotExecutedResponse(header, params, prev)
+         val replaced = c.replace(k, v, toMillis(p.lifespan), DefaultTimeUnit, toMillis(p.maxIdle), DefaultTimeUnit)
+         if (replaced != null)
+            createStoredResponse(header, params, replaced, v)
+         else
+            createNotExecutedResponse(header, params, replaced)
+      } else createNotExecutedResponse(header, params, prev)
    }
 
    private def replaceIfUmodified(header: SuitableHeader, k: K, params: Option[SuitableParameters], c: Cache[K, V]): AnyRef = {
@@ -115,7 +115,7 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue] extends Decoder {
             val v = createValue(header, p, generateVersion(c))
             val replaced = c.replace(k, prev, v);
             if (replaced)
-               createSuccessResponse(header, params, prev)
+               createStoredResponse(header, params, prev, v)
             else
                createNotExecutedResponse(header, params, prev)
          } else {
@@ -163,6 +163,12 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue] extends Decoder {
 
    protected def createSuccessResponse(h: SuitableHeader, params: Option[SuitableParameters], prev: V): AnyRef
 
+   /**
+    * Creates the response of a request which stored the given value, by default the same as a success response.
+    */
+   protected def createStoredResponse(h: SuitableHeader, params: Option[SuitableParameters], prev: V, stored: V): AnyRef =
+      createSuccessResponse(h, params, prev)
+
    protected def createNotExecutedResponse(h: SuitableHeader, params: Option[SuitableParameters], prev: V): AnyRef
 
    protected def createNotExistResponse(h: SuitableHeader, params: Option[SuitableParameters]): AnyRef
@@ -182,6 +188,12 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue] extends Decoder {
       newVersion(rpcManager != null)
    }
 
+}
+
+object AbstractProtocolDecoder extends Logging {
+   private val SecondsInAMonth = 60 * 60 * 24 * 30
+   private val DefaultTimeUnit = TimeUnit.MILLISECONDS
+
    /**
     * Transforms lifespan pass as seconds into milliseconds
     * following this rule:
@@ -194,7 +206,7 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue] extends Decoder {
     * Otherwise it's just considered number of seconds from
     * now and it's returned in milliseconds unit.
     */
-   private def toMillis(lifespan: Int): Long = {
+   def toMillis(lifespan: Int): Long = {
       if (lifespan > SecondsInAMonth) {
          val unixTimeExpiry = TimeUnit.SECONDS.toMillis(lifespan) - System.currentTimeMillis
          if (unixTimeExpiry < 0) 0 else unixTimeExpiry
@@ -202,12 +214,6 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue] extends Decoder {
          TimeUnit.SECONDS.toMillis(lifespan)
       }
    }
-
-}
-
-object AbstractProtocolDecoder extends Logging {
-   private val SecondsInAMonth = 60 * 60 * 24 * 30
-   private val DefaultTimeUnit = TimeUnit.MILLISECONDS 
 }
 
 class RequestHeader(val op: Enumeration#Value) {
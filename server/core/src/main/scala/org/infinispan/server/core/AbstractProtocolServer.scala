@@ -8,6 +8,7 @@ import org.infinispan.manager.EmbeddedCacheManager
 import org.infinispan.server.core.Main._
 import java.util.Properties
 import org.infinispan.util.{TypedProperties, Util}
+import org.infinispan.container.InternalEntrySizeCalculator
 
 /**
  * A common protocol server dealing with common property parameter validation and assignment and transport lifecycle.
@@ -63,6 +64,11 @@ abstract class AbstractProtocolServer(threadNamePrefix: String) extends Protocol
                   masterThreads, workerThreads, idleTimeout, tcpNoDelay, sendBufSize, recvBufSize)
          }
 
+         // Caches defined from now on, including the default one, size protocol values by their data
+         val defaultConfig = cacheManager.getDefaultConfiguration
+         if (defaultConfig.getEvictionSizeCalculatorClass == classOf[InternalEntrySizeCalculator].getName)
+            defaultConfig.setEvictionSizeCalculatorClass(classOf[CacheValueSizeCalculator].getName)
+
          // Register rank calculator before starting any cache so that we can capture all view changes
          cacheManager.addListener(getRankCalculatorListener)
          // Start default cache
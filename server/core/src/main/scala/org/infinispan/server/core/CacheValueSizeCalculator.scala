@@ -0,0 +1,24 @@
+package org.infinispan.server.core
+
+import org.infinispan.container.InternalEntrySizeCalculator
+
+/**
+ * Entry size calculator for protocol caches, whose values are {@link CacheValue} instances wrapping the byte array
+ * sent by the client along with its version. Protocol servers register it for caches that still rely on the default
+ * calculator, so that caches bounded by memory account for the stored data instead of a fixed size per value.
+ *
+ * @since 5.0
+ */
+class CacheValueSizeCalculator extends InternalEntrySizeCalculator {
+
+   // object header, reference to the data and the version, aligned to 8 bytes
+   private val CacheValueSize = 24
+
+   override protected def getObjectSize(o: AnyRef): Long = {
+      o match {
+         case v: CacheValue => CacheValueSize + super.getObjectSize(v.data)
+         case _ => super.getObjectSize(o)
+      }
+   }
+
+}
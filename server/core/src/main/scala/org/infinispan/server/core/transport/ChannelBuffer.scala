@@ -29,6 +29,11 @@ abstract class ChannelBuffer {
     */
    def readUnsignedByte: Short
 
+   /**
+    * Get the unsigned Byte at the given index without modifying the reader index.
+    */
+   def getUnsignedByte(index: Int): Short
+
    /**
     * Read an unsigned, variable length, Int from the buffer.
     */
@@ -64,7 +69,8 @@ abstract class ChannelBuffer {
 
    /**
     * Reads a ranged number of bytes into a byte array. The number of bytes to be read is defined by an unsigned,
-    * variable length, integer that's read from the buffer.
+    * variable length, integer that's read from the buffer. The array returned has exactly that length and is not
+    * shared with the buffer, so it can be stored as is.
     */
    def readRangedBytes: Array[Byte]
 
@@ -14,6 +14,14 @@ object ChannelBuffers {
       ChannelBuffersAdapter.wrappedBuffer(array : _*)
    }
 
+   /**
+    * Returns a buffer made of the readable bytes of the given buffers. None of the buffers' contents are copied, so
+    * they must not be modified afterwards.
+    */
+   def compositeBuffer(buffers: ChannelBuffer*): ChannelBuffer = {
+      ChannelBuffersAdapter.compositeBuffer(buffers : _*)
+   }
+
    def dynamicBuffer(): ChannelBuffer = {
       ChannelBuffersAdapter.dynamicBuffer
    }
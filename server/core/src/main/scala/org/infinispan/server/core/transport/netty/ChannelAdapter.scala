@@ -13,6 +13,8 @@ class ChannelAdapter(val ch: NettyChannel) extends Channel {
 
    override def disconnect: ChannelFuture = new ChannelFutureAdapter(ch.disconnect());
 
+   override def isConnected: Boolean = ch.isConnected
+
    override def write(message: Any): ChannelFuture = {
       val toWrite = message match {
          case buffer: ChannelBuffer => buffer.getUnderlyingChannelBuffer
@@ -15,18 +15,22 @@ class ChannelBufferAdapter(buffer: NettyChannelBuffer) extends ChannelBuffer {
    override def readByte: Byte = buffer.readByte
    override def readBytes(dst: Array[Byte], dstIndex: Int, length: Int) = buffer.readBytes(dst, dstIndex, length)
    override def readUnsignedByte: Short = buffer.readUnsignedByte
+   override def getUnsignedByte(index: Int): Short = buffer.getUnsignedByte(index)
    override def readUnsignedInt: Int = VInt.read(this)
    override def readUnsignedLong: Long = VLong.read(this)
    override def readUnsignedShort: Int = buffer.readUnsignedShort
    override def readBytes(length: Int): ChannelBuffer = new ChannelBufferAdapter(buffer.readBytes(length))
-   override def readerIndex: Int = readerIndex
+   override def readerIndex: Int = buffer.readerIndex
    override def readBytes(dst: Array[Byte]) = buffer.readBytes(dst) 
    override def readRangedBytes: Array[Byte] = {
       val length = readUnsignedInt
       if (length > 0) {
+         // Slicing first makes a replaying buffer check that all the bytes have been received, so the array is only
+         // allocated, and the bytes only copied, once the whole range can be read
+         val range = buffer.readSlice(length)
          val array = new Array[Byte](length)
-         readBytes(array)
-         array;
+         range.readBytes(array)
+         array
       } else {
          Array[Byte]()
       }
@@ -1,7 +1,7 @@
 package org.infinispan.server.core.transport.netty
 
 import org.infinispan.server.core.transport.{ChannelBuffer}
-import org.jboss.netty.buffer.{ChannelBuffers => NettyChannelBuffers}
+import org.jboss.netty.buffer.{ChannelBuffers => NettyChannelBuffers, ChannelBuffer => NettyChannelBuffer}
 
 /**
  * A channel buffers factory adapter for Netty buffers.
@@ -14,6 +14,11 @@ object ChannelBuffersAdapter {
    def wrappedBuffer(array: Array[Byte]*): ChannelBuffer = {
       new ChannelBufferAdapter(NettyChannelBuffers.wrappedBuffer(array : _*));
    }
+
+   def compositeBuffer(buffers: ChannelBuffer*): ChannelBuffer = {
+      val nettyBuffers = buffers.map(_.getUnderlyingChannelBuffer.asInstanceOf[NettyChannelBuffer])
+      new ChannelBufferAdapter(NettyChannelBuffers.wrappedBuffer(nettyBuffers : _*));
+   }
    
    def dynamicBuffer(): ChannelBuffer = {
       new ChannelBufferAdapter(NettyChannelBuffers.dynamicBuffer());
@@ -13,6 +13,10 @@ import org.infinispan.util.concurrent.TimeoutException
 import java.io.IOException
 import org.infinispan.context.Flag.SKIP_REMOTE_LOOKUP
 import org.infinispan.util.ByteArrayKey
+import org.infinispan.server.core.AbstractProtocolDecoder.toMillis
+import org.infinispan.server.core.VersionGenerator.newVersion
+import java.util.{HashMap, HashSet}
+import java.util.concurrent.TimeUnit.MILLISECONDS
 
 /**
  * HotRod protocol decoder specific for specification version 1.0.
@@ -41,6 +45,9 @@ object Decoder10 extends AbstractVersionedDecoder with Logging {
          case 0x15 => StatsRequest
          case 0x17 => PingRequest
          case 0x19 => BulkGetRequest
+         case 0x1B => PutAllRequest
+         case 0x1D => GetAllRequest
+         case 0x1F => AddNearCacheListenerRequest
          case _ => throw new UnknownOperationException("Unknown operation: " + streamOp)
       }
       if (isTraceEnabled) trace("Operation code: {0} has been matched to {1}", streamOp, op)
@@ -155,6 +162,30 @@ object Decoder10 extends AbstractVersionedDecoder with Logging {
             if (isTraceEnabled) trace("About to create bulk response, count = " + count)
             new BulkGetResponse(h.messageId, h.cacheName, h.clientIntel, BulkGetResponse, Success, h.topologyId, count)
          }
+         case PutAllRequest => {
+            val lifespan = toMillis(readLifespanOrMaxIdle(buffer))
+            val maxIdle = toMillis(readLifespanOrMaxIdle(buffer))
+            val count = buffer.readUnsignedInt
+            val isClustered = cache.getAdvancedCache.getRpcManager != null
+            val entries = new HashMap[ByteArrayKey, CacheValue]
+            for (i <- 0 until count)
+               entries.put(readKey(buffer), new CacheValue(buffer.readRangedBytes, newVersion(isClustered)))
+            if (isTraceEnabled) trace("About to put {0} entries", count)
+            getOptimizedCache(h, cache).putAll(entries, lifespan, MILLISECONDS, maxIdle, MILLISECONDS)
+            new Response(h.messageId, h.cacheName, h.clientIntel, PutAllResponse, Success, h.topologyId)
+         }
+         case GetAllRequest => {
+            val count = buffer.readUnsignedInt
+            val keys = new HashSet[ByteArrayKey]
+            for (i <- 0 until count) keys.add(readKey(buffer))
+            if (isTraceEnabled) trace("About to get {0} keys", count)
+            new GetAllResponse(h.messageId, h.cacheName, h.clientIntel, GetAllResponse, Success, h.topologyId,
+               cache.getAll(keys))
+         }
+         case AddNearCacheListenerRequest =>
+            // The listener itself is registered by HotRodDecoder, which knows the channel to push invalidations to
+            new InvalidationResponse(h.messageId, h.cacheName, h.clientIntel, AddNearCacheListenerResponse, Success,
+               h.topologyId, Nil)
       }
    }
 
@@ -206,6 +237,9 @@ object Decoder10 extends AbstractVersionedDecoder with Logging {
          case StatsRequest => StatsResponse
          case PingRequest => PingResponse
          case BulkGetRequest => BulkGetResponse
+         case PutAllRequest => PutAllResponse
+         case GetAllRequest => GetAllResponse
+         case AddNearCacheListenerRequest => AddNearCacheListenerResponse
       }
    }
 
@@ -226,6 +260,9 @@ object OperationResponse extends Enumeration {
    val StatsResponse = Value(0x16)
    val PingResponse = Value(0x18)
    val BulkGetResponse = Value(0x1A)
+   val PutAllResponse = Value(0x1C)
+   val GetAllResponse = Value(0x1E)
+   val AddNearCacheListenerResponse = Value(0x20)
    val ErrorResponse = Value(0x50)
 }
 
@@ -19,9 +19,10 @@ import org.infinispan.util.ByteArrayKey
  * @author Galder Zamarreño
  * @since 4.1
  */
-class HotRodDecoder(cacheManager: EmbeddedCacheManager) extends AbstractProtocolDecoder[ByteArrayKey, CacheValue] {
+class HotRodDecoder(cacheManager: EmbeddedCacheManager, server: HotRodServer) extends AbstractProtocolDecoder[ByteArrayKey, CacheValue] {
    import HotRodDecoder._
    import HotRodServer._
+   import HotRodOperation._
    
    type SuitableHeader = HotRodHeader
    type SuitableParameters = RequestParameters
@@ -29,6 +30,13 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager) extends AbstractProtocol
    private var isError = false
    private var joined = false
    private val isTrace = isTraceEnabled
+   private var channel: Channel = _
+
+   override def decode(ctx: ChannelHandlerContext, buffer: ChannelBuffer): AnyRef = {
+      // Decoders are not shared between connections, so remember it in case a near cache listener is added
+      if (channel == null) channel = ctx.getChannel
+      super.decode(ctx, buffer)
+   }
 
    override def readHeader(buffer: ChannelBuffer): HotRodHeader = {
       try {
@@ -105,6 +113,9 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager) extends AbstractProtocol
       null // Unsupported
 
    override def handleCustomRequest(h: HotRodHeader, b: ChannelBuffer, cache: Cache[ByteArrayKey, CacheValue]): AnyRef = {
+      // Register before the response is written, so that the client sees every invalidation following it
+      if (h.op == AddNearCacheListenerRequest)
+         server.addNearCacheListener(h.cacheName, cache, channel, h.messageId)
       val result = h.decoder.handleCustomRequest(h, b, cache)
       if (isTrace) trace("About to return: " + result)
       result
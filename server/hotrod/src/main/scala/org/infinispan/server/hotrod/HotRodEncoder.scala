@@ -33,10 +33,12 @@ class HotRodEncoder(cacheManager: EmbeddedCacheManager) extends Encoder {
       }
       msg match {
          case r: ResponseWithPrevious => {
-            if (r.previous == None)
+            if (r.previous == None) {
                buffer.writeUnsignedInt(0)
-            else
-               buffer.writeRangedBytes(r.previous.get)
+               buffer
+            } else {
+               writeValue(buffer, r.previous.get)
+            }
          }
          case s: StatsResponse => {
             buffer.writeUnsignedInt(s.stats.size)
@@ -44,12 +46,13 @@ class HotRodEncoder(cacheManager: EmbeddedCacheManager) extends Encoder {
                buffer.writeString(key)
                buffer.writeString(value)
             }
+            buffer
          }
          case g: GetWithVersionResponse => {
             if (g.status == Success) {
                buffer.writeLong(g.version)
-               buffer.writeRangedBytes(g.data.get)
-            }
+               writeValue(buffer, g.data.get)
+            } else buffer
          }
          case g: BulkGetResponse => {
             if (isTrace) trace("About to respond to bulk get request")
@@ -67,12 +70,47 @@ class HotRodEncoder(cacheManager: EmbeddedCacheManager) extends Encoder {
                }
                buffer.writeByte(0) // Done
             }
+            buffer
+         }
+         case g: GetAllResponse => {
+            if (g.status == Success) {
+               buffer.writeUnsignedInt(g.entries.size)
+               for (entry <- asIterator(g.entries.entrySet.iterator)) {
+                  buffer.writeRangedBytes(entry.getKey.getData)
+                  buffer.writeRangedBytes(entry.getValue.data)
+               }
+            }
+            buffer
+         }
+         case g: GetResponse => if (g.status == Success) writeValue(buffer, g.data.get) else buffer
+         case i: InvalidationResponse => {
+            buffer.writeUnsignedInt(i.keys.size)
+            i.keys.foreach(buffer.writeRangedBytes(_))
+            buffer
+         }
+         case e: ErrorResponse => {
+            buffer.writeString(e.msg)
+            buffer
+         }
+         case _ => {
+            if (buffer == null) throw new IllegalArgumentException("Response received is unknown: " + msg);
+            buffer
          }
-         case g: GetResponse => if (g.status == Success) buffer.writeRangedBytes(g.data.get)
-         case e: ErrorResponse => buffer.writeString(e.msg)
-         case _ => if (buffer == null) throw new IllegalArgumentException("Response received is unknown: " + msg);         
       }
-      buffer
+   }
+
+   /**
+    * Writes a value, as stored in the cache, at the end of the response. Large values are not copied into the
+    * response buffer; instead, the response is sent as a composite of the buffer and the stored array.
+    */
+   private def writeValue(buffer: ChannelBuffer, value: Array[Byte]): ChannelBuffer = {
+      if (value.length < MinWrappedValueLength) {
+         buffer.writeRangedBytes(value)
+         buffer
+      } else {
+         buffer.writeUnsignedInt(value.length)
+         compositeBuffer(buffer, wrappedBuffer(value))
+      }
    }
 
    private def getTopologyResponse(r: Response): AbstractTopologyResponse = {
@@ -185,4 +223,9 @@ class HotRodEncoder(cacheManager: EmbeddedCacheManager) extends Encoder {
 
 object HotRodEncoder extends Logging {
    private val Magic = 0xA1
+
+   /**
+    * Values shorter than this are cheaper to copy into the response buffer than to wrap.
+    */
+   val MinWrappedValueLength = 1024
 }
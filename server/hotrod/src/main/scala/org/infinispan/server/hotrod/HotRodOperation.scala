@@ -15,5 +15,8 @@ object HotRodOperation extends Enumeration(20) {
    val QuitRequest = Value
    val PingRequest = Value
    val BulkGetRequest = Value
+   val PutAllRequest = Value
+   val GetAllRequest = Value
+   val AddNearCacheListenerRequest = Value
 
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package org.infinispan.server.hotrod
 
-import org.infinispan.server.core.transport.{Decoder, Encoder}
+import org.infinispan.server.core.transport.{Channel, Decoder, Encoder}
 import org.infinispan.config.Configuration
 import org.infinispan.config.Configuration.CacheMode
 import org.infinispan.notifications.Listener
@@ -12,6 +12,7 @@ import org.infinispan.{CacheException, Cache}
 import org.infinispan.remoting.transport.Address
 import org.infinispan.manager.EmbeddedCacheManager
 import java.util.{Properties, Random}
+import java.util.concurrent.{ScheduledExecutorService, Executors, ConcurrentHashMap}
 import org.infinispan.server.core.{CacheValue, Logging, AbstractProtocolServer}
 import org.infinispan.eviction.EvictionStrategy
 import org.infinispan.util.{TypedProperties, ByteArrayKey, Util};
@@ -31,12 +32,32 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Logging {
    private var topologyCache: Cache[String, TopologyView] = _
    private val rand = new Random
    private val maxWaitTime = SECONDS.toMillis(30) // TODO: Make this configurable?
+   private val nearCacheInvalidators = new ConcurrentHashMap[String, NearCacheInvalidator]
+   // only created once a client registers a near cache, guarded by this server's lock
+   private var scheduler: ScheduledExecutorService = _
 
    def getAddress: TopologyAddress = address
 
    override def getEncoder: Encoder = new HotRodEncoder(getCacheManager)
 
-   override def getDecoder: Decoder = new HotRodDecoder(getCacheManager)
+   override def getDecoder: Decoder = new HotRodDecoder(getCacheManager, this)
+
+   /**
+    * Pushes the keys later modified or removed in the given cache to the channel, as responses to the given message.
+    * The cache listener is only added when the first client registers a near cache for the cache.
+    */
+   def addNearCacheListener(cacheName: String, cache: Cache[ByteArrayKey, CacheValue], channel: Channel, messageId: Long) {
+      synchronized {
+         var invalidator = nearCacheInvalidators.get(cacheName)
+         if (invalidator == null) {
+            if (scheduler == null) scheduler = Executors.newScheduledThreadPool(1)
+            invalidator = new NearCacheInvalidator(cache, scheduler)
+            cache.addListener(invalidator)
+            nearCacheInvalidators.put(cacheName, invalidator)
+         }
+         invalidator.addSubscription(channel, messageId, cacheName)
+      }
+   }
 
    override def start(p: Properties, cacheManager: EmbeddedCacheManager) {
       val properties = if (p == null) new Properties else p
@@ -112,6 +133,15 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Logging {
    }
 
    override def stop {
+      for (invalidator <- asIterator(nearCacheInvalidators.values.iterator))
+         invalidator.cache.removeListener(invalidator)
+      nearCacheInvalidators.clear
+      synchronized {
+         if (scheduler != null) {
+            scheduler.shutdown
+            scheduler = null
+         }
+      }
       super.stop
       if (isClustered)
          removeSelfFromTopologyView
@@ -0,0 +1,154 @@
+package org.infinispan.server.hotrod
+
+import org.infinispan.notifications.Listener
+import org.infinispan.notifications.cachelistener.annotation.{CacheEntryEvicted, CacheEntryInvalidated, CacheEntryRemoved, CacheEntryModified}
+import org.infinispan.notifications.cachelistener.event.{CacheEntryEvictedEvent, CacheEntryInvalidatedEvent, CacheEntryRemovedEvent, CacheEntryModifiedEvent}
+import org.infinispan.server.core.transport.Channel
+import org.infinispan.server.core.{CacheValue, Logging}
+import org.infinispan.util.ByteArrayKey
+import org.infinispan.Cache
+import java.util.concurrent.{ConcurrentSkipListSet, ScheduledExecutorService, ConcurrentHashMap}
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.TimeUnit.MILLISECONDS
+import scala.collection.JavaConversions._
+import OperationStatus._
+import OperationResponse._
+
+/**
+ * Cache listener pushing the keys modified or removed in a cache to the Hot Rod clients that registered a near cache
+ * for it. Invalidations are written to the channel the registration was received from, tagged with the message id of
+ * the registration request, until the channel is closed.
+ * <p/>
+ * Notifications are synchronous so that an invalidation is queued on the channel before the response of the
+ * operation that caused it is sent.
+ * <p/>
+ * Expiration does not notify listeners, so entries stored with a lifespan or max idle are queued by the time they are
+ * due to expire. A single task run by the given scheduler every second checks the entries that are due, and pushes
+ * the ones that have expired. Reads served by near caches never reach the server, so they do not keep an entry with a
+ * max idle alive.
+ *
+ * @since 5.0
+ */
+@Listener
+class NearCacheInvalidator(val cache: Cache[ByteArrayKey, CacheValue], scheduler: ScheduledExecutorService) extends Logging {
+   import NearCacheInvalidator._
+
+   private val subscriptions = new ConcurrentHashMap[Subscription, Subscription]
+   // the pending check of each key, and all pending checks ordered by the time they are due
+   private val expiryChecks = new ConcurrentHashMap[ByteArrayKey, ExpiryCheck]
+   private val dueChecks = new ConcurrentSkipListSet[ExpiryCheck]
+   private val checkSequence = new AtomicLong
+
+   scheduler.scheduleWithFixedDelay(new Runnable {
+      override def run = checkDueEntries
+   }, SweepInterval, SweepInterval, MILLISECONDS)
+
+   def addSubscription(channel: Channel, messageId: Long, cacheName: String) {
+      val subscription = new Subscription(channel, messageId, cacheName)
+      subscriptions.put(subscription, subscription)
+      if (isTraceEnabled) trace("Added near cache subscription for message id {0} on cache {1}", messageId, cache.getName)
+   }
+
+   @CacheEntryModified
+   def entryModified(e: CacheEntryModifiedEvent[ByteArrayKey, CacheValue]) {
+      if (!e.isPre) {
+         invalidate(e.getKey)
+         scheduleExpiryCheck(e.getKey)
+      }
+   }
+
+   @CacheEntryRemoved
+   def entryRemoved(e: CacheEntryRemovedEvent[ByteArrayKey, CacheValue]) {
+      if (!e.isPre) {
+         invalidate(e.getKey)
+         cancelExpiryCheck(e.getKey)
+      }
+   }
+
+   @CacheEntryEvicted
+   def entryEvicted(e: CacheEntryEvictedEvent[ByteArrayKey, CacheValue]) {
+      if (!e.isPre) invalidate(e.getKey)
+   }
+
+   @CacheEntryInvalidated
+   def entryInvalidated(e: CacheEntryInvalidatedEvent[ByteArrayKey, CacheValue]) {
+      if (!e.isPre) invalidate(e.getKey)
+   }
+
+   private def invalidate(key: ByteArrayKey) {
+      if (subscriptions.isEmpty) return
+      val keys = List(key.getData)
+      for (subscription <- asIterator(subscriptions.keySet.iterator)) {
+         if (subscription.channel.isConnected) {
+            // Basic client intelligence so that topology changes are never piggybacked on invalidations
+            subscription.channel.write(new InvalidationResponse(subscription.messageId, subscription.cacheName, 1,
+               AddNearCacheListenerResponse, Success, 0, keys))
+         } else {
+            if (isTraceEnabled) trace("Removing near cache subscription for message id {0}, channel is closed", subscription.messageId)
+            subscriptions.remove(subscription)
+         }
+      }
+   }
+
+   private def scheduleExpiryCheck(key: ByteArrayKey) {
+      if (subscriptions.isEmpty) return
+      // the post modification event is raised before the entry is committed, so read its settings from the context
+      val entry = cache.getAdvancedCache.getInvocationContextContainer.getInvocationContext.lookupEntry(key)
+      val delay = if (entry == null) -1 else expiryDelay(entry.getLifespan, entry.getMaxIdle)
+      if (delay < 0) cancelExpiryCheck(key) else scheduleExpiryCheck(key, delay)
+   }
+
+   private def scheduleExpiryCheck(key: ByteArrayKey, delay: Long) {
+      val check = new ExpiryCheck(key, System.currentTimeMillis + delay, checkSequence.incrementAndGet)
+      val previous = expiryChecks.put(key, check)
+      if (previous != null) dueChecks.remove(previous)
+      dueChecks.add(check)
+   }
+
+   private def cancelExpiryCheck(key: ByteArrayKey) {
+      val previous = expiryChecks.remove(key)
+      if (previous != null) dueChecks.remove(previous)
+   }
+
+   private def checkDueEntries {
+      val now = System.currentTimeMillis
+      while (!dueChecks.isEmpty && dueChecks.first.time <= now) {
+         val check = dueChecks.pollFirst
+         // checks replaced by concurrent modifications of the same key are dropped
+         if (check != null && (expiryChecks.get(check.key) eq check)) checkExpiry(check)
+      }
+   }
+
+   private def checkExpiry(check: ExpiryCheck) {
+      val entry = cache.getAdvancedCache.getDataContainer.peek(check.key)
+      if (entry == null || entry.isExpired) {
+         if (isTraceEnabled) trace("Pushing expired key {0}", check.key)
+         if (expiryChecks.remove(check.key, check)) invalidate(check.key)
+      } else if (entry.canExpire) {
+         // the entry was touched since the check was queued
+         scheduleExpiryCheck(check.key, math.max(entry.getExpiryTime - System.currentTimeMillis, 0))
+      } else {
+         expiryChecks.remove(check.key, check)
+      }
+   }
+
+   private def expiryDelay(lifespan: Long, maxIdle: Long): Long = {
+      if (lifespan < 0) maxIdle
+      else if (maxIdle < 0) lifespan
+      else math.min(lifespan, maxIdle)
+   }
+
+   private class Subscription(val channel: Channel, val messageId: Long, val cacheName: String)
+
+   private class ExpiryCheck(val key: ByteArrayKey, val time: Long, val sequence: Long) extends Ordered[ExpiryCheck] {
+      override def compare(other: ExpiryCheck): Int = {
+         if (time != other.time) (if (time < other.time) -1 else 1)
+         else if (sequence != other.sequence) (if (sequence < other.sequence) -1 else 1)
+         else 0
+      }
+   }
+}
+
+object NearCacheInvalidator {
+   private val SweepInterval = 1000
+}
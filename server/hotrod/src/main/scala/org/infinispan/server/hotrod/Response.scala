@@ -3,6 +3,8 @@ package org.infinispan.server.hotrod
 import OperationStatus._
 import OperationResponse._
 import org.infinispan.util.Util
+import org.infinispan.util.ByteArrayKey
+import org.infinispan.server.core.CacheValue
 
 /**
  * A basic responses. The rest of this file contains other response types.
@@ -65,6 +67,35 @@ class BulkGetResponse(override val messageId: Long, override val cacheName: Stri
    }
 }
 
+class GetAllResponse(override val messageId: Long, override val cacheName: String, override val clientIntel: Short,
+                     override val operation: OperationResponse, override val status: OperationStatus,
+                     override val topologyId: Int, val entries: java.util.Map[ByteArrayKey, CacheValue])
+      extends Response(messageId, cacheName, clientIntel, operation, status, topologyId) {
+   override def toString = {
+      new StringBuilder().append("GetAllResponse").append("{")
+         .append("messageId=").append(messageId)
+         .append(", operation=").append(operation)
+         .append(", status=").append(status)
+         .append(", entries=").append(entries.size)
+         .append("}").toString
+   }
+}
+
+class InvalidationResponse(override val messageId: Long, override val cacheName: String,
+                           override val clientIntel: Short, override val operation: OperationResponse,
+                           override val status: OperationStatus, override val topologyId: Int,
+                           val keys: Seq[Array[Byte]])
+      extends Response(messageId, cacheName, clientIntel, operation, status, topologyId) {
+   override def toString = {
+      new StringBuilder().append("InvalidationResponse").append("{")
+         .append("messageId=").append(messageId)
+         .append(", operation=").append(operation)
+         .append(", status=").append(status)
+         .append(", keys=").append(keys.size)
+         .append("}").toString
+   }
+}
+
 class GetWithVersionResponse(override val messageId: Long, override val cacheName: String,
                              override val clientIntel: Short, override val operation: OperationResponse,
                              override val status: OperationStatus,
@@ -0,0 +1,47 @@
+package org.infinispan.server.hotrod
+
+import org.infinispan.test.SingleCacheManagerTest
+import org.infinispan.test.fwk.TestCacheManagerFactory
+import org.infinispan.manager.EmbeddedCacheManager
+import org.jboss.netty.buffer.{ChannelBuffer => NettyChannelBuffer}
+import org.infinispan.server.core.transport.ChannelBuffer
+import org.testng.annotations.Test
+import org.testng.Assert._
+import OperationStatus._
+
+/**
+ * Measures how many bytes the encoder copies when writing get responses, which for large values should only be the
+ * response header, since the stored array is sent as is.
+ *
+ * @since 5.0
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.HotRodEncoderTest")
+class HotRodEncoderTest extends SingleCacheManagerTest {
+
+   private lazy val encoder = new HotRodEncoder(cacheManager)
+
+   override def createCacheManager: EmbeddedCacheManager = TestCacheManagerFactory.createLocalCacheManager
+
+   def testLargeValueIsNotCopied {
+      val value = new Array[Byte](100 * 1024)
+      val encoded = encode(value)
+      val copied = encoded.readableBytes - value.length
+      assertTrue(copied < 16, "Copied " + copied + " bytes to send a " + value.length + " bytes value")
+      value(value.length - 1) = 1
+      assertEquals(encoded.getByte(encoded.writerIndex - 1).toInt, 1)
+   }
+
+   def testSmallValueIsCopied {
+      val value = new Array[Byte](HotRodEncoder.MinWrappedValueLength - 1)
+      val encoded = encode(value)
+      value(value.length - 1) = 1
+      assertEquals(encoded.getByte(encoded.writerIndex - 1).toInt, 0)
+   }
+
+   private def encode(value: Array[Byte]): NettyChannelBuffer = {
+      val response = new GetResponse(1, "", 1, OperationResponse.GetResponse, Success, 0, Some(value))
+      encoder.encode(null, null, response).asInstanceOf[ChannelBuffer]
+            .getUnderlyingChannelBuffer.asInstanceOf[NettyChannelBuffer]
+   }
+
+}
@@ -0,0 +1,383 @@
+package org.infinispan.server.memcached
+
+import org.infinispan.server.core._
+import org.infinispan.server.core.Operation._
+import org.infinispan.server.core.transport._
+import org.infinispan.server.core.transport.ChannelBuffers._
+import org.infinispan.server.memcached.MemcachedOperation._
+import org.infinispan.{AdvancedCache, Version, Cache}
+import org.infinispan.context.Flag
+import org.infinispan.stats.Stats
+import java.io.{IOException, StreamCorruptedException}
+import java.nio.{BufferUnderflowException, ByteBuffer}
+import java.nio.channels.ClosedChannelException
+import java.util.concurrent.{TimeUnit, ScheduledExecutorService}
+import collection.mutable.ListBuffer
+
+/**
+ * A Memcached binary protocol decoder. Each request is read as a whole, header, extras, key and value, before it is
+ * executed, and responses carry the opaque value of their request so that clients can pipeline requests.
+ * <p/>
+ * The quiet variants of the commands only send a response when the command fails or, for gets, when the key is found,
+ * which lets clients send a batch of them followed by a no-op and wait for the no-op response only.
+ *
+ * @since 5.0
+ */
+class MemcachedBinaryDecoder(cache: Cache[String, MemcachedValue], scheduler: ScheduledExecutorService)
+      extends AbstractProtocolDecoder[String, MemcachedValue] with MemcachedStatistics {
+   import MemcachedBinaryDecoder._
+
+   type SuitableParameters = MemcachedParameters
+   type SuitableHeader = BinaryRequestHeader
+
+   protected lazy val isStatsEnabled = cache.getConfiguration.isExposeJmxStatistics
+   // Decoders are not shared between connections, so this can be kept without synchronization
+   private var channel: Channel = _
+
+   override def decode(ctx: ChannelHandlerContext, buffer: ChannelBuffer): AnyRef = {
+      if (channel == null) channel = ctx.getChannel
+      super.decode(ctx, buffer)
+   }
+
+   override def readHeader(b: ChannelBuffer): BinaryRequestHeader = {
+      val magic = b.readUnsignedByte
+      if (magic != RequestMagic) throw new InvalidMagicException("Invalid magic byte: " + magic)
+      val opCode = b.readUnsignedByte
+      val keyLength = b.readUnsignedShort
+      val extrasLength = b.readUnsignedByte
+      b.readUnsignedByte // data type, reserved for future use
+      b.readUnsignedShort // vbucket id, not used
+      val bodyLength = b.readInt
+      val opaque = b.readInt
+      val cas = b.readLong
+      val extras = readBytes(b, extrasLength)
+      val key = new String(readBytes(b, keyLength))
+      val value = readBytes(b, bodyLength - extrasLength - keyLength)
+
+      val op = toRequest(opCode, cas)
+      if (op == null) {
+         val header = new BinaryRequestHeader(op, opCode, opaque, key, None)
+         throw new ServerException(header, new UnknownOperationException("Unknown operation: " + opCode))
+      }
+      val header = try {
+         new BinaryRequestHeader(op, opCode, opaque, key, toParameters(op, opCode, cas, ByteBuffer.wrap(extras), value))
+      } catch {
+         case e: BufferUnderflowException => {
+            val header = new BinaryRequestHeader(op, opCode, opaque, key, None)
+            throw new ServerException(header, new StreamCorruptedException("Extras too short for operation " + op))
+         }
+      }
+      if (isTraceEnabled) trace("Decoded header {0}", header)
+      header
+   }
+
+   private def readBytes(b: ChannelBuffer, length: Int): Array[Byte] = {
+      if (length == 0) return NoBytes
+      val bytes = new Array[Byte](length)
+      b.readBytes(bytes)
+      bytes
+   }
+
+   override def getCache(h: BinaryRequestHeader): Cache[String, MemcachedValue] = cache
+
+   override def readKey(h: BinaryRequestHeader, b: ChannelBuffer): String = h.key
+
+   override def readParameters(h: BinaryRequestHeader, b: ChannelBuffer): Option[MemcachedParameters] = h.params
+
+   override def createValue(h: BinaryRequestHeader, p: MemcachedParameters, nextVersion: Long): MemcachedValue =
+      new MemcachedValue(p.data, nextVersion, p.flags)
+
+   override protected def get(h: BinaryRequestHeader, buffer: ChannelBuffer, cache: Cache[String, MemcachedValue]): AnyRef =
+      createGetResponse(h, h.key, cache.get(h.key))
+
+   override def createSuccessResponse(h: BinaryRequestHeader, params: Option[MemcachedParameters], prev: MemcachedValue): AnyRef =
+      successResponse(h)
+
+   override def createStoredResponse(h: BinaryRequestHeader, params: Option[MemcachedParameters], prev: MemcachedValue,
+                                     stored: MemcachedValue): AnyRef = {
+      if (isStatsEnabled && h.op == ReplaceIfUnmodifiedRequest) replaceIfUnmodifiedHits.incrementAndGet
+      // The version of the value just stored, which clients can use for a later check-and-set
+      successResponse(h, cas = stored.version)
+   }
+
+   override def createNotExecutedResponse(h: BinaryRequestHeader, params: Option[MemcachedParameters], prev: MemcachedValue): AnyRef = {
+      h.op match {
+         case ReplaceIfUnmodifiedRequest => {
+            if (isStatsEnabled) replaceIfUnmodifiedBadval.incrementAndGet
+            errorResponse(h, KeyExists)
+         }
+         case PutIfAbsentRequest => errorResponse(h, KeyExists)
+         case _ => errorResponse(h, KeyNotFound)
+      }
+   }
+
+   override def createNotExistResponse(h: BinaryRequestHeader, params: Option[MemcachedParameters]): AnyRef = {
+      if (isStatsEnabled && h.op == ReplaceIfUnmodifiedRequest) replaceIfUnmodifiedMisses.incrementAndGet
+      errorResponse(h, KeyNotFound)
+   }
+
+   override def createGetResponse(h: BinaryRequestHeader, k: String, v: MemcachedValue): AnyRef = {
+      if (v != null) {
+         val extras = ByteBuffer.allocate(4).putInt(v.flags).array
+         val key = if (h.opCode == OpCode.GetK || h.opCode == OpCode.GetKQ) k.getBytes else NoBytes
+         response(h, NoError, v.version, extras, key, v.data)
+      } else if (h.quiet) {
+         null
+      } else {
+         errorResponse(h, KeyNotFound)
+      }
+   }
+
+   override def createMultiGetResponse(h: BinaryRequestHeader, pairs: Map[String, MemcachedValue]): AnyRef =
+      null // Unsupported, multiple keys are retrieved by pipelining quiet gets
+
+   override def handleCustomRequest(h: BinaryRequestHeader, b: ChannelBuffer, cache: Cache[String, MemcachedValue]): AnyRef = {
+      val p = h.params.get
+      h.op match {
+         case AppendRequest | PrependRequest => {
+            val next = applyUpdate(h.key, new MemcachedValueUpdate(h.op, p.data, generateVersion(cache)))
+            if (next != null) successResponse(h, cas = next.version) else errorResponse(h, ItemNotStored)
+         }
+         case IncrementRequest | DecrementRequest => {
+            val version = generateVersion(cache)
+            val update = new MemcachedValueUpdate(h.op, p.delta.getBytes, version)
+            var next = applyUpdate(h.key, update)
+            if (next == null && p.data != null) {
+               // Create the counter with the initial value, unless it has been created in the meantime
+               val initial = new MemcachedValue(p.data, version, 0)
+               val prev = cache.putIfAbsent(h.key, initial, AbstractProtocolDecoder.toMillis(p.lifespan),
+                  TimeUnit.MILLISECONDS, AbstractProtocolDecoder.toMillis(p.maxIdle), TimeUnit.MILLISECONDS)
+               next = if (prev == null) initial else applyUpdate(h.key, update)
+            }
+            if (next != null) {
+               if (isStatsEnabled) if (h.op == IncrementRequest) incrHits.incrementAndGet else decrHits.incrementAndGet
+               // Counters are unsigned 64 bit integers, so the bits of their long value are what has to be sent
+               val counter = ByteBuffer.allocate(8).putLong(BigInt(new String(next.data)).longValue).array
+               successResponse(h, cas = next.version, value = counter)
+            } else {
+               if (isStatsEnabled) if (h.op == IncrementRequest) incrMisses.incrementAndGet else decrMisses.incrementAndGet
+               errorResponse(h, KeyNotFound)
+            }
+         }
+         case RemoveIfUnmodifiedRequest => {
+            val prev = cache.get(h.key)
+            if (prev == null)
+               errorResponse(h, KeyNotFound)
+            else if (prev.version == p.streamVersion && cache.remove(h.key, prev))
+               successResponse(h)
+            else
+               errorResponse(h, KeyExists)
+         }
+         case FlushAllRequest => {
+            val flushFunction = (cache: AdvancedCache[String, MemcachedValue]) => cache.withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_STORE).clear
+            if (p.flushDelay == 0)
+               flushFunction(cache.getAdvancedCache)
+            else
+               scheduler.schedule(new DelayedFlushAll(cache, flushFunction), p.flushDelay, TimeUnit.SECONDS)
+            successResponse(h)
+         }
+         case VersionRequest => response(h, NoError, value = Version.version.getBytes)
+         case NoOpRequest => response(h, NoError)
+         case QuitRequest => {
+            if (!h.quiet) channel.write(response(h, NoError))
+            channel.disconnect
+            null
+         }
+      }
+   }
+
+   /**
+    * Applies the update to the value of the key while holding its lock, and returns the updated value, or null if the
+    * key does not exist.
+    */
+   private def applyUpdate(k: String, update: MemcachedValueUpdate): MemcachedValue =
+      cache.asInstanceOf[Cache[String, AnyRef]].put(k, update).asInstanceOf[MemcachedValue]
+
+   override def createStatsResponse(h: BinaryRequestHeader, stats: Stats): AnyRef = {
+      val elements = new ListBuffer[ChannelBuffer]
+      for ((stat, value) <- statValues(stats, cache.getVersion))
+         elements += response(h, NoError, key = stat.getBytes, value = value.toString.getBytes)
+      elements += response(h, NoError) // An empty stat ends the list
+      elements.toList
+   }
+
+   override def createErrorResponse(t: Throwable): AnyRef = {
+      t match {
+         case se: ServerException => {
+            val h = se.header.asInstanceOf[BinaryRequestHeader]
+            se.getCause match {
+               case c: ClosedChannelException => null // no-op, only log
+               case u: UnknownOperationException => errorResponse(h, UnknownCommand)
+               case i: IOException => response(h, InvalidArguments, value = i.toString.getBytes)
+               case e: Throwable if isNonNumeric(e) => errorResponse(h, NonNumericValue)
+               case e: Throwable => response(h, InternalError, value = e.toString.getBytes)
+            }
+         }
+         case _ => null // The request could not be read, so there is nobody to answer to
+      }
+   }
+
+   override def exceptionCaught(ctx: ChannelHandlerContext, e: ExceptionEvent) {
+      super.exceptionCaught(ctx, e)
+      e.getCause match {
+         case se: ServerException => // The request was read entirely, so the connection can still be used
+         case _ => ctx.getChannel.disconnect // The stream cannot be trusted any longer, i.e. after an invalid magic byte
+      }
+   }
+
+   private def isNonNumeric(t: Throwable): Boolean =
+      t != null && (t.isInstanceOf[NumberFormatException] || isNonNumeric(t.getCause))
+
+   private def successResponse(h: BinaryRequestHeader, cas: Long = 0, value: Array[Byte] = NoBytes): ChannelBuffer =
+      if (h.quiet) null else response(h, NoError, cas, value = value)
+
+   private def errorResponse(h: BinaryRequestHeader, status: Int): ChannelBuffer =
+      response(h, status, value = StatusMessages(status))
+
+   private def response(h: BinaryRequestHeader, status: Int, cas: Long = 0, extras: Array[Byte] = NoBytes,
+                        key: Array[Byte] = NoBytes, value: Array[Byte] = NoBytes): ChannelBuffer = {
+      val header = ByteBuffer.allocate(HeaderLength)
+      header.put(ResponseMagic)
+      header.put(h.opCode.toByte)
+      header.putShort(key.length.toShort)
+      header.put(extras.length.toByte)
+      header.put(0.toByte) // data type, raw bytes
+      header.putShort(status.toShort)
+      header.putInt(extras.length + key.length + value.length)
+      header.putInt(h.opaque)
+      header.putLong(cas)
+      wrappedBuffer(header.array, extras, key, value)
+   }
+
+}
+
+object MemcachedBinaryDecoder extends Logging {
+   val RequestMagic = 0x80
+   val ResponseMagic = 0x81.toByte
+
+   private val HeaderLength = 24
+   private val NoBytes = new Array[Byte](0)
+
+   // Response status codes
+   private val NoError = 0x0000
+   private val KeyNotFound = 0x0001
+   private val KeyExists = 0x0002
+   private val InvalidArguments = 0x0004
+   private val ItemNotStored = 0x0005
+   private val NonNumericValue = 0x0006
+   private val UnknownCommand = 0x0081
+   private val InternalError = 0x0084
+
+   private val StatusMessages = Map[Int, Array[Byte]](
+      KeyNotFound -> "Not found".getBytes,
+      KeyExists -> "Data exists for key".getBytes,
+      ItemNotStored -> "Not stored".getBytes,
+      NonNumericValue -> "Non-numeric server-side value for incr or decr".getBytes,
+      UnknownCommand -> "Unknown command".getBytes
+   )
+
+   object OpCode {
+      val Get = 0x00
+      val Set = 0x01
+      val Add = 0x02
+      val Replace = 0x03
+      val Delete = 0x04
+      val Increment = 0x05
+      val Decrement = 0x06
+      val Quit = 0x07
+      val Flush = 0x08
+      val GetQ = 0x09
+      val NoOp = 0x0a
+      val Version = 0x0b
+      val GetK = 0x0c
+      val GetKQ = 0x0d
+      val Append = 0x0e
+      val Prepend = 0x0f
+      val Stat = 0x10
+      val SetQ = 0x11
+      val AddQ = 0x12
+      val ReplaceQ = 0x13
+      val DeleteQ = 0x14
+      val IncrementQ = 0x15
+      val DecrementQ = 0x16
+      val QuitQ = 0x17
+      val FlushQ = 0x18
+      val AppendQ = 0x19
+      val PrependQ = 0x1a
+   }
+
+   private val QuietOpCodes = scala.collection.immutable.Set[Int](
+      OpCode.GetQ, OpCode.GetKQ, OpCode.SetQ, OpCode.AddQ, OpCode.ReplaceQ, OpCode.DeleteQ, OpCode.IncrementQ, OpCode.DecrementQ, OpCode.QuitQ, OpCode.FlushQ, OpCode.AppendQ, OpCode.PrependQ)
+
+   def isQuiet(opCode: Int): Boolean = QuietOpCodes.contains(opCode)
+
+   /**
+    * Maps an operation code to its request, or returns null if the operation is unknown. Set and replace operations
+    * carrying a version are conditional on the version of the stored value, like the text protocol's cas.
+    */
+   private def toRequest(opCode: Int, cas: Long): Enumeration#Value = {
+      opCode match {
+         case OpCode.Get | OpCode.GetQ | OpCode.GetK | OpCode.GetKQ => GetRequest
+         case OpCode.Set | OpCode.SetQ => if (cas != 0) ReplaceIfUnmodifiedRequest else PutRequest
+         case OpCode.Add | OpCode.AddQ => PutIfAbsentRequest
+         case OpCode.Replace | OpCode.ReplaceQ => if (cas != 0) ReplaceIfUnmodifiedRequest else ReplaceRequest
+         case OpCode.Delete | OpCode.DeleteQ => if (cas != 0) RemoveIfUnmodifiedRequest else RemoveRequest
+         case OpCode.Increment | OpCode.IncrementQ => IncrementRequest
+         case OpCode.Decrement | OpCode.DecrementQ => DecrementRequest
+         case OpCode.Append | OpCode.AppendQ => AppendRequest
+         case OpCode.Prepend | OpCode.PrependQ => PrependRequest
+         case OpCode.Flush | OpCode.FlushQ => FlushAllRequest
+         case OpCode.Quit | OpCode.QuitQ => QuitRequest
+         case OpCode.NoOp => NoOpRequest
+         case OpCode.Version => VersionRequest
+         case OpCode.Stat => StatsRequest
+         case _ => null
+      }
+   }
+
+   private def toParameters(op: Enumeration#Value, opCode: Int, cas: Long, extras: ByteBuffer,
+                            value: Array[Byte]): Option[MemcachedParameters] = {
+      val quiet = isQuiet(opCode)
+      op match {
+         case PutRequest | PutIfAbsentRequest | ReplaceRequest | ReplaceIfUnmodifiedRequest => {
+            val flags = extras.getInt
+            val lifespan = toLifespan(extras.getInt)
+            Some(new MemcachedParameters(value, lifespan, -1, cas, quiet, flags, "", 0))
+         }
+         case IncrementRequest | DecrementRequest => {
+            val delta = toUnsigned(extras.getLong)
+            val initial = toUnsigned(extras.getLong)
+            val expiration = extras.getInt
+            // An expiration with all bits set means that a missing counter must not be created
+            val data = if (expiration == -1) null else initial.toString.getBytes
+            Some(new MemcachedParameters(data, toLifespan(expiration), -1, cas, quiet, 0, delta.toString, 0))
+         }
+         case FlushAllRequest => {
+            val flushDelay = if (extras.remaining >= 4) extras.getInt else 0
+            Some(new MemcachedParameters(null, -1, -1, -1, quiet, 0, "", flushDelay))
+         }
+         case _ => Some(new MemcachedParameters(value, -1, -1, cas, quiet, 0, "", 0))
+      }
+   }
+
+   private def toLifespan(expiration: Int): Int = if (expiration <= 0) -1 else expiration
+
+   private def toUnsigned(l: Long): BigInt = if (l >= 0) BigInt(l) else BigInt(l) + (BigInt(1) << 64)
+}
+
+class BinaryRequestHeader(override val op: Enumeration#Value, val opCode: Int, val opaque: Int, val key: String,
+                          val params: Option[MemcachedParameters]) extends RequestHeader(op) {
+   def quiet: Boolean = MemcachedBinaryDecoder.isQuiet(opCode)
+
+   override def toString = {
+      new StringBuilder().append("BinaryRequestHeader").append("{")
+         .append("op=").append(op)
+         .append(", opCode=").append(opCode)
+         .append(", opaque=").append(opaque)
+         .append(", key=").append(key)
+         .append(", params=").append(params)
+         .append("}").toString
+   }
+}
+
+class InvalidMagicException(reason: String) extends StreamCorruptedException(reason)
@@ -7,11 +7,10 @@ import org.infinispan.context.Flag
 import java.util.concurrent.{TimeUnit, ScheduledExecutorService}
 import java.io.{IOException, EOFException, StreamCorruptedException}
 import java.nio.channels.ClosedChannelException
-import java.util.concurrent.atomic.AtomicLong
 import org.infinispan.stats.Stats
 import org.infinispan.server.core.transport.ChannelBuffer
 import org.infinispan.server.core._
-import org.infinispan.{AdvancedCache, Version, CacheException, Cache}
+import org.infinispan.{AdvancedCache, Version, Cache}
 import org.infinispan.server.core.transport.ChannelBuffers._
 import org.infinispan.util.Util
 import collection.mutable.{HashMap, ListBuffer}
@@ -24,20 +23,13 @@ import scala.collection.immutable
  * @since 4.1
  */
 class MemcachedDecoder(cache: Cache[String, MemcachedValue], scheduler: ScheduledExecutorService)
-      extends AbstractProtocolDecoder[String, MemcachedValue] with TextProtocolUtil {
+      extends AbstractProtocolDecoder[String, MemcachedValue] with TextProtocolUtil with MemcachedStatistics {
    import RequestResolver._
 
    type SuitableParameters = MemcachedParameters
    type SuitableHeader = RequestHeader
 
-   private lazy val isStatsEnabled = cache.getConfiguration.isExposeJmxStatistics
-   private final val incrMisses = new AtomicLong(0)
-   private final val incrHits = new AtomicLong(0)
-   private final val decrMisses = new AtomicLong(0)
-   private final val decrHits = new AtomicLong(0)
-   private final val replaceIfUnmodifiedMisses = new AtomicLong(0)
-   private final val replaceIfUnmodifiedHits = new AtomicLong(0)
-   private final val replaceIfUnmodifiedBadval = new AtomicLong(0)
+   protected lazy val isStatsEnabled = cache.getConfiguration.isExposeJmxStatistics
 
    override def readHeader(buffer: ChannelBuffer): RequestHeader = {
       val streamOp = readElement(buffer)
@@ -62,9 +54,11 @@ class MemcachedDecoder(cache: Cache[String, MemcachedValue], scheduler: Schedule
    override protected def get(h: RequestHeader, buffer: ChannelBuffer, cache: Cache[String, MemcachedValue]): AnyRef = {
       val keys = readKeys(h, buffer)
       if (keys.length > 1) {
+         // Look up all keys at once, so that remote keys are fetched with a single call per owner
+         val found = cache.getAll(new java.util.HashSet[String](java.util.Arrays.asList(keys: _*)))
          val map = new HashMap[String, MemcachedValue]()
          for (k <- keys) {
-            val v = cache.get(k)
+            val v = found.get(k)
             if (v != null)
                map += (k -> v)
          }
@@ -178,48 +172,19 @@ class MemcachedDecoder(cache: Cache[String, MemcachedValue], scheduler: Schedule
          case AppendRequest | PrependRequest => {
             val k = readKey(h, b)
             val params = readParameters(h, b)
-            val prev = cache.get(k)
-            if (prev != null) {
-               val concatenated = h.op match {
-                  case AppendRequest => concat(prev.data, params.get.data);
-                  case PrependRequest => concat(params.get.data, prev.data);
-               }
-               val next = createValue(concatenated, generateVersion(cache), params.get.flags)
-               val replaced = cache.replace(k, prev, next);
-               if (replaced)
-                  if (!params.get.noReply) STORED else null
-               else // If there's a concurrent modification on this key, treat it as we couldn't replace it
-                  if (!params.get.noReply) NOT_STORED else null
-            } else {
+            val next = applyUpdate(k, new MemcachedValueUpdate(h.op, params.get.data, generateVersion(cache)))
+            if (next != null)
+               if (!params.get.noReply) STORED else null
+            else
                if (!params.get.noReply) NOT_STORED else null
-            }
          }
          case IncrementRequest | DecrementRequest => {
             val k = readKey(h, b)
             val params = readParameters(h, b)
-            val prev = cache.get(k)
-            if (prev != null) {
-               val prevCounter = BigInt(new String(prev.data))
-               val newCounter =
-                  h.op match {
-                     case IncrementRequest => {
-                        val candidateCounter = prevCounter + BigInt(params.get.delta)
-                        if (candidateCounter > BigInt("18446744073709551615")) 0 else candidateCounter
-                     }
-                     case DecrementRequest => {
-                        val candidateCounter = prevCounter - BigInt(params.get.delta)
-                        if (candidateCounter < 0) 0 else candidateCounter
-                     }
-                  }
-               val next = createValue(newCounter.toString.getBytes, generateVersion(cache), params.get.flags)
-               var replaced = cache.replace(k, prev, next)
-               if (replaced) {
-                  if (isStatsEnabled) if (h.op == IncrementRequest) incrHits.incrementAndGet() else decrHits.incrementAndGet
-                  if (!params.get.noReply) new String(next.data) + CRLF else null
-               } else {
-                  // If there's a concurrent modification on this key, the spec does not say what to do, so treat it as exceptional
-                  throw new CacheException("Value modified since we retrieved from the cache, old value was " + prevCounter)
-               }
+            val next = applyUpdate(k, new MemcachedValueUpdate(h.op, params.get.delta.getBytes, generateVersion(cache)))
+            if (next != null) {
+               if (isStatsEnabled) if (h.op == IncrementRequest) incrHits.incrementAndGet() else decrHits.incrementAndGet
+               if (!params.get.noReply) new String(next.data) + CRLF else null
             } else {
                if (isStatsEnabled) if (h.op == IncrementRequest) incrMisses.incrementAndGet() else decrMisses.incrementAndGet
                if (!params.get.noReply) NOT_FOUND else null
@@ -239,6 +204,13 @@ class MemcachedDecoder(cache: Cache[String, MemcachedValue], scheduler: Schedule
       }
    }
 
+   /**
+    * Applies the update to the value of the key while holding its lock, and returns the updated value, or null if the
+    * key does not exist.
+    */
+   private def applyUpdate(k: String, update: MemcachedValueUpdate): MemcachedValue =
+      cache.asInstanceOf[Cache[String, AnyRef]].put(k, update).asInstanceOf[MemcachedValue]
+
    override def createSuccessResponse(h: RequestHeader, params: Option[MemcachedParameters], prev: MemcachedValue): AnyRef = {
       if (isStatsEnabled) {
          h.op match {
@@ -324,46 +296,12 @@ class MemcachedDecoder(cache: Cache[String, MemcachedValue], scheduler: Schedule
    }
 
    def createStatsResponse(header: RequestHeader, stats: Stats): AnyRef = {
-      var sb = new StringBuilder
-      List[ChannelBuffer] (
-         buildStat("pid", 0, sb),
-         buildStat("uptime", stats.getTimeSinceStart, sb),
-         buildStat("uptime", stats.getTimeSinceStart, sb),
-         buildStat("time", TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis), sb),
-         buildStat("version", cache.getVersion, sb),
-         buildStat("pointer_size", 0, sb), // Unsupported
-         buildStat("rusage_user", 0, sb), // Unsupported
-         buildStat("rusage_system", 0, sb), // Unsupported
-         buildStat("curr_items", stats.getCurrentNumberOfEntries, sb),
-         buildStat("total_items", stats.getTotalNumberOfEntries, sb),
-         buildStat("bytes", 0, sb), // Unsupported
-         buildStat("curr_connections", 0, sb), // TODO: Through netty?
-         buildStat("total_connections", 0, sb), // TODO: Through netty?
-         buildStat("connection_structures", 0, sb), // Unsupported
-         buildStat("cmd_get", stats.getRetrievals, sb),
-         buildStat("cmd_set", stats.getStores, sb),
-         buildStat("get_hits", stats.getHits, sb),
-         buildStat("get_misses", stats.getMisses, sb),
-         buildStat("delete_misses", stats.getRemoveMisses, sb),
-         buildStat("delete_hits", stats.getRemoveHits, sb),
-         buildStat("incr_misses", incrMisses, sb),
-         buildStat("incr_hits", incrHits, sb),
-         buildStat("decr_misses", decrMisses, sb),
-         buildStat("decr_hits", decrHits, sb),
-         buildStat("cas_misses", replaceIfUnmodifiedMisses, sb),
-         buildStat("cas_hits", replaceIfUnmodifiedHits, sb),
-         buildStat("cas_badval", replaceIfUnmodifiedBadval, sb),
-         buildStat("auth_cmds", 0, sb), // Unsupported
-         buildStat("auth_errors", 0, sb), // Unsupported
-         //TODO: Evictions are measure by evict calls, but not by nodes are that are expired after the entry's lifespan has expired.
-         buildStat("evictions", stats.getEvictions, sb),
-         buildStat("bytes_read", 0, sb), // TODO: Through netty?
-         buildStat("bytes_written", 0, sb), // TODO: Through netty?
-         buildStat("limit_maxbytes", 0, sb), // Unsupported
-         buildStat("threads", 0, sb), // TODO: Through netty?
-         buildStat("conn_yields", 0, sb), // Unsupported
-         wrappedBuffer(END)
-      )
+      val sb = new StringBuilder
+      val elements = new ListBuffer[ChannelBuffer]
+      for ((stat, value) <- statValues(stats, cache.getVersion))
+         elements += buildStat(stat, value, sb)
+      elements += wrappedBuffer(END)
+      elements.toList
    }
 
    private def buildStat(stat: String, value: Any, sb: StringBuilder): ChannelBuffer = {
@@ -373,10 +311,6 @@ class MemcachedDecoder(cache: Cache[String, MemcachedValue], scheduler: Schedule
       buffer
    }
 
-   private def createValue(data: Array[Byte], nextVersion: Long, flags: Int): MemcachedValue = {
-      new MemcachedValue(data, nextVersion, flags)
-   }   
-
    private def buildGetResponse(op: Enumeration#Value, k: String, v: MemcachedValue): ChannelBuffer = {
       val header = buildGetResponseHeader(k, v, op)
       wrappedBuffer(header.getBytes, v.data, CRLFBytes)
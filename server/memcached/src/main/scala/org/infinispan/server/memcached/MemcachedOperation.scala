@@ -11,4 +11,6 @@ object MemcachedOperation extends Enumeration(10) {
    val AppendRequest, PrependRequest = Value
    val IncrementRequest, DecrementRequest = Value
    val FlushAllRequest, VersionRequest = Value
+   // Only available in the binary protocol
+   val RemoveIfUnmodifiedRequest, NoOpRequest, QuitRequest = Value
 }
\ No newline at end of file
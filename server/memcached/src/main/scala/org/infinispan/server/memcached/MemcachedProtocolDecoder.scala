@@ -0,0 +1,41 @@
+package org.infinispan.server.memcached
+
+import org.infinispan.Cache
+import org.infinispan.server.core.Logging
+import org.infinispan.server.core.transport.{ExceptionEvent, ChannelHandlerContext, ChannelBuffer, Decoder}
+import java.util.concurrent.ScheduledExecutorService
+
+/**
+ * Decoder choosing between the text and the binary protocol for a connection, based on the first byte received: binary
+ * requests start with a magic byte that cannot be the first character of a text command.
+ *
+ * @since 5.0
+ */
+class MemcachedProtocolDecoder(cache: Cache[String, MemcachedValue], scheduler: ScheduledExecutorService)
+      extends Decoder {
+   import MemcachedProtocolDecoder._
+
+   private var delegate: Decoder = _
+
+   override def decode(ctx: ChannelHandlerContext, buffer: ChannelBuffer): AnyRef = {
+      if (delegate == null) {
+         delegate =
+            if (buffer.getUnsignedByte(buffer.readerIndex) == MemcachedBinaryDecoder.RequestMagic) {
+               if (isTraceEnabled) trace("Binary protocol detected")
+               new MemcachedBinaryDecoder(cache, scheduler)
+            } else {
+               new MemcachedDecoder(cache, scheduler)
+            }
+      }
+      delegate.decode(ctx, buffer)
+   }
+
+   override def exceptionCaught(ctx: ChannelHandlerContext, e: ExceptionEvent) {
+      if (delegate != null) delegate.exceptionCaught(ctx, e) else error("Exception reported", e.getCause)
+   }
+
+   override def decodeLast(ctx: ChannelHandlerContext, buffer: ChannelBuffer): AnyRef =
+      if (delegate != null) delegate.decodeLast(ctx, buffer) else null
+}
+
+object MemcachedProtocolDecoder extends Logging
@@ -0,0 +1,66 @@
+package org.infinispan.server.memcached
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import org.infinispan.stats.Stats
+
+/**
+ * Memcached specific statistics, shared by the text and the binary protocol decoders.
+ *
+ * @since 5.0
+ */
+trait MemcachedStatistics {
+
+   protected final val incrMisses = new AtomicLong(0)
+   protected final val incrHits = new AtomicLong(0)
+   protected final val decrMisses = new AtomicLong(0)
+   protected final val decrHits = new AtomicLong(0)
+   protected final val replaceIfUnmodifiedMisses = new AtomicLong(0)
+   protected final val replaceIfUnmodifiedHits = new AtomicLong(0)
+   protected final val replaceIfUnmodifiedBadval = new AtomicLong(0)
+
+   protected def isStatsEnabled: Boolean
+
+   /**
+    * Returns the name and value of the statistics reported by the stats command, in the order they are reported.
+    */
+   protected def statValues(stats: Stats, version: String): List[(String, Any)] = {
+      List[(String, Any)] (
+         "pid" -> 0,
+         "uptime" -> stats.getTimeSinceStart,
+         "time" -> TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis),
+         "version" -> version,
+         "pointer_size" -> 0, // Unsupported
+         "rusage_user" -> 0, // Unsupported
+         "rusage_system" -> 0, // Unsupported
+         "curr_items" -> stats.getCurrentNumberOfEntries,
+         "total_items" -> stats.getTotalNumberOfEntries,
+         "bytes" -> 0, // Unsupported
+         "curr_connections" -> 0, // TODO: Through netty?
+         "total_connections" -> 0, // TODO: Through netty?
+         "connection_structures" -> 0, // Unsupported
+         "cmd_get" -> stats.getRetrievals,
+         "cmd_set" -> stats.getStores,
+         "get_hits" -> stats.getHits,
+         "get_misses" -> stats.getMisses,
+         "delete_misses" -> stats.getRemoveMisses,
+         "delete_hits" -> stats.getRemoveHits,
+         "incr_misses" -> incrMisses,
+         "incr_hits" -> incrHits,
+         "decr_misses" -> decrMisses,
+         "decr_hits" -> decrHits,
+         "cas_misses" -> replaceIfUnmodifiedMisses,
+         "cas_hits" -> replaceIfUnmodifiedHits,
+         "cas_badval" -> replaceIfUnmodifiedBadval,
+         "auth_cmds" -> 0, // Unsupported
+         "auth_errors" -> 0, // Unsupported
+         //TODO: Evictions are measure by evict calls, but not by nodes are that are expired after the entry's lifespan has expired.
+         "evictions" -> stats.getEvictions,
+         "bytes_read" -> 0, // TODO: Through netty?
+         "bytes_written" -> 0, // TODO: Through netty?
+         "limit_maxbytes" -> 0, // Unsupported
+         "threads" -> 0, // TODO: Through netty?
+         "conn_yields" -> 0 // Unsupported
+      )
+   }
+}
@@ -0,0 +1,70 @@
+package org.infinispan.server.memcached
+
+import org.infinispan.atomic.ValueUpdate
+import org.infinispan.marshall.Marshallable
+import org.infinispan.server.memcached.MemcachedOperation._
+import org.infinispan.util.Util
+import java.io.{ObjectOutput, ObjectInput}
+
+/**
+ * Append, prepend, increment or decrement of a memcached value, applied under the lock of the entry so that these
+ * operations do not need to read the value and replace it afterwards. The flags of the value are kept, as mandated by
+ * the protocol. The version of the new value is generated by the node receiving the request, so that all the nodes
+ * applying the update end up with the same value.
+ *
+ * @since 5.0
+ */
+// TODO: putting Ids.MEMCACHED_VALUE_UPDATE fails compilation in 2.8 - https://lampsvn.epfl.ch/trac/scala/ticket/2764
+@Marshallable(externalizer = classOf[MemcachedValueUpdate.Externalizer], id = 64)
+class MemcachedValueUpdate(val op: MemcachedOperation, val data: Array[Byte], val version: Long)
+      extends ValueUpdate {
+
+   override def apply(currentValue: AnyRef): AnyRef = {
+      if (currentValue == null) return null
+      val prev = currentValue.asInstanceOf[MemcachedValue]
+      val next = op match {
+         case AppendRequest => MemcachedValueUpdate.concat(prev.data, data)
+         case PrependRequest => MemcachedValueUpdate.concat(data, prev.data)
+         case IncrementRequest => {
+            val candidateCounter = BigInt(new String(prev.data)) + BigInt(new String(data))
+            (if (candidateCounter > MemcachedValueUpdate.MaxCounter) BigInt(0) else candidateCounter).toString.getBytes
+         }
+         case DecrementRequest => {
+            val candidateCounter = BigInt(new String(prev.data)) - BigInt(new String(data))
+            (if (candidateCounter < 0) BigInt(0) else candidateCounter).toString.getBytes
+         }
+      }
+      new MemcachedValue(next, version, prev.flags)
+   }
+
+   override def toString = {
+      new StringBuilder().append("MemcachedValueUpdate").append("{")
+         .append("op=").append(op)
+         .append(", data=").append(Util.printArray(data, false))
+         .append(", version=").append(version)
+         .append("}").toString
+   }
+
+}
+
+object MemcachedValueUpdate extends TextProtocolUtil {
+   private val MaxCounter = BigInt("18446744073709551615")
+
+   class Externalizer extends org.infinispan.marshall.Externalizer {
+      override def writeObject(output: ObjectOutput, obj: AnyRef) {
+         val update = obj.asInstanceOf[MemcachedValueUpdate]
+         output.writeByte(update.op.id)
+         output.writeInt(update.data.length)
+         output.write(update.data)
+         output.writeLong(update.version)
+      }
+
+      override def readObject(input: ObjectInput): AnyRef = {
+         val op = MemcachedOperation(input.readByte)
+         val data = new Array[Byte](input.readInt)
+         input.readFully(data)
+         val version = input.readLong
+         new MemcachedValueUpdate(op, data, version)
+      }
+   }
+}
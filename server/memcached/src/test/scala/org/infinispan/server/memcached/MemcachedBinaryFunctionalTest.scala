@@ -0,0 +1,95 @@
+package org.infinispan.server.memcached
+
+import java.lang.reflect.Method
+import java.util.concurrent.TimeUnit
+import org.testng.Assert._
+import org.testng.annotations.Test
+import net.spy.memcached.{CASResponse, MemcachedClient}
+import org.infinispan.Version
+
+/**
+ * Tests the Memcached binary protocol against Infinispan Memcached server.
+ *
+ * @since 5.0
+ */
+@Test(groups = Array("functional"), testName = "server.memcached.MemcachedBinaryFunctionalTest")
+class MemcachedBinaryFunctionalTest extends MemcachedSingleNodeTest {
+
+   override protected def createClient(port: Int): MemcachedClient = createMemcachedBinaryClient(60000, port)
+
+   def testSetAndGet(m: Method) {
+      val f = client.set(k(m), 0, v(m))
+      assertTrue(f.get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.get(k(m)), v(m))
+   }
+
+   def testGetNotFound(m: Method) {
+      assertNull(client.get(k(m)))
+   }
+
+   def testGetMultipleKeys(m: Method) {
+      for (i <- 1 to 3) assertTrue(client.set(k(m, "k" + i + "-"), 0, v(m, "v" + i + "-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val ret = client.getBulk(k(m, "k1-"), k(m, "k2-"), k(m, "k3-"), k(m, "k4-"))
+      assertEquals(ret.size, 3)
+      assertEquals(ret.get(k(m, "k1-")), v(m, "v1-"))
+      assertEquals(ret.get(k(m, "k2-")), v(m, "v2-"))
+      assertEquals(ret.get(k(m, "k3-")), v(m, "v3-"))
+   }
+
+   def testAddAndReplace(m: Method) {
+      assertFalse(client.replace(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.add(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertFalse(client.add(k(m), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.replace(k(m), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.get(k(m)), v(m, "v1-"))
+   }
+
+   def testCas(m: Method) {
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val value = client.gets(k(m))
+      assertTrue(value.getCas != 0)
+      assertEquals(client.cas(k(m), value.getCas, v(m, "v1-")), CASResponse.OK)
+      assertEquals(client.cas(k(m), value.getCas, v(m, "v2-")), CASResponse.EXISTS)
+      assertEquals(client.get(k(m)), v(m, "v1-"))
+   }
+
+   def testDelete(m: Method) {
+      assertFalse(client.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertNull(client.get(k(m)))
+   }
+
+   def testAppendAndPrepend(m: Method) {
+      assertFalse(client.append(0, k(m), v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.set(k(m), 0, "b").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.append(0, k(m), "c").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.prepend(0, k(m), "a").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.get(k(m)), "abc")
+   }
+
+   def testIncrementAndDecrement(m: Method) {
+      assertEquals(client.incr(k(m), 1), -1)
+      assertTrue(client.set(k(m), 0, "1").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.incr(k(m), 4), 5)
+      assertEquals(client.decr(k(m), 2), 3)
+      assertEquals(client.decr(k(m), 5), 0)
+   }
+
+   def testIncrementWithInitialValue(m: Method) {
+      assertEquals(client.incr(k(m), 1, 10), 10)
+      assertEquals(client.incr(k(m), 1, 10), 11)
+      assertEquals(client.get(k(m)), "11")
+   }
+
+   def testVersion {
+      val versions = client.getVersions
+      assertEquals(versions.size(), 1)
+      assertEquals(versions.values.iterator.next, Version.version)
+   }
+
+   def testStats {
+      val stats = client.getStats.values.iterator.next
+      assertEquals(stats.get("pointer_size"), "0")
+   }
+}
@@ -21,12 +21,14 @@ abstract class MemcachedSingleNodeTest extends SingleCacheManagerTest with Memca
    override def createCacheManager: EmbeddedCacheManager = {
       cacheManager = createTestCacheManager
       memcachedServer = startMemcachedTextServer(cacheManager)
-      memcachedClient = createMemcachedClient(60000, server.getPort)
+      memcachedClient = createClient(server.getPort)
       return cacheManager
    }
 
    protected def createTestCacheManager: EmbeddedCacheManager = TestCacheManagerFactory.createLocalCacheManager
 
+   protected def createClient(port: Int): MemcachedClient = createMemcachedClient(60000, port)
+
    @AfterClass(alwaysRun = true)
    override def destroyAfterClass {
       super.destroyAfterClass
@@ -1,7 +1,7 @@
 package org.infinispan.server.memcached.test
 
 import java.lang.reflect.Method
-import net.spy.memcached.{DefaultConnectionFactory, MemcachedClient}
+import net.spy.memcached.{BinaryConnectionFactory, DefaultConnectionFactory, MemcachedClient}
 import java.net.InetSocketAddress
 import java.util.concurrent.atomic.AtomicInteger
 import org.infinispan.server.core.transport.Decoder
@@ -34,6 +34,13 @@ trait MemcachedTestingUtil {
       return new MemcachedClient(d, Arrays.asList(new InetSocketAddress(host, port)))
    }
 
+   def createMemcachedBinaryClient(timeout: Long, port: Int): MemcachedClient = {
+      val d = new BinaryConnectionFactory {
+         override def getOperationTimeout: Long = timeout
+      }
+      new MemcachedClient(d, Arrays.asList(new InetSocketAddress(host, port)))
+   }
+
    def startMemcachedTextServer(cacheManager: EmbeddedCacheManager): MemcachedServer =
       startMemcachedTextServer(cacheManager, UniquePortThreadLocal.get.intValue)
 
@@ -0,0 +1,105 @@
+package org.infinispan.rest
+
+import java.io.{BufferedInputStream, DataInputStream, EOFException, InputStream, OutputStream, ByteArrayOutputStream}
+import java.util.UUID
+
+/**
+ * Reads and writes the multipart/mixed bodies of bulk requests, which carry one entry per part. The key of an entry
+ * is the Content-ID header of its part, and every part must declare its Content-Length, so that the data of each
+ * entry is read in one go instead of being scanned for the boundary.
+ *
+ * @since 5.0
+ */
+object Multipart {
+   val MultipartMixed = "multipart/mixed"
+   private val Charset = "ISO-8859-1"
+   private val CRLF = "\r\n"
+   private val BufferSize = 8192
+
+   def newBoundary = "infinispan-" + UUID.randomUUID
+
+   def writePart(out: OutputStream, boundary: String, key: String, contentType: String, data: Array[Byte]) {
+      val headers = new StringBuilder().append("--").append(boundary).append(CRLF)
+         .append("Content-ID: ").append(key).append(CRLF)
+         .append("Content-Type: ").append(contentType).append(CRLF)
+         .append("Content-Length: ").append(data.length).append(CRLF)
+         .append(CRLF)
+      out.write(headers.toString.getBytes(Charset))
+      out.write(data)
+      out.write(CRLF.getBytes(Charset))
+   }
+
+   def writeEnd(out: OutputStream, boundary: String) {
+      out.write(("--" + boundary + "--" + CRLF).getBytes(Charset))
+   }
+
+   /**
+    * Reads the parts of the body and passes the key, content type and data of each of them to the given function, as
+    * soon as the part has been read.
+    *
+    * @throws IllegalArgumentException if the body is not a well formed multipart body
+    */
+   def readParts(in: InputStream, boundary: String)(f: (String, String, Array[Byte]) => Unit) {
+      val delimiter = "--" + boundary
+      val end = delimiter + "--"
+      val data = new DataInputStream(new BufferedInputStream(in))
+      var line = readLine(data)
+      while (line != null && line != delimiter && line != end) line = readLine(data) // Skip the preamble
+      while (line == delimiter) {
+         var key: String = null
+         var contentType = "application/octet-stream"
+         var length = -1
+         line = readLine(data)
+         while (line != null && !line.isEmpty) {
+            val separator = line.indexOf(':')
+            if (separator > 0) {
+               val value = line.substring(separator + 1).trim
+               line.substring(0, separator).trim.toLowerCase match {
+                  case "content-id" => key = value
+                  case "content-type" => contentType = value
+                  case "content-length" => length = value.toInt
+                  case _ => // Not needed
+               }
+            }
+            line = readLine(data)
+         }
+         if (key == null || length < 0)
+            throw new IllegalArgumentException("Every part needs a Content-ID and a Content-Length header")
+         f(key, contentType, readBytes(data, length))
+         line = readLine(data)
+         while (line != null && line.isEmpty) line = readLine(data) // The line break ending the part's data
+         if (line != null && line != delimiter && line != end)
+            throw new IllegalArgumentException("Expected a boundary after the data of " + key)
+      }
+   }
+
+   /**
+    * Reads exactly the given number of bytes. The announced length is not trusted for the allocation, the buffer
+    * only grows with the bytes actually received.
+    *
+    * @throws EOFException if the stream ends before all of them were read
+    */
+   def readBytes(in: InputStream, length: Int): Array[Byte] = {
+      val out = new ByteArrayOutputStream(math.min(length, BufferSize))
+      val buffer = new Array[Byte](math.min(length, BufferSize))
+      var remaining = length
+      while (remaining > 0) {
+         val read = in.read(buffer, 0, math.min(remaining, buffer.length))
+         if (read == -1) throw new EOFException("Expected " + remaining + " more bytes")
+         out.write(buffer, 0, read)
+         remaining -= read
+      }
+      out.toByteArray
+   }
+
+   private def readLine(in: InputStream): String = {
+      val line = new ByteArrayOutputStream(64)
+      var b = in.read
+      if (b == -1) return null
+      while (b != -1 && b != '\n') {
+         if (b != '\r') line.write(b)
+         b = in.read
+      }
+      line.toString(Charset)
+   }
+}
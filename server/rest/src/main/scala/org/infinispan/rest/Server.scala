@@ -11,6 +11,7 @@ import org.infinispan.remoting.MIMECacheEntry
 import org.infinispan.manager._
 import org.codehaus.jackson.map.ObjectMapper
 import org.infinispan.{CacheException, Cache}
+import scala.collection.JavaConversions._
 
 /**
  * // TODO
@@ -85,20 +86,27 @@ class Server(@Context request: Request, @HeaderParam("performAsync") useAsync: B
    @POST
    @Path("/{cacheName}/{cacheKey}")
    def putEntry(@PathParam("cacheName") cacheName: String, @PathParam("cacheKey") key: String,
-                @HeaderParam("Content-Type") mediaType: String, data: Array[Byte],
+                @HeaderParam("Content-Type") mediaType: String, body: InputStream,
+                @DefaultValue("-1") @HeaderParam("Content-Length") length: Int,
                 @DefaultValue("-1") @HeaderParam("timeToLiveSeconds") ttl: Long,
-                @DefaultValue("-1") @HeaderParam("maxIdleTimeSeconds") idleTime: Long) = {
+                @DefaultValue("-1") @HeaderParam("maxIdleTimeSeconds") idleTime: Long,
+                @HeaderParam("If-Match") ifMatch: String, @HeaderParam("If-None-Match") ifNoneMatch: String) = {
       val cache = ManagerInstance.getCache(cacheName)
       if (request.getMethod == "POST" && cache.containsKey(key)) {
          Response.status(Status.CONFLICT).build()
+      } else if (ifMatch != null || ifNoneMatch != null) {
+         // The value must be the one the preconditions were evaluated against, so write it conditionally
+         val prev = cache.get(key)
+         val written = preconditionsHold(prev, ifMatch, ifNoneMatch) && {
+            val obj = toCacheValue(mediaType, readBody(body, length))
+            if (prev == null)
+               cache.putIfAbsent(key, obj, ttl, TimeUnit.SECONDS, idleTime, TimeUnit.SECONDS) == null
+            else
+               cache.replace(key, prev, obj, ttl, TimeUnit.SECONDS, idleTime, TimeUnit.SECONDS)
+         }
+         if (written) Response.ok.build else Response.status(Status.PRECONDITION_FAILED).build
       } else {
-         val obj = if (mediaType == "application/x-java-serialized-object") {
-            try {
-               new ObjectInputStream(new ByteArrayInputStream(data)).readObject
-            } catch {
-               case e: Exception => data
-            }
-         } else new MIMECacheEntry(mediaType, data)
+         val obj = toCacheValue(mediaType, readBody(body, length))
          (ttl, idleTime, useAsync) match {
             case (0, 0, false) => cache.put(key, obj)
             case (x, 0, false) => cache.put(key, obj, ttl, TimeUnit.SECONDS)
@@ -111,6 +119,123 @@ class Server(@Context request: Request, @HeaderParam("performAsync") useAsync: B
       }
    }
 
+   /**
+    * Evaluates If-Match and If-None-Match headers against the ETag of the current value. Values other than
+    * MIMECacheEntry instances have no ETag, so they only match *.
+    */
+   private def preconditionsHold(prev: Any, ifMatch: String, ifNoneMatch: String): Boolean = {
+      def matches(header: String) = prev != null && header.split(",").exists { tag =>
+         tag.trim == "*" || (prev match {
+            case b: MIMECacheEntry => EntityTag.valueOf(tag.trim).getValue == calcETAG(b).getValue
+            case _ => false
+         })
+      }
+      (ifMatch == null || matches(ifMatch)) && (ifNoneMatch == null || !matches(ifNoneMatch))
+   }
+
+   /**
+    * Reads the request body, which is exactly as long as the announced length, if any.
+    */
+   private def readBody(body: InputStream, length: Int): Array[Byte] = {
+      if (length >= 0) {
+         Multipart.readBytes(body, length)
+      } else {
+         val out = new ByteArrayOutputStream
+         val buffer = new Array[Byte](8192)
+         var read = body.read(buffer)
+         while (read != -1) {
+            out.write(buffer, 0, read)
+            read = body.read(buffer)
+         }
+         out.toByteArray
+      }
+   }
+
+   private def toCacheValue(mediaType: String, data: Array[Byte]): Any = {
+      if (mediaType == "application/x-java-serialized-object") {
+         try {
+            new ObjectInputStream(new ByteArrayInputStream(data)).readObject
+         } catch {
+            case e: Exception => data
+         }
+      } else new MIMECacheEntry(mediaType, data)
+   }
+
+   /**
+    * Returns the entries of the given keys in a multipart/mixed body, one part per entry found. Keys are passed as
+    * repeated key query parameters and are all looked up at once.
+    */
+   @GET
+   @Path("/{cacheName}")
+   def getEntries(@PathParam("cacheName") cacheName: String, @QueryParam("key") keys: java.util.List[String]) = {
+      try {
+         val entries = ManagerInstance.getCache(cacheName).getAll(new java.util.HashSet[String](keys))
+         val boundary = Multipart.newBoundary
+         Response.ok.`type`(Multipart.MultipartMixed + "; boundary=" + boundary).entity(streamIt { out =>
+            for (key <- keys; if entries.containsKey(key)) {
+               entries.get(key) match {
+                  case b: MIMECacheEntry => Multipart.writePart(out, boundary, key, b.contentType, b.data)
+                  case s: String => Multipart.writePart(out, boundary, key, "text/plain", s.getBytes)
+                  case ba: Array[Byte] => Multipart.writePart(out, boundary, key, "application/x-java-serialized-object", ba)
+                  case ser: Serializable => {
+                     val bytes = new ByteArrayOutputStream
+                     val oos = new ObjectOutputStream(bytes)
+                     oos.writeObject(ser)
+                     oos.close
+                     Multipart.writePart(out, boundary, key, "application/x-java-serialized-object", bytes.toByteArray)
+                  }
+                  case _ => // Cannot be sent
+               }
+            }
+            Multipart.writeEnd(out, boundary)
+         }).build
+      } catch {
+         case e: CacheNotFoundException => {
+            Response status (Status.NOT_FOUND) build
+         }
+      }
+   }
+
+   /**
+    * Stores all the entries of a multipart/mixed body, see {@link Multipart}. Entries are stored in batches while the
+    * body is read, so that large bodies are never held in memory as a whole.
+    */
+   @PUT
+   @Path("/{cacheName}")
+   def putEntries(@PathParam("cacheName") cacheName: String,
+                  @HeaderParam("Content-Type") mediaType: String, body: InputStream,
+                  @DefaultValue("-1") @HeaderParam("timeToLiveSeconds") ttl: Long,
+                  @DefaultValue("-1") @HeaderParam("maxIdleTimeSeconds") idleTime: Long) = {
+      val cache = ManagerInstance.getCache(cacheName)
+      val boundary = if (mediaType != null && mediaType.startsWith(Multipart.MultipartMixed))
+         MediaType.valueOf(mediaType).getParameters.get("boundary")
+      else null
+      if (boundary == null) {
+         Response.status(Status.UNSUPPORTED_MEDIA_TYPE).build
+      } else {
+         var batch = new java.util.HashMap[String, Any]
+         def flush() {
+            if (useAsync)
+               cache.putAllAsync(batch, ttl, TimeUnit.SECONDS, idleTime, TimeUnit.SECONDS)
+            else
+               cache.putAll(batch, ttl, TimeUnit.SECONDS, idleTime, TimeUnit.SECONDS)
+            // An asynchronous put keeps referencing the map until it has been replicated, so it must not be reused
+            batch = new java.util.HashMap[String, Any]
+         }
+         try {
+            Multipart.readParts(body, boundary) { (key, contentType, data) =>
+               batch.put(key, toCacheValue(contentType, data))
+               if (batch.size == BulkBatchSize) flush()
+            }
+            if (!batch.isEmpty) flush()
+            Response.ok.build
+         } catch {
+            case e: IllegalArgumentException => Response.status(Status.BAD_REQUEST).entity(e.getMessage).build
+            case e: EOFException => Response.status(Status.BAD_REQUEST).entity("Body ended within a part").build
+         }
+      }
+   }
+
 
    @DELETE
    @Path("/{cacheName}/{cacheKey}")
@@ -139,6 +264,9 @@ class Server(@Context request: Request, @HeaderParam("performAsync") useAsync: B
    lazy val jsonMapper = new ObjectMapper
    lazy val xstream = new XStream
 
+   /** Number of entries of a bulk put written to the cache at once */
+   val BulkBatchSize = 128
+
 }
 
 /**
@@ -0,0 +1,65 @@
+package org.infinispan.rest
+
+import java.io.ByteArrayOutputStream
+import java.lang.reflect.Method
+import javax.servlet.http.HttpServletResponse
+import org.apache.commons.httpclient.methods.{ByteArrayRequestEntity, PutMethod}
+import org.infinispan.config.Configuration
+import org.infinispan.manager.{CacheContainer, EmbeddedCacheManager}
+import org.infinispan.remoting.MIMECacheEntry
+import org.infinispan.test.TestingUtil
+import org.infinispan.test.fwk.TestCacheManagerFactory
+import org.testng.annotations.{AfterClass, BeforeClass, Test}
+import org.testng.Assert._
+
+/**
+ * Checks that bulk puts performed asynchronously on a clustered cache replicate every entry, even though the body is
+ * written to the cache in several batches.
+ *
+ * @since 5.0
+ */
+@Test(groups = Array("functional"), testName = "rest.ClusteredBulkPutTest")
+class ClusteredBulkPutTest {
+   val fullPath = "http://localhost:8888/rest/" + CacheContainer.DEFAULT_CACHE_NAME
+   var managers: List[EmbeddedCacheManager] = Nil
+   var previous: EmbeddedCacheManager = null
+
+   @BeforeClass
+   def setUp() {
+      // starting the server creates its own cache manager, which this test replaces with a clustered one
+      ServerInstance.server
+      previous = ManagerInstance.instance
+      val cfg = new Configuration
+      cfg.setCacheMode(Configuration.CacheMode.REPL_SYNC)
+      managers = List(TestCacheManagerFactory.createClusteredCacheManager(cfg),
+                      TestCacheManagerFactory.createClusteredCacheManager(cfg))
+      TestingUtil.blockUntilViewsReceived(10000, managers(0).getCache[String, Any], managers(1).getCache[String, Any])
+      ManagerInstance.instance = managers(0)
+   }
+
+   @AfterClass(alwaysRun = true)
+   def tearDown() {
+      ManagerInstance.instance = previous
+      managers.foreach(_.stop())
+   }
+
+   def testAsyncBulkPutReplicatesAllBatches(m: Method) {
+      val numEntries = 1000
+      val boundary = Multipart.newBoundary
+      val body = new ByteArrayOutputStream
+      for (i <- 1 to numEntries) Multipart.writePart(body, boundary, m.getName + i, "text/plain", ("data" + i).getBytes)
+      Multipart.writeEnd(body, boundary)
+      val put = new PutMethod(fullPath)
+      put.setRequestHeader("performAsync", "true")
+      put.setRequestEntity(new ByteArrayRequestEntity(body.toByteArray, Multipart.MultipartMixed + "; boundary=" + boundary))
+      Client call put
+      assertEquals(put.getStatusCode, HttpServletResponse.SC_OK)
+
+      val remote = managers(1).getCache[String, Any]
+      val deadline = System.currentTimeMillis + 10000
+      while (remote.size < numEntries && System.currentTimeMillis < deadline) Thread.sleep(50)
+      assertEquals(remote.size, numEntries)
+      for (i <- 1 to numEntries)
+         assertEquals(new String(remote.get(m.getName + i).asInstanceOf[MIMECacheEntry].data), "data" + i)
+   }
+}
@@ -344,6 +344,68 @@ class IntegrationTest {
 
       assertEquals(serializedOnClient, bytesRead)
    }
+
+   def testBulkPutAndGet(m: Method) = {
+      val boundary = Multipart.newBoundary
+      val body = new ByteArrayOutputStream
+      for (i <- 1 to 3) Multipart.writePart(body, boundary, m.getName + i, "text/plain", ("data" + i).getBytes)
+      Multipart.writeEnd(body, boundary)
+      val put = new PutMethod(fullPath)
+      put.setRequestEntity(new ByteArrayRequestEntity(body.toByteArray, Multipart.MultipartMixed + "; boundary=" + boundary))
+      Client call put
+      assertEquals(HttpServletResponse.SC_OK, put.getStatusCode)
+
+      val single = Client.call(new GetMethod(fullPath + "/" + m.getName + "2"))
+      assertEquals("text/plain", single.getResponseHeader("Content-Type").getValue)
+      assertEquals("data2", single.getResponseBodyAsString)
+
+      val get = new GetMethod(fullPath + "?key=" + m.getName + "3&key=" + m.getName + "4&key=" + m.getName + "1")
+      Client call get
+      assertEquals(HttpServletResponse.SC_OK, get.getStatusCode)
+      val contentType = get.getResponseHeader("Content-Type").getValue
+      assertTrue(contentType.startsWith(Multipart.MultipartMixed))
+      var parts = List[(String, String, String)]()
+      Multipart.readParts(get.getResponseBodyAsStream, contentType.substring(contentType.indexOf("boundary=") + 9)) {
+         (key, partType, data) => parts = parts :+ (key, partType, new String(data))
+      }
+      assertEquals(parts, List((m.getName + "3", "text/plain", "data3"), (m.getName + "1", "text/plain", "data1")))
+   }
+
+   def testPutIfNoneMatch(m: Method) = {
+      val fullPathKey = fullPath + "/" + m.getName
+      def put(data: String) = {
+         val put = new PutMethod(fullPathKey)
+         put.setRequestHeader("Content-Type", "application/text")
+         put.setRequestHeader("If-None-Match", "*")
+         put.setRequestBody(data)
+         Client.call(put).getStatusCode
+      }
+      assertEquals(HttpServletResponse.SC_OK, put("data"))
+      assertEquals(HttpServletResponse.SC_PRECONDITION_FAILED, put("other"))
+      assertEquals("data", Client.call(new GetMethod(fullPathKey)).getResponseBodyAsString)
+   }
+
+   def testPutIfMatch(m: Method) = {
+      val fullPathKey = fullPath + "/" + m.getName
+      def put(data: String, etag: String) = {
+         val put = new PutMethod(fullPathKey)
+         put.setRequestHeader("Content-Type", "application/text")
+         put.setRequestHeader("If-Match", etag)
+         put.setRequestBody(data)
+         Client.call(put).getStatusCode
+      }
+      assertEquals(HttpServletResponse.SC_PRECONDITION_FAILED, put("data", "*"))
+
+      val post = new PostMethod(fullPathKey)
+      post.setRequestHeader("Content-Type", "application/text")
+      post.setRequestBody("data")
+      Client.call(post)
+      val etag = Client.call(new GetMethod(fullPathKey)).getResponseHeader("ETag").getValue
+
+      assertEquals(HttpServletResponse.SC_OK, put("new-data", etag))
+      assertEquals(HttpServletResponse.SC_PRECONDITION_FAILED, put("stale-data", etag))
+      assertEquals("new-data", Client.call(new GetMethod(fullPathKey)).getResponseBodyAsString)
+   }
 }
 
 
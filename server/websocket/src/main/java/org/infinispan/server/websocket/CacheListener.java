@@ -22,8 +22,14 @@
 package org.infinispan.server.websocket;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.infinispan.Cache;
 import org.infinispan.notifications.Listener;
@@ -45,14 +51,19 @@ import org.json.JSONObject;
 /**
  * Cache listener.
  * <p/>
- * Used to notify websocket clients of cache entry updates.
+ * Used to notify websocket clients of cache entry updates.  Subscriptions are indexed by key, so that an event only
+ * touches the channels subscribed to its key or to all keys.  Each channel has at most one notification being
+ * written at a time: updates arriving in the meantime are coalesced per key, so that slow clients receive the latest
+ * value of an entry rather than a backlog of stale ones.
  * 
  * @author <a href="mailto:tom.fennelly@gmail.com">tom.fennelly@gmail.com</a>
  */
 @Listener
 public class CacheListener {
 	
-	private List<ChannelNotifyParams> channels = new CopyOnWriteArrayList<ChannelNotifyParams>();
+	private final ConcurrentMap<Object, Set<ChannelNotifyParams>> keySubscriptions = new ConcurrentHashMap<Object, Set<ChannelNotifyParams>>();
+	private final Set<ChannelNotifyParams> wildcardSubscriptions = newConcurrentSet();
+	private final ConcurrentMap<Channel, ChannelNotifier> notifiers = new ConcurrentHashMap<Channel, ChannelNotifier>();
 
 	@CacheEntryCreated
 	public void cacheEntryCreated(CacheEntryCreatedEvent event) {
@@ -74,16 +85,22 @@ public class CacheListener {
 			return;
 		}
 		
+		Object key = event.getKey();
+		List<ChannelNotifyParams> interested = null;
+		interested = collectInterested(keySubscriptions.get(key), eventType, interested);
+		interested = collectInterested(wildcardSubscriptions, eventType, interested);
+		if(interested == null) {
+			return;
+		}
+		
 		JSONObject jsonObject;
 		
 		try {
 			Cache<Object, Object> cache = event.getCache();
-			Object key = event.getKey();
 			Object value;
 			
 			switch(eventType) {
 			case CACHE_ENTRY_CREATED:
-				// TODO: Add optimization ... don't get from cache if non of the channels are interested in creates...
 				value = cache.get(key);
 				jsonObject = ChannelUtils.toJSON(key.toString(), value, cache.getName());
 				break;
@@ -106,28 +123,92 @@ public class CacheListener {
 		}
 
 		String jsonString = jsonObject.toString();
-		for(ChannelNotifyParams channel : channels) {
+		for(ChannelNotifyParams channel : interested) {
+			ChannelNotifier notifier = notifiers.get(channel.channel);
+			if(notifier != null) {
+				notifier.push(key, jsonString);
+			}
+		}
+	}
+	
+	private static List<ChannelNotifyParams> collectInterested(Set<ChannelNotifyParams> subscriptions, Event.Type eventType, List<ChannelNotifyParams> interested) {
+		if(subscriptions == null) {
+			return interested;
+		}
+		for(ChannelNotifyParams channel : subscriptions) {
 			if(channel.channel.isOpen() && channel.onEvents.contains(eventType)) {
-				if(channel.key != null) {
-					if(event.getKey().equals(channel.key) || channel.key.equals("*")) {
-						channel.channel.write(new DefaultWebSocketFrame(jsonString));
-					}
-				} else {					
-					channel.channel.write(new DefaultWebSocketFrame(jsonString));
+				if(interested == null) {
+					interested = new ArrayList<ChannelNotifyParams>(4);
 				}
+				interested.add(channel);
 			}
 		}
+		return interested;
 	}
 	
 	public void addChannel(ChannelNotifyParams channel) {
-		if(!channels.contains(channel)) {
-			channels.add(channel);
-			channel.channel.getCloseFuture().addListener(new ChannelCloseFutureListener());
+		ChannelNotifier notifier = notifiers.get(channel.channel);
+		if(notifier == null) {
+			ChannelNotifier newNotifier = new ChannelNotifier(channel.channel);
+			notifier = notifiers.putIfAbsent(channel.channel, newNotifier);
+			if(notifier == null) {
+				notifier = newNotifier;
+				channel.channel.getCloseFuture().addListener(new ChannelCloseFutureListener());
+			}
+		}
+		if(notifier.subscriptions.add(channel)) {
+			subscribe(channel);
 		}
 	}
 	
 	public void removeChannel(ChannelNotifyParams channel) {
-		channels.remove(channel);
+		ChannelNotifier notifier = notifiers.get(channel.channel);
+		if(notifier != null && notifier.subscriptions.remove(channel)) {
+			unsubscribe(channel);
+		}
+	}
+	
+	private void subscribe(ChannelNotifyParams channel) {
+		if(channel.isWildcard()) {
+			wildcardSubscriptions.add(channel);
+			return;
+		}
+		while(true) {
+			Set<ChannelNotifyParams> subscriptions = keySubscriptions.get(channel.key);
+			if(subscriptions == null) {
+				Set<ChannelNotifyParams> newSubscriptions = newConcurrentSet();
+				subscriptions = keySubscriptions.putIfAbsent(channel.key, newSubscriptions);
+				if(subscriptions == null) {
+					subscriptions = newSubscriptions;
+				}
+			}
+			synchronized (subscriptions) {
+				// the set is dropped from the index when its last subscription is removed
+				if(keySubscriptions.get(channel.key) == subscriptions) {
+					subscriptions.add(channel);
+					return;
+				}
+			}
+		}
+	}
+	
+	private void unsubscribe(ChannelNotifyParams channel) {
+		if(channel.isWildcard()) {
+			wildcardSubscriptions.remove(channel);
+			return;
+		}
+		Set<ChannelNotifyParams> subscriptions = keySubscriptions.get(channel.key);
+		if(subscriptions != null) {
+			synchronized (subscriptions) {
+				if(subscriptions.remove(channel) && subscriptions.isEmpty()) {
+					keySubscriptions.remove(channel.key, subscriptions);
+				}
+			}
+		}
+	}
+	
+	private static Set<ChannelNotifyParams> newConcurrentSet() {
+		return Collections.newSetFromMap(new ConcurrentHashMap<ChannelNotifyParams, Boolean>());
 	}
 	
 	public static class ChannelNotifyParams {
@@ -158,10 +239,14 @@ public class CacheListener {
 				}
 			}
 			
-			if(onEvents == null && key.equals("*")) {
+			if(onEvents == null && "*".equals(key)) {
 				this.onEvents.add(Event.Type.CACHE_ENTRY_CREATED);
 			}			
 		}
+		
+		private boolean isWildcard() {
+			return key == null || key.equals("*");
+		}
 
 		@Override
 		public boolean equals(Object obj) {
@@ -181,20 +266,74 @@ public class CacheListener {
 
 		@Override
 		public int hashCode() {
+			// consistent with equals(), which compares channels by identity
 			if(key != null) {				
-				return super.hashCode() + channel.hashCode() + key.hashCode();
+				return 31 * System.identityHashCode(channel) + key.hashCode();
 			} else {				
-				return super.hashCode() + channel.hashCode();
+				return System.identityHashCode(channel);
 			}
 		}
 	}
 	
+	/**
+	 * Writes the notifications of a channel, one at a time.  While a notification is being written, the following ones
+	 * are queued by key, a newer notification for a key replacing the queued one.
+	 */
+	private static class ChannelNotifier implements ChannelFutureListener {
+		
+		private final Channel channel;
+		private final Set<ChannelNotifyParams> subscriptions = newConcurrentSet();
+		private final Map<Object, String> pending = new LinkedHashMap<Object, String>();
+		private boolean writing;
+		
+		private ChannelNotifier(Channel channel) {
+			this.channel = channel;
+		}
+		
+		private void push(Object key, String jsonString) {
+			synchronized (this) {
+				pending.put(key, jsonString);
+				if(writing) {
+					return;
+				}
+				writing = true;
+			}
+			writeNext();
+		}
+		
+		private void writeNext() {
+			while(true) {
+				String jsonString;
+				synchronized (this) {
+					Iterator<String> it = pending.values().iterator();
+					if(!it.hasNext() || !channel.isOpen()) {
+						pending.clear();
+						writing = false;
+						return;
+					}
+					jsonString = it.next();
+					it.remove();
+				}
+				ChannelFuture future = channel.write(new DefaultWebSocketFrame(jsonString));
+				if(!future.isDone()) {
+					future.addListener(this);
+					return;
+				}
+			}
+		}
+
+		public void operationComplete(ChannelFuture future) throws Exception {
+			writeNext();
+		}
+	}
+	
 	private class ChannelCloseFutureListener implements ChannelFutureListener {
 
 		public void operationComplete(ChannelFuture channelCloseFuture) throws Exception {
-			for(ChannelNotifyParams channel : channels) {
-				if(channelCloseFuture.getChannel() ==  channel.channel) {
-					removeChannel(channel);
+			ChannelNotifier notifier = notifiers.remove(channelCloseFuture.getChannel());
+			if(notifier != null) {
+				for(ChannelNotifyParams channel : notifier.subscriptions) {
+					unsubscribe(channel);
 				}
 			}
 		}		
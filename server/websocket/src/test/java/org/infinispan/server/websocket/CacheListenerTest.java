@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2006, JBoss Inc., and individual contributors as indicated
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.infinispan.Cache;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.server.websocket.CacheListener.ChannelNotifyParams;
+import org.infinispan.websocket.MockChannel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.DefaultChannelFuture;
+import org.jboss.netty.handler.codec.http.websocket.DefaultWebSocketFrame;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test (testName = "websocket.CacheListenerTest", groups = "unit")
+public class CacheListenerTest {
+	
+	private DefaultCacheManager cacheManager;
+	private Cache<Object, Object> cache;
+	private CacheListener listener;
+	
+	@BeforeMethod
+	public void setUp() {
+		cacheManager = new DefaultCacheManager();
+		cache = cacheManager.getCache();
+		listener = new CacheListener();
+		cache.addListener(listener);
+	}
+	
+	@AfterMethod
+	public void tearDown() {
+		cacheManager.stop();
+	}
+	
+	public void testOnlySubscribedChannelsNotified() {
+		RecordingChannel aChannel = new RecordingChannel();
+		RecordingChannel bChannel = new RecordingChannel();
+		RecordingChannel allChannel = new RecordingChannel();
+		listener.addChannel(new ChannelNotifyParams(aChannel, "a", null));
+		listener.addChannel(new ChannelNotifyParams(bChannel, "b", null));
+		listener.addChannel(new ChannelNotifyParams(allChannel, "*", null));
+		
+		cache.put("a", "1");
+		cache.put("a", "2");
+		cache.remove("a");
+		
+		Assert.assertEquals(aChannel.frames.size(), 3);
+		Assert.assertEquals(bChannel.frames.size(), 0);
+		// wildcard subscriptions also receive creations
+		Assert.assertEquals(allChannel.frames.size(), 4);
+		
+		listener.removeChannel(new ChannelNotifyParams(aChannel, "a", null));
+		cache.put("a", "3");
+		Assert.assertEquals(aChannel.frames.size(), 3);
+	}
+	
+	public void testUpdatesCoalescedForSlowChannel() {
+		RecordingChannel slowChannel = new RecordingChannel();
+		slowChannel.slow = true;
+		listener.addChannel(new ChannelNotifyParams(slowChannel, "*", null));
+		
+		cache.put("a", "1");
+		cache.put("b", "1");
+		cache.put("a", "2");
+		cache.put("a", "3");
+		cache.put("b", "2");
+		// only the first notification is being written, the others are waiting
+		Assert.assertEquals(slowChannel.frames.size(), 1);
+		
+		slowChannel.completeWrites();
+		// the latest notification of each key is written once the channel catches up
+		Assert.assertEquals(slowChannel.frames.size(), 3);
+		Assert.assertTrue(slowChannel.frames.get(1).contains("\"a\""));
+		Assert.assertTrue(slowChannel.frames.get(2).contains("\"b\""));
+	}
+	
+	private static class RecordingChannel extends MockChannel {
+		
+		private final List<String> frames = new ArrayList<String>();
+		private final List<DefaultChannelFuture> pendingWrites = new ArrayList<DefaultChannelFuture>();
+		private boolean slow;
+		
+		@Override
+		public ChannelFuture write(Object message) {
+			frames.add(((DefaultWebSocketFrame) message).getTextData());
+			if(!slow) {
+				return Channels.succeededFuture(this);
+			}
+			DefaultChannelFuture future = new DefaultChannelFuture(this, false);
+			pendingWrites.add(future);
+			return future;
+		}
+		
+		private void completeWrites() {
+			while(!pendingWrites.isEmpty()) {
+				pendingWrites.remove(0).setSuccess();
+			}
+		}
+	}
+}
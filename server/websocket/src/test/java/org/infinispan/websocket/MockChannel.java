@@ -32,6 +32,7 @@ import org.jboss.netty.channel.ChannelConfig;
 import org.jboss.netty.channel.ChannelFactory;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.Channels;
 import org.jboss.netty.handler.codec.http.websocket.DefaultWebSocketFrame;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -95,7 +96,7 @@ public class MockChannel implements Channel {
 		} else {
 			throw new IllegalStateException("Expected a DefaultWebSocketFrame.");
 		}
-		return null;
+		return Channels.succeededFuture(this);
 	}
 	
 	public JSONObject getJSONPayload() {